@@ -10,26 +10,42 @@
  *******************************************************************************/
 package org.eclipse.jdt.core.groovy.tests.builder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 import junit.framework.Test;
 
 import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.PropertyNode;
 import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.groovy.ast.stmt.ReturnStatement;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
+import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNodeCache;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
+import org.codehaus.jdt.groovy.internal.compiler.ast.TransformLoaderPool;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
@@ -37,6 +53,7 @@ import org.eclipse.jdt.core.tests.builder.Problem;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
 import org.eclipse.jdt.core.tests.util.Util;
 import org.eclipse.jdt.core.util.CompilerUtils;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.groovy.search.VariableScope;
 import org.eclipse.jdt.internal.core.builder.AbstractImageBuilder;
 
@@ -46,6 +63,8 @@ import org.eclipse.jdt.internal.core.builder.AbstractImageBuilder;
  */
 public class BasicGroovyBuildTests extends GroovierBuilderTests {
 
+	private static final String TRANSFORM_SERVICES = "META-INF/services/org.codehaus.groovy.transform.ASTTransformation";
+
 	public BasicGroovyBuildTests(String name) {
 		super(name);
 	}
@@ -2684,6 +2703,392 @@ public class BasicGroovyBuildTests extends GroovierBuilderTests {
 		assertEquals("Wrong classnode found", "java.net.URL", url.getName());
 	}
 
+	public void testOnlyLanguageTypesSharedAcrossResolvers() throws Exception {
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.addGroovyNature("Project");
+		env.removePackageFragmentRoot(projectPath, "");
+		env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+
+		env.addGroovyClass(projectPath.append("src"), "p", "Groov", "package p\n");
+		env.addGroovyClass(projectPath.append("src"), "q", "Groov", "package q\n");
+		IJavaProject javaProject = env.getJavaProject("Project");
+		ClassNode[] lists = new ClassNode[2];
+		ClassNode[] strings = new ClassNode[2];
+		String[] names = { "p.Groov", "q.Groov" };
+		for (int i = 0; i < names.length; i++) {
+			GroovyCompilationUnit unit = (GroovyCompilationUnit) javaProject.findType(names[i]).getCompilationUnit();
+			unit.becomeWorkingCopy(null);
+			try {
+				ModuleNodeInfo moduleInfo = unit.getModuleInfo(true);
+				JDTResolver resolver = moduleInfo.resolver;
+				resolver.currentClass = moduleInfo.module.getScriptClassDummy();
+				lists[i] = resolver.resolve("java.util.List");
+				strings[i] = resolver.resolve("java.lang.String");
+			} finally {
+				unit.discardWorkingCopy();
+			}
+		}
+		for (int i = 0; i < names.length; i++) {
+			assertTrue("Library types should be resolved through JDT", lists[i] instanceof JDTClassNode);
+			assertNotSame("Library types should not be shared with ClassHelper", ClassHelper.LIST_TYPE, lists[i]);
+			assertSame("java.lang.String should be the shared ClassHelper node", ClassHelper.STRING_TYPE, strings[i]);
+		}
+		assertNotSame("Reconciles should not share JDT backed nodes", lists[0], lists[1]);
+	}
+
+	/**
+	 * Checks that the builds of a project reuse the nodes of library types until the classpath of the project changes.
+	 */
+	public void testLibraryNodesSharedAcrossBuilds() throws Exception {
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.addGroovyNature("Project");
+		env.removePackageFragmentRoot(projectPath, "");
+		IPath root = env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+
+		JDTResolver.recordInstances = true;
+		try {
+			env.addGroovyClass(root, "p", "Groov", "package p\n" +
+					"class Groov {\n" +
+					"  int count(List<String> list) { list.size() }\n" +
+					"}\n");
+			fullBuild(projectPath);
+			expectingNoProblems();
+			JDTResolver firstResolver = getLastResolverCaching("java.util.List<E>");
+			ClassNode first = firstResolver.getCachedNode("java.util.List<E>");
+			assertTrue("Library nodes should be kept for the project",
+					JDTClassNodeCache.getInstance().getNodeCount("Project") > 0);
+
+			env.addGroovyClass(root, "p", "Groov", "package p\n" +
+					"class Groov {\n" +
+					"  int count(List<String> list) { list.size() + 1 }\n" +
+					"}\n");
+			incrementalBuild(projectPath);
+			expectingNoProblems();
+			JDTResolver secondResolver = getLastResolverCaching("java.util.List<E>");
+			assertNotSame("The next build should use its own resolver", firstResolver, secondResolver);
+			assertSame("The node for java.util.List should be reused by the next build", first,
+					secondResolver.getCachedNode("java.util.List<E>"));
+
+			// a new source folder changes the classpath of the project
+			IPath root2 = env.addPackageFragmentRoot(projectPath, "src2");
+			env.addGroovyClass(root2, "q", "Other", "package q\n" +
+					"class Other {\n" +
+					"  int count(List<String> list) { list.size() }\n" +
+					"}\n");
+			incrementalBuild(projectPath);
+			expectingNoProblems();
+			ClassNode third = getLastResolverCaching("java.util.List<E>").getCachedNode("java.util.List<E>");
+			assertNotSame("The nodes should be discarded when the classpath changes", first, third);
+		} finally {
+			JDTResolver.recordInstances = false;
+			JDTResolver.instances = null;
+		}
+	}
+
+	/**
+	 * @return the most recent resolver that has a node cached under the name
+	 */
+	private JDTResolver getLastResolverCaching(String name) {
+		List<JDTResolver> instances = JDTResolver.instances;
+		assertNotNull("No resolvers recorded", instances);
+		for (int i = instances.size() - 1; i >= 0; i--) {
+			if (instances.get(i).getCachedNode(name) != null) {
+				return instances.get(i);
+			}
+		}
+		fail("No resolver has converted " + name);
+		return null;
+	}
+
+	/**
+	 * Checks that nodes created by a resolver can be found again by name through {@link JDTResolver#getCachedNode(String)}.
+	 */
+	public void testCachedNodeLookup() throws Exception {
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.addGroovyNature("Project");
+		env.removePackageFragmentRoot(projectPath, "");
+		env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+
+		env.addGroovyClass(projectPath.append("src"), "p", "Groov", "package p\n");
+		GroovyCompilationUnit unit = (GroovyCompilationUnit) env.getJavaProject("Project").findType("p.Groov")
+				.getCompilationUnit();
+		unit.becomeWorkingCopy(null);
+		try {
+			ModuleNodeInfo moduleInfo = unit.getModuleInfo(true);
+			JDTResolver resolver = moduleInfo.resolver;
+			resolver.currentClass = moduleInfo.module.getScriptClassDummy();
+
+			String[] names = { "java.net.URL", "java.util.List", "java.io.File", "java.util.concurrent.TimeUnit" };
+			for (String name : names) {
+				ClassNode node = resolver.resolve(name);
+				assertTrue("Should have resolved " + name + " through JDT", node instanceof JDTClassNode);
+				String readableName = new String(((JDTClassNode) node).getJdtBinding().readableName());
+				assertTrue("Unexpected readable name " + readableName, readableName.startsWith(name));
+				assertSame("Wrong node cached for " + readableName, node, resolver.getCachedNode(readableName));
+			}
+			assertNull(resolver.getCachedNode("java.util.NoSuchType"));
+		} finally {
+			unit.discardWorkingCopy();
+		}
+	}
+
+	public void testMethodsMaterializedPerSelector() throws Exception {
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.addGroovyNature("Project");
+		env.removePackageFragmentRoot(projectPath, "");
+		env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+
+		env.addGroovyClass(projectPath.append("src"), "p", "Groov", "package p\n");
+		GroovyCompilationUnit unit = (GroovyCompilationUnit) env.getJavaProject("Project").findType("p.Groov")
+				.getCompilationUnit();
+		unit.becomeWorkingCopy(null);
+		try {
+			ModuleNodeInfo moduleInfo = unit.getModuleInfo(true);
+			JDTResolver resolver = moduleInfo.resolver;
+			resolver.currentClass = moduleInfo.module.getScriptClassDummy();
+			JDTClassNode node = (JDTClassNode) resolver.resolve("java.util.Hashtable");
+			assertEquals("Nothing should be materialized before the members are asked for", 0, node.getMaterializedMemberCount());
+
+			List<MethodNode> puts = node.getDeclaredMethods("put");
+			assertEquals(1, puts.size());
+			assertEquals("Only the 'put' method should have been materialized", 1, node.getMaterializedMemberCount());
+			assertNotNull("Walking up the hierarchy should not need the members", node.getSuperClass());
+			assertEquals(1, node.getMaterializedMemberCount());
+
+			int total = node.getMethods().size() + node.getDeclaredConstructors().size() + node.getFields().size();
+			assertEquals("Every member should be materialized exactly once", total, node.getMaterializedMemberCount());
+			assertTrue("Node materialized for 'put' should be reused", node.getMethods().contains(puts.get(0)));
+			assertEquals(puts, node.getDeclaredMethods("put"));
+		} finally {
+			unit.discardWorkingCopy();
+		}
+	}
+
+	public void testTransformLoaderJarsSharedBetweenProjects() throws Exception {
+		TransformLoaderPool pool = TransformLoaderPool.getInstance();
+		IPath[] projectPaths = new IPath[2];
+		for (int i = 0; i < projectPaths.length; i++) {
+			projectPaths[i] = env.addProject("Project" + i);
+			env.addExternalJars(projectPaths[i], Util.getJavaClassLibs());
+			env.addGroovyJars(projectPaths[i]);
+			env.removePackageFragmentRoot(projectPaths[i], "");
+			IPath root = env.addPackageFragmentRoot(projectPaths[i], "src");
+			env.setOutputFolder(projectPaths[i], "bin");
+			env.addGroovyClass(root, "p", "Hello", "package p\nclass Hello {}\n");
+		}
+
+		fullBuild(projectPaths[0]);
+		expectingNoProblems();
+		int opened = pool.getJarsOpened();
+		fullBuild(projectPaths[1]);
+		expectingNoProblems();
+		assertEquals("Jars already opened for the first project should be shared with the second", opened,
+				pool.getJarsOpened());
+
+		// the loader is reused as long as nothing changes
+		incrementalBuild(projectPaths[1]);
+		assertEquals(opened, pool.getJarsOpened());
+	}
+
+	public void testGlobalTransformFoundAfterJarChanges() throws Exception {
+		Map<String, byte[]> classes = buildMarkerTransforms();
+		TransformLoaderPool pool = TransformLoaderPool.getInstance();
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.removePackageFragmentRoot(projectPath, "");
+		IPath root = env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+		IPath hello = env.addGroovyClass(root, "p", "Hello", "package p\nclass Hello {}\n");
+		IFile jar = env.getWorkspace().getRoot().getFile(projectPath.append("transforms.jar"));
+		jar.create(new ByteArrayInputStream(createTransformArchive(classes, "Marker")), true, null);
+		env.addLibrary(projectPath, jar.getFullPath(), null, null);
+
+		fullBuild(projectPath);
+		assertTrue("Expected the transform to run", hasProblem(hello, "Marker ran"));
+		int opened = pool.getJarsOpened();
+
+		// the service scan of the old loader is cached, the changed jar must get a new loader and a new scan
+		jar.setContents(new ByteArrayInputStream(createTransformArchive(classes, "Marker2")), true, false, null);
+		env.addGroovyClass(root, "p", "Hello", "package p\nclass Hello { }\n");
+		incrementalBuild(projectPath);
+		assertTrue("Expected the transform loader to be rebuilt", pool.getJarsOpened() > opened);
+		assertTrue("Expected the transform from the changed jar to run", hasProblem(hello, "Marker2 ran"));
+		assertFalse("Did not expect the transform from the old jar to run", hasProblem(hello, "Marker ran"));
+	}
+
+	public void testGlobalTransformServicesFromClassFolderNotCached() throws Exception {
+		Map<String, byte[]> classes = buildMarkerTransforms();
+		File folder = new File(Util.getOutputDirectory(), "transformsFolder");
+		Util.delete(folder);
+		try {
+			for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+				writeFile(new File(folder, entry.getKey()), entry.getValue());
+			}
+			File services = new File(folder, TRANSFORM_SERVICES);
+			writeFile(services, "t.Marker\n".getBytes("UTF-8"));
+
+			IPath projectPath = env.addProject("Project");
+			env.addExternalJars(projectPath, Util.getJavaClassLibs());
+			env.addGroovyJars(projectPath);
+			env.addExternalFolders(projectPath, new String[] { folder.getAbsolutePath() });
+			env.removePackageFragmentRoot(projectPath, "");
+			IPath root = env.addPackageFragmentRoot(projectPath, "src");
+			env.setOutputFolder(projectPath, "bin");
+			IPath hello = env.addGroovyClass(root, "p", "Hello", "package p\nclass Hello {}\n");
+
+			fullBuild(projectPath);
+			assertTrue("Expected the transform to run", hasProblem(hello, "Marker ran"));
+			Object loader = getTransformLoader("Project");
+			assertNotNull(loader);
+
+			// class folders are not fingerprinted, so the loader is kept and only an uncached scan sees the change
+			writeFile(services, "t.Marker2\n".getBytes("UTF-8"));
+			env.addGroovyClass(root, "p", "Hello", "package p\nclass Hello { }\n");
+			incrementalBuild(projectPath);
+			assertSame("Expected the transform loader to be reused", loader, getTransformLoader("Project"));
+			assertTrue("Expected the transform named by the changed service file to run", hasProblem(hello, "Marker2 ran"));
+			assertFalse("Did not expect the transform of the old service file to run", hasProblem(hello, "Marker ran"));
+		} finally {
+			Util.delete(folder);
+		}
+	}
+
+	/**
+	 * Builds two global transforms, t.Marker and t.Marker2, in a project of their own. Each of them reports an error naming
+	 * itself on every module it visits.
+	 * 
+	 * @return the class files of the transforms by their path in an archive
+	 */
+	private Map<String, byte[]> buildMarkerTransforms() throws Exception {
+		IPath projectPath = env.addProject("Transforms");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.removePackageFragmentRoot(projectPath, "");
+		IPath root = env.addPackageFragmentRoot(projectPath, "src");
+		IPath output = env.setOutputFolder(projectPath, "bin");
+		String[] names = { "Marker", "Marker2" };
+		for (String name : names) {
+			env.addClass(root, "t", name, "package t;\n" + "import org.codehaus.groovy.ast.ASTNode;\n"
+					+ "import org.codehaus.groovy.control.CompilePhase;\n" + "import org.codehaus.groovy.control.SourceUnit;\n"
+					+ "import org.codehaus.groovy.control.messages.SyntaxErrorMessage;\n"
+					+ "import org.codehaus.groovy.syntax.SyntaxException;\n"
+					+ "import org.codehaus.groovy.transform.ASTTransformation;\n"
+					+ "import org.codehaus.groovy.transform.GroovyASTTransformation;\n"
+					+ "@GroovyASTTransformation(phase = CompilePhase.CONVERSION)\n" + "public class " + name
+					+ " implements ASTTransformation {\n" + "  public void visit(ASTNode[] nodes, SourceUnit source) {\n"
+					+ "    source.getErrorCollector().addErrorAndContinue(\n" + "      new SyntaxErrorMessage(new SyntaxException(\""
+					+ name + " ran\", 1, 1), source));\n" + "  }\n" + "}\n");
+		}
+		fullBuild(projectPath);
+		expectingNoProblemsFor(projectPath);
+
+		Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+		for (String name : names) {
+			IFile classFile = env.getWorkspace().getRoot().getFile(output.append("t/" + name + ".class"));
+			classes.put("t/" + name + ".class",
+					org.eclipse.jdt.internal.compiler.util.Util.getFileByteContent(classFile.getLocation().toFile()));
+		}
+		return classes;
+	}
+
+	/**
+	 * @return a jar holding the given transform, registered as a global transform
+	 */
+	private static byte[] createTransformArchive(Map<String, byte[]> classes, String transform) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		JarOutputStream jar = new JarOutputStream(bytes);
+		try {
+			jar.putNextEntry(new JarEntry(TRANSFORM_SERVICES));
+			jar.write(("t." + transform + "\n").getBytes("UTF-8"));
+			jar.closeEntry();
+			String classFile = "t/" + transform + ".class";
+			jar.putNextEntry(new JarEntry(classFile));
+			jar.write(classes.get(classFile));
+			jar.closeEntry();
+		} finally {
+			jar.close();
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void writeFile(File file, byte[] contents) throws IOException {
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(contents);
+		} finally {
+			out.close();
+		}
+	}
+
+	private boolean hasProblem(IPath path, String message) {
+		for (Problem problem : env.getProblemsFor(path)) {
+			if (problem.getMessage().indexOf(message) != -1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void setParseParallelism(int value) throws Exception {
+		ReflectionUtils.throwableExecutePrivateMethod(GroovyParser.class, "setParseParallelism", new Class<?>[] { int.class }, null,
+				new Object[] { value });
+	}
+
+	private static Object getTransformLoader(String projectName) {
+		Map<?, ?> projectLoaders = (Map<?, ?>) ReflectionUtils.getPrivateField(TransformLoaderPool.class, "projectLoaders",
+				TransformLoaderPool.getInstance());
+		synchronized (TransformLoaderPool.getInstance()) {
+			return projectLoaders.get(projectName);
+		}
+	}
+
+	public void testParallelParsing() throws Exception {
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.removePackageFragmentRoot(projectPath, "");
+		IPath root = env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+
+		env.addClass(root, "p", "J", "package p;\npublic class J extends G0 {}\n");
+		for (int i = 0; i < 8; i++) {
+			env.addGroovyClass(root, "p", "G" + i, "package p\nclass G" + i + " {\n  G" + ((i + 1) % 8) + " next\n}\n");
+		}
+		IPath broken = env.addGroovyClass(root, "p", "Broken", "package p\nclass Broken {\n  def x = \n}\n");
+		IPath unresolved = env.addGroovyClass(root, "p", "Unresolved", "package p\nclass Unresolved extends Missing {}\n");
+
+		fullBuild(projectPath);
+		List<Problem> sequentialProblems = Arrays.asList(env.getProblems());
+
+		int parallelism = GroovyParser.getParseParallelism();
+		try {
+			setParseParallelism(4);
+			fullBuild(projectPath);
+		} finally {
+			setParseParallelism(parallelism);
+		}
+		List<Problem> parallelProblems = Arrays.asList(env.getProblems());
+
+		assertTrue("Expected a syntax error", env.getProblemsFor(broken).length > 0);
+		assertTrue("Expected a resolution error", env.getProblemsFor(unresolved).length > 0);
+		assertEquals("Parallel parsing should report the same problems", sequentialProblems.size(), parallelProblems.size());
+		assertTrue("Parallel parsing should report the same problems", parallelProblems.containsAll(sequentialProblems));
+	}
+
 	// GRECLIPSE-1170
 	public void testFieldInitializerFromOtherFile() throws Exception {
 		IPath projectPath = env.addProject("Project");
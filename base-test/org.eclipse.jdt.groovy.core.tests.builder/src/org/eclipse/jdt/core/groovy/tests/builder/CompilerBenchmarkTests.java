@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.groovy.tests.builder;
+
+import junit.framework.Test;
+
+import org.codehaus.jdt.groovy.internal.compiler.ast.PhaseStatistics;
+import org.codehaus.jdt.groovy.internal.compiler.ast.PhaseStatistics.Stage;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.tests.util.Util;
+
+/**
+ * Measures the stages of the Groovy to JDT compile bridge (dietParse, processToPhase, populateCompilationUnitDeclaration and
+ * JDTResolver.resolve) by running full builds over generated corpora shaped like the code the compiler sees in the wild: a
+ * synthetic mix, scripts, Spock specifications, Grails controllers and large classes. For each corpus the per stage counts,
+ * times, throughput and allocation rates collected by {@link PhaseStatistics} are printed, so that numbers can be compared
+ * before and after upgrading the compiler.
+ * <p>
+ * These are benchmarks rather than tests and they are not part of the regular test suites. The number of measured builds per
+ * corpus can be set with the system property <code>greclipse.benchmark.iterations</code> and the number of files per corpus with
+ * <code>greclipse.benchmark.files</code>.
+ */
+public class CompilerBenchmarkTests extends GroovierBuilderTests {
+
+	private static final int ITERATIONS = Integer.getInteger("greclipse.benchmark.iterations", 5);
+
+	private static final int FILES = Integer.getInteger("greclipse.benchmark.files", 50);
+
+	public CompilerBenchmarkTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return buildTestSuite(CompilerBenchmarkTests.class);
+	}
+
+	private interface CorpusGenerator {
+		String generate(String pkg, String name, int index);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		PhaseStatistics.setEnabled(false);
+		PhaseStatistics.reset();
+		super.tearDown();
+	}
+
+	public void testSyntheticCorpus() throws Exception {
+		runBenchmark("synthetic", new CorpusGenerator() {
+			public String generate(String pkg, String name, int index) {
+				StringBuilder sb = new StringBuilder();
+				sb.append("package ").append(pkg).append("\n");
+				sb.append("import java.util.concurrent.ConcurrentHashMap\n");
+				sb.append("class ").append(name).append(" implements Comparable<").append(name).append("> {\n");
+				sb.append("  String name\n  int size\n  List<String> tags = []\n");
+				sb.append("  Map<String, Integer> counts = new ConcurrentHashMap<String, Integer>()\n");
+				sb.append("  int compareTo(").append(name).append(" other) { size <=> other.size }\n");
+				sb.append("  String describe() { \"${name.toUpperCase()} ${tags.join(',')} ${counts.size()}\" }\n");
+				sb.append("  List<Integer> sizes(List<").append(name).append("> others) { others.collect { it.size + ")
+						.append(index).append(" } }\n");
+				sb.append("}\n");
+				return sb.toString();
+			}
+		});
+	}
+
+	public void testScriptCorpus() throws Exception {
+		runBenchmark("scripts", new CorpusGenerator() {
+			public String generate(String pkg, String name, int index) {
+				StringBuilder sb = new StringBuilder();
+				sb.append("package ").append(pkg).append("\n");
+				sb.append("def words = ['alpha', 'beta', 'gamma', 'delta']\n");
+				sb.append("def lengths = words.collectEntries { [it, it.length()] }\n");
+				sb.append("def total = 0\n");
+				sb.append("for (entry in lengths) {\n  total += entry.value\n}\n");
+				sb.append("def file = new File('build" + index + ".txt')\n");
+				sb.append("if (file.exists()) {\n  file.eachLine { line -> println line.trim() }\n}\n");
+				sb.append("def closure = { int a, int b -> a * b + total }\n");
+				sb.append("println \"result ${closure(2, 3)} ${words.findAll { it.startsWith('a') }}\"\n");
+				return sb.toString();
+			}
+		});
+	}
+
+	public void testSpecificationCorpus() throws Exception {
+		// shaped like Spock specifications, without needing Spock on the classpath
+		runBenchmark("specifications", new CorpusGenerator() {
+			public String generate(String pkg, String name, int index) {
+				StringBuilder sb = new StringBuilder();
+				sb.append("package ").append(pkg).append("\n");
+				sb.append("class ").append(name).append(" {\n");
+				sb.append("  def stack = new Stack<Integer>()\n");
+				for (int i = 0; i < 5; i++) {
+					sb.append("  def \"pushing element ").append(i).append(" onto the stack\"() {\n");
+					sb.append("    given:\n    def element = ").append(i).append("\n");
+					sb.append("    when:\n    stack.push(element)\n");
+					sb.append("    then:\n    stack.size() == 1\n    stack.peek() == element\n");
+					sb.append("    where:\n    x << [1, 2, 3]\n");
+					sb.append("  }\n");
+				}
+				sb.append("}\n");
+				return sb.toString();
+			}
+		});
+	}
+
+	public void testControllerCorpus() throws Exception {
+		// shaped like Grails controllers, without needing Grails on the classpath
+		runBenchmark("controllers", new CorpusGenerator() {
+			public String generate(String pkg, String name, int index) {
+				StringBuilder sb = new StringBuilder();
+				sb.append("package ").append(pkg).append("\n");
+				sb.append("class ").append(name).append(" {\n");
+				sb.append("  static allowedMethods = [save: 'POST', update: 'POST', delete: 'POST']\n");
+				sb.append("  def params = [:]\n  def flash = [:]\n");
+				sb.append("  def index() { redirect(action: 'list', params: params) }\n");
+				sb.append("  def list(Integer max) {\n    params.max = Math.min(max ?: 10, 100)\n");
+				sb.append("    [items: [], total: 0]\n  }\n");
+				sb.append("  def show(Long id) {\n    def item = [id: id]\n    if (!item) {\n");
+				sb.append("      flash.message = \"not found ${id}\"\n      redirect(action: 'list')\n      return\n    }\n");
+				sb.append("    [item: item]\n  }\n");
+				sb.append("  def redirect(Map args) { args }\n");
+				sb.append("}\n");
+				return sb.toString();
+			}
+		});
+	}
+
+	public void testLargeClassCorpus() throws Exception {
+		runBenchmark("large classes", new CorpusGenerator() {
+			public String generate(String pkg, String name, int index) {
+				StringBuilder sb = new StringBuilder();
+				sb.append("package ").append(pkg).append("\n");
+				sb.append("class ").append(name).append(" {\n");
+				for (int i = 0; i < 100; i++) {
+					sb.append("  String field").append(i).append(" = 'value").append(i).append("'\n");
+				}
+				for (int i = 0; i < 100; i++) {
+					sb.append("  int method").append(i).append("(int a, String b) {\n");
+					sb.append("    def list = [a, b.length(), field").append(i).append(".size()]\n");
+					sb.append("    return list.sum() + (a > ").append(i).append(" ? method").append(i == 0 ? 0 : i - 1)
+							.append("(a - 1, b) : 0)\n");
+					sb.append("  }\n");
+				}
+				sb.append("}\n");
+				return sb.toString();
+			}
+		});
+	}
+
+	private void runBenchmark(String corpusName, CorpusGenerator generator) throws Exception {
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.addGroovyNature("Project");
+		env.removePackageFragmentRoot(projectPath, "");
+		IPath root = env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+
+		for (int i = 0; i < FILES; i++) {
+			String pkg = "p" + (i % 5);
+			String name = "Corpus" + i;
+			env.addGroovyClass(root, pkg, name, generator.generate(pkg, name, i));
+		}
+
+		// warm up the compiler and the caches behind it
+		fullBuild(projectPath);
+		expectingNoErrors();
+
+		PhaseStatistics.reset();
+		PhaseStatistics.setEnabled(true);
+		long stime = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			fullBuild(projectPath);
+		}
+		long elapsed = System.nanoTime() - stime;
+		PhaseStatistics.setEnabled(false);
+		expectingNoErrors();
+
+		assertTrue("Every file should have been parsed in every build",
+				PhaseStatistics.getCount(Stage.DIET_PARSE) >= FILES * ITERATIONS);
+		System.out.println("Corpus '" + corpusName + "': " + FILES + " files, " + ITERATIONS + " full builds in "
+				+ (elapsed / 1000000) + "ms, " + (FILES * ITERATIONS * 1000000000L / Math.max(1, elapsed)) + " files/s");
+		System.out.println(PhaseStatistics.dump());
+	}
+}
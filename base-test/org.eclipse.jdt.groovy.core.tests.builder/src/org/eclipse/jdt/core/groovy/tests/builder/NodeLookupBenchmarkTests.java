@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.groovy.tests.builder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import junit.framework.Test;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
+import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.tests.util.Util;
+
+/**
+ * Fills a resolver with nodes for (up to) 10000 JRE types and compares looking them up by name through
+ * {@link JDTResolver#getCachedNode(String)} with the linear scan over all cached bindings that it used to do.
+ * <p>
+ * This is a benchmark rather than a test and it is not part of the regular test suites. The number of nodes can be set with the
+ * system property <code>greclipse.benchmark.nodes</code> and the number of lookups with <code>greclipse.benchmark.lookups</code>.
+ */
+public class NodeLookupBenchmarkTests extends GroovierBuilderTests {
+
+	private static final int NODES = Integer.getInteger("greclipse.benchmark.nodes", 10000);
+
+	private static final int LOOKUPS = Integer.getInteger("greclipse.benchmark.lookups", 1000);
+
+	public NodeLookupBenchmarkTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return buildTestSuite(NodeLookupBenchmarkTests.class);
+	}
+
+	public void testCachedNodeLookup() throws Exception {
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.addGroovyNature("Project");
+		env.removePackageFragmentRoot(projectPath, "");
+		env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+
+		env.addGroovyClass(projectPath.append("src"), "p", "Groov", "package p\n");
+		GroovyCompilationUnit unit = (GroovyCompilationUnit) env.getJavaProject("Project").findType("p.Groov")
+				.getCompilationUnit();
+		unit.becomeWorkingCopy(null);
+		try {
+			ModuleNodeInfo moduleInfo = unit.getModuleInfo(true);
+			JDTResolver resolver = moduleInfo.resolver;
+			resolver.currentClass = moduleInfo.module.getScriptClassDummy();
+
+			List<JDTClassNode> nodes = new ArrayList<JDTClassNode>();
+			for (String lib : Util.getJavaClassLibs()) {
+				if (!new File(lib).isFile()) {
+					continue;
+				}
+				ZipFile zip = new ZipFile(lib);
+				try {
+					for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements() && nodes.size() < NODES;) {
+						String entryName = entries.nextElement().getName();
+						if (entryName.endsWith(".class") && entryName.indexOf('$') == -1) {
+							ClassNode node = resolver.resolve(entryName.substring(0, entryName.length() - 6).replace('/', '.'));
+							if (node instanceof JDTClassNode) {
+								nodes.add((JDTClassNode) node);
+							}
+						}
+					}
+				} finally {
+					zip.close();
+				}
+			}
+			assertFalse("Should have resolved some JRE types", nodes.isEmpty());
+
+			String[] names = new String[nodes.size()];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = new String(nodes.get(i).getJdtBinding().readableName());
+			}
+			int lookups = Math.min(names.length, LOOKUPS);
+			int stride = Math.max(1, names.length / lookups);
+
+			// the old implementation: walk every cached binding, building its name
+			long stime = System.nanoTime();
+			for (int i = 0; i < lookups; i++) {
+				String name = names[(i * stride) % names.length];
+				for (JDTClassNode node : nodes) {
+					if (new String(node.getJdtBinding().readableName()).equals(name)) {
+						break;
+					}
+				}
+			}
+			long scanTime = System.nanoTime() - stime;
+
+			stime = System.nanoTime();
+			for (int i = 0; i < lookups; i++) {
+				int index = (i * stride) % names.length;
+				assertSame(nodes.get(index), resolver.getCachedNode(names[index]));
+			}
+			long indexTime = System.nanoTime() - stime;
+
+			System.out.println(lookups + " lookups on a resolver holding " + nodes.size() + " nodes: scan "
+					+ (scanTime / 1000000) + "ms, index " + (indexTime / 1000000) + "ms");
+		} finally {
+			unit.discardWorkingCopy();
+		}
+	}
+}
@@ -11,11 +11,18 @@
 
 package org.eclipse.jdt.core.groovy.tests.model;
 
+import java.io.ByteArrayInputStream;
 import java.util.HashMap;
 
 import junit.framework.Test;
 
 import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.groovy.ast.expr.TupleExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.ast.stmt.ExpressionStatement;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.ModuleNodeMapper;
 import org.eclipse.core.resources.IFile;
@@ -177,9 +184,58 @@ public class GroovyCompilationUnitTests extends AbstractGroovyTypeRootTests {
         GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
         ModuleNode node1 = unit1.getModuleNode();
         ModuleNode node2 = unit1.getModuleNode();
-        assertFalse("Multiple calls to getModuleNode should return the different objects if unit is not a working copy", node1 == node2);
+        assertTrue("Multiple calls to getModuleNode should return the same cached object if the unit has not changed", node1 == node2);
     }
     
+    public void testGetModuleNode_8a() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        ModuleNode node1 = unit1.getModuleNode();
+        groovyFile.setContents(new ByteArrayInputStream("package p1\nclass Hello { def x }\n".getBytes()), true, false, null);
+        ModuleNode node2 = unit1.getModuleNode();
+        assertFalse("Changing the contents of the unit should invalidate the cached module node", node1 == node2);
+    }
+    
+    public void testGetModuleNode_8b() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        IPath otherPath = env.addProject("Other"); //$NON-NLS-1$
+        env.addExternalJars(otherPath, Util.getJavaClassLibs());
+        env.removePackageFragmentRoot(otherPath, ""); //$NON-NLS-1$
+        IPath otherRoot = env.addPackageFragmentRoot(otherPath, "src"); //$NON-NLS-1$
+        env.setOutputFolder(otherPath, "bin"); //$NON-NLS-1$
+        env.addRequiredProject(groovyFile.getProject().getFullPath(), otherPath);
+        env.addClass(otherRoot, "p2", "Other", "package p2;\npublic class Other { }\n");
+        
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        ModuleNode node1 = unit1.getModuleNode();
+        assertTrue("Cached module node should be reused", node1 == unit1.getModuleNode());
+        env.addClass(otherRoot, "p2", "Other", "package p2;\npublic class Other { public int x; }\n");
+        ModuleNode node2 = unit1.getModuleNode();
+        assertFalse("Changing a required project should invalidate the cached module node", node1 == node2);
+    }
+
+    public void testGetModuleNode_8c() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        ModuleNodeMapper.ModuleNodeInfo info1 = unit1.getModuleInfo(true);
+        ModuleNodeMapper.ModuleNodeInfo info2 = unit1.getModuleInfo(true);
+        assertTrue("Cached module node should be reused", info1.module == info2.module);
+        assertNull("Cached module info should not keep the resolver that built it", info2.resolver);
+    }
+
+    public void testGetModuleNode_8d() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        ModuleNode node1 = unit1.getModuleNode();
+        unit1.getBuffer().setContents("package p1\nclass Hello { def x }\n");
+        try {
+            ModuleNode node2 = unit1.getModuleNode();
+            assertFalse("Unsaved changes in the buffer should bypass the cached module node", node1 == node2);
+        } finally {
+            unit1.close();
+        }
+    }
+
     public void testGetModuleNode_9() throws Exception {
         IFile groovyFile = createSimpleGroovyProject();
         GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
@@ -210,6 +266,80 @@ public class GroovyCompilationUnitTests extends AbstractGroovyTypeRootTests {
         assertTrue("getNewModuleNode() should have forced creation of a new module node", module1 != module2);
     }
     
+    public void testModuleNodeMapperCounters() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        unit1.becomeWorkingCopy(null);
+        try {
+            ModuleNode node1 = unit1.getModuleNode();
+            long hits = ModuleNodeMapper.getHitCount();
+            ModuleNode node2 = unit1.getModuleNode();
+            assertTrue("Multiple calls to getModuleNode should return the same object for a working copy", node1 == node2);
+            assertTrue("Lookup of a stored module node should count as a hit: " + ModuleNodeMapper.getStatistics(), ModuleNodeMapper.getHitCount() > hits);
+        } finally {
+            unit1.discardWorkingCopy();
+        }
+        assertTrue("ModuleNodeMapper should be empty when there are no working copies", ModuleNodeMapper.isEmpty());
+    }
+    
+    public void testIncrementalReconcile_1() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        unit1.becomeWorkingCopy(null);
+        try {
+            ModuleNode node1 = unit1.getModuleNode();
+            String contents = new String(unit1.getContents());
+            unit1.getBuffer().replace(contents.indexOf("print"), 0, "def x = 1\n      ");
+            ModuleNode node2 = unit1.getModuleNode();
+            assertTrue("An edit inside a method body should update the existing module node", node1 == node2);
+            BlockStatement code = (BlockStatement) node2.getClasses().get(0).getMethods("main").get(0).getCode();
+            assertEquals("Method body should contain the new statement", 2, code.getStatements().size());
+            assertEquals("New statement should start where it was inserted", contents.indexOf("print"), code.getStatements().get(0).getStart());
+            IType type = unit1.getType("Hello");
+            assertEquals("Java model should be shifted as well", contents.lastIndexOf('}') + "def x = 1\n      ".length(),
+                    type.getSourceRange().getOffset() + type.getSourceRange().getLength() - 1);
+        } finally {
+            unit1.discardWorkingCopy();
+        }
+    }
+    
+    public void testIncrementalReconcile_2() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        unit1.becomeWorkingCopy(null);
+        try {
+            ModuleNode node1 = unit1.getModuleNode();
+            String contents = new String(unit1.getContents());
+            unit1.getBuffer().replace(contents.indexOf("static"), 0, "def x = 1\n   ");
+            ModuleNode node2 = unit1.getModuleNode();
+            assertFalse("An edit outside of a method body should require a full reconcile", node1 == node2);
+        } finally {
+            unit1.discardWorkingCopy();
+        }
+    }
+    
+    public void testIncrementalReconcile_3() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        unit1.becomeWorkingCopy(null);
+        try {
+            String contents = new String(unit1.getContents());
+            unit1.getBuffer().replace(contents.indexOf("print"), "print \"Hello world\"".length(), "def String = 'x'\n      print 1");
+            ModuleNode node1 = unit1.getModuleNode();
+            contents = new String(unit1.getContents());
+            unit1.getBuffer().replace(contents.indexOf("print 1") + "print ".length(), 1, "String");
+            ModuleNode node2 = unit1.getModuleNode();
+            assertTrue("An edit inside a method body should update the existing module node", node1 == node2);
+            BlockStatement code = (BlockStatement) node2.getClasses().get(0).getMethods("main").get(0).getCode();
+            MethodCallExpression call = (MethodCallExpression) ((ExpressionStatement) code.getStatements().get(1)).getExpression();
+            Expression argument = ((TupleExpression) call.getArguments()).getExpression(0);
+            assertTrue("A local variable should not be taken for a type: " + argument, argument instanceof VariableExpression);
+            assertTrue("Should refer to the local variable", ((VariableExpression) argument).getAccessedVariable() instanceof VariableExpression);
+        } finally {
+            unit1.discardWorkingCopy();
+        }
+    }
+    
     
     public void testMarkerAnnotation_1() throws Exception {
     	IPath root = createAnnotationGroovyProject();
@@ -42,6 +42,11 @@ public class AllSearchTests {
         suite.addTestSuite(SyntheticAccessorInferencingTests.class);
         suite.addTestSuite(Groovy20InferencingTests.class);
         suite.addTestSuite(GenericsMappingTest.class);
+        suite.addTestSuite(GroovyTokenIndexerTests.class);
+        suite.addTestSuite(ParallelIndexingTests.class);
+        suite.addTestSuite(ReferenceNameIndexTests.class);
+        suite.addTestSuite(ParallelSearchTests.class);
+        suite.addTestSuite(OrPatternRequestorTests.class);
         return suite;
     }
 }
@@ -16,7 +16,13 @@
 
 package org.eclipse.jdt.core.groovy.tests.search;
 
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.MethodNode;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
+import org.eclipse.jdt.groovy.search.CategoryMethodIndex;
+import org.eclipse.jdt.groovy.search.VariableScope;
 
 import junit.framework.Test;
 
@@ -373,4 +379,18 @@ public class DGMInferencingTests extends AbstractInferencingTest {
             assertDeclaringType(contents, start, end, "org.codehaus.groovy.runtime.DefaultGroovyMethods");
         }
     }
-}
\ No newline at end of file
+    public void testDGMIndexShared() throws Exception {
+        CategoryMethodIndex index = CategoryMethodIndex.forDefaultCategory(VariableScope.DGM_CLASS_NODE);
+        assertNotNull(index);
+        assertSame("Default categories should be indexed only once", index,
+                CategoryMethodIndex.forDefaultCategory(VariableScope.DGM_CLASS_NODE));
+        assertNull(CategoryMethodIndex.forDefaultCategory(ClassHelper.make(java.util.Collections.class)));
+
+        Set<String> selfTypes = CategoryMethodIndex.getSuperTypeNames(ClassHelper.make(java.util.ArrayList.class));
+        MethodNode each = index.findMethod("each", selfTypes);
+        assertNotNull(each);
+        assertTrue("Self type of " + each + " should accept an ArrayList",
+                selfTypes.contains(each.getParameters()[0].getType().getName()));
+        assertNull(index.findMethod("noSuchMethod", selfTypes));
+    }
+}
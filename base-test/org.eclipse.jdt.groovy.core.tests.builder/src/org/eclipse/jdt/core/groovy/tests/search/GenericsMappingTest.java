@@ -18,7 +18,9 @@
 package org.eclipse.jdt.core.groovy.tests.search;
 
 import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.GenericsType;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.groovy.search.GenericsMapper;
 
 /**
  * Tests for GRECLIPSE-1448
@@ -44,4 +46,41 @@ public class GenericsMappingTest extends AbstractGroovySearchTest {
         assertFalse("resolved super types should not be redirects", classNode.getSuperClass().isRedirectNode());
         assertTrue("unresolved super types should be redirects", classNode.getUnresolvedSuperClass().isRedirectNode());
     }
+
+    public void testGenericsMapperCache() throws Exception {
+        GroovyCompilationUnit unit = createUnit("Search", "class A {\n List<String> strings\n List<Integer> ints\n List<String> more\n}");
+        ClassNode classNode = unit.getModuleNode().getClasses().get(0);
+        ClassNode strings = classNode.getField("strings").getType();
+        ClassNode ints = classNode.getField("ints").getType();
+        ClassNode more = classNode.getField("more").getType();
+        GenericsType elementType = strings.redirect().getGenericsTypes()[0];
+
+        GenericsMapper.Cache cache = new GenericsMapper.Cache();
+        GenericsMapper stringsMapper = cache.gatherGenerics(strings, strings.redirect());
+        assertSame("Same parameterization should reuse the mapper", stringsMapper, cache.gatherGenerics(more, more.redirect()));
+        GenericsMapper intsMapper = cache.gatherGenerics(ints, ints.redirect());
+        assertNotSame("Different parameterizations should not share a mapper", stringsMapper, intsMapper);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        assertEquals("java.lang.String", stringsMapper.resolveParameter(elementType, 0).getName());
+        assertEquals("java.lang.Integer", intsMapper.resolveParameter(elementType, 0).getName());
+    }
+
+    public void testGenericsMapperCacheWithDifferentlyBoundedParameters() throws Exception {
+        GroovyCompilationUnit unit = createUnit("Search",
+                "class A<T extends Number> {\n List<T> nums\n}\nclass B<T extends CharSequence> {\n List<T> chars\n}");
+        ClassNode nums = unit.getModuleNode().getClasses().get(0).getField("nums").getType();
+        ClassNode chars = unit.getModuleNode().getClasses().get(1).getField("chars").getType();
+        GenericsType elementType = nums.redirect().getGenericsTypes()[0];
+
+        GenericsMapper.Cache cache = new GenericsMapper.Cache();
+        GenericsMapper numsMapper = cache.gatherGenerics(nums, nums.redirect());
+        GenericsMapper charsMapper = cache.gatherGenerics(chars, chars.redirect());
+        assertNotSame("Type parameters of the same name should not share a mapper", numsMapper, charsMapper);
+        assertEquals(0, cache.getHits());
+
+        assertSame(nums.getGenericsTypes()[0].getType(), numsMapper.resolveParameter(elementType, 0));
+        assertSame(chars.getGenericsTypes()[0].getType(), charsMapper.resolveParameter(elementType, 0));
+    }
 }
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.codehaus.jdt.groovy.integration.internal.GroovyTokenIndexer;
+import org.codehaus.jdt.groovy.integration.internal.MultiplexingIndexingParser;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.compiler.SourceElementRequestorAdapter;
+import org.eclipse.jdt.internal.compiler.ast.ImportReference;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.jdt.internal.core.search.matching.MethodPattern;
+
+/**
+ * Tests that the {@link GroovyTokenIndexer} finds the declarations a full parse finds, and the references that matter for search.
+ */
+public class GroovyTokenIndexerTests extends TestCase {
+
+    private static final String CLASS_SOURCE = "package p.q\n" +
+            "import java.util.concurrent.ConcurrentHashMap\n" +
+            "import static java.lang.Math.max\n" +
+            "@Deprecated\n" +
+            "class Foo<T extends Comparable<T>> extends Object implements Serializable, Runnable {\n" +
+            "  String name\n" +
+            "  static final Map<String, List<Integer>> MAP = new ConcurrentHashMap<String, List<Integer>>()\n" +
+            "  Foo() { }\n" +
+            "  Foo(String name) { this.name = name }\n" +
+            "  void run() { println max(name.size(), 1) }\n" +
+            "  def \"a spock feature\"() { bar(1, 2) }\n" +
+            "  public <U> U convert(U value, int... rest) throws IOException { value }\n" +
+            "  static class Inner { def x }\n" +
+            "}\n" +
+            "interface Bar {\n" +
+            "  int compute(String s)\n" +
+            "}\n";
+
+    public GroovyTokenIndexerTests(String name) {
+        super(name);
+    }
+
+    private static class RecordingRequestor extends SourceElementRequestorAdapter {
+        final List<String> declarations = new ArrayList<String>();
+        final Set<String> references = new HashSet<String>();
+        final Set<String> methodArities = new HashSet<String>();
+
+        @Override
+        public void acceptPackage(ImportReference importReference) {
+            declarations.add("package " + CharOperation.toString(importReference.tokens));
+        }
+
+        @Override
+        public void enterType(TypeInfo typeInfo) {
+            declarations.add("type " + new String(typeInfo.name)
+                    + (typeInfo.superclass != null ? " extends " + new String(typeInfo.superclass) : ""));
+        }
+
+        @Override
+        public void enterConstructor(MethodInfo methodInfo) {
+            declarations.add("constructor " + new String(methodInfo.name) + "/" + methodInfo.parameterTypes.length);
+        }
+
+        @Override
+        public void enterMethod(MethodInfo methodInfo) {
+            declarations.add("method " + new String(methodInfo.name) + "/" + methodInfo.parameterTypes.length);
+        }
+
+        @Override
+        public void enterField(FieldInfo fieldInfo) {
+            declarations.add("field " + new String(fieldInfo.name));
+        }
+
+        @Override
+        public void acceptAnnotationTypeReference(char[][] annotation, int sourceStart, int sourceEnd) {
+            references.add("annotation " + CharOperation.toString(annotation));
+        }
+
+        @Override
+        public void acceptTypeReference(char[][] typeName, int sourceStart, int sourceEnd) {
+            references.add("type " + new String(typeName[typeName.length - 1]));
+        }
+
+        @Override
+        public void acceptTypeReference(char[] typeName, int sourcePosition) {
+            references.add("type " + new String(typeName));
+        }
+
+        @Override
+        public void acceptConstructorReference(char[] typeName, int argCount, int sourcePosition) {
+            references.add("constructor " + new String(typeName));
+        }
+
+        @Override
+        public void acceptMethodReference(char[] methodName, int argCount, int sourcePosition) {
+            references.add("method " + new String(methodName));
+            methodArities.add(new String(methodName) + "/" + (argCount == MethodPattern.ANY_ARITY ? "*" : argCount));
+        }
+
+        @Override
+        public void acceptFieldReference(char[] fieldName, int sourcePosition) {
+            references.add("field " + new String(fieldName));
+        }
+
+        @Override
+        public void acceptUnknownReference(char[] name, int sourcePosition) {
+            references.add("name " + new String(name));
+        }
+
+        List<String> sortedDeclarations() {
+            List<String> sorted = new ArrayList<String>(declarations);
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+
+    private RecordingRequestor index(String fileName, String contents) {
+        RecordingRequestor requestor = new RecordingRequestor();
+        assertTrue(new GroovyTokenIndexer(requestor).index(new CompilationUnit(contents.toCharArray(), fileName, null)));
+        return requestor;
+    }
+
+    public void testClassDeclarations() throws Exception {
+        RecordingRequestor requestor = index("Foo.groovy", CLASS_SOURCE);
+        assertEquals(Arrays.asList("constructor Foo/0", "constructor Foo/1", "field MAP", "field name", "field x",
+                "method a spock feature/0", "method compute/1", "method convert/2", "method run/0", "package p.q",
+                "type Bar", "type Foo extends Object", "type Inner"), requestor.sortedDeclarations());
+    }
+
+    public void testSameDeclarationsAsFullParse() throws Exception {
+        RecordingRequestor lexed = index("Foo.groovy", CLASS_SOURCE);
+
+        RecordingRequestor parsed = new RecordingRequestor();
+        boolean lexerIndexing = MultiplexingIndexingParser.isLexerIndexing();
+        setLexerIndexing(false);
+        try {
+            new MultiplexingIndexingParser(parsed, new DefaultProblemFactory(), new CompilerOptions(), true, false, false)
+                    .parseCompilationUnit(new CompilationUnit(CLASS_SOURCE.toCharArray(), "Foo.groovy", null), true, null);
+        } finally {
+            setLexerIndexing(lexerIndexing);
+        }
+        for (String declaration : lexed.declarations) {
+            assertTrue(declaration + " should be in " + parsed.sortedDeclarations(), parsed.declarations.contains(declaration)
+                    || declaration.startsWith("type Foo"));
+        }
+    }
+
+    public void testReferences() throws Exception {
+        RecordingRequestor requestor = index("Foo.groovy", CLASS_SOURCE);
+        for (String reference : new String[] { "type ConcurrentHashMap", "constructor ConcurrentHashMap", "type Comparable",
+                "type Serializable", "type Runnable", "type Map", "type List", "type Integer", "type IOException",
+                "annotation Deprecated", "name max", "method max", "method println", "method size", "field size",
+                "method bar", "name name" }) {
+            assertTrue(reference + " should be in " + requestor.references, requestor.references.contains(reference));
+        }
+        // declarations are not references
+        assertFalse(requestor.references.contains("method run"));
+        assertFalse(requestor.references.contains("method convert"));
+    }
+
+    public void testScript() throws Exception {
+        RecordingRequestor requestor = index("Script.groovy", "def x = 1\n" +
+                "println foo(x)\n" +
+                "String bar(int a) { a }\n" +
+                "class Other { }\n");
+        assertEquals(Arrays.asList("constructor Script/0", "constructor Script/1", "method bar/1", "method main/1",
+                "method run/0", "type Other", "type Script extends groovy.lang.Script"), requestor.sortedDeclarations());
+        assertTrue(requestor.references.contains("method foo"));
+        assertTrue(requestor.references.contains("method println"));
+        assertTrue(requestor.references.contains("name x"));
+    }
+
+    public void testMethodReferenceArity() throws Exception {
+        RecordingRequestor requestor = index("Script.groovy", "foo()\n" +
+                "bar(1, baz(2, [3, 4]))\n" +
+                "qux(a: 1, b: 2, 3)\n" +
+                "each(1) { it }\n" +
+                "with { it }\n" +
+                "println 'x', 'y'\n" +
+                "spread(*list)\n");
+        List<String> arities = new ArrayList<String>(requestor.methodArities);
+        Collections.sort(arities);
+        // the arity is only unknown for commands, spread arguments, map keys and strings
+        assertEquals(Arrays.asList("a/*", "b/*", "bar/2", "baz/2", "each/2", "foo/0", "println/*", "qux/2", "spread/*",
+                "with/1", "x/*", "y/*"), arities);
+    }
+
+    public void testEnum() throws Exception {
+        RecordingRequestor requestor = index("Color.groovy", "enum Color {\n" +
+                "  RED, GREEN(1),\n" +
+                "  BLUE\n" +
+                "  final int value\n" +
+                "  Color(int value = 0) { this.value = value }\n" +
+                "}\n");
+        assertEquals(Arrays.asList("constructor Color/1", "field BLUE", "field GREEN", "field RED", "field value",
+                "type Color"), requestor.sortedDeclarations());
+    }
+
+    public void testUntokenizableFile() throws Exception {
+        RecordingRequestor requestor = new RecordingRequestor();
+        assertFalse(new GroovyTokenIndexer(requestor).index(new CompilationUnit("class Foo {\n def s = \"abc\n".toCharArray(),
+                "Foo.groovy", null)));
+        assertTrue(requestor.declarations.isEmpty());
+        assertTrue(requestor.references.isEmpty());
+    }
+
+    private static void setLexerIndexing(boolean value) throws Exception {
+        ReflectionUtils.throwableExecutePrivateMethod(MultiplexingIndexingParser.class, "setLexerIndexing",
+                new Class<?>[] { boolean.class }, null, new Object[] { value });
+    }
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import junit.framework.TestCase;
+
+import org.codehaus.jdt.groovy.integration.internal.GroovyTokenIndexer;
+import org.codehaus.jdt.groovy.integration.internal.MultiplexingIndexingParser;
+import org.eclipse.jdt.core.search.SearchDocument;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.compiler.SourceElementRequestorAdapter;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+
+/**
+ * Measures how many Groovy files per second the indexing parser gets through, from a full parse on the indexing thread, from a
+ * full parse on several threads (see {@link MultiplexingIndexingParser#getIndexingParallelism()}) and from the tokens only
+ * (see {@link GroovyTokenIndexer}), over a generated corpus of classes and scripts.
+ * <p>
+ * These are benchmarks rather than tests and they are not part of the regular test suites. The number of measured iterations can
+ * be set with the system property <code>greclipse.benchmark.iterations</code>, the number of files with
+ * <code>greclipse.benchmark.files</code> and the number of threads of the parallel benchmark with
+ * <code>greclipse.benchmark.threads</code>.
+ */
+public class IndexingBenchmarkTests extends TestCase {
+
+    private static final int ITERATIONS = Integer.getInteger("greclipse.benchmark.iterations", 5);
+
+    private static final int FILES = Integer.getInteger("greclipse.benchmark.files", 500);
+
+    private static final int THREADS = Integer.getInteger("greclipse.benchmark.threads", 4);
+
+    public IndexingBenchmarkTests(String name) {
+        super(name);
+    }
+
+    public void testFullParseIndexing() throws Exception {
+        runBenchmark("full parse", false, 1);
+    }
+
+    public void testParallelIndexing() throws Exception {
+        runBenchmark("full parse on " + THREADS + " threads", false, THREADS);
+    }
+
+    public void testLexerIndexing() throws Exception {
+        runBenchmark("lexer only", true, 1);
+    }
+
+    private static class CorpusDocument extends SearchDocument {
+        private final char[] contents;
+
+        CorpusDocument(CompilationUnit unit) {
+            super(new String(unit.getFileName()), null);
+            this.contents = unit.getContents();
+        }
+
+        @Override
+        public byte[] getByteContents() {
+            return new String(contents).getBytes();
+        }
+
+        @Override
+        public char[] getCharContents() {
+            return contents;
+        }
+
+        @Override
+        public String getEncoding() {
+            return null;
+        }
+    }
+
+    private void runBenchmark(String name, boolean lexer, int threads) throws Exception {
+        CompilationUnit[] units = new CompilationUnit[FILES];
+        CorpusDocument[] documents = new CorpusDocument[FILES];
+        for (int i = 0; i < FILES; i++) {
+            String typeName = "Corpus" + i;
+            units[i] = new CompilationUnit(generate(typeName, i).toCharArray(), typeName + ".groovy", null);
+            documents[i] = new CorpusDocument(units[i]);
+        }
+        MultiplexingIndexingParser parser = new MultiplexingIndexingParser(new SourceElementRequestorAdapter(),
+                new DefaultProblemFactory(), new CompilerOptions(), true, false, false);
+        boolean lexerIndexing = MultiplexingIndexingParser.isLexerIndexing();
+        int indexingParallelism = MultiplexingIndexingParser.getIndexingParallelism();
+        setLexerIndexing(lexer);
+        setIndexingParallelism(threads);
+        try {
+            // warm up
+            index(parser, units, documents);
+            long stime = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                index(parser, units, documents);
+            }
+            long elapsed = System.nanoTime() - stime;
+            System.out.println("Indexing (" + name + "): " + FILES + " files, " + ITERATIONS + " iterations in "
+                    + (elapsed / 1000000) + "ms, " + (FILES * ITERATIONS * 1000000000L / Math.max(1, elapsed)) + " files/s");
+        } finally {
+            setLexerIndexing(lexerIndexing);
+            setIndexingParallelism(indexingParallelism);
+        }
+    }
+
+    private void index(MultiplexingIndexingParser parser, CompilationUnit[] units, CorpusDocument[] documents) {
+        // like the index manager, schedule all files before the indexing thread gets to them
+        for (CorpusDocument document : documents) {
+            parser.documentScheduled(document);
+        }
+        for (CompilationUnit unit : units) {
+            parser.parseCompilationUnit(unit, true, null);
+        }
+    }
+
+    private String generate(String name, int index) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package p").append(index % 10).append("\n");
+        sb.append("import java.util.concurrent.ConcurrentHashMap\n");
+        if (index % 4 == 0) {
+            // a script
+            sb.append("def words = ['alpha', 'beta', 'gamma']\n");
+            sb.append("def lengths = words.collectEntries { [it, it.length()] }\n");
+            sb.append("String describe(Map m) { \"${m.size()} entries\" }\n");
+            sb.append("println describe(lengths)\n");
+            return sb.toString();
+        }
+        sb.append("class ").append(name).append(" implements Comparable<").append(name).append("> {\n");
+        sb.append("  String name\n  int size\n  List<String> tags = []\n");
+        sb.append("  Map<String, Integer> counts = new ConcurrentHashMap<String, Integer>()\n");
+        sb.append("  int compareTo(").append(name).append(" other) { size <=> other.size }\n");
+        for (int i = 0; i < 20; i++) {
+            sb.append("  def method").append(i).append("(int a, String b) {\n");
+            sb.append("    def list = [a, b.length(), name.size()]\n");
+            sb.append("    return list.sum() + (a > ").append(i).append(" ? counts.size() : tags.size())\n");
+            sb.append("  }\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void setLexerIndexing(boolean value) throws Exception {
+        ReflectionUtils.throwableExecutePrivateMethod(MultiplexingIndexingParser.class, "setLexerIndexing",
+                new Class<?>[] { boolean.class }, null, new Object[] { value });
+    }
+
+    private static void setIndexingParallelism(int value) throws Exception {
+        ReflectionUtils.throwableExecutePrivateMethod(MultiplexingIndexingParser.class, "setIndexingParallelism",
+                new Class<?>[] { int.class }, null, new Object[] { value });
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import junit.framework.Test;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.jdt.groovy.internal.compiler.ast.PhaseStatistics;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+import org.eclipse.jdt.groovy.search.VariableScope;
+
+/**
+ * Measures the time and allocation of inferencing code shaped like deeply nested Groovy builders, where most of the work is
+ * creating {@link VariableScope}s and looking names up through them, and of code full of arithmetic on primitives, wrappers and
+ * Strings, where most of the work is comparing and promoting types. Run these on two versions of the inferencing engine to
+ * compare them; allocation is only reported on VMs that can measure it (see {@link PhaseStatistics#allocatedBytes()}).
+ * <p>
+ * These are benchmarks rather than tests and they are not part of the regular test suites. The number of measured iterations can
+ * be set with the system property <code>greclipse.benchmark.iterations</code>.
+ */
+public class InferencingBenchmarkTests extends AbstractInferencingTest {
+
+    private static final int ITERATIONS = Integer.getInteger("greclipse.benchmark.iterations", 20);
+
+    public InferencingBenchmarkTests(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return buildTestSuite(InferencingBenchmarkTests.class);
+    }
+
+    public void testNestedBuilderVisit() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("def builder = new groovy.xml.MarkupBuilder()\n");
+        for (int i = 0; i < 20; i++) {
+            sb.append("builder.root").append(i).append(" {\n");
+            for (int depth = 0; depth < 10; depth++) {
+                sb.append("  level").append(depth).append("(name: 'n").append(depth).append("') { def v").append(depth)
+                        .append(" = ").append(depth).append("\n");
+            }
+            sb.append("  leaf(v0 + v9)\n");
+            for (int depth = 0; depth < 10; depth++) {
+                sb.append("  }\n");
+            }
+            sb.append("}\n");
+        }
+        GroovyCompilationUnit unit = createUnit("Builder", sb.toString());
+        ITypeRequestor requestor = new ITypeRequestor() {
+            public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                return VisitStatus.CONTINUE;
+            }
+        };
+
+        // warm up
+        factory.createVisitor(unit).visitCompilationUnit(requestor);
+
+        long bytes = PhaseStatistics.allocatedBytes();
+        long stime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            factory.createVisitor(unit).visitCompilationUnit(requestor);
+        }
+        report("nested builder visit", System.nanoTime() - stime, bytes);
+    }
+
+    public void testNumericScriptVisit() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("int i = 1\nlong l = 2\ndouble d = 3\ndef s = 'x'\n");
+        for (int i = 0; i < 200; i++) {
+            sb.append("def r").append(i).append(" = (i + l * ").append(i).append(") / (d - -i) % 7 + s + (l + i)\n");
+        }
+        GroovyCompilationUnit unit = createUnit("Numeric", sb.toString());
+        ITypeRequestor requestor = new ITypeRequestor() {
+            public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                return VisitStatus.CONTINUE;
+            }
+        };
+
+        // warm up
+        factory.createVisitor(unit).visitCompilationUnit(requestor);
+
+        long bytes = PhaseStatistics.allocatedBytes();
+        long stime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            factory.createVisitor(unit).visitCompilationUnit(requestor);
+        }
+        report("numeric script visit", System.nanoTime() - stime, bytes);
+    }
+
+    public void testScopeChurn() throws Exception {
+        ClassNode type = VariableScope.OBJECT_CLASS_NODE;
+        BlockStatement block = new BlockStatement();
+        ClosureExpression closure = new ClosureExpression(null, block);
+        int found = 0;
+
+        long bytes = PhaseStatistics.allocatedBytes();
+        long stime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS * 1000; i++) {
+            VariableScope scope = new VariableScope(null, block, false);
+            scope.addVariable("this", type, type);
+            for (int depth = 0; depth < 20; depth++) {
+                scope = new VariableScope(scope, depth % 2 == 0 ? block : closure, false);
+                scope.setCurrentNode(block);
+                if (depth % 3 == 0) {
+                    scope.addVariable("v" + (depth % 6), type, type);
+                }
+            }
+            for (int depth = 0; depth < 20; depth++) {
+                if (scope.lookupName("this") != null) {
+                    found++;
+                }
+                scope.lookupName("missing");
+                scope.forgetCurrentNode();
+            }
+        }
+        report("scope churn", System.nanoTime() - stime, bytes);
+        assertEquals(ITERATIONS * 1000 * 20, found);
+    }
+
+    private void report(String name, long nanos, long startBytes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name).append(": ").append(ITERATIONS).append(" iterations in ").append(nanos / 1000000).append("ms");
+        long endBytes = PhaseStatistics.allocatedBytes();
+        if (startBytes >= 0 && endBytes >= startBytes) {
+            sb.append(", ").append((endBytes - startBytes) / ITERATIONS / 1024).append("KB allocated per iteration");
+        }
+        System.out.println(sb);
+    }
+}
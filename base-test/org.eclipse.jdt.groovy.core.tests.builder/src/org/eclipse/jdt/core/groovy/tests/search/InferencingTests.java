@@ -16,14 +16,33 @@
 
 package org.eclipse.jdt.core.groovy.tests.search;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import junit.framework.Test;
 
 import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.ImportNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.ITypeLookup;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.InferenceResultStore;
+import org.eclipse.jdt.groovy.search.SimpleTypeLookup;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+import org.eclipse.jdt.groovy.search.TypeLookupResult.TypeConfidence;
+import org.eclipse.jdt.groovy.search.TypeLookupStatistics;
+import org.eclipse.jdt.groovy.search.VariableScope;
 
 /**
  * Lots of tests to see that expressions have the proper type associated with them
@@ -1479,6 +1498,237 @@ public class InferencingTests extends AbstractInferencingTest {
         assertType(contents, start, end, "java.lang.String");
     }
 
+    public void testInferenceResultsReusedBetweenVisits() throws Exception {
+        String contents = "def list = [1, 2, 3]\nlist.collect { it.intValue() }.size()";
+        int start = contents.lastIndexOf("size");
+        int end = start + "size".length();
+        GroovyCompilationUnit unit = createUnit("Search", contents);
+        unit.becomeWorkingCopy(null);
+        try {
+            SearchRequestor first = doVisit(start, end, unit, false);
+            InferenceResultStore store = InferenceResultStore.forModule(unit.getModuleInfo(true));
+            assertTrue("First visit should have stored its results", store.size() > 0);
+            int hits = store.getHits();
+
+            SearchRequestor second = doVisit(start, end, unit, false);
+            assertTrue("Second visit should have reused stored results", store.getHits() > hits);
+            assertEquals(first.getTypeName(), second.getTypeName());
+            assertEquals(first.getDeclaringTypeName(), second.getDeclaringTypeName());
+            assertSame(first.result.declaration, second.result.declaration);
+        } finally {
+            unit.discardWorkingCopy();
+        }
+    }
+
+    public void testRepeatedDeclarationLookups() throws Exception {
+        // the second and third lookups of elements are answered by the declaration cache
+        String contents = "def h = new Hashtable()\nh.elements()\nh.elements\nh.elements()";
+        int start = contents.lastIndexOf("elements");
+        int end = start + "elements".length();
+        assertDeclaration(contents, start, end, "java.util.Hashtable", "elements", DeclarationKind.METHOD);
+        start = contents.indexOf("elements\n");
+        end = start + "elements".length();
+        assertDeclaration(contents, start, end, "java.util.Hashtable", "elements", DeclarationKind.METHOD);
+    }
+
+    public void testManyVariablesInOneScope() throws Exception {
+        // enough variables for the scope to index them by name
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            sb.append("def v").append(i).append(" = ").append(i % 2 == 0 ? "'s'" : "1").append("\n");
+        }
+        sb.append("v1 = 'now a string'\n");
+        sb.append("v0\nv1\nv39\n");
+        String contents = sb.toString();
+        int start = contents.lastIndexOf("v0");
+        assertType(contents, start, start + 2, "java.lang.String");
+        start = contents.lastIndexOf("v1\n");
+        assertType(contents, start, start + 2, "java.lang.String");
+        start = contents.lastIndexOf("v39");
+        assertType(contents, start, start + 3, "java.lang.Integer");
+    }
+
+    public void testTargetedVisitSkipsOtherMembers() throws Exception {
+        String contents = "class Other {\n" +
+                "  def a() { 'x'.length() }\n" +
+                "  def b() { def s = 'y'\n s.trim() }\n" +
+                "}";
+        GroovyCompilationUnit unit = createUnit("Other", contents);
+        int start = contents.lastIndexOf("s.trim");
+        List<String> reports = new ArrayList<String>();
+        TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+        visitor.visitTargeted(new ReportingRequestor(reports), start, start + 1, 0, null);
+        assertFalse(visitor.isBudgetExceeded());
+        assertTrue(reports.toString(), reports.contains("b: s -> java.lang.String"));
+        for (String report : reports) {
+            assertFalse(report, report.startsWith("a: "));
+        }
+    }
+
+    public void testTargetedVisitOverBudget() throws Exception {
+        String contents = "class Other {\n" +
+                "  def b() { def s = 'y'\n s.trim() }\n" +
+                "}";
+        GroovyCompilationUnit unit = createUnit("Other", contents);
+        int start = contents.lastIndexOf("s.trim");
+        final List<String> reports = new ArrayList<String>();
+        TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+        visitor.visitTargeted(new ReportingRequestor(reports) {
+            @Override
+            public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                if (reports.isEmpty()) {
+                    // use up the budget
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        fail();
+                    }
+                }
+                return super.acceptASTNode(node, result, enclosingElement);
+            }
+        }, start, start + 1, 1, null);
+        assertTrue(visitor.isBudgetExceeded());
+        // the declaration of s was skipped
+        assertFalse(reports.toString(), reports.contains("b: s -> java.lang.String"));
+        assertFalse(reports.toString(), reports.contains("b: y -> java.lang.String"));
+    }
+
+    public void testTargetedVisitPastDeadline() throws Exception {
+        String contents = "import java.util.concurrent.TimeUnit\n" +
+                "class Other {\n" +
+                "  def b() { 'y'.trim() }\n" +
+                "}";
+        GroovyCompilationUnit unit = createUnit("Other", contents);
+        int start = contents.lastIndexOf("'y'");
+        int end = contents.lastIndexOf("()") + 2;
+        List<String> reports = new ArrayList<String>();
+        TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+        visitor.visitTargetedUntil(new ReportingRequestor(reports), start, end, Long.MAX_VALUE, null);
+        assertFalse(visitor.isBudgetExceeded());
+        assertEquals("java.util.concurrent.TimeUnit", findImportReport(reports));
+
+        // with no time left, the lookups are not asked about the import, which does not overlap the target
+        reports.clear();
+        visitor = factory.createVisitor(unit);
+        visitor.visitTargetedUntil(new ReportingRequestor(reports), start, end, System.nanoTime() - 1, null);
+        assertTrue(visitor.isBudgetExceeded());
+        assertEquals("java.lang.Object", findImportReport(reports));
+        assertTrue(reports.toString(), reports.contains("b: trim -> java.lang.String"));
+    }
+
+    private String findImportReport(List<String> reports) {
+        String prefix = "java.util.concurrent.TimeUnit: import java.util.concurrent.TimeUnit";
+        for (String report : reports) {
+            if (report.startsWith(prefix)) {
+                return report.substring(report.indexOf(" -> ") + 4);
+            }
+        }
+        fail("No report for the import in " + reports);
+        return null;
+    }
+
+    public void testTypeLookupStatistics() throws Exception {
+        GroovyCompilationUnit unit = createUnit("Other", "class Other {\n  def x() { 'x'.length() }\n}");
+        TypeLookupStatistics.setEnabled(true);
+        try {
+            TypeLookupStatistics.reset();
+            factory.createVisitor(unit).visitCompilationUnit(new ReportingRequestor(new ArrayList<String>()));
+            TypeLookupStatistics simple = null;
+            for (TypeLookupStatistics stats : TypeLookupStatistics.getAll()) {
+                if (stats.getLookupName().equals(SimpleTypeLookup.class.getName())) {
+                    simple = stats;
+                }
+            }
+            assertNotNull(TypeLookupStatistics.dump(), simple);
+            assertTrue(simple.getCalls() > 0);
+            assertTrue(simple.getUsed(TypeConfidence.EXACT) > 0);
+            assertTrue(TypeLookupStatistics.dump().contains(SimpleTypeLookup.class.getName()));
+        } finally {
+            TypeLookupStatistics.setEnabled(false);
+            TypeLookupStatistics.reset();
+        }
+    }
+
+    /**
+     * A lookup that answers null for the type of a parameter must not discard the less precise answer of an earlier lookup
+     */
+    public void testParameterTypeKeptWhenLaterLookupAnswersNull() throws Exception {
+        GroovyCompilationUnit unit = createUnit("Other", "class Other {\n  def x(java.util.Random r) { }\n}");
+        ITypeLookup[] lookups = new ITypeLookup[] { new LooseRandomLookup(), new SimpleTypeLookup() {
+            @Override
+            public TypeLookupResult lookupType(ClassNode node, VariableScope scope) {
+                return node.getName().equals("java.util.Random") ? null : super.lookupType(node, scope);
+            }
+        } };
+        TypeInferencingVisitorWithRequestor visitor = ReflectionUtils.executePrivateConstructor(
+                TypeInferencingVisitorWithRequestor.class, new Class<?>[] { GroovyCompilationUnit.class, ITypeLookup[].class },
+                new Object[] { unit, lookups });
+        final List<String> reports = new ArrayList<String>();
+        visitor.visitCompilationUnit(new ITypeRequestor() {
+            public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                if (node instanceof Parameter) {
+                    reports.add(((Parameter) node).getName() + " -> " + result.type.getName());
+                }
+                return VisitStatus.CONTINUE;
+            }
+        });
+        assertEquals("[r -> java.lang.Number]", reports.toString());
+    }
+
+    /**
+     * Loosely infers {@link Number} for {@link java.util.Random} and knows nothing else
+     */
+    private static class LooseRandomLookup implements ITypeLookup {
+        public TypeLookupResult lookupType(ClassNode node, VariableScope scope) {
+            if (node.getName().equals("java.util.Random")) {
+                return new TypeLookupResult(ClassHelper.Number_TYPE, VariableScope.OBJECT_CLASS_NODE, null,
+                        TypeConfidence.LOOSELY_INFERRED, scope);
+            }
+            return null;
+        }
+
+        public TypeLookupResult lookupType(Expression node, VariableScope scope, ClassNode objectExpressionType) {
+            return null;
+        }
+
+        public TypeLookupResult lookupType(FieldNode node, VariableScope scope) {
+            return null;
+        }
+
+        public TypeLookupResult lookupType(MethodNode node, VariableScope scope) {
+            return null;
+        }
+
+        public TypeLookupResult lookupType(AnnotationNode node, VariableScope scope) {
+            return null;
+        }
+
+        public TypeLookupResult lookupType(ImportNode node, VariableScope scope) {
+            return null;
+        }
+
+        public TypeLookupResult lookupType(Parameter node, VariableScope scope) {
+            return null;
+        }
+
+        public void initialize(GroovyCompilationUnit unit, VariableScope topLevelScope) {
+            // nothing to initialize
+        }
+    }
+
+    private static class ReportingRequestor implements ITypeRequestor {
+        private final List<String> reports;
+
+        ReportingRequestor(List<String> reports) {
+            this.reports = reports;
+        }
+
+        public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+            reports.add(enclosingElement.getElementName() + ": " + node.getText() + " -> " + result.type.getName());
+            return VisitStatus.CONTINUE;
+        }
+    }
+
     protected void assertNoUnknowns(String contents) {
         GroovyCompilationUnit unit = createUnit("Search", contents);
         
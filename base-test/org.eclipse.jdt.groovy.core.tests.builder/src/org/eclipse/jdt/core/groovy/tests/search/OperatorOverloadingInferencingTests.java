@@ -317,6 +317,39 @@ public class OperatorOverloadingInferencingTests extends AbstractInferencingTest
         assertType(contents, contents.lastIndexOf(expr), contents.lastIndexOf(expr)+expr.length(), "java.lang.Integer");
     }
     
+    public void testNumericPromotion1() throws Exception {
+        String contents = 
+                "def xxx = 1 + 2.5d\n" +
+                "xxx";
+        String expr = "xxx";
+        assertType(contents, contents.lastIndexOf(expr), contents.lastIndexOf(expr)+expr.length(), "java.lang.Double");
+    }
+    
+    public void testNumericPromotion2() throws Exception {
+        String contents = 
+                "def xxx = 1L * 2\n" +
+                "xxx";
+        String expr = "xxx";
+        assertType(contents, contents.lastIndexOf(expr), contents.lastIndexOf(expr)+expr.length(), "java.lang.Long");
+    }
+    
+    public void testNumericPromotion3() throws Exception {
+        String contents = 
+                "def xxx = 1 / 2\n" +
+                "xxx";
+        String expr = "xxx";
+        assertType(contents, contents.lastIndexOf(expr), contents.lastIndexOf(expr)+expr.length(), "java.math.BigDecimal");
+    }
+    
+    public void testNumericPromotion4() throws Exception {
+        String contents = 
+                "int i = 1\n" +
+                "def xxx = -i\n" +
+                "xxx";
+        String expr = "xxx";
+        assertType(contents, contents.lastIndexOf(expr), contents.lastIndexOf(expr)+expr.length(), "java.lang.Integer");
+    }
+    
     public void testNumberPlusString1() throws Exception {
         String contents = 
                 "def xxx = 1 + ''\n" +
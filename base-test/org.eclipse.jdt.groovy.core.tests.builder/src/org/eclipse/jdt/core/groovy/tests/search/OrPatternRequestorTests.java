@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.expr.ArgumentListExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.OrPatternRequestor;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+
+/**
+ * Tests that an {@link OrPatternRequestor} for name based patterns, such as the synthetic accessors of a property, only passes on
+ * the nodes with one of the names.
+ */
+public class OrPatternRequestorTests extends TestCase {
+
+    public OrPatternRequestorTests(String name) {
+        super(name);
+    }
+
+    private static class RecordingRequestor implements ITypeRequestor {
+        final List<ASTNode> nodes = new ArrayList<ASTNode>();
+
+        public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+            nodes.add(node);
+            return VisitStatus.CONTINUE;
+        }
+    }
+
+    private final ASTNode getter = new VariableExpression("getFoo");
+
+    private final ASTNode property = new ConstantExpression("foo");
+
+    private final ASTNode other = new VariableExpression("bar");
+
+    private final ASTNode staticCall = new StaticMethodCallExpression(ClassHelper.OBJECT_TYPE, "setFoo",
+            ArgumentListExpression.EMPTY_ARGUMENTS);
+
+    private final ASTNode unnamed = new ArgumentListExpression();
+
+    private List<ASTNode> accept(OrPatternRequestor requestor, RecordingRequestor recorder) {
+        for (ASTNode node : new ASTNode[] { getter, property, other, staticCall, unnamed }) {
+            assertEquals(ITypeRequestor.VisitStatus.CONTINUE, requestor.acceptASTNode(node, null, null));
+        }
+        return recorder.nodes;
+    }
+
+    public void testOnlyNamedNodes() throws Exception {
+        RecordingRequestor first = new RecordingRequestor();
+        RecordingRequestor second = new RecordingRequestor();
+        OrPatternRequestor requestor = new OrPatternRequestor(Arrays.<ITypeRequestor> asList(first, second), new HashSet<String>(
+                Arrays.asList("getFoo", "setFoo", "foo")));
+        assertEquals(Arrays.asList(getter, property, staticCall), accept(requestor, first));
+        assertEquals(first.nodes, second.nodes);
+    }
+
+    public void testAllNodesWithoutNames() throws Exception {
+        RecordingRequestor recorder = new RecordingRequestor();
+        OrPatternRequestor requestor = new OrPatternRequestor(Arrays.<ITypeRequestor> asList(recorder));
+        assertEquals(Arrays.asList(getter, property, other, staticCall, unnamed), accept(requestor, recorder));
+    }
+}
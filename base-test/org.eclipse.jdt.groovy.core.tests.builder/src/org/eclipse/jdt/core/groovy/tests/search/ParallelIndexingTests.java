@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.codehaus.jdt.groovy.integration.internal.MultiplexingIndexingParser;
+import org.eclipse.jdt.core.search.SearchDocument;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.compiler.SourceElementRequestorAdapter;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+
+/**
+ * Tests that Groovy files parsed ahead of the indexing thread (see {@link MultiplexingIndexingParser#getIndexingParallelism()})
+ * are indexed exactly as files parsed on the indexing thread.
+ */
+public class ParallelIndexingTests extends TestCase {
+
+    public ParallelIndexingTests(String name) {
+        super(name);
+    }
+
+    private static class Document extends SearchDocument {
+        char[] contents;
+
+        Document(String path, String contents) {
+            super(path, null);
+            this.contents = contents.toCharArray();
+        }
+
+        @Override
+        public byte[] getByteContents() {
+            return new String(contents).getBytes();
+        }
+
+        @Override
+        public char[] getCharContents() {
+            return contents;
+        }
+
+        @Override
+        public String getEncoding() {
+            return null;
+        }
+    }
+
+    private static class RecordingRequestor extends SourceElementRequestorAdapter {
+        final List<String> declarations = new ArrayList<String>();
+
+        @Override
+        public void enterType(TypeInfo typeInfo) {
+            declarations.add("type " + new String(typeInfo.name));
+        }
+
+        @Override
+        public void enterMethod(MethodInfo methodInfo) {
+            declarations.add("method " + new String(methodInfo.name));
+        }
+
+        @Override
+        public void enterField(FieldInfo fieldInfo) {
+            declarations.add("field " + new String(fieldInfo.name));
+        }
+    }
+
+    private int indexingParallelism;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        indexingParallelism = MultiplexingIndexingParser.getIndexingParallelism();
+        setIndexingParallelism(3);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        setIndexingParallelism(indexingParallelism);
+        super.tearDown();
+    }
+
+    private Document[] createDocuments(int count) {
+        Document[] documents = new Document[count];
+        for (int i = 0; i < count; i++) {
+            documents[i] = new Document("/Project/src/p/Type" + i + ".groovy", "package p\nclass Type" + i + " {\n  String field"
+                    + i + "\n  def method" + i + "() { field" + i + ".size() }\n}\n");
+        }
+        return documents;
+    }
+
+    private List<String> index(MultiplexingIndexingParser parser, RecordingRequestor requestor, Document document) {
+        requestor.declarations.clear();
+        parser.parseCompilationUnit(new CompilationUnit(document.contents, document.getPath(), null), true, null);
+        return new ArrayList<String>(requestor.declarations);
+    }
+
+    private MultiplexingIndexingParser createParser(RecordingRequestor requestor) {
+        return new MultiplexingIndexingParser(requestor, new DefaultProblemFactory(), new CompilerOptions(), true, false, false);
+    }
+
+    public void testSameDeclarationsAsSequential() throws Exception {
+        Document[] documents = createDocuments(20);
+        RecordingRequestor sequentialRequestor = new RecordingRequestor();
+        MultiplexingIndexingParser sequential = createParser(sequentialRequestor);
+        RecordingRequestor parallelRequestor = new RecordingRequestor();
+        MultiplexingIndexingParser parallel = createParser(parallelRequestor);
+        for (Document document : documents) {
+            parallel.documentScheduled(document);
+        }
+        for (int i = 0; i < documents.length; i++) {
+            List<String> expected = index(sequential, sequentialRequestor, documents[i]);
+            assertTrue(expected.toString(), expected.contains("type Type" + i));
+            assertEquals(expected, index(parallel, parallelRequestor, documents[i]));
+        }
+    }
+
+    public void testChangedContents() throws Exception {
+        Document document = new Document("/Project/src/p/Changed.groovy", "class Changed { def before }");
+        RecordingRequestor requestor = new RecordingRequestor();
+        MultiplexingIndexingParser parser = createParser(requestor);
+        parser.documentScheduled(document);
+        document.contents = "class Changed { def after }".toCharArray();
+        List<String> declarations = index(parser, requestor, document);
+        assertTrue(declarations.toString(), declarations.contains("field after"));
+        assertFalse(declarations.toString(), declarations.contains("field before"));
+    }
+
+    public void testSkippedDocuments() throws Exception {
+        Document[] documents = createDocuments(40);
+        RecordingRequestor requestor = new RecordingRequestor();
+        MultiplexingIndexingParser parser = createParser(requestor);
+        for (Document document : documents) {
+            parser.documentScheduled(document);
+        }
+        // the jobs of the files in between were discarded
+        assertTrue(index(parser, requestor, documents[0]).contains("type Type0"));
+        assertTrue(index(parser, requestor, documents[30]).contains("type Type30"));
+        // indexed on the indexing thread if their jobs run after all
+        assertTrue(index(parser, requestor, documents[10]).contains("type Type10"));
+        for (int i = 31; i < documents.length; i++) {
+            assertTrue(index(parser, requestor, documents[i]).contains("type Type" + i));
+        }
+    }
+
+    private static void setIndexingParallelism(int value) throws Exception {
+        ReflectionUtils.throwableExecutePrivateMethod(MultiplexingIndexingParser.class, "setIndexingParallelism",
+                new Class<?>[] { int.class }, null, new Object[] { value });
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jdt.groovy.integration.DelegatedSearches;
+import org.codehaus.jdt.groovy.integration.internal.GroovyLanguageSupport;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.core.search.matching.PossibleMatch;
+
+/**
+ * Tests that delegated searches run on several threads (see {@link GroovyLanguageSupport#getSearchParallelism()}) report the same
+ * matches, in the same order and file by file as the match locator asks for them, as searches run one file at a time.
+ */
+public class ParallelSearchTests extends AbstractGroovySearchTest {
+
+    public ParallelSearchTests(String name) {
+        super(name);
+    }
+
+    private static class OrderedRequestor extends SearchRequestor {
+        final List<String> matches = new ArrayList<String>();
+
+        @Override
+        public void acceptSearchMatch(SearchMatch match) {
+            matches.add(match.getResource().getName() + "@" + match.getOffset());
+        }
+    }
+
+    private int searchParallelism;
+
+    private SearchPattern pattern;
+
+    private PossibleMatch[] possibleMatches;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        searchParallelism = GroovyLanguageSupport.getSearchParallelism();
+        setSearchParallelism(3);
+
+        GroovyCompilationUnit first = createUnit("First", "class First { def xxx() { } }");
+        pattern = SearchPattern.createPattern((IMethod) first.getType("First").getChildren()[0], IJavaSearchConstants.REFERENCES);
+        possibleMatches = new PossibleMatch[8];
+        for (int i = 0; i < possibleMatches.length; i++) {
+            StringBuilder contents = new StringBuilder("class Caller" + i + " {\n");
+            // one file without references, the others with a reference in each of i + 1 methods
+            for (int j = 0; i != 4 && j <= i; j++) {
+                contents.append("  def m" + j + "() { new First().xxx() }\n");
+            }
+            possibleMatches[i] = new MockPossibleMatch(createUnit("Caller" + i, contents.append("}").toString()));
+        }
+        env.fullBuild();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        setSearchParallelism(searchParallelism);
+        super.tearDown();
+    }
+
+    public void testSameMatchesInSameOrder() throws Exception {
+        GroovyLanguageSupport support = new GroovyLanguageSupport();
+        OrderedRequestor sequential = new OrderedRequestor();
+        List<Integer> reported = new ArrayList<Integer>();
+        for (PossibleMatch possibleMatch : possibleMatches) {
+            assertTrue(support.maybePerformDelegatedSearch(possibleMatch, pattern, sequential));
+            reported.add(sequential.matches.size());
+        }
+        assertEquals(1 + 2 + 3 + 4 + 6 + 7 + 8, sequential.matches.size());
+
+        OrderedRequestor parallel = new OrderedRequestor();
+        DelegatedSearches searches = support.startDelegatedSearches(possibleMatches, pattern, parallel, null);
+        try {
+            // nothing is reported before the match locator gets to the file
+            assertTrue(parallel.matches.isEmpty());
+            for (int i = 0; i < possibleMatches.length; i++) {
+                assertTrue(searches.report(possibleMatches[i]));
+                assertEquals(sequential.matches.subList(0, reported.get(i)), parallel.matches);
+            }
+            // reported only once
+            assertFalse(searches.report(possibleMatches[0]));
+        } finally {
+            searches.dispose();
+        }
+        assertEquals(sequential.matches, parallel.matches);
+    }
+
+    public void testSequentialByDefault() throws Exception {
+        setSearchParallelism(1);
+        OrderedRequestor requestor = new OrderedRequestor();
+        assertNull(new GroovyLanguageSupport().startDelegatedSearches(possibleMatches, pattern, requestor, null));
+        assertTrue(requestor.matches.isEmpty());
+    }
+
+    public void testCanceled() throws Exception {
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+        OrderedRequestor requestor = new OrderedRequestor();
+        DelegatedSearches searches = new GroovyLanguageSupport().startDelegatedSearches(possibleMatches, pattern, requestor,
+                monitor);
+        try {
+            searches.report(possibleMatches[0]);
+            fail("Search should have been canceled");
+        } catch (OperationCanceledException e) {
+            // expected
+        } finally {
+            searches.dispose();
+        }
+        assertTrue(requestor.matches.isEmpty());
+    }
+
+    private static void setSearchParallelism(int value) throws Exception {
+        ReflectionUtils.throwableExecutePrivateMethod(GroovyLanguageSupport.class, "setSearchParallelism",
+                new Class<?>[] { int.class }, null, new Object[] { value });
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.search.ReferenceNameIndex;
+
+/**
+ * Tests that the {@link ReferenceNameIndex} only rules out files that cannot contain a match.
+ */
+public class ReferenceNameIndexTests extends TestCase {
+
+    private static final String CONTENTS = "class Foo {\n" +
+            "  def bar\n" +
+            "  def \"a spock feature\"() { }\n" +
+            "  def run(Map m) {\n" +
+            "    m.'quoted'\n" +
+            "    [key: 1].each { println it }\n" +
+            "    this.class\n" +
+            "  }\n" +
+            "}\n";
+
+    public ReferenceNameIndexTests(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ReferenceNameIndex.flushAll();
+    }
+
+    private SearchPattern method(String name) {
+        return SearchPattern.createPattern(name, IJavaSearchConstants.METHOD, IJavaSearchConstants.REFERENCES,
+                SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+    }
+
+    private SearchPattern field(String name) {
+        return SearchPattern.createPattern(name, IJavaSearchConstants.FIELD, IJavaSearchConstants.REFERENCES,
+                SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+    }
+
+    private boolean mayMatch(SearchPattern pattern) {
+        return ReferenceNameIndex.mayMatch(pattern, "/Project/src/Foo.groovy", CONTENTS.toCharArray());
+    }
+
+    public void testMethodNames() throws Exception {
+        assertTrue(mayMatch(method("run")));
+        assertTrue(mayMatch(method("each")));
+        assertTrue(mayMatch(method("println")));
+        assertFalse(mayMatch(method("toString")));
+    }
+
+    public void testFieldNames() throws Exception {
+        assertTrue(mayMatch(field("bar")));
+        assertTrue(mayMatch(field("quoted")));
+        assertTrue(mayMatch(field("key")));
+        assertFalse(mayMatch(field("baz")));
+    }
+
+    public void testOrPattern() throws Exception {
+        assertTrue(mayMatch(SearchPattern.createOrPattern(method("getBar"), field("bar"))));
+        assertFalse(mayMatch(SearchPattern.createOrPattern(method("getBaz"), field("baz"))));
+    }
+
+    public void testNotFiltered() throws Exception {
+        assertTrue(mayMatch(method("to*")));
+        assertTrue(mayMatch(SearchPattern.createPattern("Baz", IJavaSearchConstants.TYPE, IJavaSearchConstants.REFERENCES,
+                SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE)));
+        assertTrue(mayMatch(SearchPattern.createOrPattern(method("baz"), SearchPattern.createPattern("Baz",
+                IJavaSearchConstants.TYPE, IJavaSearchConstants.REFERENCES, SearchPattern.R_EXACT_MATCH
+                        | SearchPattern.R_CASE_SENSITIVE))));
+        // cannot be tokenized
+        assertTrue(ReferenceNameIndex.mayMatch(method("baz"), "/Project/src/Bad.groovy", "def s = \"abc\n".toCharArray()));
+    }
+
+    public void testChangedContents() throws Exception {
+        String path = "/Project/src/Changed.groovy";
+        assertFalse(ReferenceNameIndex.mayMatch(method("after"), path, "before()".toCharArray()));
+        assertTrue(ReferenceNameIndex.mayMatch(method("after"), path, "after()".toCharArray()));
+        assertFalse(ReferenceNameIndex.mayMatch(method("before"), path, "after()".toCharArray()));
+    }
+}
@@ -37,6 +37,7 @@ import org.codehaus.groovy.ast.ClassCodeExpressionTransformer;
 import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.CompileUnit;
+import org.codehaus.groovy.ast.ConstructorNode;
 import org.codehaus.groovy.ast.DynamicVariable;
 import org.codehaus.groovy.ast.FieldNode;
 import org.codehaus.groovy.ast.GenericsType;
@@ -176,6 +177,23 @@ public class ResolveVisitor extends ClassCodeExpressionTransformer {
         visitClass(node);
     }
 
+    // GRECLIPSE start
+    /**
+     * Resolves one method of a class that has been resolved before, eg- after the body of the method has been parsed again.
+     * The variable scopes of the method must have been computed already.
+     */
+    public void startResolving(ClassNode node, MethodNode method, SourceUnit source) {
+        this.source = source;
+        ClassNode oldNode = currentClass;
+        currentClass = node;
+        genericParameterNames = new HashMap();
+        resolveGenericsHeader(node.getGenericsTypes());
+        visitConstructorOrMethod(method, method instanceof ConstructorNode);
+        finishedResolution();
+        currentClass = oldNode;
+    }
+    // GRECLIPSE end
+
     protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
         VariableScope oldScope = currentScope;
         currentScope = node.getVariableScope();
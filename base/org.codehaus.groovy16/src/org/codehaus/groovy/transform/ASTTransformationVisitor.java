@@ -19,12 +19,15 @@ package org.codehaus.groovy.transform;
 import groovy.lang.GroovyClassLoader;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,6 +37,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.codehaus.groovy.GroovyException;
 import org.codehaus.groovy.ast.ASTNode;
@@ -199,6 +203,61 @@ public class ASTTransformationVisitor extends ClassCodeVisitorSupport {
         }
     }
     
+    // GRECLIPSE: start
+    /**
+     * Global transform service files found by each transform loader, with their contents. Eclipse replaces a transform loader
+     * whenever a jar on its classpath changes, so the scan is only repeated if the loader has since been given more URLs (by a
+     * grab), or if some service file does not come from a jar (and so may have changed).
+     */
+    private static final Map<ClassLoader, ServiceScan> globalServiceScans = Collections
+            .synchronizedMap(new WeakHashMap<ClassLoader, ServiceScan>());
+
+    private static class ServiceScan {
+        final int urlCount;
+        final Map<URL, byte[]> services = new LinkedHashMap<URL, byte[]>();
+
+        ServiceScan(int urlCount) {
+            this.urlCount = urlCount;
+        }
+    }
+
+    private static Map<URL, byte[]> getGlobalServices(GroovyClassLoader transformLoader, boolean useCache) throws IOException {
+        int urlCount = transformLoader.getURLs().length;
+        ServiceScan scan = useCache ? globalServiceScans.get(transformLoader) : null;
+        if (scan == null || scan.urlCount != urlCount) {
+            scan = new ServiceScan(urlCount);
+            boolean cacheable = true;
+            Enumeration<URL> globalServices = transformLoader.getResources("META-INF/services/org.codehaus.groovy.transform.ASTTransformation");
+            while (globalServices.hasMoreElements()) {
+                URL service = globalServices.nextElement();
+                scan.services.put(service, readService(service));
+                cacheable &= "jar".equals(service.getProtocol());
+            }
+            if (cacheable) {
+                globalServiceScans.put(transformLoader, scan);
+            } else {
+                globalServiceScans.remove(transformLoader);
+            }
+        }
+        return scan.services;
+    }
+
+    private static byte[] readService(URL service) throws IOException {
+        InputStream is = service.openStream();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+    // GRECLIPSE: end
+
     public static void addGlobalTransformsAfterGrab() {
         doAddGlobalTransforms(compUnit, false);
     }
@@ -212,7 +271,11 @@ public class ASTTransformationVisitor extends ClassCodeVisitorSupport {
         GroovyClassLoader transformLoader = compilationUnit.getTransformLoader();
         Map<String, URL> transformNames = new LinkedHashMap<String, URL>();
         try {
-            Enumeration<URL> globalServices = transformLoader.getResources("META-INF/services/org.codehaus.groovy.transform.ASTTransformation");
+            // GRECLIPSE: start: was
+            // Enumeration<URL> globalServices = transformLoader.getResources("META-INF/services/org.codehaus.groovy.transform.ASTTransformation");
+            final Map<URL, byte[]> serviceContents = getGlobalServices(transformLoader, isFirstScan);
+            Enumeration<URL> globalServices = Collections.enumeration(serviceContents.keySet());
+            // GRECLIPSE: end
             while (globalServices.hasMoreElements()) {
                 URL service = globalServices.nextElement();
                 String className;
@@ -238,7 +301,7 @@ public class ASTTransformationVisitor extends ClassCodeVisitorSupport {
                 // BufferedReader svcIn = new BufferedReader(new InputStreamReader(service.openStream()));
                 // now
            
-                InputStream is = service.openStream();
+                InputStream is = new ByteArrayInputStream(serviceContents.get(service));
                 BufferedReader svcIn = new BufferedReader(new InputStreamReader(is));
                
                 // FIXASC (groovychange)
@@ -164,6 +164,23 @@ public class ResolveVisitor extends ClassCodeExpressionTransformer {
         visitClass(node);
     }
 
+    // GRECLIPSE start
+    /**
+     * Resolves one method of a class that has been resolved before, eg- after the body of the method has been parsed again.
+     * The variable scopes of the method must have been computed already.
+     */
+    public void startResolving(ClassNode node, MethodNode method, SourceUnit source) {
+        this.source = source;
+        ClassNode oldNode = currentClass;
+        currentClass = node;
+        genericParameterNames = new HashMap<String, GenericsType>();
+        resolveGenericsHeader(node.getGenericsTypes());
+        visitConstructorOrMethod(method, method instanceof ConstructorNode);
+        finishedResolution();
+        currentClass = oldNode;
+    }
+    // GRECLIPSE end
+
     protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
         VariableScope oldScope = currentScope;
         currentScope = node.getVariableScope();
@@ -12,6 +12,7 @@ package org.codehaus.jdt.groovy.integration.internal;
 
 import org.codehaus.jdt.groovy.integration.EventHandler;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.codehaus.jdt.groovy.model.ModuleNodeCache;
 import org.eclipse.jdt.internal.core.JavaProject;
 
 @SuppressWarnings("restriction")
@@ -26,12 +27,14 @@ public class GroovyEventHandler implements EventHandler {
 		if (event.equals("cleanOutputFolders")) {
 			if (javaProject != null) {
 				GroovyParser.tidyCache(javaProject.getProject().getName());
+				ModuleNodeCache.getInstance().flush(javaProject.getElementName());
 			}
 		} else if (event.equals("close")) {
 			if (javaProject != null) {
 				String projectName = javaProject.getProject().getName();
 				GroovyParser.closeClassLoader(projectName);
 				GroovyParser.tidyCache(projectName);
+				ModuleNodeCache.getInstance().flush(javaProject.getElementName());
 			}
 		}
 	}
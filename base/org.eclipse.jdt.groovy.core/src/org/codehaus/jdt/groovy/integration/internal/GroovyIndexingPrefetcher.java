@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.integration.internal;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.eclipse.jdt.core.search.SearchDocument;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.IProblemFactory;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+
+/**
+ * Parses the Groovy files scheduled for indexing with a {@link MultiplexingIndexingParser} on
+ * {@link MultiplexingIndexingParser#getIndexingParallelism()} threads, so the indexing thread only has to walk the parse results
+ * and write them to the index. Each file gets its own groovy parser, so the parses share no state.
+ * <p>
+ * Results are taken in the order the files were scheduled, which is the order the indexing jobs run in. A file scheduled before
+ * the one being taken was never indexed (its job was discarded), so its result is thrown away. Only a few files per thread are
+ * parsed ahead of the indexing thread, which bounds the memory held by results nobody has asked for yet. A result is only used if
+ * it was parsed from the contents the indexing thread is indexing; otherwise the file is parsed again on the indexing thread.
+ */
+class GroovyIndexingPrefetcher {
+
+	// how many files per thread may be parsed ahead of the indexing thread
+	private static final int LOOK_AHEAD = 4;
+
+	static class Prepared {
+		final char[] contents;
+		final GroovyCompilationUnitDeclaration cud;
+
+		Prepared(char[] contents, GroovyCompilationUnitDeclaration cud) {
+			this.contents = contents;
+			this.cud = cud;
+		}
+	}
+
+	private final CompilerOptions options;
+	private final IProblemFactory problemFactory;
+
+	// documents scheduled but not handed to a thread yet, in scheduling order
+	private final LinkedList<SearchDocument> pending = new LinkedList<SearchDocument>();
+
+	// documents being (or done being) parsed, by path, in scheduling order
+	private final LinkedHashMap<String, Future<Prepared>> submitted = new LinkedHashMap<String, Future<Prepared>>();
+
+	// running while there are pending documents, shut down (letting submitted parses finish) once they are all submitted
+	private ExecutorService executor;
+
+	GroovyIndexingPrefetcher(CompilerOptions options, IProblemFactory problemFactory) {
+		this.options = options;
+		this.problemFactory = problemFactory;
+	}
+
+	/**
+	 * Starts parsing the given document on another thread, or queues it if enough documents are already being parsed ahead.
+	 */
+	synchronized void schedule(SearchDocument document) {
+		String path = document.getPath();
+		Future<Prepared> previous = submitted.remove(path);
+		if (previous != null) {
+			previous.cancel(false);
+		}
+		for (Iterator<SearchDocument> iter = pending.iterator(); iter.hasNext();) {
+			if (iter.next().getPath().equals(path)) {
+				iter.remove();
+			}
+		}
+		pending.add(document);
+		submitPending();
+	}
+
+	/**
+	 * Waits for and returns the parse of the given unit if it was scheduled, or null if it was not scheduled, did not parse, or was
+	 * parsed from other contents than the unit now has.
+	 */
+	GroovyCompilationUnitDeclaration take(ICompilationUnit unit) {
+		String path = new String(unit.getFileName());
+		Future<Prepared> result = null;
+		synchronized (this) {
+			if (submitted.containsKey(path)) {
+				for (Iterator<Map.Entry<String, Future<Prepared>>> iter = submitted.entrySet().iterator(); result == null;) {
+					Map.Entry<String, Future<Prepared>> entry = iter.next();
+					iter.remove();
+					if (entry.getKey().equals(path)) {
+						result = entry.getValue();
+					} else {
+						entry.getValue().cancel(false);
+					}
+				}
+			} else if (isPending(path)) {
+				// the indexing thread got ahead of the parsing threads; everything scheduled before this file was skipped
+				for (Future<Prepared> skipped : submitted.values()) {
+					skipped.cancel(false);
+				}
+				submitted.clear();
+				while (!pending.removeFirst().getPath().equals(path)) {
+					// drop the skipped documents
+				}
+			}
+			submitPending();
+		}
+		if (result == null) {
+			return null;
+		}
+		try {
+			Prepared prepared = result.get();
+			if (prepared != null && Arrays.equals(prepared.contents, unit.getContents())) {
+				return prepared.cud;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// parsed again (and the failure reported) on the indexing thread
+		} catch (CancellationException e) {
+			// rescheduled in the meantime, parse the current contents on the indexing thread
+		}
+		return null;
+	}
+
+	private boolean isPending(String path) {
+		for (SearchDocument document : pending) {
+			if (document.getPath().equals(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void submitPending() {
+		int parallelism = Math.max(1, MultiplexingIndexingParser.getIndexingParallelism());
+		while (!pending.isEmpty() && submitted.size() < parallelism * LOOK_AHEAD) {
+			if (executor == null) {
+				executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Groovy indexer");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+			}
+			final SearchDocument document = pending.removeFirst();
+			submitted.put(document.getPath(), executor.submit(new Callable<Prepared>() {
+				public Prepared call() {
+					char[] contents = document.getCharContents();
+					if (contents == null) {
+						return null;
+					}
+					ICompilationUnit unit = new CompilationUnit(contents, document.getPath(), null);
+					ProblemReporter problemReporter = new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+							options, problemFactory);
+					return new Prepared(contents, MultiplexingIndexingParser.parse(unit, options, problemReporter));
+				}
+			}));
+		}
+		if (pending.isEmpty() && executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+}
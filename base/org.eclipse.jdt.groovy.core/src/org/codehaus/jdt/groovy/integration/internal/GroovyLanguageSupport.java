@@ -13,14 +13,23 @@ package org.codehaus.jdt.groovy.integration.internal;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
 import org.codehaus.groovy.control.Phases;
 import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.jdt.groovy.integration.DelegatedSearches;
 import org.codehaus.jdt.groovy.integration.EventHandler;
 import org.codehaus.jdt.groovy.integration.LanguageSupport;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
@@ -30,6 +39,8 @@ import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.JavaModelException;
@@ -40,7 +51,9 @@ import org.eclipse.jdt.core.search.SearchRequestor;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.GroovyUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.BufferingSearchRequestor;
 import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.ReferenceNameIndex;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 import org.eclipse.jdt.groovy.search.TypeRequestorFactory;
@@ -80,6 +93,17 @@ import org.eclipse.jdt.internal.core.util.Util;
 @SuppressWarnings("restriction")
 public class GroovyLanguageSupport implements LanguageSupport {
 
+	/**
+	 * Number of threads that the delegated searches of the Groovy files run on, shared by all searches, see
+	 * {@link #startDelegatedSearches(PossibleMatch[], SearchPattern, SearchRequestor, IProgressMonitor)}. Set with the system
+	 * property <code>greclipse.search.parallelism</code>, the default of 1 searches one file at a time.
+	 */
+	private static int searchParallelism = Integer.getInteger("greclipse.search.parallelism", 1); //$NON-NLS-1$
+
+	private static ExecutorService searchExecutor;
+
+	private static int searchExecutorThreads;
+
 	public Parser getParser(Object requestor, CompilerOptions compilerOptions, ProblemReporter problemReporter,
 			boolean parseLiteralExpressionsAsConstants, int variant) {
 		if (variant == 1) {
@@ -184,6 +208,10 @@ public class GroovyLanguageSupport implements LanguageSupport {
 		if (possibleMatch.openable != null && possibleMatch.openable.exists()) {
 			ITypeRequestor typeRequestor = new TypeRequestorFactory().createRequestor(possibleMatch, pattern, requestor);
 			if (typeRequestor != null) {
+				if (!ReferenceNameIndex.mayMatch(possibleMatch, pattern)) {
+					// nothing in the file has the name searched for, no need to infer it
+					return true;
+				}
 				TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(possibleMatch);
 				visitor.visitCompilationUnit(typeRequestor);
 				return true;
@@ -192,6 +220,100 @@ public class GroovyLanguageSupport implements LanguageSupport {
 		return false;
 	}
 
+	public static int getSearchParallelism() {
+		return searchParallelism;
+	}
+
+	/**
+	 * For testing
+	 */
+	static void setSearchParallelism(int value) {
+		searchParallelism = value;
+	}
+
+	/**
+	 * Starts searching the possible matches on the threads of the shared search pool, see {@link #searchParallelism}. Every file
+	 * is parsed and inferred on its own and sequentially, so the searches share nothing but the caches behind type lookup. The
+	 * matches of each file are held back until the match locator reports that file, so they are interleaved with the matches of
+	 * the Java files in the order of the possible matches. A search that fails is not reported as performed, so the match locator
+	 * searches that file again (and reports the failure) as usual.
+	 */
+	public DelegatedSearches startDelegatedSearches(PossibleMatch[] possibleMatches, final SearchPattern pattern,
+			SearchRequestor requestor, final IProgressMonitor monitor) {
+		if (searchParallelism < 2 || possibleMatches.length < 2) {
+			return null;
+		}
+		ExecutorService executor = getSearchExecutor();
+		final Map<PossibleMatch, Future<BufferingSearchRequestor>> results;
+		results = new IdentityHashMap<PossibleMatch, Future<BufferingSearchRequestor>>(possibleMatches.length);
+		for (final PossibleMatch possibleMatch : possibleMatches) {
+			final BufferingSearchRequestor buffer = new BufferingSearchRequestor(requestor);
+			results.put(possibleMatch, executor.submit(new Callable<BufferingSearchRequestor>() {
+				public BufferingSearchRequestor call() {
+					if (monitor != null && monitor.isCanceled()) {
+						return null;
+					}
+					return maybePerformDelegatedSearch(possibleMatch, pattern, buffer) ? buffer : null;
+				}
+			}));
+		}
+		return new DelegatedSearches() {
+			public boolean report(PossibleMatch possibleMatch) {
+				Future<BufferingSearchRequestor> result = results.remove(possibleMatch);
+				if (result == null) {
+					return false;
+				}
+				BufferingSearchRequestor buffer;
+				try {
+					buffer = result.get();
+				} catch (ExecutionException e) {
+					// searched again by the match locator
+					buffer = null;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+				if (monitor != null && monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				if (buffer == null) {
+					return false;
+				}
+				buffer.reportMatches();
+				return true;
+			}
+
+			public void dispose() {
+				for (Future<BufferingSearchRequestor> result : results.values()) {
+					result.cancel(false);
+				}
+				results.clear();
+			}
+		};
+	}
+
+	/**
+	 * @return the pool of {@link #searchParallelism} daemon threads shared by all delegated searches, created again when the
+	 *         parallelism has changed since it was last used
+	 */
+	private static synchronized ExecutorService getSearchExecutor() {
+		if (searchExecutor == null || searchExecutorThreads != searchParallelism) {
+			if (searchExecutor != null) {
+				// searches already submitted still run to the end
+				searchExecutor.shutdown();
+			}
+			searchExecutorThreads = searchParallelism;
+			searchExecutor = Executors.newFixedThreadPool(searchExecutorThreads, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Groovy search"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return searchExecutor;
+	}
+
 	public EventHandler getEventHandler() {
 		// FIXASC could be une singleton?
 		return new GroovyEventHandler();
@@ -0,0 +1,1082 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.integration.internal;
+
+import java.io.CharArrayReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.greclipse.GroovyTokenTypeBridge;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.groovy.core.util.GroovyScanner;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor.FieldInfo;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor.MethodInfo;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor.TypeInfo;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor.TypeParameterInfo;
+import org.eclipse.jdt.internal.compiler.ast.ASTNode;
+import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.ConstructorDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.ImportReference;
+import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.core.search.matching.MethodPattern;
+
+import antlr.Token;
+import antlr.TokenStreamException;
+
+/**
+ * Reports the declarations and references of a Groovy file to an indexing requestor straight from the tokens of the Groovy lexer,
+ * without building a module node or resolving anything. The package, the imports, and types with their fields, methods and
+ * constructors are recognized by their shape. Every other identifier is reported as a simple name reference, and also as a
+ * method and field reference where it is called or dereferenced, and as a type reference where it starts with an upper case
+ * letter. Method references have the number of arguments of the call where its argument list shows it, and are otherwise
+ * reported once with {@link MethodPattern#ANY_ARITY}.
+ * <p>
+ * This is much faster than parsing the file and visiting it with a {@link GroovyIndexingVisitor}, but less precise. Types are
+ * reported as written in the source, and the index does not see the default parameter variants of methods, members added by AST
+ * transforms, or types declared inside method bodies.
+ */
+public class GroovyTokenIndexer {
+
+	private static final String OBJECT = "java.lang.Object"; //$NON-NLS-1$
+
+	private static final int IDENT = 1, STRING = 2, NEWLINE = 3, OTHER = 4, EOF = 5;
+
+	private static final Map<String, Integer> modifierFlags = new HashMap<String, Integer>();
+	static {
+		modifierFlags.put("public", ClassFileConstants.AccPublic); //$NON-NLS-1$
+		modifierFlags.put("protected", ClassFileConstants.AccProtected); //$NON-NLS-1$
+		modifierFlags.put("private", ClassFileConstants.AccPrivate); //$NON-NLS-1$
+		modifierFlags.put("static", ClassFileConstants.AccStatic); //$NON-NLS-1$
+		modifierFlags.put("abstract", ClassFileConstants.AccAbstract); //$NON-NLS-1$
+		modifierFlags.put("final", ClassFileConstants.AccFinal); //$NON-NLS-1$
+		modifierFlags.put("native", ClassFileConstants.AccNative); //$NON-NLS-1$
+		modifierFlags.put("synchronized", ClassFileConstants.AccSynchronized); //$NON-NLS-1$
+		modifierFlags.put("transient", ClassFileConstants.AccTransient); //$NON-NLS-1$
+		modifierFlags.put("volatile", ClassFileConstants.AccVolatile); //$NON-NLS-1$
+		modifierFlags.put("strictfp", ClassFileConstants.AccStrictfp); //$NON-NLS-1$
+		modifierFlags.put("threadsafe", 0); //$NON-NLS-1$
+	}
+
+	private static final int VISIBILITY = ClassFileConstants.AccPublic | ClassFileConstants.AccProtected
+			| ClassFileConstants.AccPrivate;
+
+	private static class TypeModel {
+		final TypeInfo info = new TypeInfo();
+		final List<Object> members = new ArrayList<Object>();
+		boolean hasConstructor;
+		int end;
+	}
+
+	private static class MethodModel {
+		final MethodInfo info = new MethodInfo();
+		int end;
+	}
+
+	private static class FieldModel {
+		final FieldInfo info = new FieldInfo();
+		int end;
+	}
+
+	private final ISourceElementRequestor requestor;
+
+	// the tokens of the file, without whitespace and comments
+	private int count;
+	private int[] kinds;
+	private String[] texts;
+	private int[] starts;
+
+	private int pos;
+	private char[] contents;
+	private char[] mainTypeName;
+	private ImportReference currentPackage;
+	private List<ImportReference> imports;
+	private List<TypeModel> types;
+	private TypeModel scriptType;
+
+	public GroovyTokenIndexer(ISourceElementRequestor requestor) {
+		this.requestor = requestor;
+	}
+
+	/**
+	 * Indexes the unit from its tokens.
+	 *
+	 * @return false if the unit could not be tokenized, in which case nothing has been reported and the unit should be indexed from
+	 *         a full parse
+	 */
+	public boolean index(ICompilationUnit unit) {
+		contents = unit.getContents();
+		mainTypeName = unit.getMainTypeName();
+		int[] lineEnds = lineSeparatorPositions(contents);
+		if (!tokenize(lineEnds)) {
+			return false;
+		}
+		currentPackage = null;
+		imports = new ArrayList<ImportReference>();
+		types = new ArrayList<TypeModel>();
+		scriptType = null;
+		pendingCloses = 0;
+
+		requestor.enterCompilationUnit();
+		requestor.acceptLineSeparatorPositions(lineEnds);
+		// references are reported while the declarations are collected
+		pos = 0;
+		parseHeader();
+		parseMembers(null);
+
+		// so the declarations can be reported with the right package and constructors
+		if (currentPackage != null) {
+			requestor.acceptPackage(currentPackage);
+		}
+		for (ImportReference ref : imports) {
+			requestor.acceptImport(ref.declarationSourceStart, ref.declarationSourceEnd, ref.sourceStart, ref.sourceEnd,
+					ref.tokens, (ref.bits & ASTNode.OnDemand) != 0, ref.modifiers);
+		}
+		CompilationResult result = new CompilationResult(unit, 0, 0, 0);
+		for (TypeModel type : types) {
+			notifyType(type, result);
+		}
+		requestor.exitCompilationUnit(contents.length - 1);
+		return true;
+	}
+
+	// line separator positions as JDT reports them, also used to turn antlr lines into offsets
+	private static int[] lineSeparatorPositions(char[] contents) {
+		int[] ends = new int[16];
+		int lines = 0;
+		for (int i = 0; i < contents.length; i++) {
+			char c = contents[i];
+			if (c == '\r' && i + 1 < contents.length && contents[i + 1] == '\n') {
+				i++;
+			} else if (c != '\r' && c != '\n') {
+				continue;
+			}
+			if (lines == ends.length) {
+				System.arraycopy(ends, 0, ends = new int[lines * 2], 0, lines);
+			}
+			ends[lines++] = i;
+		}
+		System.arraycopy(ends, 0, ends = new int[lines], 0, lines);
+		return ends;
+	}
+
+	private boolean tokenize(int[] lineEnds) {
+		count = 0;
+		kinds = new int[256];
+		texts = new String[256];
+		starts = new int[256];
+		GroovyScanner scanner = new GroovyScanner(new CharArrayReader(contents));
+		try {
+			while (true) {
+				Token token = scanner.nextToken();
+				int type = token.getType();
+				int kind;
+				if (type == GroovyTokenTypeBridge.IDENT) {
+					kind = IDENT;
+				} else if (type == GroovyTokenTypeBridge.STRING_LITERAL || type == GroovyTokenTypeBridge.STRING_CTOR_START
+						|| type == GroovyTokenTypeBridge.STRING_CTOR_MIDDLE || type == GroovyTokenTypeBridge.STRING_CTOR_END) {
+					kind = STRING;
+				} else if (type == GroovyTokenTypeBridge.NLS) {
+					kind = NEWLINE;
+				} else if (type == GroovyTokenTypeBridge.EOF) {
+					kind = EOF;
+				} else {
+					kind = OTHER;
+				}
+				if (count == kinds.length) {
+					int length = count * 2;
+					System.arraycopy(kinds, 0, kinds = new int[length], 0, count);
+					System.arraycopy(texts, 0, texts = new String[length], 0, count);
+					System.arraycopy(starts, 0, starts = new int[length], 0, count);
+				}
+				int line = token.getLine();
+				String text = token.getText();
+				kinds[count] = kind;
+				texts[count] = text != null ? text : ""; //$NON-NLS-1$
+				starts[count] = (line > 1 && line - 2 < lineEnds.length ? lineEnds[line - 2] + 1 : 0) + token.getColumn() - 1;
+				count++;
+				if (kind == EOF) {
+					return true;
+				}
+			}
+		} catch (TokenStreamException e) {
+			return false;
+		}
+	}
+
+	// token helpers
+
+	private boolean is(int index, String text) {
+		return index < count && kinds[index] == OTHER && texts[index].equals(text);
+	}
+
+	private boolean is(String text) {
+		return is(pos, text);
+	}
+
+	private boolean isIdent(int index) {
+		return index < count && kinds[index] == IDENT;
+	}
+
+	private boolean atEnd() {
+		return kinds[pos] == EOF;
+	}
+
+	private int end(int index) {
+		return starts[index] + texts[index].length() - 1;
+	}
+
+	private void skipSeparators() {
+		while (kinds[pos] == NEWLINE || is(";")) {
+			pos++;
+		}
+	}
+
+	private void skipNewlines() {
+		while (kinds[pos] == NEWLINE) {
+			pos++;
+		}
+	}
+
+	// references
+
+	/**
+	 * Reports the references of the token at the current position and moves past it.
+	 */
+	private void scanToken() {
+		int i = pos++;
+		if (kinds[i] == IDENT) {
+			char[] name = texts[i].toCharArray();
+			int start = starts[i];
+			boolean lowerCase = !Character.isUpperCase(name[0]);
+			if (is(i + 1, "(") || is(i + 1, ":") || (i > 0 && isDereference(i - 1)) //$NON-NLS-1$ //$NON-NLS-2$
+					|| (lowerCase && (kinds[i + 1] == IDENT || kinds[i + 1] == STRING || is(i + 1, "{")))) { //$NON-NLS-1$
+				// a method call, also without parentheses, a property, or a map key or named argument
+				requestor.acceptFieldReference(name, start);
+				requestor.acceptMethodReference(name, countArguments(i + 1), start);
+			} else {
+				if (!lowerCase) {
+					requestor.acceptTypeReference(name, start);
+				}
+				requestor.acceptUnknownReference(name, start);
+			}
+		} else if (is(i, "new") && isIdent(pos)) { //$NON-NLS-1$
+			int first = pos;
+			int last = skipQualifiedName();
+			char[][] qualified = qualifiedName(first, last);
+			requestor.acceptTypeReference(qualified, starts[first], end(last));
+			requestor.acceptConstructorReference(CharOperation.concatWith(qualified, '.'), 0, starts[first]);
+			if (is("<")) { //$NON-NLS-1$
+				parseTypeArguments();
+			}
+		} else if (kinds[i] == STRING && isJavaIdentifier(texts[i])) {
+			// could be a dynamic method or property name
+			char[] name = texts[i].toCharArray();
+			requestor.acceptFieldReference(name, starts[i]);
+			requestor.acceptMethodReference(name, countArguments(i + 1), starts[i]);
+		}
+	}
+
+	/**
+	 * Counts the arguments of a call from the tokens that follow the method name: an argument list in parentheses, where named
+	 * arguments make up one map, and a closure after it or in place of it.
+	 *
+	 * @return the number of arguments, or {@link MethodPattern#ANY_ARITY} if the tokens don't show it, as for a command expression
+	 *         or a spread argument
+	 */
+	private int countArguments(int index) {
+		if (is(index, "{")) { //$NON-NLS-1$
+			return 1;
+		}
+		if (!is(index, "(")) { //$NON-NLS-1$
+			return MethodPattern.ANY_ARITY;
+		}
+		int args = 0, named = 0, depth = 0;
+		boolean argStart = true;
+		int i = index + 1;
+		for (; kinds[i] != EOF; i++) {
+			if (kinds[i] == NEWLINE) {
+				continue;
+			}
+			if (depth == 0) {
+				if (is(i, ")")) { //$NON-NLS-1$
+					break;
+				}
+				if (is(i, ",")) { //$NON-NLS-1$
+					argStart = true;
+					continue;
+				}
+				if (argStart) {
+					if (is(i, "*")) { //$NON-NLS-1$
+						return MethodPattern.ANY_ARITY;
+					}
+					if ((kinds[i] == IDENT || kinds[i] == STRING) && is(i + 1, ":")) { //$NON-NLS-1$
+						named++;
+					}
+					args++;
+					argStart = false;
+				}
+			}
+			if (is(i, "(") || is(i, "[") || is(i, "{")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				depth++;
+			} else if (is(i, ")") || is(i, "]") || is(i, "}")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				depth--;
+			}
+		}
+		if (kinds[i] == EOF) {
+			return MethodPattern.ANY_ARITY;
+		}
+		if (named > 0) {
+			args -= named - 1;
+		}
+		// a closure after the parentheses is one more argument
+		return is(i + 1, "{") ? args + 1 : args; //$NON-NLS-1$
+	}
+
+	private boolean isDereference(int index) {
+		return is(index, ".") || is(index, "?.") || is(index, "*.") || is(index, ".&") || is(index, ".@"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+
+	private static boolean isJavaIdentifier(String text) {
+		if (text.length() == 0 || !Character.isJavaIdentifierStart(text.charAt(0))) {
+			return false;
+		}
+		for (int i = 1; i < text.length(); i++) {
+			if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reports the references up to and including the token that closes the bracket at the current position.
+	 */
+	private void skipBalanced() {
+		int depth = 0;
+		do {
+			if (is("(") || is("[") || is("{")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				depth++;
+			} else if (is(")") || is("]") || is("}")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				depth--;
+			}
+			scanToken();
+		} while (depth > 0 && !atEnd());
+	}
+
+	/**
+	 * Reports the references up to the end of the statement at the current position, which is a new line or semicolon outside of
+	 * brackets, or the closing brace of the enclosing block. Stops at a comma too if asked to.
+	 */
+	private void skipStatement(boolean stopAtComma) {
+		while (!atEnd() && kinds[pos] != NEWLINE && !is(";") && !is("}") && !(stopAtComma && is(","))) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			if (is("(") || is("[") || is("{")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				skipBalanced();
+			} else {
+				scanToken();
+			}
+		}
+	}
+
+	// declarations
+
+	private void parseHeader() {
+		skipSeparators();
+		int start = pos;
+		skipAnnotations();
+		if (is("package")) { //$NON-NLS-1$
+			int declarationStart = starts[start];
+			pos++;
+			int first = pos;
+			int last = skipQualifiedName();
+			if (last >= first) {
+				char[][] name = qualifiedName(first, last);
+				currentPackage = new ImportReference(name, positions(first, last), true, ClassFileConstants.AccDefault);
+				currentPackage.declarationSourceStart = declarationStart;
+				currentPackage.declarationSourceEnd = currentPackage.declarationEnd = end(last);
+			}
+		} else {
+			pos = start;
+		}
+		while (true) {
+			skipSeparators();
+			if (!is("import")) { //$NON-NLS-1$
+				return;
+			}
+			parseImport();
+		}
+	}
+
+	private void parseImport() {
+		int declarationStart = starts[pos++];
+		int modifiers = ClassFileConstants.AccDefault;
+		if (is("static")) { //$NON-NLS-1$
+			modifiers |= ClassFileConstants.AccStatic;
+			pos++;
+		}
+		int first = pos;
+		int last = skipQualifiedName();
+		if (last < first) {
+			skipStatement(false);
+			return;
+		}
+		boolean onDemand = false;
+		int declarationEnd = end(last);
+		if (is(".") && is(pos + 1, "*")) { //$NON-NLS-1$ //$NON-NLS-2$
+			onDemand = true;
+			declarationEnd = end(pos + 1);
+			pos += 2;
+		}
+		char[][] name = qualifiedName(first, last);
+		ImportReference ref = new ImportReference(name, positions(first, last), onDemand, modifiers);
+		ref.declarationSourceStart = declarationStart;
+		ref.declarationSourceEnd = ref.declarationEnd = declarationEnd;
+		imports.add(ref);
+		if ((modifiers & ClassFileConstants.AccStatic) != 0 && !onDemand && name.length > 1) {
+			// the last segment is a member of the type
+			requestor.acceptTypeReference(CharOperation.subarray(name, 0, name.length - 1), starts[first], end(last - 2));
+			requestor.acceptUnknownReference(name[name.length - 1], starts[last]);
+		} else if (!onDemand) {
+			requestor.acceptTypeReference(name, starts[first], end(last));
+		}
+		if (is("as") && isIdent(pos + 1)) { //$NON-NLS-1$
+			pos += 2;
+		}
+	}
+
+	/**
+	 * Moves past a dotted name at the current position.
+	 *
+	 * @return the index of its last segment, or the current position - 1 if there is no name here
+	 */
+	private int skipQualifiedName() {
+		int last = pos - 1;
+		if (isIdent(pos)) {
+			last = pos++;
+			while (is(".") && isIdent(pos + 1)) { //$NON-NLS-1$
+				pos += 2;
+				last = pos - 1;
+			}
+		}
+		return last;
+	}
+
+	private char[][] qualifiedName(int first, int last) {
+		char[][] name = new char[(last - first) / 2 + 1][];
+		for (int i = first, n = 0; i <= last; i += 2, n++) {
+			name[n] = texts[i].toCharArray();
+		}
+		return name;
+	}
+
+	private long[] positions(int first, int last) {
+		long[] positions = new long[(last - first) / 2 + 1];
+		for (int i = first, n = 0; i <= last; i += 2, n++) {
+			positions[n] = ((long) starts[i] << 32) | end(i);
+		}
+		return positions;
+	}
+
+	/**
+	 * Moves past the annotations at the current position, reporting their types and the references in their arguments.
+	 */
+	private void skipAnnotations() {
+		while (is("@") && !is(pos + 1, "interface")) { //$NON-NLS-1$ //$NON-NLS-2$
+			pos++;
+			int first = pos;
+			int last = skipQualifiedName();
+			if (last >= first) {
+				requestor.acceptAnnotationTypeReference(qualifiedName(first, last), starts[first], end(last));
+			}
+			if (is("(")) { //$NON-NLS-1$
+				skipBalanced();
+			}
+			skipNewlines();
+		}
+	}
+
+	private int parseModifiers() {
+		int modifiers = 0;
+		while (true) {
+			skipAnnotations();
+			Integer flag = kinds[pos] == OTHER ? modifierFlags.get(texts[pos]) : null;
+			if (flag == null) {
+				return modifiers;
+			}
+			modifiers |= flag;
+			pos++;
+			skipNewlines();
+		}
+	}
+
+	/**
+	 * Parses the members of a type body, or the top level of the file if the type is null, up to and including the closing brace.
+	 */
+	private void parseMembers(TypeModel type) {
+		boolean isEnum = type != null && (type.info.modifiers & ClassFileConstants.AccEnum) != 0;
+		if (isEnum) {
+			parseEnumConstants(type);
+		}
+		while (true) {
+			skipSeparators();
+			if (atEnd()) {
+				return;
+			}
+			if (is("}")) { //$NON-NLS-1$
+				pos++;
+				if (type != null) {
+					type.end = starts[pos - 1];
+					return;
+				}
+				continue;
+			}
+			int declarationStart = starts[pos];
+			int modifiers = parseModifiers();
+			if (is("class") || is("interface") || is("enum") || (is("@") && is(pos + 1, "interface"))) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+				TypeModel member = parseType(modifiers, declarationStart, type);
+				if (member != null && type != null) {
+					type.members.add(member);
+				} else if (member != null) {
+					types.add(member);
+				}
+			} else if (is("{")) { //$NON-NLS-1$
+				// an initializer or, at the top level, a block
+				if (type == null) {
+					getScriptType();
+				}
+				skipBalanced();
+			} else if (!parseMember(modifiers, declarationStart, type)) {
+				if (type == null) {
+					getScriptType();
+				}
+				skipStatement(false);
+				if (is(",")) { //$NON-NLS-1$
+					scanToken();
+				}
+			}
+		}
+	}
+
+	private void parseEnumConstants(TypeModel type) {
+		while (true) {
+			skipSeparators();
+			skipAnnotations();
+			if (!isIdent(pos) || !(is(pos + 1, ",") || is(pos + 1, ";") || is(pos + 1, "(") || is(pos + 1, "{") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+					|| is(pos + 1, "}") || kinds[pos + 1] == NEWLINE)) { //$NON-NLS-1$
+				return;
+			}
+			FieldModel field = new FieldModel();
+			field.info.declarationStart = starts[pos];
+			field.info.modifiers = ClassFileConstants.AccPublic | ClassFileConstants.AccStatic | ClassFileConstants.AccFinal
+					| ClassFileConstants.AccEnum;
+			field.info.type = type.info.name;
+			field.info.name = texts[pos].toCharArray();
+			field.info.nameSourceStart = starts[pos];
+			field.info.nameSourceEnd = field.end = end(pos);
+			type.members.add(field);
+			pos++;
+			if (is("(")) { //$NON-NLS-1$
+				skipBalanced();
+			}
+			if (is("{")) { //$NON-NLS-1$
+				skipBalanced();
+			}
+			field.end = starts[pos - 1];
+			skipNewlines();
+			if (is(",")) { //$NON-NLS-1$
+				pos++;
+			} else {
+				if (is(";")) { //$NON-NLS-1$
+					pos++;
+				}
+				return;
+			}
+		}
+	}
+
+	private TypeModel parseType(int modifiers, int declarationStart, TypeModel outer) {
+		if (is("@")) { //$NON-NLS-1$
+			modifiers |= ClassFileConstants.AccAnnotation | ClassFileConstants.AccInterface;
+			pos++;
+		} else if (is("interface")) { //$NON-NLS-1$
+			modifiers |= ClassFileConstants.AccInterface;
+		} else if (is("enum")) { //$NON-NLS-1$
+			modifiers |= ClassFileConstants.AccEnum;
+		}
+		pos++;
+		if (!isIdent(pos)) {
+			skipStatement(false);
+			return null;
+		}
+		if ((modifiers & VISIBILITY) == 0) {
+			modifiers |= ClassFileConstants.AccPublic;
+		}
+		TypeModel type = new TypeModel();
+		TypeInfo info = type.info;
+		info.declarationStart = declarationStart;
+		info.modifiers = modifiers;
+		info.name = texts[pos].toCharArray();
+		info.nameSourceStart = starts[pos];
+		info.nameSourceEnd = end(pos);
+		info.secondary = outer == null && !CharOperation.equals(info.name, mainTypeName);
+		pos++;
+		skipNewlines();
+		if (is("<")) { //$NON-NLS-1$
+			info.typeParameters = parseTypeParameters();
+		}
+		List<char[]> interfaces = new ArrayList<char[]>();
+		while (true) {
+			skipNewlines();
+			if (is("extends")) { //$NON-NLS-1$
+				pos++;
+				List<char[]> supers = parseTypeList();
+				if ((modifiers & ClassFileConstants.AccInterface) != 0) {
+					interfaces.addAll(supers);
+				} else if (!supers.isEmpty()) {
+					info.superclass = supers.get(0);
+				}
+			} else if (is("implements")) { //$NON-NLS-1$
+				pos++;
+				interfaces.addAll(parseTypeList());
+			} else {
+				break;
+			}
+		}
+		if (!interfaces.isEmpty()) {
+			info.superinterfaces = interfaces.toArray(new char[interfaces.size()][]);
+		}
+		if (!is("{")) { //$NON-NLS-1$
+			type.end = pos > 0 ? end(pos - 1) : 0;
+			return type;
+		}
+		pos++;
+		parseMembers(type);
+		return type;
+	}
+
+	private TypeParameterInfo[] parseTypeParameters() {
+		List<TypeParameterInfo> parameters = new ArrayList<TypeParameterInfo>();
+		pos++;
+		while (isIdent(pos)) {
+			TypeParameterInfo parameter = new TypeParameterInfo();
+			parameter.declarationStart = parameter.nameSourceStart = starts[pos];
+			parameter.name = texts[pos].toCharArray();
+			parameter.declarationEnd = parameter.nameSourceEnd = end(pos);
+			pos++;
+			if (is("extends")) { //$NON-NLS-1$
+				List<char[]> bounds = new ArrayList<char[]>();
+				do {
+					pos++;
+					char[] bound = parseTypeReference();
+					if (bound != null) {
+						bounds.add(bound);
+					}
+				} while (is("&")); //$NON-NLS-1$
+				parameter.bounds = bounds.toArray(new char[bounds.size()][]);
+				parameter.declarationEnd = end(pos - 1);
+			}
+			parameters.add(parameter);
+			if (!is(",")) { //$NON-NLS-1$
+				break;
+			}
+			pos++;
+		}
+		closeTypeArguments();
+		return parameters.toArray(new TypeParameterInfo[parameters.size()]);
+	}
+
+	private List<char[]> parseTypeList() {
+		List<char[]> names = new ArrayList<char[]>();
+		do {
+			skipNewlines();
+			if (is(",")) { //$NON-NLS-1$
+				pos++;
+				skipNewlines();
+			}
+			char[] name = parseTypeReference();
+			if (name == null) {
+				break;
+			}
+			names.add(name);
+			skipNewlines();
+		} while (is(",")); //$NON-NLS-1$
+		return names;
+	}
+
+	/**
+	 * Parses a type like <code>java.util.Map&lt;String, List&lt;?&gt;&gt;[]</code> at the current position and reports the
+	 * references to its types.
+	 *
+	 * @return its name as written, without type arguments, or null if there is no type at the current position
+	 */
+	private char[] parseTypeReference() {
+		if (kinds[pos] == OTHER && isPrimitive(texts[pos])) {
+			char[] name = texts[pos++].toCharArray();
+			return parseDimensions(name);
+		}
+		int first = pos;
+		int last = skipQualifiedName();
+		if (last < first) {
+			return null;
+		}
+		char[][] qualified = qualifiedName(first, last);
+		requestor.acceptTypeReference(qualified, starts[first], end(last));
+		if (is("<")) { //$NON-NLS-1$
+			parseTypeArguments();
+		}
+		return parseDimensions(CharOperation.concatWith(qualified, '.'));
+	}
+
+	private char[] parseDimensions(char[] name) {
+		while (is("[") && is(pos + 1, "]")) { //$NON-NLS-1$ //$NON-NLS-2$
+			name = CharOperation.concat(name, "[]".toCharArray()); //$NON-NLS-1$
+			pos += 2;
+		}
+		return name;
+	}
+
+	private static boolean isPrimitive(String text) {
+		return text.equals("boolean") || text.equals("char") || text.equals("byte") || text.equals("short") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				|| text.equals("int") || text.equals("long") || text.equals("float") || text.equals("double") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				|| text.equals("void"); //$NON-NLS-1$
+	}
+
+	private void parseTypeArguments() {
+		pos++;
+		while (true) {
+			if (is("?")) { //$NON-NLS-1$
+				pos++;
+				if (is("extends") || is("super")) { //$NON-NLS-1$ //$NON-NLS-2$
+					pos++;
+				}
+			}
+			if (is(">") || is(">>") || is(">>>")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				break;
+			}
+			if (parseTypeReference() == null || !is(",")) { //$NON-NLS-1$
+				break;
+			}
+			pos++;
+		}
+		closeTypeArguments();
+	}
+
+	// a nested type argument list can end with the >> or >>> of the outer lists
+	private int pendingCloses;
+
+	private void closeTypeArguments() {
+		if (pendingCloses > 0) {
+			pendingCloses--;
+			return;
+		}
+		if (is(">")) { //$NON-NLS-1$
+			pos++;
+		} else if (is(">>")) { //$NON-NLS-1$
+			pos++;
+			pendingCloses = 1;
+		} else if (is(">>>")) { //$NON-NLS-1$
+			pos++;
+			pendingCloses = 2;
+		}
+	}
+
+	/**
+	 * Parses a field, method or constructor declaration at the current position, after its modifiers.
+	 *
+	 * @param type the declaring type, or null at the top level of a script
+	 * @return false if there is no declaration here, leaving the position where it was
+	 */
+	private boolean parseMember(int modifiers, int declarationStart, TypeModel type) {
+		int start = pos;
+		TypeParameterInfo[] typeParameters = null;
+		if (is("<")) { //$NON-NLS-1$
+			typeParameters = parseTypeParameters();
+		}
+		boolean hasDef = false;
+		char[] returnType = null;
+		if (is("def")) { //$NON-NLS-1$
+			hasDef = true;
+			pos++;
+		} else if ((isIdent(pos) || (kinds[pos] == OTHER && isPrimitive(texts[pos]))) && !is(pos + 1, "(") //$NON-NLS-1$
+				&& (type != null || modifiers != 0 || !looksLikeCommand())) {
+			returnType = parseTypeReference();
+		}
+		boolean typed = hasDef || returnType != null || modifiers != 0 || typeParameters != null;
+
+		int nameIndex = pos;
+		boolean isName = isIdent(pos) || (kinds[pos] == STRING && is(pos + 1, "(")); //$NON-NLS-1$
+		if (!isName || (!typed && !(type != null && is(pos + 1, "(")))) { //$NON-NLS-1$
+			restore(start);
+			return false;
+		}
+		char[] name = texts[nameIndex].toCharArray();
+		pos++;
+		if (is("(")) { //$NON-NLS-1$
+			boolean isConstructor = returnType == null && !hasDef && type != null && CharOperation.equals(name, type.info.name);
+			if (!typed && !isConstructor) {
+				restore(start);
+				return false;
+			}
+			if (type == null && !closesWithBody()) {
+				// a call in a script, like "String foo(bar)"
+				restore(start);
+				return false;
+			}
+			MethodModel method = new MethodModel();
+			MethodInfo info = method.info;
+			info.isConstructor = isConstructor;
+			info.declarationStart = declarationStart;
+			info.name = name;
+			info.nameSourceStart = starts[nameIndex];
+			info.nameSourceEnd = end(nameIndex);
+			info.returnType = isConstructor ? null : returnType != null ? returnType : OBJECT.toCharArray();
+			info.typeParameters = typeParameters;
+			parseParameters(info);
+			skipNewlines();
+			if (is("throws")) { //$NON-NLS-1$
+				pos++;
+				List<char[]> exceptions = parseTypeList();
+				info.exceptionTypes = exceptions.toArray(new char[exceptions.size()][]);
+			} else {
+				info.exceptionTypes = CharOperation.NO_CHAR_CHAR;
+			}
+			if (is("default")) { //$NON-NLS-1$
+				// an annotation member with a default value
+				pos++;
+				info.isAnnotation = true;
+				skipStatement(false);
+			}
+			if (type == null) {
+				type = getScriptType();
+			}
+			boolean isInterface = (type.info.modifiers & ClassFileConstants.AccInterface) != 0;
+			if ((modifiers & VISIBILITY) == 0) {
+				modifiers |= ClassFileConstants.AccPublic;
+			}
+			if (isInterface) {
+				modifiers |= ClassFileConstants.AccAbstract;
+			}
+			info.modifiers = modifiers;
+			if (is("{")) { //$NON-NLS-1$
+				skipBalanced();
+				method.end = starts[pos - 1];
+			} else {
+				method.end = end(pos - 1);
+			}
+			type.members.add(method);
+			type.hasConstructor |= isConstructor;
+			return true;
+		}
+
+		if (type == null || returnType == null && !hasDef && modifiers == 0) {
+			// local variables of scripts are not fields
+			restore(start);
+			return false;
+		}
+		char[] fieldType = returnType != null ? returnType : OBJECT.toCharArray();
+		if ((modifiers & VISIBILITY) == 0) {
+			if ((type.info.modifiers & ClassFileConstants.AccInterface) != 0) {
+				modifiers |= ClassFileConstants.AccPublic | ClassFileConstants.AccStatic | ClassFileConstants.AccFinal;
+			} else {
+				// a property
+				modifiers |= ClassFileConstants.AccPrivate;
+			}
+		}
+		while (true) {
+			FieldModel field = new FieldModel();
+			FieldInfo info = field.info;
+			info.declarationStart = declarationStart;
+			info.modifiers = modifiers;
+			info.type = fieldType;
+			info.name = texts[nameIndex].toCharArray();
+			info.nameSourceStart = starts[nameIndex];
+			info.nameSourceEnd = end(nameIndex);
+			if (is("=")) { //$NON-NLS-1$
+				pos++;
+				skipStatement(true);
+			}
+			field.end = end(pos - 1);
+			type.members.add(field);
+			if (!is(",") || !isIdent(pos + 1)) { //$NON-NLS-1$
+				return true;
+			}
+			pos++;
+			nameIndex = pos++;
+		}
+	}
+
+	// gives up on a declaration
+	private void restore(int start) {
+		pos = start;
+		pendingCloses = 0;
+	}
+
+	// in a script, "foo bar" is a command expression rather than the declaration of bar, unless foo is the name of a type
+	private boolean looksLikeCommand() {
+		return kinds[pos] == IDENT && !Character.isUpperCase(texts[pos].charAt(0)) && !is(pos + 1, ".") //$NON-NLS-1$
+				&& !is(pos + 1, "<"); //$NON-NLS-1$
+	}
+
+	// whether the parameter list at the current position is followed by a method body
+	private boolean closesWithBody() {
+		int depth = 0;
+		for (int i = pos; i < count; i++) {
+			if (is(i, "(")) { //$NON-NLS-1$
+				depth++;
+			} else if (is(i, ")") && --depth == 0) { //$NON-NLS-1$
+				int next = i + 1;
+				while (kinds[next] == NEWLINE) {
+					next++;
+				}
+				return is(next, "{") || is(next, "throws"); //$NON-NLS-1$ //$NON-NLS-2$
+			} else if (kinds[i] == EOF) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private void parseParameters(MethodInfo info) {
+		List<char[]> types = new ArrayList<char[]>();
+		List<char[]> names = new ArrayList<char[]>();
+		pos++;
+		while (true) {
+			skipNewlines();
+			if (is(")") || atEnd()) { //$NON-NLS-1$
+				break;
+			}
+			parseModifiers();
+			if (is("def")) { //$NON-NLS-1$
+				pos++;
+			}
+			char[] parameterType = null;
+			if (!(isIdent(pos) && (is(pos + 1, ",") || is(pos + 1, ")") || is(pos + 1, "=")))) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				parameterType = parseTypeReference();
+			}
+			if (is("...")) { //$NON-NLS-1$
+				pos++;
+				if (parameterType != null) {
+					parameterType = CharOperation.concat(parameterType, "[]".toCharArray()); //$NON-NLS-1$
+				}
+			}
+			if (!isIdent(pos)) {
+				// not something we understand, give up on the parameters
+				while (!is(")") && !atEnd()) { //$NON-NLS-1$
+					if (is("(") || is("[") || is("{")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						skipBalanced();
+					} else {
+						scanToken();
+					}
+				}
+				break;
+			}
+			types.add(parameterType != null ? parameterType : OBJECT.toCharArray());
+			names.add(texts[pos++].toCharArray());
+			skipNewlines();
+			if (is("=")) { //$NON-NLS-1$
+				pos++;
+				while (!is(",") && !is(")") && !atEnd()) { //$NON-NLS-1$ //$NON-NLS-2$
+					if (is("(") || is("[") || is("{")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						skipBalanced();
+					} else {
+						scanToken();
+					}
+				}
+			}
+			if (is(",")) { //$NON-NLS-1$
+				pos++;
+			}
+		}
+		if (is(")")) { //$NON-NLS-1$
+			pos++;
+		}
+		info.parameterTypes = types.toArray(new char[types.size()][]);
+		info.parameterNames = names.toArray(new char[names.size()][]);
+	}
+
+	/**
+	 * The class that Groovy makes of the statements of a script, with the constructors and methods it adds to it.
+	 */
+	private TypeModel getScriptType() {
+		if (scriptType == null) {
+			scriptType = new TypeModel();
+			TypeInfo info = scriptType.info;
+			info.modifiers = ClassFileConstants.AccPublic;
+			info.name = mainTypeName;
+			info.superclass = "groovy.lang.Script".toCharArray(); //$NON-NLS-1$
+			addScriptMember(true, "<init>", null, CharOperation.NO_CHAR_CHAR, 0); //$NON-NLS-1$
+			addScriptMember(true, "<init>", null, new char[][] { "groovy.lang.Binding".toCharArray() }, 0); //$NON-NLS-1$ //$NON-NLS-2$
+			addScriptMember(false, "main", "void", new char[][] { "java.lang.String[]".toCharArray() }, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					ClassFileConstants.AccStatic);
+			addScriptMember(false, "run", OBJECT, CharOperation.NO_CHAR_CHAR, 0); //$NON-NLS-1$
+			scriptType.hasConstructor = true;
+			scriptType.end = contents.length - 1;
+			types.add(scriptType);
+		}
+		return scriptType;
+	}
+
+	private void addScriptMember(boolean isConstructor, String name, String returnType, char[][] parameterTypes, int modifiers) {
+		MethodModel method = new MethodModel();
+		MethodInfo info = method.info;
+		info.isConstructor = isConstructor;
+		info.modifiers = ClassFileConstants.AccPublic | modifiers;
+		info.name = isConstructor ? mainTypeName : name.toCharArray();
+		info.returnType = returnType == null ? null : returnType.toCharArray();
+		info.parameterTypes = parameterTypes;
+		info.parameterNames = new char[parameterTypes.length][];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			info.parameterNames[i] = ("arg" + i).toCharArray(); //$NON-NLS-1$
+		}
+		info.exceptionTypes = CharOperation.NO_CHAR_CHAR;
+		method.end = -1;
+		scriptType.members.add(method);
+	}
+
+	private void notifyType(TypeModel type, CompilationResult result) {
+		TypeInfo info = type.info;
+		// the indexer looks at the node to decide whether there is a default constructor
+		info.node = new TypeDeclaration(result);
+		info.node.name = info.name;
+		if (type.hasConstructor) {
+			info.node.methods = new AbstractMethodDeclaration[] { new ConstructorDeclaration(result) };
+		}
+		requestor.enterType(info);
+		char[] packageName = currentPackage == null ? CharOperation.NO_CHAR : CharOperation.concatWith(currentPackage.tokens,
+				'.');
+		for (Object member : type.members) {
+			if (member instanceof TypeModel) {
+				notifyType((TypeModel) member, result);
+			} else if (member instanceof MethodModel) {
+				MethodModel method = (MethodModel) member;
+				method.info.declaringPackageName = packageName;
+				method.info.declaringTypeModifiers = info.modifiers;
+				if (method.info.isConstructor) {
+					requestor.enterConstructor(method.info);
+					requestor.exitConstructor(method.end);
+				} else {
+					requestor.enterMethod(method.info);
+					requestor.exitMethod(method.end, null);
+				}
+			} else {
+				FieldModel field = (FieldModel) member;
+				requestor.enterField(field.info);
+				requestor.exitField(-1, field.end, field.end);
+			}
+		}
+		requestor.exitType(type.end);
+	}
+}
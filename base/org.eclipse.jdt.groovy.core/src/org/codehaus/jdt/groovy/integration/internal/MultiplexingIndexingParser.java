@@ -16,6 +16,7 @@ import java.util.Collections;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.search.SearchDocument;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
@@ -29,8 +30,10 @@ import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
 import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
 import org.eclipse.jdt.internal.compiler.util.HashtableOfObjectToInt;
 import org.eclipse.jdt.internal.core.search.indexing.IndexingParser;
+import org.eclipse.jdt.internal.core.search.matching.MethodPattern;
 
 /**
  * @author Andrew Eisenberg
@@ -38,9 +41,26 @@ import org.eclipse.jdt.internal.core.search.indexing.IndexingParser;
  * 
  */
 public class MultiplexingIndexingParser extends IndexingParser {
+
+	/**
+	 * When set, Groovy files are indexed from their tokens by a {@link GroovyTokenIndexer} rather than from a full parse. This is
+	 * much faster, which matters when importing large Groovy code bases, but the references in the index are less precise.
+	 * Files that cannot be tokenized are still indexed from a full parse. Set with the system property
+	 * <code>greclipse.indexing.lexer</code>.
+	 */
+	private static boolean lexerIndexing = System.getProperty("greclipse.indexing.lexer") != null; //$NON-NLS-1$
+
+	/**
+	 * Number of threads that parse the Groovy files scheduled for indexing ahead of the indexing thread, which then only walks the
+	 * results (see {@link GroovyIndexingPrefetcher}). Set with the system property <code>greclipse.indexing.parallelism</code>,
+	 * the default of 1 parses each file on the indexing thread when it gets to it.
+	 */
+	private static int indexingParallelism = Integer.getInteger("greclipse.indexing.parallelism", 1); //$NON-NLS-1$
+
 	SourceElementNotifier notifier;
 	boolean groovyReportReferenceInfo;
 	ISourceElementRequestor requestor;
+	private final GroovyIndexingPrefetcher prefetcher;
 
 	public MultiplexingIndexingParser(ISourceElementRequestor requestor, IProblemFactory problemFactory, CompilerOptions options,
 			boolean reportLocalDeclarations, boolean optimizeStringLiterals, boolean useSourceJavadocParser) {
@@ -48,6 +68,38 @@ public class MultiplexingIndexingParser extends IndexingParser {
 		this.notifier = (SourceElementNotifier) ReflectionUtils.getPrivateField(SourceElementParser.class, "notifier", this);
 		this.groovyReportReferenceInfo = reportLocalDeclarations;
 		this.requestor = requestor;
+		this.prefetcher = new GroovyIndexingPrefetcher(options, problemReporter.problemFactory);
+	}
+
+	public static boolean isLexerIndexing() {
+		return lexerIndexing;
+	}
+
+	/**
+	 * For testing. Method searches look for the references the token indexer records without an argument count only while it is
+	 * on, so they are switched along with it.
+	 */
+	static void setLexerIndexing(boolean value) {
+		lexerIndexing = value;
+		MethodPattern.setAnyArityReferences(value);
+	}
+
+	public static int getIndexingParallelism() {
+		return indexingParallelism;
+	}
+
+	/**
+	 * For testing
+	 */
+	static void setIndexingParallelism(int value) {
+		indexingParallelism = value;
+	}
+
+	@Override
+	public void documentScheduled(SearchDocument document) {
+		if (indexingParallelism > 1 && !lexerIndexing && ContentTypeUtils.isGroovyLikeFileName(document.getPath())) {
+			prefetcher.schedule(document);
+		}
 	}
 
 	@Override
@@ -59,19 +111,21 @@ public class MultiplexingIndexingParser extends IndexingParser {
 	@Override
 	public CompilationUnitDeclaration parseCompilationUnit(ICompilationUnit unit, boolean fullParse, IProgressMonitor pm) {
 		if (ContentTypeUtils.isGroovyLikeFileName(unit.getFileName())) {
+			if (lexerIndexing && new GroovyTokenIndexer(requestor).index(unit)) {
+				// there is no compilation unit declaration, and the indexer doesn't need one
+				return null;
+			}
 
 			// ASSUMPTIONS:
 			// 1) there is no difference between a diet and full parse in the groovy works, so can ignore the fullParse parameter
 			// 2) parsing is for the entire CU (ie- from character 0, to unit.getContents().length)
 			// 3) nodesToCategories map is not necessary. I think it has something to do with JavaDoc, but not sure
 
-			CompilationResult compilationResult = new CompilationResult(unit, 0, 0, this.options.maxProblemsPerUnit);
-
-			// FIXASC Is it ok to use a new parser here everytime? If we don't we sometimes recurse back into the first one
-			GroovyCompilationUnitDeclaration cud = (GroovyCompilationUnitDeclaration) new GroovyParser(this.options,
-					problemReporter, false, true).dietParse(unit, compilationResult);
+			GroovyCompilationUnitDeclaration cud = prefetcher.take(unit);
+			if (cud == null) {
+				cud = parse(unit, this.options, problemReporter);
+			}
 
-			// CompilationUnitDeclaration cud groovyParser.dietParse(sourceUnit, compilationResult);
 			HashtableOfObjectToInt sourceEnds = createSourceEnds(cud);
 			GroovyIndexingVisitor visitor = new GroovyIndexingVisitor(requestor);
 			visitor.doVisit(cud.getModuleNode(), cud.currentPackage);
@@ -84,6 +138,14 @@ public class MultiplexingIndexingParser extends IndexingParser {
 		}
 	}
 
+	static GroovyCompilationUnitDeclaration parse(ICompilationUnit unit, CompilerOptions options, ProblemReporter problemReporter) {
+		CompilationResult compilationResult = new CompilationResult(unit, 0, 0, options.maxProblemsPerUnit);
+
+		// FIXASC Is it ok to use a new parser here everytime? If we don't we sometimes recurse back into the first one
+		return (GroovyCompilationUnitDeclaration) new GroovyParser(options, problemReporter, false, true).dietParse(unit,
+				compilationResult);
+	}
+
 	// FIXASC this code is copied from MultiplexingSourceElementParser. Should combine
 	// FIXASC This should be calculated in GroovyCompilationUnitDeclaration
 	private HashtableOfObjectToInt createSourceEnds(CompilationUnitDeclaration cDecl) {
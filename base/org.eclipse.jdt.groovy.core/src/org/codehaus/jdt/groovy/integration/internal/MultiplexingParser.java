@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.codehaus.jdt.groovy.integration.internal;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
@@ -47,6 +50,17 @@ public class MultiplexingParser extends Parser {
 		}
 	}
 
+	@Override
+	public void prepareToParse(ICompilationUnit[] sourceUnits) {
+		List<ICompilationUnit> groovyUnits = new ArrayList<ICompilationUnit>();
+		for (ICompilationUnit sourceUnit : sourceUnits) {
+			if (ContentTypeUtils.isGroovyLikeFileName(sourceUnit.getFileName())) {
+				groovyUnits.add(sourceUnit);
+			}
+		}
+		groovyParser.prepareToParse(groovyUnits);
+	}
+
 	@Override
 	public void reset() {
 		groovyParser.reset();
@@ -58,6 +58,7 @@ import org.codehaus.groovy.syntax.RuntimeParserException;
 import org.codehaus.groovy.syntax.SyntaxException;
 import org.codehaus.groovy.syntax.Token;
 import org.codehaus.groovy.tools.GroovyClass;
+import org.codehaus.jdt.groovy.internal.compiler.ast.PhaseStatistics.Stage;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.ast.SingleMemberAnnotation;
@@ -1531,7 +1532,9 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 	@SuppressWarnings("unchecked")
 	@Override
 	public void generateCode() {
+		long[] stats = PhaseStatistics.start();
 		boolean successful = processToPhase(Phases.ALL);
+		PhaseStatistics.end(Stage.GENERATE, stats);
 		if (successful) {
 
 			// At the end of this method we want to make this call for each of the classes generated during processing
@@ -1991,7 +1994,9 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 
 	@Override
 	public void resolve() {
+		long[] stats = PhaseStatistics.start();
 		processToPhase(Phases.SEMANTIC_ANALYSIS);
+		PhaseStatistics.end(Stage.RESOLVE, stats);
 		checkForTags();
 		setComments();
 	}
@@ -2074,7 +2079,9 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 
 	@Override
 	public void analyseCode() {
+		long[] stats = PhaseStatistics.start();
 		processToPhase(Phases.CANONICALIZATION);
+		PhaseStatistics.end(Stage.ANALYSE, stats);
 
 	}
 
@@ -14,19 +14,19 @@ package org.codehaus.jdt.groovy.internal.compiler.ast;
 
 import groovy.lang.GroovyClassLoader;
 
-import java.io.File;
 import java.lang.reflect.Field;
-import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.jar.JarFile;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
-import org.apache.xbean.classloader.NonLockingJarFileClassLoader;
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.CompilationUnit.PrimaryClassNodeOperation;
@@ -35,9 +35,8 @@ import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
 import org.codehaus.groovy.control.Phases;
 import org.codehaus.groovy.control.SourceUnit;
-import org.codehaus.groovy.eclipse.GroovyLogManager;
-import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.jdt.groovy.control.EclipseSourceUnit;
+import org.codehaus.jdt.groovy.internal.compiler.ast.PhaseStatistics.Stage;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
@@ -82,61 +81,32 @@ public class GroovyParser {
 	private boolean isReconcile;
 	private ScriptFolderSelector scriptFolderSelector;
 
-	/*
-	 * Each project is allowed a GroovyClassLoader that will be used to load transform definitions and supporting classes. A cache
-	 * is maintained from project names to the current classpath and associated loader. If the classpath matches the cached version
-	 * on a call to build a parser then it is reused. If it does not match then a new loader is created and stored (storing it
-	 * orphans the previously cached one). When either a full build or a clean or project close occurs, we also discard the loader
-	 * instances associated with the project.
+	/**
+	 * Number of threads used by {@link #prepareToParse(List)} to parse the Groovy sources of a build before the compiler gets to
+	 * them. Set with the system property <code>greclipse.build.parallelism</code>, the default of 1 parses each source when the
+	 * compiler asks for it.
 	 */
+	private static int parseParallelism = Integer.getInteger("greclipse.build.parallelism", 1);
 
-	private static Map<String, PathLoaderPair> projectToLoaderCache = Collections
-			.synchronizedMap(new HashMap<String, PathLoaderPair>());
+	// How many sources per parser thread may be parsed ahead of dietParse(), bounding the syntax trees held at any one time
+	private static final int PARSE_AHEAD = 2;
 
-	static class PathLoaderPair {
-		String classpath;
-		GroovyClassLoader groovyClassLoader;
+	// Sources being parsed ahead of time, waiting for dietParse() to hand them to the groovy compilation unit
+	private Map<ICompilationUnit, Future<PreparedSource>> preparedSources =
+			new HashMap<ICompilationUnit, Future<PreparedSource>>();
 
-		PathLoaderPair(String classpath) {
-			this.classpath = classpath;
-			this.groovyClassLoader = new GroovyClassLoader(createConfigureLoader(classpath));
-		}
-	}
+	// Sources of the batch passed to prepareToParse() that have not been handed to the parser threads yet, in compiler order
+	private LinkedList<ICompilationUnit> sourcesToPrepare = new LinkedList<ICompilationUnit>();
 
-	/**
-	 * Close the jar files that have been kept open by the URLClassLoader
-	 */
-	public static void close(GroovyClassLoader groovyClassLoader) {
-		// System.out.println("Running close for GCL " + groovyClassLoader);
-		try {
-			Class<?> clazz = java.net.URLClassLoader.class;
-			Field field_urlClasspath = clazz.getDeclaredField("ucp");
-			field_urlClasspath.setAccessible(true);
-			Object urlClasspath = field_urlClasspath.get(groovyClassLoader);
-			Field field_loaders = urlClasspath.getClass().getDeclaredField("loaders");
-			field_loaders.setAccessible(true);
-			Object[] jarLoaders = ((java.util.Collection<?>) field_loaders.get(urlClasspath)).toArray();
-			// int count = 0;
-			for (Object jarLoader : jarLoaders) {
-				try {
-					Field field_jarFile = jarLoader.getClass().getDeclaredField("jar");
-					field_jarFile.setAccessible(true);
-					JarFile jarFile = (JarFile) field_jarFile.get(jarLoader);
-					String jarFileName = jarFile.getName();
-					if (jarFileName.indexOf("cache") != -1 || jarFileName.indexOf("plugins") != -1) {
-						// System.out.println("Closing " + jarFile.getName());
-						// count++;
-						jarFile.close();
-					}
-				} catch (Throwable t) {
-					// t.printStackTrace();
-					// Probably not a JarLoader
-				}
-			}
-			// System.out.println("Closed " + count + " jars");
-		} catch (Throwable t) {
-			// Not the kind of VM we thought it was...
-			// t.printStackTrace();
+	private ExecutorService parseExecutor;
+
+	static class PreparedSource {
+		final char[] contents;
+		final SourceUnit sourceUnit;
+
+		PreparedSource(char[] contents, SourceUnit sourceUnit) {
+			this.contents = contents;
+			this.sourceUnit = sourceUnit;
 		}
 	}
 
@@ -145,14 +115,12 @@ public class GroovyParser {
 	 */
 	public static void tidyCache(String projectName) {
 		// This will orphan the loader on the heap
-		projectToLoaderCache.remove(projectName);
+		TransformLoaderPool.getInstance().discard(projectName);
+		JDTClassNodeCache.getInstance().discard(projectName);
 	}
 
 	public static void closeClassLoader(String projectName) {
-		PathLoaderPair pathLoaderPair = projectToLoaderCache.get(projectName);
-		if (pathLoaderPair != null) {
-			close(pathLoaderPair.groovyClassLoader);
-		}
+		TransformLoaderPool.getInstance().close(projectName);
 	}
 
 	// public GroovyParser(CompilerOptions options, ProblemReporter problemReporter) {
@@ -211,24 +179,7 @@ public class GroovyParser {
 			if (projectName == null) {
 				// throw new IllegalStateException("Cannot build without knowing project name");
 			} else {
-				PathLoaderPair pathAndLoader = projectToLoaderCache.get(projectName);
-				if (pathAndLoader == null) {
-					if (GroovyLogManager.manager.hasLoggers()) {
-						GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM,
-								"Classpath for GroovyClassLoader (used to discover transforms): " + path);
-					}
-					pathAndLoader = new PathLoaderPair(path);
-					projectToLoaderCache.put(projectName, pathAndLoader);
-				} else {
-					if (!path.equals(pathAndLoader.classpath)) {
-						// classpath change detected
-						// System.out.println("Classpath change detected for " + projectName);
-						pathAndLoader = new PathLoaderPair(path);
-						projectToLoaderCache.put(projectName, pathAndLoader);
-					}
-				}
-				// System.out.println("Using loader with path " + pathAndLoader.classpath);
-				gcl = pathAndLoader.groovyClassLoader;
+				gcl = TransformLoaderPool.getInstance().getLoader(projectName, path);
 			}
 		}
 		return gcl;
@@ -285,6 +236,9 @@ public class GroovyParser {
 		// this.lookupEnvironment = lookupEnvironment;
 		this.problemReporter = problemReporter;
 		this.resolver = new JDTResolver(groovyCompilationUnit);
+		if (!isReconcile && projectName != null) {
+			resolver.shareLibraryNodes(projectName);
+		}
 		// groovyCompilationUnit.setClassLoader(gcl);
 		groovyCompilationUnit.setResolveVisitor(resolver);
 	}
@@ -333,65 +287,102 @@ public class GroovyParser {
 	// }
 	// }
 
-	private static boolean NONLOCKING = false;
+	public static int getParseParallelism() {
+		return parseParallelism;
+	}
 
-	static {
-		try {
-			boolean value = System.getProperty("greclipse.nonlocking", "false").equalsIgnoreCase("true");
-			NONLOCKING = value;
-			if (value) {
-				System.out.println("property set: greclipse.nonlocking: will try to avoid locking jars");
-			}
-		} catch (Throwable t) {
-		}
+	/**
+	 * For testing
+	 */
+	static void setParseParallelism(int value) {
+		parseParallelism = value;
 	}
 
-	private static URLClassLoader createLoader(URL[] urls, ClassLoader parent) {
-		if (NONLOCKING) {
-			return new NonLockingJarFileClassLoader("AST Transform loader", urls, parent);
-		} else {
-			return new URLClassLoader(urls, parent);
+	/**
+	 * Parses the given Groovy sources on {@link #parseParallelism} threads. Parsing only builds the concrete syntax tree of each
+	 * source and touches no state shared with other sources; the later phases (which add to the groovy compilation unit and
+	 * resolve against JDT) still happen one source at a time as {@link #dietParse(ICompilationUnit, CompilationResult)} is called
+	 * for them. The threads only get a few sources ahead of dietParse(), which hands out the next source of the batch whenever it
+	 * takes one. A source that does not parse cleanly is thrown away and parsed again by dietParse(), so problems are reported
+	 * exactly as, and in the same order as, a sequential build reports them.
+	 */
+	public void prepareToParse(List<ICompilationUnit> sourceUnits) {
+		discardPreparedSources();
+		if (parseParallelism < 2 || sourceUnits.size() < 2 || isReconcile) {
+			return;
 		}
+		parseExecutor = Executors.newFixedThreadPool(Math.min(parseParallelism, sourceUnits.size()), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Groovy parser");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		sourcesToPrepare.addAll(sourceUnits);
+		prepareAhead();
 	}
 
-	private static URLClassLoader createConfigureLoader(String path) {
-		// GRECLIPSE-1090
-		ClassLoader pcl = GroovyParser.class.getClassLoader();// Thread.currentThread().getContextClassLoader();
-		if (path == null) {
-			return createLoader(null, pcl);
+	/**
+	 * Hands sources of the batch to the parser threads until {@link #PARSE_AHEAD} per thread are parsed or waiting to be parsed,
+	 * shutting the threads down once every source has been handed out.
+	 */
+	private void prepareAhead() {
+		if (parseExecutor == null) {
+			return;
 		}
-		List<URL> urls = new ArrayList<URL>();
-		if (path.indexOf(File.pathSeparator) != -1) {
-			int pos = 0;
-			while (pos != -1) {
-				int nextSep = path.indexOf(File.pathSeparator, pos);
-				if (nextSep == -1) {
-					// last piece
-					addNewURL(path.substring(pos), urls);
-					pos = -1;
-				} else {
-					addNewURL(path.substring(pos, nextSep), urls);
-					pos = nextSep + 1;
+		while (preparedSources.size() < parseParallelism * PARSE_AHEAD && !sourcesToPrepare.isEmpty()) {
+			final ICompilationUnit sourceUnit = sourcesToPrepare.removeFirst();
+			preparedSources.put(sourceUnit, parseExecutor.submit(new Callable<PreparedSource>() {
+				public PreparedSource call() {
+					char[] sourceCode = getContents(sourceUnit);
+					SourceUnit groovySourceUnit = createSourceUnit(sourceUnit, sourceCode);
+					groovySourceUnit.parse();
+					groovySourceUnit.completePhase();
+					if (groovySourceUnit.getErrorCollector().hasErrors()) {
+						return null;
+					}
+					return new PreparedSource(sourceCode, groovySourceUnit);
 				}
-			}
-		} else {
-			addNewURL(path, urls);
+			}));
+		}
+		if (sourcesToPrepare.isEmpty()) {
+			// lets the threads finish the sources already handed to them and then end
+			parseExecutor.shutdown();
+			parseExecutor = null;
 		}
-		return createLoader(urls.toArray(new URL[urls.size()]), pcl);
 	}
 
-	private static void addNewURL(String path, List<URL> existingURLs) {
+	/**
+	 * @return the source parsed ahead of time for the given unit, or null if it has to be parsed now
+	 */
+	private PreparedSource takePreparedSource(ICompilationUnit sourceUnit) {
+		Future<PreparedSource> result = preparedSources.remove(sourceUnit);
+		if (result == null) {
+			sourcesToPrepare.remove(sourceUnit);
+		}
+		prepareAhead();
+		if (result == null) {
+			return null;
+		}
 		try {
-			File f = new File(path);
-			URL newURL = f.toURI().toURL();
-			for (URL url : existingURLs) {
-				if (url.equals(newURL)) {
-					return;
-				}
-			}
-			existingURLs.add(newURL);
-		} catch (MalformedURLException e) {
-			// It was a busted URL anyway
+			return result.get();
+		} catch (ExecutionException e) {
+			// parsed again (and its problems reported) by dietParse()
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	private void discardPreparedSources() {
+		for (Future<PreparedSource> result : preparedSources.values()) {
+			result.cancel(true);
+		}
+		preparedSources.clear();
+		sourcesToPrepare.clear();
+		if (parseExecutor != null) {
+			parseExecutor.shutdownNow();
+			parseExecutor = null;
 		}
 	}
 
@@ -399,43 +390,17 @@ public class GroovyParser {
 	 * Call the groovy parser to drive the first few phases of
 	 */
 	public CompilationUnitDeclaration dietParse(ICompilationUnit sourceUnit, CompilationResult compilationResult) {
-		char[] sourceCode = sourceUnit.getContents();
-		if (sourceCode == null) {
-			sourceCode = CharOperation.NO_CHAR; // pretend empty from thereon
-		}
-
-		// FIXASC (M3) need our own tweaked subclass of CompilerConfiguration?
-		CompilerConfiguration groovyCompilerConfig = new CompilerConfiguration();
-		// groovyCompilerConfig.setPluginFactory(new ErrorRecoveredCSTParserPluginFactory(null));
-		ErrorCollector errorCollector = new GroovyErrorCollectorForJDT(groovyCompilerConfig);
-		String filepath = null;
-
-		// This check is necessary because the filename is short (as in the last part, eg. Foo.groovy) for types coming in
-		// from the hierarchy resolver. If there is the same type in two different packages then the compilation process
-		// is going to go wrong because the filename is used as a key in some groovy data structures. This can lead to false
-		// complaints about the same file defining duplicate types.
-		if (sourceUnit instanceof org.eclipse.jdt.internal.compiler.batch.CompilationUnit) {
-			filepath = new String(((org.eclipse.jdt.internal.compiler.batch.CompilationUnit) sourceUnit).fileName);
+		long[] stats = PhaseStatistics.start();
+		char[] sourceCode;
+		SourceUnit groovySourceUnit;
+		PreparedSource prepared = takePreparedSource(sourceUnit);
+		if (prepared != null) {
+			sourceCode = prepared.contents;
+			groovySourceUnit = prepared.sourceUnit;
 		} else {
-			filepath = new String(sourceUnit.getFileName());
+			sourceCode = getContents(sourceUnit);
+			groovySourceUnit = createSourceUnit(sourceUnit, sourceCode);
 		}
-
-		// Try to turn this into a 'real' absolute file system reference (this is because Grails 1.5 expects it).
-		Path path = new Path(filepath);
-		IFile eclipseFile = null;
-		// GRECLIPSE-1269 ensure get plugin is not null to ensure the workspace is open (ie- not in batch mode)
-		if (ResourcesPlugin.getPlugin() != null && path.segmentCount() >= 2) { // Needs 2 segments: a project and file name or
-																				// eclipse throws assertion failed here.
-			eclipseFile = ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(filepath));
-			final IPath location = eclipseFile.getLocation();
-			if (location != null) {
-				filepath = location.toFile().getAbsolutePath();
-			}
-		}
-
-		SourceUnit groovySourceUnit = new EclipseSourceUnit(eclipseFile, filepath, new String(sourceCode), groovyCompilerConfig,
-				groovyCompilationUnit.getClassLoader(), errorCollector);
-		groovySourceUnit.isReconcile = isReconcile;
 		GroovyCompilationUnitDeclaration gcuDeclaration = new GroovyCompilationUnitDeclaration(problemReporter, compilationResult,
 				sourceCode.length, groovyCompilationUnit, groovySourceUnit, compilerOptions);
 		// FIXASC get this from the Antlr parser
@@ -452,12 +417,16 @@ public class GroovyParser {
 				}
 			}
 		}
+		long[] phaseStats = PhaseStatistics.start();
 		gcuDeclaration.processToPhase(Phases.CONVERSION);
+		PhaseStatistics.end(Stage.CONVERSION, phaseStats);
 
 		// Groovy moduleNode is null when there is a fatal error
 		// Otherwise, recover what we can
 		if (gcuDeclaration.getModuleNode() != null) {
+			phaseStats = PhaseStatistics.start();
 			gcuDeclaration.populateCompilationUnitDeclaration();
+			PhaseStatistics.end(Stage.POPULATE, phaseStats);
 			for (TypeDeclaration decl : gcuDeclaration.types) {
 				GroovyTypeDeclaration gtDeclaration = (GroovyTypeDeclaration) decl;
 				resolver.record(gtDeclaration);
@@ -479,9 +448,54 @@ public class GroovyParser {
 		if (debugRequestor != null) {
 			debugRequestor.acceptCompilationUnitDeclaration(gcuDeclaration);
 		}
+		PhaseStatistics.end(Stage.DIET_PARSE, stats);
 		return gcuDeclaration;
 	}
 
+	private SourceUnit createSourceUnit(ICompilationUnit sourceUnit, char[] sourceCode) {
+		// FIXASC (M3) need our own tweaked subclass of CompilerConfiguration?
+		CompilerConfiguration groovyCompilerConfig = new CompilerConfiguration();
+		// groovyCompilerConfig.setPluginFactory(new ErrorRecoveredCSTParserPluginFactory(null));
+		ErrorCollector errorCollector = new GroovyErrorCollectorForJDT(groovyCompilerConfig);
+		String filepath = null;
+
+		// This check is necessary because the filename is short (as in the last part, eg. Foo.groovy) for types coming in
+		// from the hierarchy resolver. If there is the same type in two different packages then the compilation process
+		// is going to go wrong because the filename is used as a key in some groovy data structures. This can lead to false
+		// complaints about the same file defining duplicate types.
+		if (sourceUnit instanceof org.eclipse.jdt.internal.compiler.batch.CompilationUnit) {
+			filepath = new String(((org.eclipse.jdt.internal.compiler.batch.CompilationUnit) sourceUnit).fileName);
+		} else {
+			filepath = new String(sourceUnit.getFileName());
+		}
+
+		// Try to turn this into a 'real' absolute file system reference (this is because Grails 1.5 expects it).
+		Path path = new Path(filepath);
+		IFile eclipseFile = null;
+		// GRECLIPSE-1269 ensure get plugin is not null to ensure the workspace is open (ie- not in batch mode)
+		if (ResourcesPlugin.getPlugin() != null && path.segmentCount() >= 2) { // Needs 2 segments: a project and file name or
+																				// eclipse throws assertion failed here.
+			eclipseFile = ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(filepath));
+			final IPath location = eclipseFile.getLocation();
+			if (location != null) {
+				filepath = location.toFile().getAbsolutePath();
+			}
+		}
+
+		SourceUnit groovySourceUnit = new EclipseSourceUnit(eclipseFile, filepath, new String(sourceCode), groovyCompilerConfig,
+				groovyCompilationUnit.getClassLoader(), errorCollector);
+		groovySourceUnit.isReconcile = isReconcile;
+		return groovySourceUnit;
+	}
+
+	private static char[] getContents(ICompilationUnit sourceUnit) {
+		char[] sourceCode = sourceUnit.getContents();
+		if (sourceCode == null) {
+			sourceCode = CharOperation.NO_CHAR; // pretend empty from thereon
+		}
+		return sourceCode;
+	}
+
 	/**
 	 * ProgressListener is called back when parsing of a file or generation of a classfile completes. By calling back to the build
 	 * notifier we ignore those long pauses where it look likes it has hung!
@@ -532,6 +546,9 @@ public class GroovyParser {
 	}
 
 	public void reset() {
+		// the lookup environment is about to be reset, so the shared nodes must let go of its bindings now
+		resolver.releaseSharedNodes();
+		discardPreparedSources();
 		GroovyClassLoader gcl = getLoaderFor(gclClasspath);
 		GrapeAwareGroovyClassLoader grabbyLoader = new GrapeAwareGroovyClassLoader();
 		boolean allowTransforms = this.groovyCompilationUnit.allowTransforms;
@@ -540,6 +557,9 @@ public class GroovyParser {
 		this.scriptFolderSelector = null;
 		grabbyLoader.setCompilationUnit(this.groovyCompilationUnit);
 		this.resolver = new JDTResolver(groovyCompilationUnit);
+		if (!isReconcile && projectName != null) {
+			resolver.shareLibraryNodes(projectName);
+		}
 		this.groovyCompilationUnit.setResolveVisitor(resolver);
 	}
 
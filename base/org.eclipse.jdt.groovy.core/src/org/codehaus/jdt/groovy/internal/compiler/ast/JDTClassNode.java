@@ -12,8 +12,12 @@
 package org.codehaus.jdt.groovy.internal.compiler.ast;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.codehaus.groovy.GroovyBugError;
@@ -84,9 +88,25 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 
 	private boolean beingInitialized = false;
 
+	// set once the superclass and superinterfaces are known, possibly before the members are
+	private boolean hierarchyInitialized = false;
+
+	// methods converted for a single selector before the full member initialization has happened
+	private Map<String, List<MethodNode>> materializedMethods;
+
+	// number of methods, constructors and fields converted from bindings for this node
+	private int materializedMemberCount = 0;
+
+	// answers to member lookups made from outside of the compiler, only kept for binary types
+	private Map<String, Object> lookupCache;
+
 	// The resolver instance involved at the moment
 	JDTResolver resolver;
 
+	// set while this node is kept from one build to the next, see JDTClassNodeCache
+	JDTClassNodeCache.ProjectNodes sharedNodes;
+	String sharedKey;
+
 	// Configuration flags
 	private int bits = 0;
 	private static final int ANNOTATIONS_INITIALIZED = 0x0001;
@@ -116,7 +136,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 	@Override
 	public boolean mightHaveInners() {
 		// return super.hasInnerClasses();
-		return jdtBinding.memberTypes().length != 0;
+		return bound().jdtBinding.memberTypes().length != 0;
 	}
 
 	/**
@@ -159,6 +179,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 
 	@Override
 	public void lazyClassInit() {
+		ensureBound();
 		synchronized (lazyInitLock) {
 			if (lazyInitDone) {
 				return;
@@ -219,31 +240,150 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 				return;
 			}
 			beingInitialized = true;
-			if (jdtBinding instanceof ParameterizedTypeBinding) {
+			if (redirect() != this) {
 				ClassNode rd = redirect();
 				rd.lazyClassInit();
 				return;
 			}
 
 			resolver.pushTypeGenerics(getGenericsTypes());
-			if (!jdtBinding.isInterface()) {
-				ReferenceBinding superClass = jdtBinding.superclass();
-				if (superClass != null) {
-					setUnresolvedSuperClass(resolver.convertToClassNode(superClass));
+			try {
+				initializeHierarchy();
+				initializeMembers();
+			} finally {
+				resolver.popTypeGenerics();
+			}
+		} finally {
+			beingInitialized = false;
+		}
+	}
+
+	private void initializeHierarchy() {
+		if (hierarchyInitialized) {
+			return;
+		}
+		if (!jdtBinding.isInterface()) {
+			ReferenceBinding superClass = jdtBinding.superclass();
+			if (superClass != null) {
+				setUnresolvedSuperClass(resolver.convertToClassNode(superClass));
+			}
+		}
+
+		ReferenceBinding[] superInterfaceBindings = jdtBinding.superInterfaces();
+		ClassNode[] interfaces = new ClassNode[superInterfaceBindings.length];
+		for (int i = 0; i < superInterfaceBindings.length; i++) {
+			interfaces[i] = resolver.convertToClassNode(superInterfaceBindings[i]);
+		}
+		setInterfaces(interfaces);
+		hierarchyInitialized = true;
+	}
+
+	/**
+	 * Walking up the type hierarchy (eg. {@link ClassNode#getMethods(String)}) only needs the superclass, so set that up without
+	 * converting all the members of the type.
+	 */
+	@Override
+	public ClassNode getUnresolvedSuperClass(boolean useRedirect) {
+		if (useRedirect && !lazyInitDone && redirect() == this) {
+			ensureBound();
+			synchronized (lazyInitLock) {
+				if (!lazyInitDone && !beingInitialized) {
+					try {
+						beingInitialized = true;
+						resolver.pushTypeGenerics(getGenericsTypes());
+						try {
+							initializeHierarchy();
+						} finally {
+							resolver.popTypeGenerics();
+						}
+					} finally {
+						beingInitialized = false;
+					}
 				}
 			}
+			return super.getUnresolvedSuperClass(false);
+		}
+		return super.getUnresolvedSuperClass(useRedirect);
+	}
 
-			ReferenceBinding[] superInterfaceBindings = jdtBinding.superInterfaces();
-			ClassNode[] interfaces = new ClassNode[superInterfaceBindings.length];
-			for (int i = 0; i < superInterfaceBindings.length; i++) {
-				interfaces[i] = resolver.convertToClassNode(superInterfaceBindings[i]);
+	/**
+	 * Until all members are needed, looking up methods by name on a binary type only converts the bindings with that selector. The
+	 * converted nodes are kept and reused when the rest of the members are initialized.
+	 */
+	@Override
+	public List<MethodNode> getDeclaredMethods(String name) {
+		if (!lazyInitDone && redirect() == this) {
+			ensureBound();
+			if (jdtBinding instanceof BinaryTypeBinding) {
+				synchronized (lazyInitLock) {
+					if (!lazyInitDone && !beingInitialized) {
+						return materializeMethods(name);
+					}
+				}
 			}
-			setInterfaces(interfaces);
-			initializeMembers();
-			resolver.popTypeGenerics();
-		} finally {
-			beingInitialized = false;
 		}
+		return super.getDeclaredMethods(name);
+	}
+
+	private List<MethodNode> materializeMethods(String name) {
+		if (materializedMethods == null) {
+			materializedMethods = new HashMap<String, List<MethodNode>>();
+		}
+		List<MethodNode> methodNodes = materializedMethods.get(name);
+		if (methodNodes == null) {
+			methodNodes = new ArrayList<MethodNode>(2);
+			char[] selector = name.toCharArray();
+			try {
+				beingInitialized = true;
+				resolver.pushTypeGenerics(getGenericsTypes());
+				try {
+					for (MethodBinding methodBinding : jdtBinding.getMethods(selector)) {
+						if (!methodBinding.isConstructor()) {
+							methodNodes.add(methodBindingToMethodNode(methodBinding));
+						}
+					}
+					for (MethodBinding methodBinding : ((BinaryTypeBinding) jdtBinding).infraMethods()) {
+						if (!methodBinding.isConstructor() && CharOperation.equals(selector, methodBinding.selector)) {
+							methodNodes.add(methodBindingToMethodNode(methodBinding));
+						}
+					}
+				} finally {
+					resolver.popTypeGenerics();
+				}
+			} finally {
+				beingInitialized = false;
+			}
+			materializedMethods.put(name, methodNodes);
+		}
+		return methodNodes;
+	}
+
+	/**
+	 * @return the node previously converted for this binding by {@link #materializeMethods(String)}, or a new one
+	 */
+	private MethodNode getOrCreateMethodNode(MethodBinding methodBinding) {
+		if (materializedMethods != null) {
+			List<MethodNode> methodNodes = materializedMethods.get(new String(methodBinding.selector));
+			if (methodNodes != null) {
+				for (MethodNode methodNode : methodNodes) {
+					if (((JDTMethodNode) methodNode).getMethodBinding() == methodBinding) {
+						return methodNode;
+					}
+				}
+			}
+		}
+		return methodBindingToMethodNode(methodBinding);
+	}
+
+	/**
+	 * @return how many methods, constructors and fields have been converted from JDT bindings for this type so far
+	 */
+	public int getMaterializedMemberCount() {
+		ClassNode redirect = redirect();
+		if (redirect != this && redirect instanceof JDTClassNode) {
+			return ((JDTClassNode) redirect).getMaterializedMemberCount();
+		}
+		return materializedMemberCount;
 	}
 
 	private void initializeMembers() {
@@ -270,7 +410,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 					ConstructorNode cNode = constructorBindingToConstructorNode(bindings[i]);
 					addConstructor(cNode);
 				} else {
-					MethodNode mNode = methodBindingToMethodNode(bindings[i]);
+					MethodNode mNode = getOrCreateMethodNode(bindings[i]);
 					addMethod(mNode);
 				}
 			}
@@ -282,7 +422,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 					ConstructorNode cNode = constructorBindingToConstructorNode(infraBindings[i]);
 					addConstructor(cNode);
 				} else {
-					MethodNode mNode = methodBindingToMethodNode(infraBindings[i]);
+					MethodNode mNode = getOrCreateMethodNode(infraBindings[i]);
 					addMethod(mNode);
 				}
 			}
@@ -325,6 +465,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 				addField(fNode);
 			}
 		}
+		materializedMethods = null;
 	}
 
 	/**
@@ -354,6 +495,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 				}
 			}
 			mNode = new JDTMethodNode(methodBinding, resolver, name, modifiers, returnType, gParameters, thrownExceptions, null);
+			mNode.setDeclaringClass(this);
 
 			// FIXASC (M3) likely to need something like this...
 			// if (jdtBinding.isEnum()) {
@@ -365,6 +507,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 			resolver.popMemberGenerics();
 		}
 		mNode.setGenericsTypes(generics);
+		materializedMemberCount++;
 		return mNode;
 	}
 
@@ -412,6 +555,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 			resolver.popMemberGenerics();
 		}
 		ctorNode.setGenericsTypes(generics);
+		materializedMemberCount++;
 		return ctorNode;
 	}
 
@@ -455,6 +599,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 			}
 		}
 		FieldNode fNode = new JDTFieldNode(fieldBinding, resolver, name, modifiers, fieldType, this, initializerExpression);
+		materializedMemberCount++;
 		return fNode;
 	}
 
@@ -502,13 +647,15 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 	@Override
 	public List<AnnotationNode> getAnnotations() {
 		if ((bits & ANNOTATIONS_INITIALIZED) == 0) {
+			ensureBound();
 			ensureAnnotationsInitialized();
 		}
 		return super.getAnnotations();
 	}
 
 	private synchronized void ensureAnnotationsInitialized() {
-		if ((bits & ANNOTATIONS_INITIALIZED) == 0) {
+		// the annotations of a parameterized type are those of its generic type (see ClassNode.getAnnotations())
+		if ((bits & ANNOTATIONS_INITIALIZED) == 0 && redirect() == this) {
 			if ((jdtBinding instanceof SourceTypeBinding)) {
 				// ensure resolved
 				((SourceTypeBinding) jdtBinding).getAnnotationTagBits();
@@ -647,16 +794,35 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 		return null;
 	}
 
+	/**
+	 * Members of a binary type never change, so tools that look up members of it by name (eg. type inferencing) can remember the
+	 * answers here for as long as this node lives, rather than walking the type hierarchy again.
+	 * 
+	 * @return a thread safe map for such answers, or null if this is not a binary type
+	 */
+	public Map<String, Object> getLookupCache() {
+		ensureBound();
+		if (!(jdtBinding instanceof BinaryTypeBinding)) {
+			return null;
+		}
+		synchronized (lazyInitLock) {
+			if (lookupCache == null) {
+				lookupCache = Collections.synchronizedMap(new HashMap<String, Object>());
+			}
+			return lookupCache;
+		}
+	}
+
 	public ReferenceBinding getJdtBinding() {
-		return jdtBinding;
+		return bound().jdtBinding;
 	}
 
 	public JDTResolver getResolver() {
-		return resolver;
+		return bound().resolver;
 	}
 
 	public boolean isDeprecated() {
-		return jdtBinding.isDeprecated();
+		return bound().jdtBinding.isDeprecated();
 	}
 
 	private boolean unfindable = false;
@@ -670,7 +836,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 		if (clazz != null || unfindable) {
 			return clazz;
 		}
-		ClassLoader transformLoader = resolver.compilationUnit.getTransformLoader();
+		ClassLoader transformLoader = bound().resolver.compilationUnit.getTransformLoader();
 		if (transformLoader != null) {
 			// What about array types
 			try {
@@ -683,6 +849,276 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 		throw new GroovyBugError("JDTClassNode.getTypeClass() cannot locate class for " + getName() + " using transform loader "
 				+ transformLoader);
 	}
+
+	/**
+	 * @return the node to answer binding related questions: this node, bound to the current build if it is shared, or the generic
+	 *         type of a parameterized node that has been released by a shared node
+	 */
+	private JDTClassNode bound() {
+		ensureBound();
+		if (jdtBinding == null && redirect() instanceof JDTClassNode) {
+			return ((JDTClassNode) redirect()).bound();
+		}
+		return this;
+	}
+
+	/**
+	 * A node kept by a {@link JDTClassNodeCache} is bound to the lookup environment of the build using it the first time it is
+	 * asked for something that needs a binding.
+	 */
+	void ensureBound() {
+		JDTClassNodeCache.ProjectNodes nodes = sharedNodes;
+		if (nodes != null) {
+			JDTResolver owner = nodes.owner;
+			if (owner != null && owner != resolver) {
+				owner.rebind(this);
+			}
+		}
+	}
+
+	/**
+	 * Binds this node, and the members already converted for it, to the binding of the same type in the lookup environment of
+	 * another build.
+	 * 
+	 * @return false if some member of this node has no counterpart in the new binding
+	 */
+	boolean rebind(ReferenceBinding newBinding, JDTResolver newResolver) {
+		synchronized (lazyInitLock) {
+			if (resolver == newResolver) {
+				return true;
+			}
+			jdtBinding = newBinding;
+			resolver = newResolver;
+			clazz = null;
+			unfindable = false;
+			boolean matched = true;
+			if (lazyInitDone) {
+				for (MethodNode methodNode : getMethods()) {
+					matched &= rebindMethod(methodNode);
+				}
+				for (FieldNode fieldNode : getFields()) {
+					if (fieldNode instanceof JDTFieldNode) {
+						FieldBinding fieldBinding = newBinding.getField(fieldNode.getName().toCharArray(), true);
+						if (fieldBinding != null) {
+							((JDTFieldNode) fieldNode).rebind(fieldBinding, newResolver);
+						} else {
+							matched = false;
+						}
+					}
+				}
+			} else if (materializedMethods != null) {
+				for (List<MethodNode> methodNodes : materializedMethods.values()) {
+					for (MethodNode methodNode : methodNodes) {
+						matched &= rebindMethod(methodNode);
+					}
+				}
+			}
+			return matched;
+		}
+	}
+
+	private boolean rebindMethod(MethodNode methodNode) {
+		if (!(methodNode instanceof JDTMethodNode)) {
+			return true;
+		}
+		JDTMethodNode jdtMethodNode = (JDTMethodNode) methodNode;
+		char[] key = jdtMethodNode.getBindingKey();
+		char[] selector = methodNode.getName().toCharArray();
+		for (MethodBinding methodBinding : jdtBinding.getMethods(selector)) {
+			if (CharOperation.equals(key, methodBinding.computeUniqueKey())) {
+				jdtMethodNode.rebind(methodBinding, resolver);
+				return true;
+			}
+		}
+		if (jdtBinding instanceof BinaryTypeBinding) {
+			for (MethodBinding methodBinding : ((BinaryTypeBinding) jdtBinding).infraMethods()) {
+				if (CharOperation.equals(selector, methodBinding.selector)
+						&& CharOperation.equals(key, methodBinding.computeUniqueKey())) {
+					jdtMethodNode.rebind(methodBinding, resolver);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Before a shared node releases its bindings, this completes what would otherwise need them later on: the generics of the
+	 * node and of its members, and of the parameterized types they refer to.
+	 * 
+	 * @return false if something the node refers to cannot be kept from one build to the next
+	 */
+	boolean prepareToUnbind(Map<Object, Boolean> seen) {
+		try {
+			return visitShared(seen, false);
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Releases the bindings held by this shared node, its members and the parameterized types they refer to, so that the lookup
+	 * environment of the build can be garbage collected. Annotations and a partially initialized hierarchy are simply dropped, they
+	 * will be converted again when needed.
+	 * 
+	 * @return false if something the node refers to cannot be kept from one build to the next
+	 */
+	boolean unbind(Map<Object, Boolean> seen) {
+		return visitShared(seen, true);
+	}
+
+	private boolean visitShared(Map<Object, Boolean> seen, boolean unbind) {
+		synchronized (lazyInitLock) {
+			if (jdtBinding == null) {
+				return true;
+			}
+			boolean movable = true;
+			if (!unbind) {
+				resolver.pushTypeGenerics(getGenericsTypes());
+			}
+			try {
+				movable &= visitGenerics(getGenericsTypes(), seen, unbind);
+				if (lazyInitDone) {
+					movable &= visitType(super.getUnresolvedSuperClass(false), seen, unbind);
+					for (ClassNode face : getInterfaces()) {
+						movable &= visitType(face, seen, unbind);
+					}
+					for (MethodNode methodNode : getMethods()) {
+						movable &= visitMember(methodNode, seen, unbind);
+					}
+					for (ConstructorNode constructorNode : getDeclaredConstructors()) {
+						movable &= visitMember(constructorNode, seen, unbind);
+					}
+					for (FieldNode fieldNode : getFields()) {
+						movable &= visitType(fieldNode.getType(), seen, unbind);
+						if (unbind && fieldNode instanceof JDTFieldNode) {
+							((JDTFieldNode) fieldNode).unbind();
+						}
+					}
+				} else {
+					if (materializedMethods != null) {
+						for (List<MethodNode> methodNodes : materializedMethods.values()) {
+							for (MethodNode methodNode : methodNodes) {
+								movable &= visitMember(methodNode, seen, unbind);
+							}
+						}
+					}
+					if (unbind && hierarchyInitialized) {
+						setUnresolvedSuperClass(null);
+						setInterfaces(ClassNode.EMPTY_ARRAY);
+						hierarchyInitialized = false;
+					}
+				}
+			} finally {
+				if (!unbind) {
+					resolver.popTypeGenerics();
+				}
+			}
+			if ((bits & ANNOTATIONS_INITIALIZED) != 0) {
+				// getAnnotations() initializes the members first, so they are initialized if the annotations are
+				if (!lazyInitDone) {
+					movable = false;
+				} else if (unbind) {
+					super.getAnnotations().clear();
+					bits &= ~ANNOTATIONS_INITIALIZED;
+				}
+			}
+			if (unbind) {
+				lookupCache = null;
+				jdtBinding = null;
+				resolver = null;
+				clazz = null;
+				unfindable = false;
+			}
+			return movable;
+		}
+	}
+
+	private boolean visitMember(MethodNode methodNode, Map<Object, Boolean> seen, boolean unbind) {
+		if (!unbind) {
+			resolver.pushMemberGenerics(methodNode.getGenericsTypes());
+		}
+		boolean movable = true;
+		try {
+			movable &= visitGenerics(methodNode.getGenericsTypes(), seen, unbind);
+			movable &= visitType(methodNode.getReturnType(), seen, unbind);
+			for (Parameter parameter : methodNode.getParameters()) {
+				movable &= visitType(parameter.getType(), seen, unbind);
+			}
+			ClassNode[] exceptions = methodNode.getExceptions();
+			if (exceptions != null) {
+				for (ClassNode exception : exceptions) {
+					movable &= visitType(exception, seen, unbind);
+				}
+			}
+		} finally {
+			if (!unbind) {
+				resolver.popMemberGenerics();
+			}
+		}
+		if (unbind && methodNode instanceof JDTMethodNode) {
+			((JDTMethodNode) methodNode).unbind();
+		}
+		return movable;
+	}
+
+	static boolean visitGenerics(GenericsType[] generics, Map<Object, Boolean> seen, boolean unbind) {
+		boolean movable = true;
+		if (generics != null) {
+			for (GenericsType genericsType : generics) {
+				if (genericsType instanceof LazyGenericsType) {
+					movable &= ((LazyGenericsType) genericsType).visit(seen, unbind);
+				} else if (genericsType != null) {
+					movable &= visitType(genericsType.getType(), seen, unbind);
+					movable &= visitType(genericsType.getLowerBound(), seen, unbind);
+					ClassNode[] upperBounds = genericsType.getUpperBounds();
+					if (upperBounds != null) {
+						for (ClassNode upperBound : upperBounds) {
+							movable &= visitType(upperBound, seen, unbind);
+						}
+					}
+				}
+			}
+		}
+		return movable;
+	}
+
+	/**
+	 * Visits a type referred to by a shared node. Other shared nodes look after themselves, parameterized nodes are completed or
+	 * released along with the shared node. Any other node built from a binding (eg. for a source type) cannot be kept.
+	 */
+	static boolean visitType(ClassNode type, Map<Object, Boolean> seen, boolean unbind) {
+		if (type == null || seen.put(type, Boolean.TRUE) != null) {
+			return true;
+		}
+		if (type instanceof JDTClassNode) {
+			JDTClassNode node = (JDTClassNode) type;
+			if (node.sharedNodes != null) {
+				return true;
+			}
+			if (node.redirect() == node) {
+				return false;
+			}
+		}
+		boolean movable = true;
+		if (type.isArray()) {
+			movable &= visitType(type.getComponentType(), seen, unbind);
+		}
+		ClassNode redirect = type.redirect();
+		if (redirect != type) {
+			movable &= visitType(redirect, seen, unbind);
+		}
+		movable &= visitGenerics(type.getGenericsTypes(), seen, unbind);
+		if (unbind && type instanceof JDTClassNode) {
+			JDTClassNode node = (JDTClassNode) type;
+			synchronized (node.lazyInitLock) {
+				node.jdtBinding = null;
+				node.resolver = null;
+				node.clazz = null;
+			}
+		}
+		return movable;
+	}
 	/*
 	 * public ClassNode makeArray() { // if (redirect != null) { // ClassNode res = redirect().makeArray(); // res.componentType =
 	 * this; // return res; // } ClassNode cn; if (getTypeClass() != null) { Class ret = Array.newInstance(clazz, 0).getClass(); //
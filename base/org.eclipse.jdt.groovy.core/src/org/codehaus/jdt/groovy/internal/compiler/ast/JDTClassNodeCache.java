@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.groovy.core.util.ClasspathFingerprint;
+import org.eclipse.jdt.internal.compiler.env.IDependent;
+import org.eclipse.jdt.internal.compiler.lookup.BinaryTypeBinding;
+import org.eclipse.jdt.internal.compiler.lookup.TypeBinding;
+
+/**
+ * Keeps the JDTClassNodes built for the types in the jars of a project from one build of the project to the next, so that each
+ * build does not convert the same library types (and their members) again. Nodes are looked up by the unique key of their binding.
+ *
+ * Between builds the nodes do not hold on to any bindings. When a build asks for one of them it is bound to the binding of the same
+ * type in the lookup environment of that build, together with the members that have already been converted for it. The nodes of a
+ * project are forgotten when its classpath fingerprint changes (see {@link ClasspathFingerprint}), when the project is cleaned or
+ * closed, or when a node turns out to depend on something that cannot be moved to another build (eg. a source type).
+ *
+ * Only one build of a project can use its nodes at a time. Reconciling does not use them at all, since the resolver of a reconcile
+ * lives on with the module it was used for.
+ */
+@SuppressWarnings("restriction")
+public class JDTClassNodeCache {
+
+	// beyond this many nodes a project starts again with an empty set of nodes
+	private static final int MAX_NODES = 50000;
+
+	private static final JDTClassNodeCache INSTANCE = new JDTClassNodeCache();
+
+	public static JDTClassNodeCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * The shared nodes of one project for one classpath fingerprint
+	 */
+	static class ProjectNodes {
+		final long fingerprint;
+		private final Map<String, JDTClassNode> nodes = new HashMap<String, JDTClassNode>();
+		// the resolver currently allowed to use the nodes, null between builds
+		volatile JDTResolver owner;
+		// false once a node could not be moved from one build to the next
+		volatile boolean valid = true;
+
+		ProjectNodes(long fingerprint) {
+			this.fingerprint = fingerprint;
+		}
+
+		synchronized JDTClassNode get(String key) {
+			return valid ? nodes.get(key) : null;
+		}
+
+		synchronized void put(String key, JDTClassNode node) {
+			if (valid) {
+				nodes.put(key, node);
+				node.sharedNodes = this;
+				node.sharedKey = key;
+			}
+		}
+
+		synchronized int size() {
+			return nodes.size();
+		}
+
+		void invalidate() {
+			valid = false;
+		}
+
+		/**
+		 * Releases the bindings of every node, after completing whatever the nodes would otherwise still need a binding for.
+		 * Completing a node may convert further types, so this keeps going until no new nodes turn up.
+		 */
+		void unbind() {
+			List<JDTClassNode> prepared = new ArrayList<JDTClassNode>();
+			int count;
+			do {
+				count = prepared.size();
+				synchronized (this) {
+					prepared = new ArrayList<JDTClassNode>(nodes.values());
+				}
+				Map<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+				for (JDTClassNode node : prepared) {
+					if (!node.prepareToUnbind(seen)) {
+						invalidate();
+						return;
+					}
+				}
+			} while (prepared.size() != count);
+
+			Map<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+			for (JDTClassNode node : prepared) {
+				if (!node.unbind(seen)) {
+					invalidate();
+					return;
+				}
+			}
+		}
+	}
+
+	private final Map<String, ProjectNodes> projectNodes = new HashMap<String, ProjectNodes>();
+
+	private JDTClassNodeCache() {
+		// singleton
+	}
+
+	/**
+	 * @return true if nodes for the binding can be kept from one build to the next: types read from jars
+	 */
+	static boolean isShareable(TypeBinding binding) {
+		if (!(binding instanceof BinaryTypeBinding)) {
+			return false;
+		}
+		char[] fileName = ((BinaryTypeBinding) binding).getFileName();
+		if (fileName == null) {
+			return false;
+		}
+		for (char c : fileName) {
+			if (c == IDependent.JAR_FILE_ENTRY_SEPARATOR) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Hands the nodes of the project to a build. The nodes are discarded first if the classpath of the project has changed since
+	 * they were built.
+	 *
+	 * @return the nodes to use, or null if the nodes are in use by another build or the classpath fingerprint cannot be computed
+	 */
+	ProjectNodes checkOut(String projectName, JDTResolver resolver) {
+		long fingerprint = fingerprintOf(projectName);
+		if (fingerprint == 0L) {
+			return null;
+		}
+		synchronized (this) {
+			ProjectNodes nodes = projectNodes.get(projectName);
+			if (nodes == null || nodes.fingerprint != fingerprint || !nodes.valid) {
+				nodes = new ProjectNodes(fingerprint);
+				projectNodes.put(projectName, nodes);
+			} else if (nodes.owner != null) {
+				return null;
+			}
+			nodes.owner = resolver;
+			return nodes;
+		}
+	}
+
+	/**
+	 * Called once a build has finished with the nodes of the project. Their bindings are released so that the lookup environment
+	 * of the build can be garbage collected.
+	 */
+	void checkIn(String projectName, ProjectNodes nodes) {
+		boolean current;
+		synchronized (this) {
+			current = projectNodes.get(projectName) == nodes;
+		}
+		if (current && nodes.valid && nodes.size() <= MAX_NODES) {
+			nodes.unbind();
+		} else {
+			nodes.invalidate();
+		}
+		synchronized (this) {
+			if (!nodes.valid && projectNodes.get(projectName) == nodes) {
+				projectNodes.remove(projectName);
+			}
+			nodes.owner = null;
+		}
+	}
+
+	/**
+	 * Forget the nodes of the project. A build that is using them carries on with them, they are not kept afterwards.
+	 */
+	public synchronized void discard(String projectName) {
+		ProjectNodes nodes = projectNodes.remove(projectName);
+		if (nodes != null) {
+			nodes.invalidate();
+		}
+	}
+
+	/**
+	 * @return the number of nodes kept for the project
+	 */
+	public synchronized int getNodeCount(String projectName) {
+		ProjectNodes nodes = projectNodes.get(projectName);
+		return nodes == null ? 0 : nodes.size();
+	}
+
+	private static long fingerprintOf(String projectName) {
+		try {
+			IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+			if (!project.isAccessible()) {
+				return 0L;
+			}
+			return ClasspathFingerprint.of(JavaCore.create(project));
+		} catch (IllegalStateException e) {
+			// no workspace, eg. the batch compiler
+			return 0L;
+		}
+	}
+}
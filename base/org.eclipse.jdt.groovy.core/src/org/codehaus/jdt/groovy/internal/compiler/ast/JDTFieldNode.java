@@ -63,9 +63,11 @@ public class JDTFieldNode extends FieldNode implements JDTNode {
 
 	private void ensureAnnotationsInitialized() {
 		if ((bits & ANNOTATIONS_INITIALIZED) == 0) {
+			ensureBound();
 			// If the backing declaring entity for the member is not a SourceTypeBinding then the
 			// annotations will have already been discarded/lost
-			AnnotationBinding[] annotationBindings = fieldBinding.getAnnotations();
+			// a shared node may keep a member that no longer has a binding, if its type changed (see JDTClassNodeCache)
+			AnnotationBinding[] annotationBindings = fieldBinding == null ? Binding.NO_ANNOTATIONS : fieldBinding.getAnnotations();
 			for (AnnotationBinding annotationBinding : annotationBindings) {
 				super.addAnnotation(new JDTAnnotationNode(annotationBinding, this.resolver));
 			}
@@ -74,19 +76,47 @@ public class JDTFieldNode extends FieldNode implements JDTNode {
 	}
 
 	public FieldBinding getFieldBinding() {
+		ensureBound();
 		return fieldBinding;
 	}
 
 	public JDTResolver getResolver() {
+		ensureBound();
 		return resolver;
 	}
 
 	public Binding getJdtBinding() {
+		ensureBound();
 		return fieldBinding;
 	}
 
 	public boolean isDeprecated() {
-		return fieldBinding.isDeprecated();
+		ensureBound();
+		return fieldBinding != null && fieldBinding.isDeprecated();
+	}
+
+	private void ensureBound() {
+		if (fieldBinding == null && getDeclaringClass() instanceof JDTClassNode) {
+			((JDTClassNode) getDeclaringClass()).ensureBound();
+		}
+	}
+
+	void rebind(FieldBinding newBinding, JDTResolver newResolver) {
+		this.fieldBinding = newBinding;
+		this.resolver = newResolver;
+	}
+
+	/**
+	 * Releases the binding, the node is matched by name with a binding of another build. The annotations are dropped, to be
+	 * converted again from the new binding.
+	 */
+	void unbind() {
+		fieldBinding = null;
+		resolver = null;
+		if ((bits & ANNOTATIONS_INITIALIZED) != 0) {
+			super.getAnnotations().clear();
+			bits &= ~ANNOTATIONS_INITIALIZED;
+		}
 	}
 
 }
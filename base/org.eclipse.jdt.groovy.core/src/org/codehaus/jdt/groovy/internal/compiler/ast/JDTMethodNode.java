@@ -32,6 +32,8 @@ public class JDTMethodNode extends MethodNode implements JDTNode {
 	private MethodBinding methodBinding;
 	private JDTResolver resolver;
 	private int bits = 0;
+	// the unique key of the binding while the node is not bound, see JDTClassNodeCache
+	private char[] bindingKey;
 
 	public JDTMethodNode(MethodBinding methodBinding, JDTResolver resolver, String name, int modifiers, ClassNode returnType,
 			Parameter[] gParameters, ClassNode[] thrownExceptions, Statement object) {
@@ -64,9 +66,11 @@ public class JDTMethodNode extends MethodNode implements JDTNode {
 
 	private void ensureAnnotationsInitialized() {
 		if ((bits & ANNOTATIONS_INITIALIZED) == 0) {
+			ensureBound();
 			// If the backing declaring entity for the member is not a SourceTypeBinding then the
 			// annotations will have already been discarded/lost
-			AnnotationBinding[] annotationBindings = methodBinding.getAnnotations();
+			// a shared node may keep a member that no longer has a binding, if its type changed (see JDTClassNodeCache)
+			AnnotationBinding[] annotationBindings = methodBinding == null ? Binding.NO_ANNOTATIONS : methodBinding.getAnnotations();
 			for (AnnotationBinding annotationBinding : annotationBindings) {
 				super.addAnnotation(new JDTAnnotationNode(annotationBinding, this.resolver));
 			}
@@ -79,18 +83,54 @@ public class JDTMethodNode extends MethodNode implements JDTNode {
 	}
 
 	public JDTResolver getResolver() {
+		ensureBound();
 		return resolver;
 	}
 
 	public MethodBinding getMethodBinding() {
+		ensureBound();
 		return methodBinding;
 	}
 
 	public Binding getJdtBinding() {
+		ensureBound();
 		return methodBinding;
 	}
 
 	public boolean isDeprecated() {
-		return methodBinding.isDeprecated();
+		ensureBound();
+		return methodBinding != null && methodBinding.isDeprecated();
+	}
+
+	private void ensureBound() {
+		if (methodBinding == null && getDeclaringClass() instanceof JDTClassNode) {
+			((JDTClassNode) getDeclaringClass()).ensureBound();
+		}
+	}
+
+	char[] getBindingKey() {
+		return bindingKey != null ? bindingKey : methodBinding.computeUniqueKey();
+	}
+
+	void rebind(MethodBinding newBinding, JDTResolver newResolver) {
+		this.methodBinding = newBinding;
+		this.resolver = newResolver;
+		this.bindingKey = null;
+	}
+
+	/**
+	 * Releases the binding, remembering its key so that the node can be matched with a binding of another build. The annotations
+	 * are dropped, to be converted again from the new binding.
+	 */
+	void unbind() {
+		if (methodBinding != null) {
+			bindingKey = methodBinding.computeUniqueKey();
+			methodBinding = null;
+			resolver = null;
+			if ((bits & ANNOTATIONS_INITIALIZED) != 0) {
+				super.getAnnotations().clear();
+				bits &= ~ANNOTATIONS_INITIALIZED;
+			}
+		}
 	}
 }
@@ -33,6 +33,7 @@ import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.ResolveVisitor;
 import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser.GrapeAwareGroovyClassLoader;
+import org.codehaus.jdt.groovy.internal.compiler.ast.PhaseStatistics.Stage;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.Wildcard;
@@ -40,8 +41,11 @@ import org.eclipse.jdt.internal.compiler.lookup.ArrayBinding;
 import org.eclipse.jdt.internal.compiler.lookup.BaseTypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.BinaryTypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.Binding;
+import org.eclipse.jdt.internal.compiler.lookup.LookupEnvironment;
 import org.eclipse.jdt.internal.compiler.lookup.MethodBinding;
 import org.eclipse.jdt.internal.compiler.lookup.ParameterizedMethodBinding;
+import org.eclipse.jdt.internal.compiler.lookup.ProblemReasons;
+import org.eclipse.jdt.internal.compiler.lookup.ProblemReferenceBinding;
 import org.eclipse.jdt.internal.compiler.lookup.ReferenceBinding;
 import org.eclipse.jdt.internal.compiler.lookup.SourceTypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.TypeBinding;
@@ -73,7 +77,9 @@ public class JDTResolver extends ResolveVisitor {
 	// For resolver debugging
 	private static final boolean debug = false;
 
-	// Arbitrary selection of common types
+	// Arbitrary selection of common types. These nodes are built by ClassHelper from the classes of the running VM rather than from
+	// JDT bindings, so only types whose shape cannot differ from the JDK of the project are listed; everything else, even common
+	// library types, is resolved through JDT so that members, generics and deprecation match the project classpath.
 	private static Map<String, ClassNode> commonTypes = new HashMap<String, ClassNode>();
 
 	// So that testcases can quiz a resolver instance
@@ -140,6 +146,17 @@ public class JDTResolver extends ResolveVisitor {
 	// Cache from bindings to JDTClassNodes to avoid unnecessary JDTClassNode creation
 	private Map<Binding, JDTClassNode> nodeCache = Collections.synchronizedMap(new HashMap<Binding, JDTClassNode>());
 
+	// Index of nodeCache by the readable name of the binding, maintained as nodes are cached so that getCachedNode() does not
+	// need to walk (and build a name for) every cached binding
+	private Map<String, JDTClassNode> nodeCacheByName = Collections.synchronizedMap(new HashMap<String, JDTClassNode>());
+
+	// The project whose library nodes this resolver may take from the JDTClassNodeCache, and the nodes once it has taken them
+	private String sharingProject;
+	private JDTClassNodeCache.ProjectNodes sharedNodes;
+
+	// The lookup environment of the compilation, used to bind shared nodes
+	private LookupEnvironment environment;
+
 	public JDTResolver(CompilationUnit groovyCompilationUnit) {
 		super(groovyCompilationUnit);
 		if (recordInstances) {
@@ -150,14 +167,82 @@ public class JDTResolver extends ResolveVisitor {
 		}
 	}
 
+	/**
+	 * @param name the readable name of a binding, eg- "java.util.List<E>"
+	 * @return the node already built by this resolver for a binding of that name, or null if there is none
+	 */
 	public JDTClassNode getCachedNode(String name) {
-		for (Map.Entry<Binding, JDTClassNode> nodeFromCache : nodeCache.entrySet()) {
-			String nodename = new String(nodeFromCache.getKey().readableName());
-			if (nodename.equals(name)) {
-				return nodeFromCache.getValue();
+		return nodeCacheByName.get(name);
+	}
+
+	/**
+	 * Allow this resolver to reuse the nodes that earlier builds of the project built for types in jars, see
+	 * {@link JDTClassNodeCache}. The nodes are taken when resolution commences and must be handed back with
+	 * {@link #releaseSharedNodes()} before the lookup environment is reset.
+	 */
+	public void shareLibraryNodes(String projectName) {
+		this.sharingProject = projectName;
+	}
+
+	/**
+	 * Hands the shared nodes back to the cache, after which they no longer refer to the bindings of this compilation.
+	 */
+	public void releaseSharedNodes() {
+		JDTClassNodeCache.ProjectNodes nodes = sharedNodes;
+		if (nodes != null) {
+			JDTClassNodeCache.getInstance().checkIn(sharingProject, nodes);
+			sharedNodes = null;
+		}
+		sharingProject = null;
+	}
+
+	/**
+	 * Binds a shared node that was not bound yet to the type of the same name in the lookup environment of this compilation.
+	 */
+	void rebind(JDTClassNode node) {
+		ReferenceBinding binding = null;
+		if (environment != null) {
+			char[][] compoundName = CharOperation.splitOn('.', node.getName().toCharArray());
+			binding = environment.getType(compoundName);
+			if (binding instanceof ProblemReferenceBinding
+					&& ((ProblemReferenceBinding) binding).problemId() == ProblemReasons.InternalNameProvided) {
+				binding = (ReferenceBinding) ((ProblemReferenceBinding) binding).closestMatch();
+			}
+			if (binding == null) {
+				binding = environment.createMissingType(null, compoundName);
+			}
+		}
+		if (binding == null || !bindShared(node, binding)) {
+			// the type has changed (eg. a source type now hides it), so keep what can be kept for this compilation and start with
+			// new nodes next time
+			JDTClassNodeCache.ProjectNodes nodes = node.sharedNodes;
+			if (nodes != null) {
+				nodes.invalidate();
+			}
+			if (binding == null) {
+				node.resolver = this;
 			}
 		}
-		return null;
+	}
+
+	/**
+	 * @return true if the node was bound to the binding, false if the binding is not for the same type as the node
+	 */
+	private boolean bindShared(JDTClassNode node, ReferenceBinding binding) {
+		boolean bound = node.rebind(binding, this);
+		if (!JDTClassNodeCache.isShareable(binding) || !new String(binding.computeUniqueKey()).equals(node.sharedKey)) {
+			return false;
+		}
+		if (bound) {
+			nodeCache.put(binding, node);
+			synchronized (nodeCacheByName) {
+				String readableName = new String(binding.readableName());
+				if (!nodeCacheByName.containsKey(readableName)) {
+					nodeCacheByName.put(readableName, node);
+				}
+			}
+		}
+		return bound;
 	}
 
 	/**
@@ -368,6 +453,9 @@ public class JDTResolver extends ResolveVisitor {
 	// over and over (GRECLIPSE-870)
 	private Set<String> unresolvables = new HashSet<String>();
 
+	// How deeply resolve() calls are currently nested, so that statistics are only collected for the outermost one
+	private int resolveDepth;
+
 	@Override
 	protected boolean resolve(ClassNode type, boolean testModuleImports, boolean testDefaultImports, boolean testStaticInnerClasses) {
 		String name = type.getName();
@@ -383,7 +471,15 @@ public class JDTResolver extends ResolveVisitor {
 			// System.out.println("Skipping... " + name);
 			return false;
 		} else {
-			boolean b = super.resolve(type, testModuleImports, testDefaultImports, testStaticInnerClasses);
+			long[] stats = resolveDepth == 0 ? PhaseStatistics.start() : null;
+			boolean b;
+			resolveDepth++;
+			try {
+				b = super.resolve(type, testModuleImports, testDefaultImports, testStaticInnerClasses);
+			} finally {
+				resolveDepth--;
+			}
+			PhaseStatistics.end(Stage.TYPE_RESOLUTION, stats);
 			// System.out.println("resolving... " + type.getName() + " = " + b);
 			if (!b) {
 				unresolvables.add(name);
@@ -459,6 +555,20 @@ public class JDTResolver extends ResolveVisitor {
 			}
 			return existingNode;
 		}
+		JDTClassNodeCache.ProjectNodes nodes = sharedNodes;
+		if (nodes != null && JDTClassNodeCache.isShareable(jdtBinding)) {
+			JDTClassNode sharedNode = nodes.get(new String(jdtBinding.computeUniqueKey()));
+			if (sharedNode != null) {
+				if (sharedNode.resolver == this) {
+					// bound earlier on, when the node was reached from another shared node
+					return sharedNode;
+				}
+				if (bindShared(sharedNode, (ReferenceBinding) jdtBinding)) {
+					return sharedNode;
+				}
+				nodes.invalidate();
+			}
+		}
 
 		if (debug) {
 			log("createJDTClassNode: Building new JDTClassNode for binding " + new String(jdtBinding.readableName()));
@@ -485,6 +595,17 @@ public class JDTResolver extends ResolveVisitor {
 			inProgressStack.pop();
 			inProgress.remove(jdtBinding);
 			nodeCache.put(jdtBinding, jdtNode);
+			JDTClassNodeCache.ProjectNodes nodes = sharedNodes;
+			if (nodes != null && JDTClassNodeCache.isShareable(jdtBinding)) {
+				nodes.put(new String(jdtBinding.computeUniqueKey()), jdtNode);
+			}
+			String readableName = new String(jdtBinding.readableName());
+			synchronized (nodeCacheByName) {
+				// different bindings may share a readable name, keep answering with the first one like a scan would
+				if (!nodeCacheByName.containsKey(readableName)) {
+					nodeCacheByName.put(readableName, jdtNode);
+				}
+			}
 		}
 		return classNode;
 	}
@@ -707,6 +828,12 @@ public class JDTResolver extends ResolveVisitor {
 			throw geb;
 		}
 		activeScope = (GroovyCompilationUnitScope) gtDeclaration.scope.compilationUnitScope();
+		if (environment == null) {
+			environment = activeScope.environment;
+			if (sharingProject != null) {
+				sharedNodes = JDTClassNodeCache.getInstance().checkOut(sharingProject, this);
+			}
+		}
 		if (debug) {
 			System.err.println("Resolver: commencing resolution for " + this.currentClass.getName());
 		}
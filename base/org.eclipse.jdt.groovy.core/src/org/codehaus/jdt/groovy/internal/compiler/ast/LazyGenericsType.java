@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.codehaus.jdt.groovy.internal.compiler.ast;
 
+import java.util.Map;
+
 import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.GenericsType;
@@ -166,4 +168,33 @@ public class LazyGenericsType extends GenericsType {
 		}
 	}
 
+	/**
+	 * Visits the bounds on behalf of a shared node (see {@link JDTClassNode#prepareToUnbind(Map)}). Preparing initializes this
+	 * generics type, unbinding releases the binding it was initialized from.
+	 * 
+	 * @return false if the bounds refer to something that cannot be kept from one build to the next
+	 */
+	boolean visit(Map<Object, Boolean> seen, boolean unbind) {
+		if (seen.put(this, Boolean.TRUE) != null) {
+			return true;
+		}
+		if (!initialized) {
+			if (unbind) {
+				return false;
+			}
+			ensureInitialized();
+		}
+		boolean movable = JDTClassNode.visitType(type, seen, unbind);
+		if (upperBounds != null) {
+			for (ClassNode upperBound : upperBounds) {
+				movable &= JDTClassNode.visitType(upperBound, seen, unbind);
+			}
+		}
+		if (unbind) {
+			tvBinding = null;
+			resolver = null;
+		}
+		return movable;
+	}
+
 }
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects how often, how long and with how much allocation the stages of the Groovy to JDT compile bridge run. Collecting is off
+ * by default and only costs a field read per stage when off. Switch it on with {@link #setEnabled(boolean)} (as the compiler
+ * benchmark tests do) or by setting the system property <code>greclipse.phasestats</code>.
+ *
+ * Allocation is measured with the per thread allocation counter of HotSpot VMs. On other VMs only counts and times are collected.
+ * Stages may nest (type resolution happens during the resolve stage), so the numbers of different stages must not be added up.
+ * Type resolution itself recurses, only the outermost resolution of a type is counted.
+ */
+public class PhaseStatistics {
+
+	public enum Stage {
+		DIET_PARSE("dietParse"), //
+		CONVERSION("processToPhase(CONVERSION)"), //
+		POPULATE("populateCompilationUnitDeclaration"), //
+		RESOLVE("processToPhase(SEMANTIC_ANALYSIS)"), //
+		TYPE_RESOLUTION("JDTResolver.resolve"), //
+		ANALYSE("processToPhase(CANONICALIZATION)"), //
+		GENERATE("processToPhase(ALL)");
+
+		public final String label;
+
+		Stage(String label) {
+			this.label = label;
+		}
+	}
+
+	private static volatile boolean enabled = System.getProperty("greclipse.phasestats") != null; //$NON-NLS-1$
+
+	private static final AtomicLong[] counts = newCounters();
+	private static final AtomicLong[] nanos = newCounters();
+	private static final AtomicLong[] allocated = newCounters();
+
+	private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+	private static final Method getThreadAllocatedBytes = findAllocationCounter();
+
+	private PhaseStatistics() {
+		// static helpers only
+	}
+
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return a token to pass to {@link #end(Stage, long[])} when the stage is complete, or null if no statistics are collected
+	 */
+	public static long[] start() {
+		if (!enabled) {
+			return null;
+		}
+		return new long[] { System.nanoTime(), allocatedBytes() };
+	}
+
+	public static void end(Stage stage, long[] token) {
+		if (token == null) {
+			return;
+		}
+		int index = stage.ordinal();
+		nanos[index].addAndGet(System.nanoTime() - token[0]);
+		counts[index].incrementAndGet();
+		if (token[1] >= 0) {
+			long bytes = allocatedBytes();
+			if (bytes >= token[1]) {
+				allocated[index].addAndGet(bytes - token[1]);
+			}
+		}
+	}
+
+	public static long getCount(Stage stage) {
+		return counts[stage.ordinal()].get();
+	}
+
+	public static long getNanos(Stage stage) {
+		return nanos[stage.ordinal()].get();
+	}
+
+	/**
+	 * @return the number of bytes allocated by the stage, or 0 if the VM cannot measure allocation
+	 */
+	public static long getAllocatedBytes(Stage stage) {
+		return allocated[stage.ordinal()].get();
+	}
+
+	public static boolean canMeasureAllocation() {
+		return getThreadAllocatedBytes != null;
+	}
+
+	public static void reset() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i].set(0);
+			nanos[i].set(0);
+			allocated[i].set(0);
+		}
+	}
+
+	/**
+	 * @return one line per stage that has run with its count, total time, throughput and allocation rate
+	 */
+	public static String dump() {
+		StringBuilder sb = new StringBuilder();
+		for (Stage stage : Stage.values()) {
+			long count = getCount(stage);
+			if (count == 0) {
+				continue;
+			}
+			double millis = getNanos(stage) / 1000000d;
+			double seconds = millis / 1000d;
+			sb.append(stage.label).append(": ").append(count).append(" calls, ");
+			sb.append(String.format("%.1fms, %.1f calls/s", millis, seconds > 0 ? count / seconds : 0d));
+			if (canMeasureAllocation()) {
+				double megabytes = getAllocatedBytes(stage) / (1024d * 1024d);
+				sb.append(String.format(", %.1fMB allocated, %.1fMB/s", megabytes, seconds > 0 ? megabytes / seconds : 0d));
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static AtomicLong[] newCounters() {
+		AtomicLong[] counters = new AtomicLong[Stage.values().length];
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = new AtomicLong();
+		}
+		return counters;
+	}
+
+	/**
+	 * @return the number of bytes allocated so far by the current thread, or -1 if the VM cannot measure allocation
+	 */
+	public static long allocatedBytes() {
+		if (getThreadAllocatedBytes != null) {
+			try {
+				return (Long) getThreadAllocatedBytes.invoke(threadBean, Thread.currentThread().getId());
+			} catch (Exception e) {
+				// fall through, allocation is not measured
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * com.sun.management.ThreadMXBean is not available on every VM, so it is only accessed reflectively
+	 */
+	private static Method findAllocationCounter() {
+		try {
+			Class<?> beanClass = ClassLoader.getSystemClassLoader().loadClass("com.sun.management.ThreadMXBean"); //$NON-NLS-1$
+			if (beanClass.isInstance(threadBean)) {
+				Method method = beanClass.getMethod("getThreadAllocatedBytes", long.class); //$NON-NLS-1$
+				method.invoke(threadBean, Thread.currentThread().getId());
+				return method;
+			}
+		} catch (Throwable t) {
+			// not a HotSpot VM or allocation measuring is not supported
+		}
+		return null;
+	}
+}
@@ -0,0 +1,522 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import groovy.lang.GroovyClassLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+import org.apache.xbean.classloader.NonLockingJarFileClassLoader;
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
+import org.eclipse.jdt.groovy.core.util.ClasspathFingerprint;
+
+/**
+ * Each project is allowed a GroovyClassLoader that will be used to load transform definitions and supporting classes. The pool
+ * keeps the current loader of every project, and the jar files that those loaders read from. A jar file is opened once and shared
+ * by the loaders of all the projects that have it on their classpath.
+ *
+ * Each jar is fingerprinted (size and last modification time). A project's loader is reused as long as its classpath and the
+ * fingerprints of its jars are unchanged. Otherwise a new loader is built for the project, which reuses the open handles of all
+ * the jars that did not change and only opens the ones that did. Class folders are read on demand and not fingerprinted, so that
+ * output folders changing during a build do not cause loaders to be rebuilt.
+ *
+ * A replaced or discarded loader is orphaned rather than closed, since a compilation may still be using it. The jars it reads from
+ * stay open until it has been garbage collected. A jar file is closed once neither a current nor an orphaned loader uses it any
+ * more and either a newer version of the jar has been opened or the project is closed. Resource URLs handed out by the loaders
+ * read through the same shared handles.
+ *
+ * When the system property <code>greclipse.nonlocking</code> is set, loaders copy the jars they read from instead (to avoid
+ * locking them) and no handles are shared.
+ */
+public class TransformLoaderPool {
+
+	private static boolean NONLOCKING = false;
+
+	static {
+		try {
+			boolean value = System.getProperty("greclipse.nonlocking", "false").equalsIgnoreCase("true");
+			NONLOCKING = value;
+		} catch (Throwable t) {
+		}
+	}
+
+	private static final TransformLoaderPool INSTANCE = new TransformLoaderPool();
+
+	public static TransformLoaderPool getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * An open jar file, shared by all loaders that have it on their classpath
+	 */
+	static class JarHandle {
+		final File file;
+		final long fingerprint;
+		final JarFile jarFile;
+		final URLStreamHandler urlHandler = new JarHandleURLStreamHandler(this);
+		// current loaders and orphaned loaders not yet garbage collected
+		int users;
+		int orphans;
+		boolean stale;
+		boolean closed;
+
+		JarHandle(File file, long fingerprint) throws IOException {
+			this.file = file;
+			this.fingerprint = fingerprint;
+			this.jarFile = new JarFile(file);
+		}
+
+		boolean isUnused() {
+			return users == 0 && orphans == 0;
+		}
+	}
+
+	/**
+	 * A replaced or discarded loader, cleared once the loader has been garbage collected so its jars can be released
+	 */
+	static class OrphanedLoader extends WeakReference<ClassLoader> {
+		final List<JarHandle> jars;
+
+		OrphanedLoader(ClassLoader loader, List<JarHandle> jars, ReferenceQueue<ClassLoader> queue) {
+			super(loader, queue);
+			this.jars = jars;
+		}
+	}
+
+	static class ProjectLoader {
+		final String classpath;
+		final List<JarHandle> jars;
+		final GroovyClassLoader groovyClassLoader;
+
+		ProjectLoader(String classpath, List<JarHandle> jars, GroovyClassLoader groovyClassLoader) {
+			this.classpath = classpath;
+			this.jars = jars;
+			this.groovyClassLoader = groovyClassLoader;
+		}
+	}
+
+	private final Map<String, JarHandle> jarHandles = new HashMap<String, JarHandle>();
+
+	private final Map<String, ProjectLoader> projectLoaders = new HashMap<String, ProjectLoader>();
+
+	// keeps the references to orphaned loaders alive until they are enqueued
+	private final Set<OrphanedLoader> orphanedLoaders = new HashSet<OrphanedLoader>();
+
+	private final ReferenceQueue<ClassLoader> collectedLoaders = new ReferenceQueue<ClassLoader>();
+
+	private int jarsOpened;
+
+	private TransformLoaderPool() {
+		// singleton
+	}
+
+	/**
+	 * @return the transform loader for the project, reusing the current one if neither the classpath nor any of its jars changed
+	 */
+	public synchronized GroovyClassLoader getLoader(String projectName, String classpath) {
+		releaseCollectedLoaders();
+		ProjectLoader projectLoader = projectLoaders.get(projectName);
+		if (projectLoader != null && projectLoader.classpath.equals(classpath) && isCurrent(projectLoader)) {
+			return projectLoader.groovyClassLoader;
+		}
+		if (projectLoader == null && GroovyLogManager.manager.hasLoggers()) {
+			GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM,
+					"Classpath for GroovyClassLoader (used to discover transforms): " + classpath);
+			if (NONLOCKING) {
+				GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM,
+						"property set: greclipse.nonlocking: will try to avoid locking jars");
+			}
+		}
+		ProjectLoader newLoader = createProjectLoader(classpath);
+		projectLoaders.put(projectName, newLoader);
+		if (projectLoader != null) {
+			release(projectLoader, false);
+		}
+		return newLoader.groovyClassLoader;
+	}
+
+	/**
+	 * Forget the loader of the project. The loader itself is orphaned, jars that it was the last user of are closed if they have
+	 * been superseded.
+	 */
+	public synchronized void discard(String projectName) {
+		releaseCollectedLoaders();
+		ProjectLoader projectLoader = projectLoaders.remove(projectName);
+		if (projectLoader != null) {
+			release(projectLoader, false);
+		}
+	}
+
+	/**
+	 * Forget the loader of the project and close every jar that is not used by the loader of another project. Jars that orphaned
+	 * loaders still use are closed once those loaders have been garbage collected.
+	 */
+	public synchronized void close(String projectName) {
+		releaseCollectedLoaders();
+		ProjectLoader projectLoader = projectLoaders.remove(projectName);
+		if (projectLoader != null) {
+			release(projectLoader, true);
+		}
+	}
+
+	/**
+	 * @return the number of jar files currently held open by the pool
+	 */
+	public synchronized int getOpenJarCount() {
+		releaseCollectedLoaders();
+		return jarHandles.size();
+	}
+
+	/**
+	 * @return the number of times a jar file has been opened by the pool
+	 */
+	public synchronized int getJarsOpened() {
+		return jarsOpened;
+	}
+
+	private boolean isCurrent(ProjectLoader projectLoader) {
+		for (JarHandle handle : projectLoader.jars) {
+			if (handle.stale || handle.fingerprint != ClasspathFingerprint.ofFile(handle.file)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private ProjectLoader createProjectLoader(String classpath) {
+		// GRECLIPSE-1090
+		ClassLoader pcl = GroovyParser.class.getClassLoader();// Thread.currentThread().getContextClassLoader();
+		List<File> files = new ArrayList<File>();
+		if (classpath != null) {
+			int pos = 0;
+			while (pos <= classpath.length()) {
+				int nextSep = classpath.indexOf(File.pathSeparatorChar, pos);
+				if (nextSep == -1) {
+					nextSep = classpath.length();
+				}
+				if (nextSep > pos) {
+					File file = new File(classpath.substring(pos, nextSep));
+					if (!files.contains(file)) {
+						files.add(file);
+					}
+				}
+				pos = nextSep + 1;
+			}
+		}
+		if (NONLOCKING) {
+			List<URL> urls = new ArrayList<URL>();
+			for (File file : files) {
+				try {
+					urls.add(file.toURI().toURL());
+				} catch (MalformedURLException e) {
+					// It was a busted URL anyway
+				}
+			}
+			return new ProjectLoader(classpath, Collections.<JarHandle> emptyList(), new GroovyClassLoader(
+					new NonLockingJarFileClassLoader("AST Transform loader", urls.toArray(new URL[urls.size()]), pcl)));
+		}
+
+		List<JarHandle> jars = new ArrayList<JarHandle>();
+		List<Object> entries = new ArrayList<Object>();
+		for (File file : files) {
+			if (file.isDirectory()) {
+				entries.add(file);
+			} else if (file.isFile()) {
+				JarHandle handle = acquire(file);
+				if (handle != null) {
+					jars.add(handle);
+					entries.add(handle);
+				}
+			}
+		}
+		return new ProjectLoader(classpath, jars, new GroovyClassLoader(new PooledClassLoader(entries, pcl)));
+	}
+
+	private JarHandle acquire(File file) {
+		String key = file.getAbsolutePath();
+		long fingerprint = ClasspathFingerprint.ofFile(file);
+		JarHandle handle = jarHandles.get(key);
+		if (handle == null || handle.fingerprint != fingerprint) {
+			if (handle != null) {
+				handle.stale = true;
+				if (handle.isUnused()) {
+					closeJar(handle);
+				}
+			}
+			try {
+				handle = new JarHandle(file, fingerprint);
+				jarsOpened++;
+			} catch (IOException e) {
+				// not a jar, nothing to load from
+				jarHandles.remove(key);
+				return null;
+			}
+			jarHandles.put(key, handle);
+		}
+		handle.users++;
+		return handle;
+	}
+
+	/**
+	 * Turns the loader into an orphan, its jars stay open until it has been garbage collected
+	 */
+	private void release(ProjectLoader projectLoader, boolean closeUnused) {
+		if (!projectLoader.jars.isEmpty()) {
+			orphanedLoaders.add(new OrphanedLoader(projectLoader.groovyClassLoader.getParent(), projectLoader.jars,
+					collectedLoaders));
+		}
+		for (JarHandle handle : projectLoader.jars) {
+			handle.users--;
+			handle.orphans++;
+		}
+		if (closeUnused) {
+			for (Iterator<JarHandle> handleIter = jarHandles.values().iterator(); handleIter.hasNext();) {
+				JarHandle handle = handleIter.next();
+				if (handle.users == 0) {
+					handleIter.remove();
+					handle.stale = true;
+					if (handle.isUnused()) {
+						closeJar(handle);
+					}
+				}
+			}
+		}
+	}
+
+	private void releaseCollectedLoaders() {
+		Reference<? extends ClassLoader> reference;
+		while ((reference = collectedLoaders.poll()) != null) {
+			OrphanedLoader orphanedLoader = (OrphanedLoader) reference;
+			orphanedLoaders.remove(orphanedLoader);
+			for (JarHandle handle : orphanedLoader.jars) {
+				handle.orphans--;
+				if (handle.stale && handle.isUnused()) {
+					closeJar(handle);
+				}
+			}
+		}
+	}
+
+	private void closeJar(JarHandle handle) {
+		if (handle.closed) {
+			return;
+		}
+		handle.closed = true;
+		try {
+			handle.jarFile.close();
+		} catch (IOException e) {
+			// nothing more can be done
+		}
+	}
+
+	/**
+	 * Loads classes and resources from shared jar handles and from class folders, in classpath order.
+	 */
+	static class PooledClassLoader extends ClassLoader {
+
+		private final Object[] entries;
+		private final ProtectionDomain[] domains;
+
+		PooledClassLoader(List<Object> entries, ClassLoader parent) {
+			super(parent);
+			this.entries = entries.toArray();
+			this.domains = new ProtectionDomain[this.entries.length];
+			for (int i = 0; i < this.entries.length; i++) {
+				try {
+					URL url = toFile(this.entries[i]).toURI().toURL();
+					domains[i] = new ProtectionDomain(new CodeSource(url, (Certificate[]) null), null, this, null);
+				} catch (MalformedURLException e) {
+					domains[i] = null;
+				}
+			}
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			String path = name.replace('.', '/').concat(".class");
+			for (int i = 0; i < entries.length; i++) {
+				try {
+					byte[] bytes = read(entries[i], path);
+					if (bytes != null) {
+						definePackageFor(name);
+						return defineClass(name, bytes, 0, bytes.length, domains[i]);
+					}
+				} catch (IOException e) {
+					// try the next entry
+				} catch (IllegalStateException e) {
+					// the jar has been closed since this loader was orphaned
+				}
+			}
+			throw new ClassNotFoundException(name);
+		}
+
+		@Override
+		protected URL findResource(String name) {
+			for (Object entry : entries) {
+				URL url = getResourceURL(entry, name);
+				if (url != null) {
+					return url;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		protected Enumeration<URL> findResources(String name) {
+			List<URL> urls = new ArrayList<URL>();
+			for (Object entry : entries) {
+				URL url = getResourceURL(entry, name);
+				if (url != null) {
+					urls.add(url);
+				}
+			}
+			return Collections.enumeration(urls);
+		}
+
+		private void definePackageFor(String className) {
+			int lastDot = className.lastIndexOf('.');
+			if (lastDot != -1) {
+				String packageName = className.substring(0, lastDot);
+				if (getPackage(packageName) == null) {
+					try {
+						definePackage(packageName, null, null, null, null, null, null, null);
+					} catch (IllegalArgumentException e) {
+						// defined by another thread in the meantime
+					}
+				}
+			}
+		}
+
+		private static File toFile(Object entry) {
+			return entry instanceof JarHandle ? ((JarHandle) entry).file : (File) entry;
+		}
+
+		private static byte[] read(Object entry, String path) throws IOException {
+			InputStream stream;
+			if (entry instanceof JarHandle) {
+				JarFile jarFile = ((JarHandle) entry).jarFile;
+				ZipEntry zipEntry = jarFile.getEntry(path);
+				if (zipEntry == null) {
+					return null;
+				}
+				stream = jarFile.getInputStream(zipEntry);
+			} else {
+				File file = new File((File) entry, path);
+				if (!file.isFile()) {
+					return null;
+				}
+				stream = new FileInputStream(file);
+			}
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = stream.read(buffer)) != -1) {
+					bytes.write(buffer, 0, read);
+				}
+				return bytes.toByteArray();
+			} finally {
+				stream.close();
+			}
+		}
+
+		private static URL getResourceURL(Object entry, String name) {
+			try {
+				if (entry instanceof JarHandle) {
+					JarHandle handle = (JarHandle) entry;
+					if (handle.jarFile.getEntry(name) != null) {
+						return new URL("jar", null, -1, handle.file.toURI().toURL() + "!/" + name, handle.urlHandler);
+					}
+				} else {
+					File file = new File((File) entry, name);
+					if (file.exists()) {
+						return file.toURI().toURL();
+					}
+				}
+			} catch (MalformedURLException e) {
+				// It was a busted URL anyway
+			} catch (IllegalStateException e) {
+				// the jar has been closed since this loader was orphaned
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Opens the "jar:" URLs of resources in a shared jar through the pool's handle. The default handler would open (and cache)
+	 * another handle on the jar for every URL it connects to.
+	 */
+	static class JarHandleURLStreamHandler extends URLStreamHandler {
+
+		private final JarHandle handle;
+
+		JarHandleURLStreamHandler(JarHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		protected URLConnection openConnection(URL url) throws IOException {
+			String spec = url.getFile();
+			int separator = spec.indexOf("!/");
+			if (separator == -1) {
+				throw new MalformedURLException("no !/ in spec: " + url);
+			}
+			final String name = spec.substring(separator + 2);
+			return new URLConnection(url) {
+				@Override
+				public void connect() throws IOException {
+					connected = true;
+				}
+
+				@Override
+				public InputStream getInputStream() throws IOException {
+					try {
+						ZipEntry entry = handle.jarFile.getEntry(name);
+						if (entry == null) {
+							throw new FileNotFoundException(url.toString());
+						}
+						connect();
+						return handle.jarFile.getInputStream(entry);
+					} catch (IllegalStateException e) {
+						throw new IOException("Jar file has been closed: " + handle.file);
+					}
+				}
+			};
+		}
+	}
+}
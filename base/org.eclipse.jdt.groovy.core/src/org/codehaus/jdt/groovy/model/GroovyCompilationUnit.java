@@ -95,7 +95,9 @@ public class GroovyCompilationUnit extends CompilationUnit {
 	 * Returns the module node for this GroovyCompilationUnit creates one if one doesn't exist.
 	 * 
 	 * This is potentially a long running operation. This method ensures that this CompilationUnit is a working copy and that it is
-	 * consistent (if not a reconcile operation is performed).
+	 * consistent (if not a reconcile operation is performed). When the only change since the last reconcile is inside the body of
+	 * a single method, only that method is parsed again and spliced into the cached module node instead (see
+	 * {@link IncrementalReconciler}).
 	 * 
 	 */
 	public ModuleNode getModuleNode() {
@@ -112,21 +114,50 @@ public class GroovyCompilationUnit extends CompilationUnit {
 	 *         working copy. Also will be null if a problem occurs
 	 */
 	public ModuleNodeInfo getModuleInfo(boolean force) {
+		// fast path: consistent working copies only need a lookup, which does not lock
+		if (isWorkingCopy() && isConsistent()) {
+			ModuleNodeInfo moduleInfo = ModuleNodeMapper.getInstance().get(getPerWorkingCopyInfo());
+			if (moduleInfo != null) {
+				return moduleInfo;
+			}
+		}
 		synchronized (ModuleNodeMapper.getInstance()) {
 			try {
 				// discard the working copy after finishing
 				// if there was no working copy to begin with
 				boolean becameWorkingCopy = false;
+				long modificationStamp = IResource.NULL_STAMP;
 				try {
 					if (becameWorkingCopy = (force && !isWorkingCopy())) {
+						// reuse the module created by an earlier request if the unit has not changed since then
+						ModuleNodeInfo cached = ModuleNodeCache.getInstance().get(this);
+						if (cached != null) {
+							becameWorkingCopy = false;
+							return cached;
+						}
+						// taken before parsing so that a change made meanwhile is not cached as unchanged
+						modificationStamp = ModuleNodeCache.modificationStamp(this);
 						becomeWorkingCopy(null);
 					}
 					if (!isConsistent()) {
+						ModuleNodeInfo updated = becameWorkingCopy ? null : reconcileIncrementally();
+						if (updated != null) {
+							return updated;
+						}
 						reconcile(true, null);
 					}
 					PerWorkingCopyInfo info = getPerWorkingCopyInfo();
 					if (info != null) {
-						return ModuleNodeMapper.getInstance().get(info);
+						ModuleNodeInfo moduleInfo = ModuleNodeMapper.getInstance().get(info);
+						if (moduleInfo == null && ModuleNodeMapper.getInstance().isEvicted(info)) {
+							// dropped to bound memory use, a forced reconcile recreates and stores it
+							reconcile(true, null);
+							moduleInfo = ModuleNodeMapper.getInstance().get(info);
+						}
+						if (becameWorkingCopy) {
+							ModuleNodeCache.getInstance().store(this, moduleInfo, modificationStamp);
+						}
+						return moduleInfo;
 					}
 				} finally {
 					if (becameWorkingCopy) {
@@ -141,6 +172,25 @@ public class GroovyCompilationUnit extends CompilationUnit {
 		}
 	}
 
+	/**
+	 * Splices the changes made to the buffer since the last reconcile into the cached module node, if they are confined to a single
+	 * method body. The working copy stays inconsistent, so problems are still computed by the next full reconcile.
+	 * 
+	 * @return the updated module info, or null if a full reconcile is required
+	 */
+	private ModuleNodeInfo reconcileIncrementally() {
+		PerWorkingCopyInfo info = getPerWorkingCopyInfo();
+		if (info == null) {
+			return null;
+		}
+		ModuleNodeInfo previous = ModuleNodeMapper.getInstance().get(info);
+		ModuleNodeInfo updated = IncrementalReconciler.reconcile(this, previous, getContents());
+		if (updated != null && updated != previous) {
+			ModuleNodeMapper.getInstance().store(info, updated);
+		}
+		return updated;
+	}
+
 	/**
 	 * Gets the module node for this compilation unit. Bypasses the cached module node and creates a new one, which is then placed
 	 * in the cache
@@ -148,6 +198,7 @@ public class GroovyCompilationUnit extends CompilationUnit {
 	 * @return
 	 */
 	public ModuleNodeInfo getNewModuleInfo() {
+		ModuleNodeCache.getInstance().remove(this);
 		try {
 			openWhenClosed(createElementInfo(), false/* or should it be true... ? */, new NullProgressMonitor());
 		} catch (JavaModelException e) {
@@ -0,0 +1,870 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+
+package org.codehaus.jdt.groovy.model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ConstructorNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.GenericsType;
+import org.codehaus.groovy.ast.InnerClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.PackageNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.groovy.ast.expr.ArgumentListExpression;
+import org.codehaus.groovy.ast.expr.ArrayExpression;
+import org.codehaus.groovy.ast.expr.AttributeExpression;
+import org.codehaus.groovy.ast.expr.BinaryExpression;
+import org.codehaus.groovy.ast.expr.BitwiseNegationExpression;
+import org.codehaus.groovy.ast.expr.BooleanExpression;
+import org.codehaus.groovy.ast.expr.CastExpression;
+import org.codehaus.groovy.ast.expr.ClassExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ClosureListExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
+import org.codehaus.groovy.ast.expr.DeclarationExpression;
+import org.codehaus.groovy.ast.expr.ElvisOperatorExpression;
+import org.codehaus.groovy.ast.expr.FieldExpression;
+import org.codehaus.groovy.ast.expr.GStringExpression;
+import org.codehaus.groovy.ast.expr.ListExpression;
+import org.codehaus.groovy.ast.expr.MapEntryExpression;
+import org.codehaus.groovy.ast.expr.MapExpression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.groovy.ast.expr.MethodPointerExpression;
+import org.codehaus.groovy.ast.expr.NotExpression;
+import org.codehaus.groovy.ast.expr.PostfixExpression;
+import org.codehaus.groovy.ast.expr.PrefixExpression;
+import org.codehaus.groovy.ast.expr.PropertyExpression;
+import org.codehaus.groovy.ast.expr.RangeExpression;
+import org.codehaus.groovy.ast.expr.SpreadExpression;
+import org.codehaus.groovy.ast.expr.SpreadMapExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.TernaryExpression;
+import org.codehaus.groovy.ast.expr.TupleExpression;
+import org.codehaus.groovy.ast.expr.UnaryMinusExpression;
+import org.codehaus.groovy.ast.expr.UnaryPlusExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.ast.stmt.CatchStatement;
+import org.codehaus.groovy.ast.stmt.ForStatement;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.classgen.VariableScopeVisitor;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.jdt.core.IAnnotatable;
+import org.eclipse.jdt.core.IAnnotation;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IParent;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.core.AnnotatableInfo;
+import org.eclipse.jdt.internal.core.AnnotationInfo;
+import org.eclipse.jdt.internal.core.CompilationUnitElementInfo;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.LocalVariable;
+import org.eclipse.jdt.internal.core.SourceMethodElementInfo;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * Brings the module node of a working copy up to date with its buffer without compiling the whole file again, for the common case
+ * where an edit is confined to the body of a single method.
+ *
+ * The changed region is computed by comparing the contents that the cached module node was built from with the current contents.
+ * If that region lies strictly inside the braces of exactly one method, only the text of that method is parsed again (with the
+ * ANTLR parser, up to the conversion phase). The variable scopes of the new body are computed within the real class, and its
+ * references are resolved by the resolver of the module, through the regular
+ * {@link org.codehaus.groovy.control.ResolveVisitor} code. Only once all of this has succeeded is the cached module node changed:
+ * the new body replaces the old one, and the source locations of everything after the edit are shifted, both in the module node
+ * and in the Java model of the working copy. So the module node keeps its identity, and the type nodes it refers to are still
+ * those known to the resolver.
+ *
+ * Whenever any of this is not possible (the edit touches a declaration, the method does not parse, a reference cannot be
+ * resolved, ...), <code>null</code> is returned and the caller is expected to fall back to a full reconcile. The working copy
+ * remains inconsistent, so problems are still computed by the next full reconcile.
+ *
+ * Set the system property <code>greclipse.reconcile.incremental.disabled</code> to always use a full reconcile.
+ */
+class IncrementalReconciler {
+
+	private static final boolean DISABLED = System.getProperty("greclipse.reconcile.incremental.disabled") != null; //$NON-NLS-1$
+
+	private static final String SNIPPET_CLASS = "IncrementalReconcile__"; //$NON-NLS-1$
+
+	private static final String SNIPPET_PREFIX = "class " + SNIPPET_CLASS + " {\n"; //$NON-NLS-1$ //$NON-NLS-2$
+
+	// the (package private) class declaring the source range of Java model element infos
+	private static final Class<?> SOURCE_REF_INFO = AnnotationInfo.class.getSuperclass();
+
+	// method parameters are Java model elements of their own on Eclipse 3.7 and later
+	private static final boolean HAS_METHOD_ARGUMENTS = hasField(SourceMethodElementInfo.class, "arguments"); //$NON-NLS-1$
+
+	/**
+	 * Thrown when the edit cannot be handled incrementally
+	 */
+	private static class Bail extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private IncrementalReconciler() {
+		// static helpers only
+	}
+
+	/**
+	 * @return false if reconciles must always be full reconciles
+	 */
+	static boolean isEnabled() {
+		return !DISABLED;
+	}
+
+	/**
+	 * @param unit the working copy
+	 * @param previous the module info last cached for the working copy
+	 * @param newContents the current contents of the working copy
+	 * @return previous if the contents have not changed, an info holding the same module node with the edit spliced in if the
+	 *         edit could be handled incrementally, or null if a full reconcile is required
+	 */
+	static ModuleNodeInfo reconcile(GroovyCompilationUnit unit, ModuleNodeInfo previous, char[] newContents) {
+		if (DISABLED || previous == null || previous.module == null || previous.resolver == null || previous.contents == null
+				|| newContents == null) {
+			return null;
+		}
+		char[] oldContents = previous.contents;
+
+		// determine the changed region
+		int max = Math.min(oldContents.length, newContents.length);
+		int prefix = 0;
+		while (prefix < max && oldContents[prefix] == newContents[prefix]) {
+			prefix++;
+		}
+		if (prefix == oldContents.length && prefix == newContents.length) {
+			return previous;
+		}
+		int suffix = 0;
+		while (suffix < max - prefix
+				&& oldContents[oldContents.length - 1 - suffix] == newContents[newContents.length - 1 - suffix]) {
+			suffix++;
+		}
+		int oldEnd = oldContents.length - suffix;
+		int newEnd = newContents.length - suffix;
+		int delta = newEnd - oldEnd;
+
+		try {
+			ModuleNode module = previous.module;
+			MethodNode target = findEnclosingMethod(module, oldContents, prefix, oldEnd);
+			if (target == null || target.getDeclaringClass() instanceof InnerClassNode) {
+				// the generics and variables of enclosing classes are not handled here
+				return null;
+			}
+			ClassNode declaringClass = target.getDeclaringClass();
+			int closeBrace = closingBrace(target.getCode(), oldContents);
+
+			// the Java model elements to shift, none of which may be inside the old body (eg- a local class)
+			List<Object> infos = collectElementInfos(unit, target.getCode().getStart(), closeBrace);
+
+			// reparse the member on its own
+			String methodText = new String(newContents, target.getStart(), closeBrace + delta + 1 - target.getStart());
+			SourceUnit snippet = SourceUnit.create(SNIPPET_CLASS + ".groovy", SNIPPET_PREFIX + methodText + "\n}\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			snippet.parse();
+			snippet.completePhase();
+			snippet.convert();
+			if (snippet.getErrorCollector().hasErrors()) {
+				return null;
+			}
+			MethodNode reparsed = findReparsedMethod(snippet.getAST(), target);
+			BlockStatement newCode = (BlockStatement) reparsed.getCode();
+
+			// move the new body to where it lives in the real file
+			Shifter toFile = new Shifter(0, 2, target.getStart() - SNIPPET_PREFIX.length(), target.getLineNumber() - 2,
+					target.getColumnNumber() - 1);
+			newCode.visit(toFile);
+
+			// scope and resolve the new body on a stand-in for the method, so that the module is untouched if this fails
+			MethodNode standIn;
+			if (target instanceof ConstructorNode) {
+				standIn = new ConstructorNode(target.getModifiers(), target.getParameters(), target.getExceptions(), newCode);
+			} else {
+				standIn = new MethodNode(target.getName(), target.getModifiers(), target.getReturnType(), target.getParameters(),
+						target.getExceptions(), newCode);
+			}
+			standIn.setDeclaringClass(declaringClass);
+			standIn.setGenericsTypes(target.getGenericsTypes());
+			new MethodScopeVisitor(snippet, target, standIn).visitClass(declaringClass);
+			if (snippet.getErrorCollector().hasErrors()) {
+				return null;
+			}
+			previous.resolver.startResolving(declaringClass, standIn, snippet);
+			if (snippet.getErrorCollector().hasErrors()) {
+				return null;
+			}
+
+			// splice the new body in and shift everything after the edit
+			target.setCode(standIn.getCode());
+			target.setVariableScope(standIn.getVariableScope());
+			int endLine = lineOf(oldContents, oldEnd);
+			int lineDelta = (lineOf(newContents, newEnd) - endLine);
+			int columnDelta = columnOf(newContents, newEnd) - columnOf(oldContents, oldEnd);
+			Shifter afterEdit = new Shifter(oldEnd, endLine, delta, lineDelta, columnDelta);
+			afterEdit.skip(newCode);
+			for (ClassNode clazz : module.getClasses()) {
+				afterEdit.visitClass(clazz);
+			}
+			afterEdit.shift(module);
+			shiftElementInfos(infos, oldEnd, delta);
+
+			return ModuleNodeMapper.getInstance().new ModuleNodeInfo(module, previous.resolver, newContents);
+		} catch (Bail e) {
+			return null;
+		} catch (JavaModelException e) {
+			return null;
+		} catch (CompilationFailedException e) {
+			// the edit left the method broken
+			return null;
+		} catch (RuntimeException e) {
+			// unexpected, but a full reconcile will recover
+			Util.log(e, "Incremental reconcile failed, falling back to full reconcile"); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	/**
+	 * @return the only method whose body strictly contains the region, or null if there is none or more than one
+	 */
+	private static MethodNode findEnclosingMethod(ModuleNode module, char[] contents, int start, int end) {
+		MethodNode found = null;
+		for (ClassNode clazz : module.getClasses()) {
+			List<MethodNode> candidates = new ArrayList<MethodNode>();
+			candidates.addAll(clazz.getMethods());
+			candidates.addAll(clazz.getDeclaredConstructors());
+			for (MethodNode method : candidates) {
+				Statement code = method.getCode();
+				if (!(code instanceof BlockStatement) || method.isSynthetic() || method.getStart() < 0
+						|| method.getStart() >= code.getStart() || (clazz.isScript() && method.getName().equals("run"))) { //$NON-NLS-1$
+					continue;
+				}
+				if (code.getStart() >= start || code.getStart() >= contents.length || contents[code.getStart()] != '{') {
+					continue;
+				}
+				int closeBrace = closingBrace(code, contents);
+				if (closeBrace >= 0 && end <= closeBrace) {
+					if (found != null) {
+						// eg- methods of anonymous inner classes, or generated methods sharing a body
+						return null;
+					}
+					found = method;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return the offset of the closing brace of the block, or -1 if it cannot be found
+	 */
+	private static int closingBrace(Statement code, char[] contents) {
+		int end = code.getEnd();
+		if (end > 0 && end <= contents.length && contents[end - 1] == '}') {
+			return end - 1;
+		}
+		if (end >= 0 && end < contents.length && contents[end] == '}') {
+			return end;
+		}
+		return -1;
+	}
+
+	private static MethodNode findReparsedMethod(ModuleNode snippetModule, MethodNode target) {
+		List<ClassNode> classes = snippetModule.getClasses();
+		if (classes.size() != 1) {
+			// the new body declares a new type
+			throw new Bail();
+		}
+		ClassNode clazz = classes.get(0);
+		List<MethodNode> candidates = new ArrayList<MethodNode>();
+		candidates.addAll(clazz.getMethods());
+		candidates.addAll(clazz.getDeclaredConstructors());
+		MethodNode found = null;
+		for (MethodNode method : candidates) {
+			if (method.getCode() instanceof BlockStatement && method.getStart() > 0) {
+				if (found != null) {
+					throw new Bail();
+				}
+				found = method;
+			}
+		}
+		if (found == null || found.getParameters().length != target.getParameters().length) {
+			throw new Bail();
+		}
+		return found;
+	}
+
+	/**
+	 * Collects the infos of the Java model elements of the working copy (and of their annotations and parameters), after checking
+	 * that none of the elements lies within the given region.
+	 */
+	private static List<Object> collectElementInfos(GroovyCompilationUnit unit, int regionStart, int regionEnd)
+			throws JavaModelException {
+		List<Object> infos = new ArrayList<Object>();
+		infos.add(unit.getElementInfo());
+		collectElementInfos(unit, regionStart, regionEnd, infos);
+		return infos;
+	}
+
+	private static void collectElementInfos(IParent parent, int regionStart, int regionEnd, List<Object> infos)
+			throws JavaModelException {
+		for (IJavaElement child : parent.getChildren()) {
+			Object info = JavaModelManager.getJavaModelManager().getInfo(child);
+			if (info == null) {
+				throw new Bail();
+			}
+			if (SOURCE_REF_INFO.isInstance(info)) {
+				int start = ((Integer) ReflectionUtils.getPrivateField(SOURCE_REF_INFO, "sourceRangeStart", info)).intValue(); //$NON-NLS-1$
+				if (start > regionStart && start <= regionEnd) {
+					throw new Bail();
+				}
+			}
+			infos.add(info);
+			if (child instanceof IAnnotatable) {
+				for (IAnnotation annotation : ((IAnnotatable) child).getAnnotations()) {
+					Object annotationInfo = JavaModelManager.getJavaModelManager().getInfo(annotation);
+					if (annotationInfo != null) {
+						infos.add(annotationInfo);
+					}
+				}
+			}
+			if (HAS_METHOD_ARGUMENTS && info instanceof SourceMethodElementInfo) {
+				Object[] arguments = (Object[]) ReflectionUtils.getPrivateField(SourceMethodElementInfo.class, "arguments", info); //$NON-NLS-1$
+				if (arguments != null) {
+					for (Object argument : arguments) {
+						infos.add(argument);
+					}
+				}
+			}
+			if (child instanceof IParent) {
+				collectElementInfos((IParent) child, regionStart, regionEnd, infos);
+			}
+		}
+	}
+
+	/**
+	 * Shifts the source positions recorded in the Java model for everything at or after the given offset
+	 */
+	private static void shiftElementInfos(List<Object> infos, int fromOffset, int delta) {
+		for (Object info : infos) {
+			if (info instanceof CompilationUnitElementInfo) {
+				int length = ((Integer) ReflectionUtils.getPrivateField(CompilationUnitElementInfo.class, "sourceLength", info)) //$NON-NLS-1$
+						.intValue();
+				ReflectionUtils.setPrivateField(CompilationUnitElementInfo.class, "sourceLength", info, length + delta); //$NON-NLS-1$
+			} else if (info instanceof LocalVariable) {
+				LocalVariable variable = (LocalVariable) info;
+				variable.declarationSourceStart = shift(variable.declarationSourceStart, fromOffset, delta);
+				variable.declarationSourceEnd = shift(variable.declarationSourceEnd, fromOffset, delta);
+				variable.nameStart = shift(variable.nameStart, fromOffset, delta);
+				variable.nameEnd = shift(variable.nameEnd, fromOffset, delta);
+			} else if (SOURCE_REF_INFO.isInstance(info)) {
+				shiftField(SOURCE_REF_INFO, "sourceRangeStart", info, fromOffset, delta); //$NON-NLS-1$
+				shiftField(SOURCE_REF_INFO, "sourceRangeEnd", info, fromOffset, delta); //$NON-NLS-1$
+				if (info instanceof AnnotatableInfo) {
+					shiftField(AnnotatableInfo.class, "nameStart", info, fromOffset, delta); //$NON-NLS-1$
+					shiftField(AnnotatableInfo.class, "nameEnd", info, fromOffset, delta); //$NON-NLS-1$
+				} else if (info instanceof AnnotationInfo) {
+					AnnotationInfo annotationInfo = (AnnotationInfo) info;
+					annotationInfo.nameStart = shift(annotationInfo.nameStart, fromOffset, delta);
+					annotationInfo.nameEnd = shift(annotationInfo.nameEnd, fromOffset, delta);
+				}
+			}
+		}
+	}
+
+	private static void shiftField(Class<?> clazz, String fieldName, Object info, int fromOffset, int delta) {
+		int value = ((Integer) ReflectionUtils.getPrivateField(clazz, fieldName, info)).intValue();
+		ReflectionUtils.setPrivateField(clazz, fieldName, info, shift(value, fromOffset, delta));
+	}
+
+	private static int shift(int position, int fromOffset, int delta) {
+		return position >= fromOffset ? position + delta : position;
+	}
+
+	private static boolean hasField(Class<?> clazz, String fieldName) {
+		try {
+			clazz.getDeclaredField(fieldName);
+			return true;
+		} catch (NoSuchFieldException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Computes variable scopes for a single method of a class only, on a stand-in for that method
+	 */
+	private static class MethodScopeVisitor extends VariableScopeVisitor {
+		private final MethodNode target;
+		private final MethodNode standIn;
+
+		MethodScopeVisitor(SourceUnit source, MethodNode target, MethodNode standIn) {
+			super(source);
+			this.target = target;
+			this.standIn = standIn;
+		}
+
+		@Override
+		protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+			if (node == target) {
+				super.visitConstructorOrMethod(standIn, isConstructor);
+			}
+		}
+
+		@Override
+		public void visitField(FieldNode node) {
+			// only the target method
+		}
+
+		@Override
+		public void visitProperty(PropertyNode node) {
+			// only the target method
+		}
+
+		@Override
+		protected void visitObjectInitializerStatements(ClassNode node) {
+			// only the target method
+		}
+
+		@Override
+		public void visitPackage(PackageNode node) {
+			// only the target method
+		}
+
+		@Override
+		public void visitImports(ModuleNode node) {
+			// only the target method
+		}
+	}
+
+	/**
+	 * Moves the source locations of all nodes at or after a given offset
+	 */
+	private static class Shifter extends ClassCodeVisitorSupport {
+		private final int fromOffset;
+		private final int fromLine;
+		private final int offsetDelta;
+		private final int lineDelta;
+		private final int columnDelta;
+
+		private final Map<ASTNode, Object> seen = new IdentityHashMap<ASTNode, Object>();
+
+		private ASTNode skip;
+
+		/**
+		 * @param fromOffset nodes starting (or ending) at or after this offset are shifted
+		 * @param fromLine the line of fromOffset, columns on this line are shifted as well
+		 */
+		Shifter(int fromOffset, int fromLine, int offsetDelta, int lineDelta, int columnDelta) {
+			this.fromOffset = fromOffset;
+			this.fromLine = fromLine;
+			this.offsetDelta = offsetDelta;
+			this.lineDelta = lineDelta;
+			this.columnDelta = columnDelta;
+		}
+
+		/**
+		 * do not visit the given node or its children, eg- because they are already in the right place
+		 */
+		void skip(ASTNode node) {
+			skip = node;
+			seen.put(node, node);
+		}
+
+		void shift(ASTNode node) {
+			if (node == null || seen.put(node, node) != null) {
+				return;
+			}
+			if (node.getStart() >= fromOffset && node.getEnd() > 0) {
+				node.setStart(node.getStart() + offsetDelta);
+				if (node.getLineNumber() == fromLine) {
+					node.setColumnNumber(node.getColumnNumber() + columnDelta);
+				}
+				if (node.getLineNumber() >= fromLine) {
+					node.setLineNumber(node.getLineNumber() + lineDelta);
+				}
+			}
+			if (node.getEnd() >= fromOffset && node.getEnd() > 0) {
+				node.setEnd(node.getEnd() + offsetDelta);
+				if (node.getLastLineNumber() == fromLine) {
+					node.setLastColumnNumber(node.getLastColumnNumber() + columnDelta);
+				}
+				if (node.getLastLineNumber() >= fromLine) {
+					node.setLastLineNumber(node.getLastLineNumber() + lineDelta);
+				}
+			}
+			if (node instanceof AnnotatedNode) {
+				AnnotatedNode annotated = (AnnotatedNode) node;
+				if (annotated.getNameStart() >= fromOffset && annotated.getNameEnd() > 0) {
+					annotated.setNameStart(annotated.getNameStart() + offsetDelta);
+				}
+				if (annotated.getNameEnd() >= fromOffset && annotated.getNameEnd() > 0) {
+					annotated.setNameEnd(annotated.getNameEnd() + offsetDelta);
+				}
+			}
+		}
+
+		private void shiftType(ClassNode type) {
+			// only shift references to types, never the shared type nodes themselves
+			if (type == null || seen.containsKey(type) || (type.isResolved() && type.redirect() == type)) {
+				return;
+			}
+			shift(type);
+			GenericsType[] generics = type.getGenericsTypes();
+			if (generics != null) {
+				for (GenericsType gt : generics) {
+					shift(gt);
+					shiftType(gt.getType());
+				}
+			}
+		}
+
+		private void shift(Parameter[] params) {
+			if (params != null) {
+				for (Parameter param : params) {
+					shift(param);
+					shiftType(param.getType());
+					if (param.hasInitialExpression()) {
+						param.getInitialExpression().visit(this);
+					}
+				}
+			}
+		}
+
+		@Override
+		protected SourceUnit getSourceUnit() {
+			return null;
+		}
+
+		@Override
+		public void visitClass(ClassNode node) {
+			shift(node);
+			shiftType(node.getUnresolvedSuperClass(false));
+			for (ClassNode face : node.getInterfaces()) {
+				shiftType(face);
+			}
+			super.visitClass(node);
+		}
+
+		@Override
+		public void visitPackage(PackageNode node) {
+			// shared with the cached module, and before any edit in a method body
+		}
+
+		@Override
+		public void visitImports(ModuleNode node) {
+			// shared with the cached module, and before any edit in a method body
+		}
+
+		@Override
+		public void visitAnnotations(AnnotatedNode node) {
+			for (AnnotationNode annotation : node.getAnnotations()) {
+				shift(annotation);
+			}
+			super.visitAnnotations(node);
+		}
+
+		@Override
+		protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+			shift(node);
+			shiftType(node.getReturnType());
+			shift(node.getParameters());
+			if (node.getCode() == skip) {
+				visitAnnotations(node);
+			} else {
+				super.visitConstructorOrMethod(node, isConstructor);
+			}
+		}
+
+		@Override
+		public void visitField(FieldNode node) {
+			shift(node);
+			shiftType(node.getType());
+			super.visitField(node);
+		}
+
+		@Override
+		public void visitProperty(PropertyNode node) {
+			shift(node);
+			super.visitProperty(node);
+		}
+
+		@Override
+		protected void visitStatement(Statement statement) {
+			shift(statement);
+		}
+
+		@Override
+		public void visitCatchStatement(CatchStatement statement) {
+			shift(statement.getVariable());
+			shiftType(statement.getVariable().getType());
+			super.visitCatchStatement(statement);
+		}
+
+		@Override
+		public void visitForLoop(ForStatement forLoop) {
+			shift(forLoop.getVariable());
+			shiftType(forLoop.getVariableType());
+			super.visitForLoop(forLoop);
+		}
+
+		@Override
+		public void visitArgumentlistExpression(ArgumentListExpression ale) {
+			shift(ale);
+			super.visitArgumentlistExpression(ale);
+		}
+
+		@Override
+		public void visitArrayExpression(ArrayExpression expression) {
+			shift(expression);
+			shiftType(expression.getElementType());
+			super.visitArrayExpression(expression);
+		}
+
+		@Override
+		public void visitAttributeExpression(AttributeExpression expression) {
+			shift(expression);
+			super.visitAttributeExpression(expression);
+		}
+
+		@Override
+		public void visitBinaryExpression(BinaryExpression expression) {
+			shift(expression);
+			super.visitBinaryExpression(expression);
+		}
+
+		@Override
+		public void visitBitwiseNegationExpression(BitwiseNegationExpression expression) {
+			shift(expression);
+			super.visitBitwiseNegationExpression(expression);
+		}
+
+		@Override
+		public void visitBooleanExpression(BooleanExpression expression) {
+			shift(expression);
+			super.visitBooleanExpression(expression);
+		}
+
+		@Override
+		public void visitCastExpression(CastExpression expression) {
+			shift(expression);
+			shiftType(expression.getType());
+			super.visitCastExpression(expression);
+		}
+
+		@Override
+		public void visitClassExpression(ClassExpression expression) {
+			shift(expression);
+			shiftType(expression.getType());
+			super.visitClassExpression(expression);
+		}
+
+		@Override
+		public void visitClosureExpression(ClosureExpression expression) {
+			shift(expression);
+			shift(expression.getParameters());
+			super.visitClosureExpression(expression);
+		}
+
+		@Override
+		public void visitClosureListExpression(ClosureListExpression cle) {
+			shift(cle);
+			super.visitClosureListExpression(cle);
+		}
+
+		@Override
+		public void visitConstantExpression(ConstantExpression expression) {
+			shift(expression);
+			super.visitConstantExpression(expression);
+		}
+
+		@Override
+		public void visitConstructorCallExpression(ConstructorCallExpression call) {
+			shift(call);
+			shiftType(call.getType());
+			super.visitConstructorCallExpression(call);
+		}
+
+		@Override
+		public void visitDeclarationExpression(DeclarationExpression expression) {
+			shift(expression);
+			if (expression.getLeftExpression() instanceof VariableExpression) {
+				shiftType(((VariableExpression) expression.getLeftExpression()).getOriginType());
+			}
+			super.visitDeclarationExpression(expression);
+		}
+
+		@Override
+		public void visitFieldExpression(FieldExpression expression) {
+			shift(expression);
+			super.visitFieldExpression(expression);
+		}
+
+		@Override
+		public void visitGStringExpression(GStringExpression expression) {
+			shift(expression);
+			super.visitGStringExpression(expression);
+		}
+
+		@Override
+		public void visitListExpression(ListExpression expression) {
+			shift(expression);
+			super.visitListExpression(expression);
+		}
+
+		@Override
+		public void visitMapEntryExpression(MapEntryExpression expression) {
+			shift(expression);
+			super.visitMapEntryExpression(expression);
+		}
+
+		@Override
+		public void visitMapExpression(MapExpression expression) {
+			shift(expression);
+			super.visitMapExpression(expression);
+		}
+
+		@Override
+		public void visitMethodCallExpression(MethodCallExpression call) {
+			shift(call);
+			super.visitMethodCallExpression(call);
+		}
+
+		@Override
+		public void visitMethodPointerExpression(MethodPointerExpression expression) {
+			shift(expression);
+			super.visitMethodPointerExpression(expression);
+		}
+
+		@Override
+		public void visitNotExpression(NotExpression expression) {
+			shift(expression);
+			super.visitNotExpression(expression);
+		}
+
+		@Override
+		public void visitPostfixExpression(PostfixExpression expression) {
+			shift(expression);
+			super.visitPostfixExpression(expression);
+		}
+
+		@Override
+		public void visitPrefixExpression(PrefixExpression expression) {
+			shift(expression);
+			super.visitPrefixExpression(expression);
+		}
+
+		@Override
+		public void visitPropertyExpression(PropertyExpression expression) {
+			shift(expression);
+			super.visitPropertyExpression(expression);
+		}
+
+		@Override
+		public void visitRangeExpression(RangeExpression expression) {
+			shift(expression);
+			super.visitRangeExpression(expression);
+		}
+
+		@Override
+		public void visitShortTernaryExpression(ElvisOperatorExpression expression) {
+			shift(expression);
+			super.visitShortTernaryExpression(expression);
+		}
+
+		@Override
+		public void visitSpreadExpression(SpreadExpression expression) {
+			shift(expression);
+			super.visitSpreadExpression(expression);
+		}
+
+		@Override
+		public void visitSpreadMapExpression(SpreadMapExpression expression) {
+			shift(expression);
+			super.visitSpreadMapExpression(expression);
+		}
+
+		@Override
+		public void visitStaticMethodCallExpression(StaticMethodCallExpression call) {
+			shift(call);
+			super.visitStaticMethodCallExpression(call);
+		}
+
+		@Override
+		public void visitTernaryExpression(TernaryExpression expression) {
+			shift(expression);
+			super.visitTernaryExpression(expression);
+		}
+
+		@Override
+		public void visitTupleExpression(TupleExpression expression) {
+			shift(expression);
+			super.visitTupleExpression(expression);
+		}
+
+		@Override
+		public void visitUnaryMinusExpression(UnaryMinusExpression expression) {
+			shift(expression);
+			super.visitUnaryMinusExpression(expression);
+		}
+
+		@Override
+		public void visitUnaryPlusExpression(UnaryPlusExpression expression) {
+			shift(expression);
+			super.visitUnaryPlusExpression(expression);
+		}
+
+		@Override
+		public void visitVariableExpression(VariableExpression expression) {
+			shift(expression);
+			shiftType(expression.getOriginType());
+			super.visitVariableExpression(expression);
+		}
+	}
+
+	/**
+	 * @return the 1-based line of the offset
+	 */
+	private static int lineOf(char[] contents, int offset) {
+		int line = 1;
+		for (int i = 0; i < offset && i < contents.length; i++) {
+			if (contents[i] == '\n') {
+				line++;
+			}
+		}
+		return line;
+	}
+
+	/**
+	 * @return the 1-based column of the offset
+	 */
+	private static int columnOf(char[] contents, int offset) {
+		int i = Math.min(offset, contents.length) - 1;
+		while (i >= 0 && contents[i] != '\n') {
+			i--;
+		}
+		return offset - i;
+	}
+}
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+
+package org.codehaus.jdt.groovy.model;
+
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.groovy.core.util.ClasspathFingerprint;
+
+/**
+ * Caches module nodes of Groovy compilation units that are requested while <em>not</em> being a working copy (eg- by search,
+ * refactoring or DSLD). Without this cache, each such request turns the unit into a temporary working copy and performs a full
+ * parse and resolve, even if the file has not changed since the last request.
+ *
+ * This is an in-memory cache for the current workbench session only. Module nodes refer to JDT bindings and so cannot be stored on
+ * disk. Only the module node is kept: the resolver that built it, and with it the lookup environment of the temporary working copy,
+ * is dropped when the entry is stored, so cached infos have no resolver.
+ *
+ * Entries are keyed by the handle of the compilation unit and are only valid as long as both the modification stamp of the unit's
+ * file and a fingerprint of the project's classpath are unchanged. Checking an entry therefore does not read or hash the contents
+ * of the unit. Units whose buffer has unsaved changes are not cached. Since resolution of a module also depends on the other types
+ * of the project and of the projects and archives on its classpath, all entries of a project are discarded whenever the Java model
+ * reports a change to that project (including classpath and archive changes) or to any project it requires. Values are softly
+ * referenced so that the cache never keeps module nodes alive under memory pressure.
+ *
+ * Set the system property <code>greclipse.modulecache.disabled</code> to turn this cache off.
+ */
+public class ModuleNodeCache {
+
+	private static final boolean DISABLED = System.getProperty("greclipse.modulecache.disabled") != null; //$NON-NLS-1$
+
+	private static final int MAX_ENTRIES = 500;
+
+	private static final ModuleNodeCache INSTANCE = new ModuleNodeCache();
+
+	public static ModuleNodeCache getInstance() {
+		return INSTANCE;
+	}
+
+	private static class Entry {
+		final String projectName;
+		final long modificationStamp;
+		final long classpathFingerprint;
+		final SoftReference<ModuleNodeInfo> info;
+
+		Entry(String projectName, long modificationStamp, long classpathFingerprint, ModuleNodeInfo info) {
+			this.projectName = projectName;
+			this.modificationStamp = modificationStamp;
+			this.classpathFingerprint = classpathFingerprint;
+			this.info = new SoftReference<ModuleNodeInfo>(info);
+		}
+	}
+
+	// access ordered so that the least recently used entry is evicted first
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private boolean listening = false;
+
+	private int hits, misses;
+
+	private ModuleNodeCache() {
+		// singleton
+	}
+
+	/**
+	 * @return the cached module info for the unit if its file and its project's classpath have not changed since the info was
+	 *         stored, or null otherwise. The info has no resolver.
+	 */
+	synchronized ModuleNodeInfo get(GroovyCompilationUnit unit) {
+		if (DISABLED) {
+			return null;
+		}
+		String key = unit.getHandleIdentifier();
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			ModuleNodeInfo info = entry.info.get();
+			if (info != null && entry.modificationStamp == modificationStamp(unit)
+					&& entry.classpathFingerprint == ClasspathFingerprint.of(unit.getJavaProject())) {
+				hits++;
+				return info;
+			}
+			entries.remove(key);
+		}
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Keeps the module of the info, but not its resolver.
+	 *
+	 * @param modificationStamp the stamp returned by {@link #modificationStamp(GroovyCompilationUnit)} before the module was built
+	 */
+	synchronized void store(GroovyCompilationUnit unit, ModuleNodeInfo info, long modificationStamp) {
+		if (DISABLED || info == null || info.module == null || modificationStamp == IResource.NULL_STAMP) {
+			return;
+		}
+		ensureListening();
+		ModuleNodeInfo moduleOnly = ModuleNodeMapper.getInstance().new ModuleNodeInfo(info.module, null, info.contents);
+		entries.put(unit.getHandleIdentifier(), new Entry(unit.getJavaProject().getElementName(), modificationStamp,
+				ClasspathFingerprint.of(unit.getJavaProject()), moduleOnly));
+	}
+
+	synchronized void remove(GroovyCompilationUnit unit) {
+		entries.remove(unit.getHandleIdentifier());
+	}
+
+	/**
+	 * Discards all cached module nodes for the given project
+	 */
+	public synchronized void flush(String projectName) {
+		for (Iterator<Entry> entryIter = entries.values().iterator(); entryIter.hasNext();) {
+			if (entryIter.next().projectName.equals(projectName)) {
+				entryIter.remove();
+			}
+		}
+	}
+
+	public synchronized void flushAll() {
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	private void ensureListening() {
+		if (!listening) {
+			listening = true;
+			JavaCore.addElementChangedListener(new IElementChangedListener() {
+				public void elementChanged(ElementChangedEvent event) {
+					Set<String> changed = new HashSet<String>();
+					for (IJavaElementDelta projectDelta : event.getDelta().getAffectedChildren()) {
+						IJavaElement element = projectDelta.getElement();
+						if (element.getElementType() == IJavaElement.JAVA_PROJECT && isSourceChange(projectDelta)) {
+							changed.add(element.getElementName());
+						}
+					}
+					if (!changed.isEmpty()) {
+						flushDependents(changed);
+					}
+				}
+			}, ElementChangedEvent.POST_CHANGE);
+		}
+	}
+
+	/**
+	 * Discards the entries of the changed projects and of all projects that require them, directly or not
+	 */
+	private synchronized void flushDependents(Set<String> changedProjects) {
+		Map<String, Boolean> affected = new HashMap<String, Boolean>();
+		for (Iterator<Entry> entryIter = entries.values().iterator(); entryIter.hasNext();) {
+			if (isAffected(entryIter.next().projectName, changedProjects, affected, new HashSet<String>())) {
+				entryIter.remove();
+			}
+		}
+	}
+
+	private static boolean isAffected(String projectName, Set<String> changedProjects, Map<String, Boolean> affected,
+			Set<String> visiting) {
+		if (changedProjects.contains(projectName)) {
+			return true;
+		}
+		Boolean known = affected.get(projectName);
+		if (known != null) {
+			return known.booleanValue();
+		}
+		if (!visiting.add(projectName)) {
+			// cycle in the project dependencies
+			return false;
+		}
+		boolean result = false;
+		IJavaProject project = JavaCore.create(ResourcesPlugin.getWorkspace().getRoot().getProject(projectName));
+		try {
+			for (String required : project.getRequiredProjectNames()) {
+				if (isAffected(required, changedProjects, affected, visiting)) {
+					result = true;
+					break;
+				}
+			}
+		} catch (JavaModelException e) {
+			// project is closed or gone, its entries are stale anyway
+			result = true;
+		}
+		affected.put(projectName, Boolean.valueOf(result));
+		return result;
+	}
+
+	/**
+	 * Becoming or discarding a primary working copy (which {@link GroovyCompilationUnit#getModuleInfo(boolean)} does itself) is
+	 * reported as a change, but does not change any source, so ignore deltas that consist only of that. Any other flag, such as a
+	 * classpath change on the project or a content change of an archive, counts as a change.
+	 */
+	private static boolean isSourceChange(IJavaElementDelta delta) {
+		IJavaElementDelta[] children = delta.getAffectedChildren();
+		if (children.length == 0) {
+			return delta.getKind() != IJavaElementDelta.CHANGED
+					|| (delta.getFlags() & ~IJavaElementDelta.F_PRIMARY_WORKING_COPY) != 0;
+		}
+		if (delta.getKind() != IJavaElementDelta.CHANGED
+				|| (delta.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_FINE_GRAINED)) != 0) {
+			return true;
+		}
+		for (IJavaElementDelta child : children) {
+			if (isSourceChange(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the modification stamp of the unit's file, or {@link IResource#NULL_STAMP} if the unit has no file or its buffer has
+	 *         unsaved changes, in which case its module must not be cached
+	 */
+	static long modificationStamp(GroovyCompilationUnit unit) {
+		IResource resource = unit.getResource();
+		if (resource == null) {
+			return IResource.NULL_STAMP;
+		}
+		try {
+			if (unit.hasUnsavedChanges()) {
+				return IResource.NULL_STAMP;
+			}
+		} catch (JavaModelException e) {
+			return IResource.NULL_STAMP;
+		}
+		return resource.getModificationStamp();
+	}
+}
@@ -11,16 +11,20 @@
 
 package org.codehaus.jdt.groovy.model;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.JavaModelManager.PerWorkingCopyInfo;
 import org.eclipse.jdt.internal.core.util.Util;
@@ -31,18 +35,31 @@ import org.eclipse.jdt.internal.core.util.Util;
  * 
  *          This class stores module nodes for groovy compilation units This class is not meant to be accessed externally.
  * 
- *          One module node is stored per working copy of a unit
+ *          One module node is stored per working copy of a unit. Lookups do not lock. The number of module nodes kept is bounded:
+ *          module nodes are softly referenced and, beyond {@link #MAX_ENTRIES} live entries, the least recently used one is
+ *          dropped. An entry whose module node has been dropped is remembered as evicted so that the module node can be rebuilt on
+ *          the next request (see {@link #isEvicted(PerWorkingCopyInfo)}).
  */
 public class ModuleNodeMapper {
 
 	public class ModuleNodeInfo {
 		public ModuleNodeInfo(ModuleNode module, JDTResolver resolver) {
+			this(module, resolver, null);
+		}
+
+		public ModuleNodeInfo(ModuleNode module, JDTResolver resolver, char[] contents) {
 			this.module = module;
 			this.resolver = resolver;
+			this.contents = contents;
 		}
 
 		public final ModuleNode module;
 		public final JDTResolver resolver;
+
+		/**
+		 * the source that the module was built from, or null if not known
+		 */
+		public final char[] contents;
 	}
 
 	private static final ModuleNodeMapper INSTANCE = new ModuleNodeMapper();
@@ -51,11 +68,49 @@ public class ModuleNodeMapper {
 		return INSTANCE;
 	}
 
-	private final Map<PerWorkingCopyInfo, ModuleNodeInfo> infoToModuleMap = new HashMap<PerWorkingCopyInfo, ModuleNodeInfo>();
+	/**
+	 * Maximum number of module nodes kept at once, can be changed with the system property
+	 * <code>greclipse.modulenodemapper.maxsize</code>
+	 */
+	static final int MAX_ENTRIES = Integer.getInteger("greclipse.modulenodemapper.maxsize", 200).intValue(); //$NON-NLS-1$
+
+	private static class Entry extends SoftReference<ModuleNodeInfo> {
+		final PerWorkingCopyInfo key;
+		volatile long lastAccess;
+
+		Entry(PerWorkingCopyInfo key, ModuleNodeInfo value, ReferenceQueue<ModuleNodeInfo> queue, long time) {
+			super(value, queue);
+			this.key = key;
+			this.lastAccess = time;
+		}
+	}
+
+	private final ConcurrentMap<PerWorkingCopyInfo, Entry> infoToModuleMap = new ConcurrentHashMap<PerWorkingCopyInfo, Entry>();
+
+	private final ReferenceQueue<ModuleNodeInfo> collected = new ReferenceQueue<ModuleNodeInfo>();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final AtomicLong hits = new AtomicLong();
 
-	synchronized void store(PerWorkingCopyInfo info, ModuleNode module, JDTResolver resolver) {
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	void store(PerWorkingCopyInfo info, ModuleNode module, JDTResolver resolver, char[] contents) {
+		store(info, new ModuleNodeInfo(module, shouldStoreResovler() ? resolver : null, contents));
+	}
+
+	void store(PerWorkingCopyInfo info, ModuleNodeInfo moduleInfo) {
+		if (info == null) {
+			return;
+		}
 		sweepAndPurgeModuleNodes();
-		infoToModuleMap.put(info, new ModuleNodeInfo(module, shouldStoreResovler() ? resolver : null));
+		expungeCollected();
+		infoToModuleMap.put(info, new Entry(info, moduleInfo, collected, clock.incrementAndGet()));
+		if (infoToModuleMap.size() > MAX_ENTRIES) {
+			evictLeastRecentlyUsed();
+		}
 	}
 
 	private final static boolean DSL_BUNDLE_INSTALLED;
@@ -70,28 +125,83 @@ public class ModuleNodeMapper {
 	}
 
 	private boolean shouldStoreResovler() {
-		return DSL_BUNDLE_INSTALLED;
+		// the incremental reconciler resolves reparsed methods with the resolver of the module
+		return DSL_BUNDLE_INSTALLED || IncrementalReconciler.isEnabled();
 	}
 
-	synchronized ModuleNode getModule(PerWorkingCopyInfo info) {
+	ModuleNode getModule(PerWorkingCopyInfo info) {
 		ModuleNodeInfo moduleNodeInfo = get(info);
 		return moduleNodeInfo != null ? moduleNodeInfo.module : null;
 	}
 
-	synchronized ModuleNodeInfo get(PerWorkingCopyInfo info) {
+	ModuleNodeInfo get(PerWorkingCopyInfo info) {
+		if (info == null) {
+			return null;
+		}
 		sweepAndPurgeModuleNodes();
-		return infoToModuleMap.get(info);
+		expungeCollected();
+		Entry entry = infoToModuleMap.get(info);
+		ModuleNodeInfo moduleInfo = entry != null ? entry.get() : null;
+		if (moduleInfo != null) {
+			entry.lastAccess = clock.incrementAndGet();
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return moduleInfo;
 	}
 
-	synchronized JDTResolver getResolver(PerWorkingCopyInfo info) {
+	JDTResolver getResolver(PerWorkingCopyInfo info) {
 		ModuleNodeInfo moduleNodeInfo = get(info);
 		return moduleNodeInfo != null ? moduleNodeInfo.resolver : null;
 	}
 
-	synchronized ModuleNode remove(PerWorkingCopyInfo info) {
+	ModuleNode remove(PerWorkingCopyInfo info) {
+		if (info == null) {
+			return null;
+		}
 		sweepAndPurgeModuleNodes();
-		ModuleNodeInfo removed = infoToModuleMap.remove(info);
-		return removed != null ? removed.module : null;
+		Entry removed = infoToModuleMap.remove(info);
+		ModuleNodeInfo removedInfo = removed != null ? removed.get() : null;
+		return removedInfo != null ? removedInfo.module : null;
+	}
+
+	/**
+	 * @return true if a module node was stored for the working copy, but has since been dropped to bound memory use
+	 */
+	boolean isEvicted(PerWorkingCopyInfo info) {
+		Entry entry = info != null ? infoToModuleMap.get(info) : null;
+		return entry != null && entry.get() == null;
+	}
+
+	/**
+	 * Drops the module node of the least recently used entry, keeping the entry itself so that the module node is rebuilt when
+	 * requested again. Concurrent callers may drop more than one entry, that is harmless.
+	 */
+	private void evictLeastRecentlyUsed() {
+		int live = 0;
+		Entry oldest = null;
+		for (Entry entry : infoToModuleMap.values()) {
+			if (entry.get() != null) {
+				live++;
+				if (oldest == null || entry.lastAccess < oldest.lastAccess) {
+					oldest = entry;
+				}
+			}
+		}
+		if (live > MAX_ENTRIES && oldest != null) {
+			oldest.clear();
+			evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Counts module nodes that have been garbage collected
+	 */
+	private void expungeCollected() {
+		while (collected.poll() != null) {
+			evictions.incrementAndGet();
+		}
 	}
 
 	/**
@@ -100,7 +210,7 @@ public class ModuleNodeMapper {
 	 * @param perWorkingCopyInfo
 	 * @param compilationUnitDeclaration
 	 */
-	synchronized protected void maybeCacheModuleNode(JavaModelManager.PerWorkingCopyInfo perWorkingCopyInfo,
+	protected void maybeCacheModuleNode(JavaModelManager.PerWorkingCopyInfo perWorkingCopyInfo,
 			GroovyCompilationUnitDeclaration compilationUnitDeclaration) {
 		if (perWorkingCopyInfo != null && compilationUnitDeclaration != null) {
 			ModuleNode module = compilationUnitDeclaration.getModuleNode();
@@ -113,7 +223,9 @@ public class ModuleNodeMapper {
 				} else {
 					resolver = null;
 				}
-				ModuleNodeMapper.getInstance().store(perWorkingCopyInfo, module, resolver);
+				ICompilationUnit source = compilationUnitDeclaration.compilationResult.compilationUnit;
+				ModuleNodeMapper.getInstance().store(perWorkingCopyInfo, module, resolver,
+						source != null ? source.getContents() : null);
 			}
 		}
 	}
@@ -122,14 +234,38 @@ public class ModuleNodeMapper {
 		return INSTANCE.infoToModuleMap.isEmpty();
 	}
 
+	public static int size() {
+		return INSTANCE.infoToModuleMap.size();
+	}
+
+	public static long getHitCount() {
+		return INSTANCE.hits.get();
+	}
+
+	public static long getMissCount() {
+		return INSTANCE.misses.get();
+	}
+
+	/**
+	 * @return the number of module nodes dropped because there were too many or because memory was low
+	 */
+	public static long getEvictionCount() {
+		return INSTANCE.evictions.get();
+	}
+
+	public static String getStatistics() {
+		return "ModuleNodeMapper: size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				+ getEvictionCount();
+	}
+
 	// GRECLIPSE-804 check to see that the stored nodes are correct
 	// provide info to stdout if not and purge any stale elements
-	synchronized void sweepAndPurgeModuleNodes() {
+	void sweepAndPurgeModuleNodes() {
 		if (System.getProperty("groovy.eclipse.model.purge") == null) {
 			return;
 		}
 
-		System.out.println("ModuleNodeMap.size(): " + infoToModuleMap.size());
+		System.out.println(getStatistics());
 		List<PerWorkingCopyInfo> toPurge = new ArrayList<PerWorkingCopyInfo>();
 		for (PerWorkingCopyInfo info : infoToModuleMap.keySet()) {
 			int useCount = ((Integer) ReflectionUtils.getPrivateField(PerWorkingCopyInfo.class, "useCount", info)).intValue();
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.groovy.core.util;
+
+import java.io.File;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Computes cheap, stable fingerprints for classpaths so that caches of classpath dependent data (parsed modules, transform loaders,
+ * discovered transforms) can tell whether they are still valid. A fingerprint covers the path of each entry and, for archives and
+ * class folders that exist on disk, their size and last modification time.
+ *
+ * Fingerprints are not cryptographic. They only need to change when the classpath changes.
+ */
+public class ClasspathFingerprint {
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private ClasspathFingerprint() {
+		// static helpers only
+	}
+
+	/**
+	 * @return a fingerprint of the resolved classpath of the project, or 0 if the classpath cannot be computed
+	 */
+	public static long of(IJavaProject project) {
+		if (project == null) {
+			return 0L;
+		}
+		try {
+			IClasspathEntry[] entries = project.getResolvedClasspath(true);
+			long hash = FNV_OFFSET;
+			for (IClasspathEntry entry : entries) {
+				hash = mix(hash, entry.getEntryKind());
+				hash = mix(hash, entry.getPath().toPortableString());
+				if (entry.getEntryKind() == IClasspathEntry.CPE_LIBRARY) {
+					hash = mix(hash, ofFile(toFile(entry.getPath())));
+				}
+			}
+			return hash;
+		} catch (JavaModelException e) {
+			// project is probably closed or not a java project any more
+			return 0L;
+		}
+	}
+
+	/**
+	 * @param classpath a classpath string using the platform's path separator
+	 * @return a fingerprint covering every entry of the classpath
+	 */
+	public static long of(String classpath) {
+		if (classpath == null) {
+			return 0L;
+		}
+		long hash = FNV_OFFSET;
+		int pos = 0;
+		while (pos <= classpath.length()) {
+			int nextSep = classpath.indexOf(File.pathSeparatorChar, pos);
+			if (nextSep == -1) {
+				nextSep = classpath.length();
+			}
+			if (nextSep > pos) {
+				String entry = classpath.substring(pos, nextSep);
+				hash = mix(hash, entry);
+				hash = mix(hash, ofFile(new File(entry)));
+			}
+			pos = nextSep + 1;
+		}
+		return hash;
+	}
+
+	/**
+	 * @return a fingerprint for a single classpath entry built from its size and last modification time, or 0 if it does not exist
+	 */
+	public static long ofFile(File file) {
+		if (file == null || !file.exists()) {
+			return 0L;
+		}
+		long hash = mix(FNV_OFFSET, file.length());
+		return mix(hash, file.lastModified());
+	}
+
+	private static File toFile(IPath path) {
+		IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(path);
+		if (resource != null && resource.getLocation() != null) {
+			return resource.getLocation().toFile();
+		}
+		return path.toFile();
+	}
+
+	private static long mix(long hash, long value) {
+		for (int i = 0; i < 8; i++) {
+			hash ^= (value >>> (i * 8)) & 0xff;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	private static long mix(long hash, String value) {
+		for (int i = 0, len = value.length(); i < len; i++) {
+			hash ^= value.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+}
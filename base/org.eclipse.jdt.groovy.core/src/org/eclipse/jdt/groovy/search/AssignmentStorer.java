@@ -80,7 +80,7 @@ public class AssignmentStorer {
 					varType = variableExpression.getType();
 				}
 				ClassNode typeToStore;
-				if (!VariableScope.isVoidOrObject(varType) && !varType.equals(VariableScope.OBJECT_CLASS_NODE)) {
+				if (!VariableScope.isVoidOrObject(varType)) {
 					typeToStore = varType;
 				} else if (rhsType != null) {
 					typeToStore = rhsType;
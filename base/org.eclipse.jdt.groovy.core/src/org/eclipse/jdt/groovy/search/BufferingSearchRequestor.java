@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchRequestor;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * Holds on to the matches of a search that runs on another thread, so they can be reported to the real requestor later and in the
+ * order of the other searches.
+ */
+public class BufferingSearchRequestor extends SearchRequestor {
+
+	private final SearchRequestor requestor;
+
+	private final List<SearchMatch> matches = new ArrayList<SearchMatch>();
+
+	public BufferingSearchRequestor(SearchRequestor requestor) {
+		this.requestor = requestor;
+	}
+
+	@Override
+	public void acceptSearchMatch(SearchMatch match) {
+		matches.add(match);
+	}
+
+	/**
+	 * Reports the matches accepted so far to the real requestor
+	 */
+	public void reportMatches() {
+		for (SearchMatch match : matches) {
+			try {
+				requestor.acceptSearchMatch(match);
+			} catch (CoreException e) {
+				Util.log(e, "Error reporting search match " + match); //$NON-NLS-1$
+			}
+		}
+		matches.clear();
+	}
+
+	/**
+	 * @return the real requestor if the given one buffers matches for it, else the given requestor
+	 */
+	static SearchRequestor unwrap(SearchRequestor requestor) {
+		return requestor instanceof BufferingSearchRequestor ? ((BufferingSearchRequestor) requestor).requestor : requestor;
+	}
+}
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.groovy.search;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+
+/**
+ * Maps the types that inferencing deals with all the time (primitives and their wrappers, the other number types, String,
+ * GString and Object) to one {@link ClassHelper} node each, no matter if a type was made by the Groovy compiler, by
+ * {@link ClassHelper} or by the JDT resolver. Once a type is canonical, it can be compared with <code>==</code> instead of by
+ * name, and boxing, unboxing and numeric promotion are table lookups.
+ *
+ * None of these types is generic, so a type is mapped by its name alone, like the name comparisons this replaces did; a generics
+ * placeholder that stands for Object is Object here too.
+ */
+public class CanonicalTypes {
+
+	// name -> canonical node
+	private static final Map<String, ClassNode> byName = new HashMap<String, ClassNode>();
+
+	// canonical node -> itself, to recognize canonical nodes without looking at their names
+	private static final Map<ClassNode, ClassNode> canonicals = new IdentityHashMap<ClassNode, ClassNode>();
+
+	private static final Map<ClassNode, ClassNode> wrappers = new IdentityHashMap<ClassNode, ClassNode>();
+
+	private static final Map<ClassNode, ClassNode> primitives = new IdentityHashMap<ClassNode, ClassNode>();
+
+	// the kinds of math Groovy uses for the number types, in the order in which they win over each other
+	private static final int INTEGER_MATH = 1, LONG_MATH = 2, BIG_INTEGER_MATH = 3, BIG_DECIMAL_MATH = 4, FLOATING_POINT_MATH = 5;
+
+	// canonical wrapper or primitive node -> kind of math
+	private static final Map<ClassNode, Integer> maths = new IdentityHashMap<ClassNode, Integer>();
+
+	static {
+		addBoxing(ClassHelper.boolean_TYPE, ClassHelper.Boolean_TYPE, 0);
+		addBoxing(ClassHelper.char_TYPE, ClassHelper.Character_TYPE, 0);
+		addBoxing(ClassHelper.byte_TYPE, ClassHelper.Byte_TYPE, INTEGER_MATH);
+		addBoxing(ClassHelper.short_TYPE, ClassHelper.Short_TYPE, INTEGER_MATH);
+		addBoxing(ClassHelper.int_TYPE, ClassHelper.Integer_TYPE, INTEGER_MATH);
+		addBoxing(ClassHelper.long_TYPE, ClassHelper.Long_TYPE, LONG_MATH);
+		addBoxing(ClassHelper.float_TYPE, ClassHelper.Float_TYPE, FLOATING_POINT_MATH);
+		addBoxing(ClassHelper.double_TYPE, ClassHelper.Double_TYPE, FLOATING_POINT_MATH);
+		addBoxing(ClassHelper.VOID_TYPE, ClassHelper.void_WRAPPER_TYPE, 0);
+		add(ClassHelper.BigInteger_TYPE, BIG_INTEGER_MATH);
+		add(ClassHelper.BigDecimal_TYPE, BIG_DECIMAL_MATH);
+		add(VariableScope.NUMBER_CLASS_NODE, 0);
+		add(VariableScope.STRING_CLASS_NODE, 0);
+		add(VariableScope.GSTRING_CLASS_NODE, 0);
+		add(VariableScope.OBJECT_CLASS_NODE, 0);
+	}
+
+	private static void addBoxing(ClassNode primitive, ClassNode wrapper, int math) {
+		add(primitive, math);
+		add(wrapper, math);
+		wrappers.put(primitive, wrapper);
+		primitives.put(wrapper, primitive);
+	}
+
+	private static void add(ClassNode type, int math) {
+		byName.put(type.getName(), type);
+		canonicals.put(type, type);
+		if (math > 0) {
+			maths.put(type, math);
+		}
+	}
+
+	private CanonicalTypes() {
+		// static helpers only
+	}
+
+	/**
+	 * @return the canonical node of the type, or the type itself if it has none
+	 */
+	public static ClassNode canonical(ClassNode type) {
+		if (type == null || canonicals.containsKey(type)) {
+			return type;
+		}
+		ClassNode canonical = byName.get(type.getName());
+		return canonical != null ? canonical : type;
+	}
+
+	/**
+	 * @return true if the types have the same name; a reference check for canonical types
+	 */
+	public static boolean isSameType(ClassNode left, ClassNode right) {
+		if (left == right) {
+			return true;
+		}
+		if (left == null || right == null) {
+			return false;
+		}
+		ClassNode canonicalLeft = canonical(left), canonicalRight = canonical(right);
+		if (canonicalLeft == canonicalRight) {
+			return true;
+		}
+		if (canonicals.containsKey(canonicalLeft) || canonicals.containsKey(canonicalRight)) {
+			return false;
+		}
+		return left.getName().equals(right.getName());
+	}
+
+	/**
+	 * @return the canonical wrapper type of a primitive type, or else the type itself
+	 */
+	public static ClassNode box(ClassNode type) {
+		ClassNode wrapper = wrappers.get(canonical(type));
+		return wrapper != null ? wrapper : type;
+	}
+
+	/**
+	 * @return the canonical primitive type of a wrapper type, or else the type itself
+	 */
+	public static ClassNode unbox(ClassNode type) {
+		ClassNode primitive = primitives.get(canonical(type));
+		return primitive != null ? primitive : type;
+	}
+
+	public static boolean isString(ClassNode type) {
+		return canonical(type) == VariableScope.STRING_CLASS_NODE;
+	}
+
+	/**
+	 * @return true for String and GString
+	 */
+	public static boolean isStringLike(ClassNode type) {
+		ClassNode canonical = canonical(type);
+		return canonical == VariableScope.STRING_CLASS_NODE || canonical == VariableScope.GSTRING_CLASS_NODE;
+	}
+
+	public static boolean isObject(ClassNode type) {
+		return canonical(type) == VariableScope.OBJECT_CLASS_NODE;
+	}
+
+	/**
+	 * @return true for void, Void and Object
+	 */
+	public static boolean isVoidOrObject(ClassNode type) {
+		ClassNode canonical = canonical(type);
+		return canonical == VariableScope.OBJECT_CLASS_NODE || canonical == ClassHelper.VOID_TYPE
+				|| canonical == ClassHelper.void_WRAPPER_TYPE;
+	}
+
+	/**
+	 * @return true for Number, the primitive number types and their wrappers, BigInteger and BigDecimal. Other subclasses of
+	 *         Number are not recognized, use {@link ClassNode#isDerivedFrom(ClassNode)} for those.
+	 */
+	public static boolean isNumber(ClassNode type) {
+		ClassNode canonical = canonical(type);
+		return canonical == VariableScope.NUMBER_CLASS_NODE || maths.containsKey(canonical);
+	}
+
+	/**
+	 * Finds the type of an arithmetic operation on two numbers like the Groovy runtime does (see NumberMath): floating point
+	 * operands make a Double, else BigDecimal, BigInteger and Long operands win over Integer, and dividing anything but floating
+	 * point numbers makes a BigDecimal.
+	 *
+	 * @param operator one of + - * / %
+	 * @return the canonical type of the result, or null if the operands are not both number types Groovy has math for
+	 */
+	public static ClassNode promote(char operator, ClassNode left, ClassNode right) {
+		Integer leftMath = maths.get(canonical(left));
+		Integer rightMath = maths.get(canonical(right));
+		if (leftMath == null || rightMath == null) {
+			return null;
+		}
+		int math = Math.max(leftMath, rightMath);
+		if (operator == '/' && math != FLOATING_POINT_MATH) {
+			return ClassHelper.BigDecimal_TYPE;
+		}
+		switch (math) {
+			case INTEGER_MATH:
+				return ClassHelper.Integer_TYPE;
+			case LONG_MATH:
+				return ClassHelper.Long_TYPE;
+			case BIG_INTEGER_MATH:
+				return ClassHelper.BigInteger_TYPE;
+			case BIG_DECIMAL_MATH:
+				return ClassHelper.BigDecimal_TYPE;
+			default:
+				return ClassHelper.Double_TYPE;
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+
+/**
+ * An immutable index of the methods of a category class: the methods are grouped by name and, for every name, by the type of
+ * their first (self) parameter. Getter and setter variants that can be used as properties are indexed separately.
+ *
+ * The indexes of the default categories ({@link VariableScope#ALL_DEFAULT_CATEGORIES}) are built once, the first time they are
+ * asked for, and then shared by type inferencing and content assist for as long as the Groovy runtime is loaded. Indexes of other
+ * categories can be built with {@link #build(ClassNode)} and are as long lived as their creator wants them to be.
+ */
+public class CategoryMethodIndex {
+
+	private static final Map<ClassNode, CategoryMethodIndex> defaultIndexes = new IdentityHashMap<ClassNode, CategoryMethodIndex>();
+
+	/**
+	 * @return the shared index of a default category, or null if the category is not one of the default categories
+	 */
+	public static CategoryMethodIndex forDefaultCategory(ClassNode category) {
+		if (!isDefaultCategory(category)) {
+			return null;
+		}
+		synchronized (defaultIndexes) {
+			CategoryMethodIndex index = defaultIndexes.get(category);
+			if (index == null) {
+				index = build(category);
+				defaultIndexes.put(category, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * @return the shared index if the category is a default category, otherwise a new index of the category
+	 */
+	public static CategoryMethodIndex forCategory(ClassNode category) {
+		CategoryMethodIndex index = forDefaultCategory(category);
+		return index != null ? index : build(category);
+	}
+
+	public static CategoryMethodIndex build(ClassNode category) {
+		return new CategoryMethodIndex(category);
+	}
+
+	private static boolean isDefaultCategory(ClassNode category) {
+		for (ClassNode defaultCategory : VariableScope.ALL_DEFAULT_CATEGORIES) {
+			if (defaultCategory == category) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private final ClassNode category;
+
+	private final boolean isDefault;
+
+	// method name -> self type name -> methods, in declaration order
+	private final Map<String, Map<String, List<MethodNode>>> methodsBySelfType;
+
+	private final Map<String, List<MethodNode>> methods;
+
+	private final Map<String, List<MethodNode>> getters;
+
+	private final Map<String, List<MethodNode>> setters;
+
+	private final List<MethodNode> publicStaticMethods;
+
+	private CategoryMethodIndex(ClassNode category) {
+		this.category = category;
+		this.isDefault = isDefaultCategory(category);
+		Map<String, Map<String, List<MethodNode>>> bySelfType = new HashMap<String, Map<String, List<MethodNode>>>();
+		Map<String, List<MethodNode>> byName = new HashMap<String, List<MethodNode>>();
+		Map<String, List<MethodNode>> getterMethods = new HashMap<String, List<MethodNode>>();
+		Map<String, List<MethodNode>> setterMethods = new HashMap<String, List<MethodNode>>();
+		List<MethodNode> staticMethods = new ArrayList<MethodNode>();
+
+		for (MethodNode method : category.getMethods()) {
+			String name = method.getName();
+			add(byName, name, method);
+			Parameter[] params = method.getParameters();
+			if (params != null && params.length > 0) {
+				Map<String, List<MethodNode>> selfTypes = bySelfType.get(name);
+				if (selfTypes == null) {
+					selfTypes = new LinkedHashMap<String, List<MethodNode>>(4);
+					bySelfType.put(name, selfTypes);
+				}
+				add(selfTypes, params[0].getType().getName(), method);
+			}
+			if (method.isStatic()) {
+				AccessorSupport kind = AccessorSupport.findAccessorKind(method, true);
+				if (kind == AccessorSupport.GETTER) {
+					add(getterMethods, name, method);
+				} else if (kind == AccessorSupport.SETTER) {
+					add(setterMethods, name, method);
+				}
+			}
+		}
+		// like content assist always has, include the methods inherited by the category
+		for (MethodNode method : category.getAllDeclaredMethods()) {
+			if (method.isStatic() && method.isPublic()) {
+				staticMethods.add(method);
+			}
+		}
+		this.methodsBySelfType = bySelfType;
+		this.methods = byName;
+		this.getters = getterMethods;
+		this.setters = setterMethods;
+		this.publicStaticMethods = Collections.unmodifiableList(staticMethods);
+	}
+
+	private static void add(Map<String, List<MethodNode>> map, String key, MethodNode method) {
+		List<MethodNode> list = map.get(key);
+		if (list == null) {
+			list = new ArrayList<MethodNode>(2);
+			map.put(key, list);
+		}
+		list.add(method);
+	}
+
+	public ClassNode getCategory() {
+		return category;
+	}
+
+	/**
+	 * @return true if this is the index of one of the default categories (DGM, DGSM, etc)
+	 */
+	public boolean isDefaultCategory() {
+		return isDefault;
+	}
+
+	/**
+	 * @return all methods with the given name, in declaration order
+	 */
+	public List<MethodNode> getMethods(String name) {
+		return unmodifiable(methods.get(name));
+	}
+
+	/**
+	 * @return the static methods with the given name that can be used as a property getter
+	 */
+	public List<MethodNode> getGetters(String name) {
+		return unmodifiable(getters.get(name));
+	}
+
+	/**
+	 * @return the static methods with the given name that can be used as a property setter
+	 */
+	public List<MethodNode> getSetters(String name) {
+		return unmodifiable(setters.get(name));
+	}
+
+	/**
+	 * @return all public static methods of the category and its super classes
+	 */
+	public List<MethodNode> getPublicStaticMethods() {
+		return publicStaticMethods;
+	}
+
+	/**
+	 * @param selfTypeNames the names of all of the super types of the self type (see {@link #getSuperTypeNames(ClassNode)})
+	 * @return the first method with the given name, in declaration order, whose first parameter accepts the self type, or null
+	 */
+	public MethodNode findMethod(String name, Set<String> selfTypeNames) {
+		Map<String, List<MethodNode>> selfTypes = methodsBySelfType.get(name);
+		if (selfTypes == null) {
+			return null;
+		}
+		// groups are in the order of their first method, so the first group that matches holds the first method that matches
+		for (Map.Entry<String, List<MethodNode>> entry : selfTypes.entrySet()) {
+			if (selfTypeNames.contains(entry.getKey())) {
+				return entry.getValue().get(0);
+			}
+		}
+		return null;
+	}
+
+	private static List<MethodNode> unmodifiable(List<MethodNode> list) {
+		return list != null ? Collections.unmodifiableList(list) : Collections.<MethodNode> emptyList();
+	}
+
+	/**
+	 * @return the names of the type, all of its super classes and interfaces, and java.lang.Object
+	 */
+	public static Set<String> getSuperTypeNames(ClassNode type) {
+		Set<String> allSupers = new HashSet<String>();
+		allSupers.add("java.lang.Object"); //$NON-NLS-1$
+		findAllSupers(type, allSupers);
+		return allSupers;
+	}
+
+	private static void findAllSupers(ClassNode clazz, Set<String> allSupers) {
+		if (allSupers.add(clazz.getName())) {
+			if (clazz.getSuperClass() != null) {
+				findAllSupers(clazz.getSuperClass(), allSupers);
+			}
+			if (clazz.getInterfaces() != null) {
+				for (ClassNode superInterface : clazz.getInterfaces()) {
+					findAllSupers(superInterface, allSupers);
+				}
+			}
+		}
+	}
+}
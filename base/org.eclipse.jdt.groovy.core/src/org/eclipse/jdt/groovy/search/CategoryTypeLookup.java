@@ -16,9 +16,9 @@
 
 package org.eclipse.jdt.groovy.search;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.AnnotationNode;
@@ -42,6 +42,12 @@ import org.eclipse.jdt.groovy.search.TypeLookupResult.TypeConfidence;
  */
 public class CategoryTypeLookup implements ITypeLookup {
 
+	// indexes of the categories that are not default categories, which may change between inferencing sessions
+	private Map<ClassNode, CategoryMethodIndex> indexes = new IdentityHashMap<ClassNode, CategoryMethodIndex>();
+
+	// names of all super types of the self types seen in this inferencing session
+	private Map<ClassNode, Set<String>> superTypeNames = new IdentityHashMap<ClassNode, Set<String>>();
+
 	/**
 	 * Looks up method calls to see if they are declared in any current categories
 	 */
@@ -49,7 +55,9 @@ public class CategoryTypeLookup implements ITypeLookup {
 		if (node instanceof ConstantExpression || node instanceof VariableExpression) {
 			Set<ClassNode> categories = scope.getCategoryNames();
 			ClassNode currentType = objectExpressionType != null ? objectExpressionType : scope.getDelegateOrThis();
-			List<MethodNode> possibleMethods = new ArrayList<MethodNode>();
+			if (currentType == null) {
+				return null;
+			}
 			// go through all categories and look for and look for a method with the given name
 			String text = node.getText();
 			if (text.startsWith("${") && text.endsWith("}")) {
@@ -59,33 +67,19 @@ public class CategoryTypeLookup implements ITypeLookup {
 			}
 			String getterName = AccessorSupport.GETTER.createAccessorName(text);
 			String setterName = AccessorSupport.SETTER.createAccessorName(text);
+			Set<String> selfTypeNames = getSuperTypeNames(VariableScope.maybeConvertFromPrimitive(currentType));
 			for (ClassNode category : categories) {
-				List<MethodNode> methods = category.getMethods(text);
-
-				possibleMethods.addAll(methods);
-
-				// also check to see if the getter variant of any name is available
-				if (getterName != null) {
-					methods = category.getMethods(getterName);
-					for (MethodNode method : methods) {
-						if (method.isStatic() && AccessorSupport.findAccessorKind(method, true) == AccessorSupport.GETTER) {
-							possibleMethods.add(method);
-						}
-					}
+				CategoryMethodIndex index = getIndex(category);
+				MethodNode methodNode = index.findMethod(text, selfTypeNames);
+
+				// also check to see if the getter or setter variant of any name is available
+				if (methodNode == null && getterName != null) {
+					methodNode = findAccessor(index.getGetters(getterName), selfTypeNames);
 				}
-				if (setterName != null) {
-					methods = category.getMethods(setterName);
-					for (MethodNode method : methods) {
-						if (method.isStatic() && AccessorSupport.findAccessorKind(method, true) == AccessorSupport.SETTER) {
-							possibleMethods.add(method);
-						}
-					}
+				if (methodNode == null && setterName != null) {
+					methodNode = findAccessor(index.getSetters(setterName), selfTypeNames);
 				}
-			}
-			for (MethodNode methodNode : possibleMethods) {
-				Parameter[] params = methodNode.getParameters();
-				if (params != null && params.length > 0
-						&& isAssignableFrom(VariableScope.maybeConvertFromPrimitive(currentType), params[0].getType())) {
+				if (methodNode != null) {
 					ClassNode declaringClass = methodNode.getDeclaringClass();
 					return new TypeLookupResult(methodNode.getReturnType(), declaringClass, methodNode,
 							getConfidence(declaringClass), scope);
@@ -95,55 +89,45 @@ public class CategoryTypeLookup implements ITypeLookup {
 		return null;
 	}
 
-	/**
-	 * DGM and DGSM classes are loosely inferred so that other lookups can provide better solutions
-	 * 
-	 * @param declaringClass
-	 * @return
-	 */
-	private TypeConfidence getConfidence(ClassNode declaringClass) {
-		return VariableScope.ALL_DEFAULT_CATEGORIES.contains(declaringClass) ? TypeConfidence.LOOSELY_INFERRED
-				: TypeConfidence.INFERRED;
+	private MethodNode findAccessor(List<MethodNode> accessors, Set<String> selfTypeNames) {
+		for (MethodNode method : accessors) {
+			if (selfTypeNames.contains(method.getParameters()[0].getType().getName())) {
+				return method;
+			}
+		}
+		return null;
 	}
 
-	/**
-	 * @param interf
-	 * @param allInterfaces
-	 */
-	private void findAllSupers(ClassNode clazz, Set<String> allSupers) {
-		if (!allSupers.contains(clazz.getName())) {
-			allSupers.add(clazz.getName());
-			if (clazz.getSuperClass() != null) {
-				findAllSupers(clazz.getSuperClass(), allSupers);
-			}
-			if (clazz.getInterfaces() != null) {
-				for (ClassNode superInterface : clazz.getInterfaces()) {
-					findAllSupers(superInterface, allSupers);
-				}
+	private CategoryMethodIndex getIndex(ClassNode category) {
+		CategoryMethodIndex index = CategoryMethodIndex.forDefaultCategory(category);
+		if (index == null) {
+			index = indexes.get(category);
+			if (index == null) {
+				index = CategoryMethodIndex.build(category);
+				indexes.put(category, index);
 			}
 		}
+		return index;
+	}
+
+	private Set<String> getSuperTypeNames(ClassNode type) {
+		Set<String> names = superTypeNames.get(type);
+		if (names == null) {
+			names = CategoryMethodIndex.getSuperTypeNames(type);
+			superTypeNames.put(type, names);
+		}
+		return names;
 	}
 
 	/**
-	 * can from be assigned to to?
+	 * DGM and DGSM classes are loosely inferred so that other lookups can provide better solutions
 	 * 
-	 * @param from
-	 * @param to
+	 * @param declaringClass
 	 * @return
 	 */
-	private boolean isAssignableFrom(ClassNode from, ClassNode to) {
-		if (from == null || to == null) {
-			return false;
-		}
-		Set<String> allSupers = new HashSet<String>();
-		allSupers.add("java.lang.Object");
-		findAllSupers(from, allSupers);
-		for (String supr : allSupers) {
-			if (to.getName().equals(supr)) {
-				return true;
-			}
-		}
-		return false;
+	private TypeConfidence getConfidence(ClassNode declaringClass) {
+		return VariableScope.ALL_DEFAULT_CATEGORIES.contains(declaringClass) ? TypeConfidence.LOOSELY_INFERRED
+				: TypeConfidence.INFERRED;
 	}
 
 	public TypeLookupResult lookupType(FieldNode node, VariableScope scope) {
@@ -171,7 +155,8 @@ public class CategoryTypeLookup implements ITypeLookup {
 	}
 
 	public void initialize(GroovyCompilationUnit unit, VariableScope topLevelScope) {
-		// do nothing
+		indexes = new IdentityHashMap<ClassNode, CategoryMethodIndex>();
+		superTypeNames = new IdentityHashMap<ClassNode, Set<String>>();
 	}
 
 }
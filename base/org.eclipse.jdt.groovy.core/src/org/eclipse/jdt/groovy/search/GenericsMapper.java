@@ -1,10 +1,11 @@
 package org.eclipse.jdt.groovy.search;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Stack;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.GenericsType;
@@ -18,9 +19,130 @@ import org.eclipse.jdt.internal.core.util.Util;
 public class GenericsMapper {
 
 	/**
-	 * Stack keeps track of all type parameterization up the type hierarchy
+	 * The type parameterization of the type most recently visited going up the type hierarchy, or null before the first one. Only
+	 * the most recent level is needed, since each level is resolved in the context of the level below it. Once gathered, a mapper
+	 * never changes.
 	 */
-	private Stack<Map<String, ClassNode>> allGenerics = new Stack<Map<String, ClassNode>>();
+	private Map<String, ClassNode> generics;
+
+	private static final AtomicLong cacheHits = new AtomicLong();
+	private static final AtomicLong cacheMisses = new AtomicLong();
+
+	/**
+	 * Remembers the mappers gathered for the resolved types and declaring types it has seen, so that mapping the same
+	 * parameterization again (eg- <code>List&lt;String&gt;</code> against <code>Collection</code>) is a map lookup. Resolved types
+	 * are told apart by their signature including type arguments, so a cache should not outlive the types it has seen: use one per
+	 * inferencing session. Parameterizations that contain type parameters (eg- <code>List&lt;T&gt;</code>) are not cached, as
+	 * type parameters of the same name can have different bounds depending on the class or method that declares them.
+	 */
+	public static class Cache {
+		private final Map<String, GenericsMapper> mappers = new HashMap<String, GenericsMapper>();
+		private int hits, misses;
+
+		public GenericsMapper gatherGenerics(ClassNode resolvedType, ClassNode declaringType) {
+			StringBuilder sb = new StringBuilder();
+			if (!appendSignature(resolvedType, sb, 0)) {
+				misses++;
+				cacheMisses.incrementAndGet();
+				return GenericsMapper.gatherGenerics(resolvedType, declaringType);
+			}
+			String key = sb.append(" in ").append(declaringType.getName()).toString();
+			GenericsMapper mapper = mappers.get(key);
+			if (mapper != null) {
+				hits++;
+				cacheHits.incrementAndGet();
+			} else {
+				misses++;
+				cacheMisses.incrementAndGet();
+				mapper = GenericsMapper.gatherGenerics(resolvedType, declaringType);
+				mappers.put(key, mapper);
+			}
+			return mapper;
+		}
+
+		public int getHits() {
+			return hits;
+		}
+
+		public int getMisses() {
+			return misses;
+		}
+	}
+
+	/**
+	 * @return the number of lookups answered by any {@link Cache} since the last reset
+	 */
+	public static long getCacheHits() {
+		return cacheHits.get();
+	}
+
+	/**
+	 * @return the number of lookups that any {@link Cache} had to gather a new mapper for since the last reset
+	 */
+	public static long getCacheMisses() {
+		return cacheMisses.get();
+	}
+
+	/**
+	 * @return the fraction of lookups answered by a cache since the last reset, or 0 if there were none
+	 */
+	public static double getCacheHitRate() {
+		long hits = cacheHits.get();
+		long total = hits + cacheMisses.get();
+		return total > 0 ? (double) hits / total : 0d;
+	}
+
+	public static void resetCacheStatistics() {
+		cacheHits.set(0);
+		cacheMisses.set(0);
+	}
+
+	/**
+	 * @return false if the signature would contain a type parameter, which is only known by its name
+	 */
+	private static boolean appendSignature(ClassNode type, StringBuilder sb, int depth) {
+		if (type.isGenericsPlaceHolder()) {
+			return false;
+		}
+		sb.append(type.getName());
+		GenericsType[] gts = type.getGenericsTypes();
+		if (gts == null || gts.length == 0) {
+			return true;
+		}
+		if (depth > 10) {
+			return false;
+		}
+		sb.append('<');
+		for (int i = 0; i < gts.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			GenericsType gt = gts[i];
+			if (gt.isPlaceholder()) {
+				return false;
+			} else if (gt.isWildcard()) {
+				sb.append('?');
+				if (gt.getUpperBounds() != null) {
+					for (ClassNode upper : gt.getUpperBounds()) {
+						sb.append(" extends ");
+						if (!appendSignature(upper, sb, depth + 1)) {
+							return false;
+						}
+					}
+				}
+				if (gt.getLowerBound() != null) {
+					sb.append(" super ");
+					if (!appendSignature(gt.getLowerBound(), sb, depth + 1)) {
+						return false;
+					}
+				}
+			} else if (!appendSignature(gt.getType(), sb, depth + 1)) {
+				return false;
+			}
+		}
+		sb.append('>');
+		return true;
+	}
 
 	/**
 	 * Creates a mapper for a particular resolved type tracing up the type hierarchy until the declaring type is reached. This is
@@ -54,17 +176,23 @@ public class GenericsMapper {
 			rgts = rcandidate.getGenericsTypes();
 			rgts = rgts == null ? VariableScope.NO_GENERICS : rgts;
 
-			HashMap<String, ClassNode> resolved = new HashMap<String, ClassNode>(2, 1.0f);
-			// for each generics type add to list
-			for (int i = 0; i < rgts.length && i < ugts.length; i++) {
-				// now try to resolve the parameter in the context of the
-				// most recently visited type. If it doesn't exist, then
-				// default to the resovled type
-				resolved.put(ugts[i].getName(), mapper.resolveParameter(rgts[i], 0));
+			Map<String, ClassNode> resolved;
+			int length = Math.min(rgts.length, ugts.length);
+			if (length == 0) {
+				resolved = Collections.emptyMap();
+			} else {
+				resolved = new HashMap<String, ClassNode>(2, 1.0f);
+				// for each generics type add to list
+				for (int i = 0; i < length; i++) {
+					// now try to resolve the parameter in the context of the
+					// most recently visited type. If it doesn't exist, then
+					// default to the resovled type
+					resolved.put(ugts[i].getName(), mapper.resolveParameter(rgts[i], 0));
+				}
 			}
 
-			mapper.allGenerics.push(resolved);
-			if (rcandidate.getName().equals(declaringType.getName())) {
+			mapper.generics = resolved;
+			if (CanonicalTypes.isSameType(rcandidate, declaringType)) {
 				// don't need to travel up the whole hierarchy. We can stop at the declaring class
 				break;
 			}
@@ -74,7 +202,7 @@ public class GenericsMapper {
 	}
 
 	boolean hasGenerics() {
-		return !allGenerics.isEmpty() && allGenerics.peek().size() > 0;
+		return generics != null && generics.size() > 0;
 	}
 
 	/**
@@ -95,7 +223,7 @@ public class GenericsMapper {
 			return topGT.getType();
 		}
 
-		if (allGenerics.isEmpty()) {
+		if (generics == null) {
 			return topGT.getType();
 		}
 
@@ -129,10 +257,10 @@ public class GenericsMapper {
 	 * @return
 	 */
 	ClassNode findParameter(String parameterName, ClassNode defaultType) {
-		if (allGenerics.isEmpty()) {
+		if (generics == null) {
 			return defaultType;
 		}
-		ClassNode type = allGenerics.peek().get(parameterName);
+		ClassNode type = generics.get(parameterName);
 		if (type == null) {
 			return defaultType;
 		}
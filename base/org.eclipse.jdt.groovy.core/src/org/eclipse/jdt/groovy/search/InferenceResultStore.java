@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.groovy.search;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.GenericsType;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.jdt.groovy.search.TypeLookupResult.TypeConfidence;
+
+/**
+ * Remembers the results of looking up the types of the expressions of one module node, so that the many features that infer the
+ * same file (semantic highlighting, code select, occurrences, hovers, search) do not each ask every {@link ITypeLookup} again.
+ *
+ * A store belongs to a {@link ModuleNodeInfo}. Every reconcile that changes the module node (whether it builds a new one or
+ * splices an edit into the existing one) produces a new info and so a new, empty store. Results are only added by sequential
+ * visits of the whole module that have not skipped any part of it, since inference later in a file depends on the assignments
+ * seen earlier. Only expressions that have a source location are stored, expressions made up during inferencing would never be
+ * asked for again.
+ *
+ * A stored result is only reused in the same {@link LookupContext}: the same object expression type (including its generics),
+ * static context, enclosing declaration and closure, delegate, categories and kinds of type lookups. All stores are flushed when
+ * the type lookups or the DSLD contributions change.
+ *
+ * Set the system property <code>greclipse.inferencestore.disabled</code> to turn the store off.
+ */
+public class InferenceResultStore {
+
+	private static final boolean DISABLED = System.getProperty("greclipse.inferencestore.disabled") != null; //$NON-NLS-1$
+
+	private static final Map<ModuleNodeInfo, InferenceResultStore> stores = new WeakHashMap<ModuleNodeInfo, InferenceResultStore>();
+
+	/**
+	 * @return the store for the module, or null if storing results is disabled
+	 */
+	public static InferenceResultStore forModule(ModuleNodeInfo info) {
+		if (DISABLED || info == null) {
+			return null;
+		}
+		synchronized (stores) {
+			InferenceResultStore store = stores.get(info);
+			if (store == null) {
+				store = new InferenceResultStore();
+				stores.put(info, store);
+			}
+			return store;
+		}
+	}
+
+	/**
+	 * Discards all stored results, eg- when the type lookups themselves have changed
+	 */
+	public static void flushAll() {
+		synchronized (stores) {
+			stores.clear();
+		}
+	}
+
+	/**
+	 * Everything besides the expression itself that the lookups base their result on
+	 */
+	static class LookupContext {
+		final ClassNode objectExpressionType;
+		final boolean isStatic;
+		final ASTNode enclosingDeclaration;
+		final ClosureExpression enclosingClosure;
+		final ClassNode delegateOrThis;
+		final Set<ClassNode> categories;
+		final List<Class<?>> lookupKinds;
+
+		LookupContext(ClassNode objectExpressionType, boolean isStatic, ASTNode enclosingDeclaration, VariableScope scope,
+				List<Class<?>> lookupKinds) {
+			this.objectExpressionType = objectExpressionType;
+			this.isStatic = isStatic;
+			this.enclosingDeclaration = enclosingDeclaration;
+			this.enclosingClosure = scope.getEnclosingClosure();
+			this.delegateOrThis = scope.getDelegateOrThis();
+			this.categories = scope.getCategoryNames();
+			this.lookupKinds = lookupKinds;
+		}
+
+		boolean matches(LookupContext other) {
+			return isStatic == other.isStatic && enclosingDeclaration == other.enclosingDeclaration
+					&& enclosingClosure == other.enclosingClosure && lookupKinds.equals(other.lookupKinds)
+					&& sameType(objectExpressionType, other.objectExpressionType, 0)
+					&& sameType(delegateOrThis, other.delegateOrThis, 0) && sameTypes(categories, other.categories);
+		}
+	}
+
+	/**
+	 * A result without its variable scope, which is different for every visit
+	 */
+	private static class StoredResult {
+		final LookupContext context;
+		final ClassNode type;
+		final ClassNode declaringType;
+		final ASTNode declaration;
+		final TypeConfidence confidence;
+		final String extraDoc;
+
+		StoredResult(LookupContext context, TypeLookupResult result) {
+			this.context = context;
+			this.type = result.type;
+			this.declaringType = result.declaringType;
+			this.declaration = result.declaration;
+			this.confidence = result.confidence;
+			this.extraDoc = result.extraDoc;
+		}
+	}
+
+	private final Map<Expression, StoredResult> results = new IdentityHashMap<Expression, StoredResult>();
+
+	private int hits, misses;
+
+	private InferenceResultStore() {
+		// use forModule
+	}
+
+	/**
+	 * @return a result for the expression looked up in the same context during an earlier visit, or null
+	 */
+	synchronized TypeLookupResult get(Expression node, LookupContext context, VariableScope scope) {
+		StoredResult stored = results.get(node);
+		if (stored != null && stored.context.matches(context)) {
+			hits++;
+			return new TypeLookupResult(stored.type, stored.declaringType, stored.declaration, stored.confidence, scope,
+					stored.extraDoc);
+		}
+		misses++;
+		return null;
+	}
+
+	synchronized void put(Expression node, LookupContext context, TypeLookupResult result) {
+		if (result != null && node.getEnd() > 0) {
+			results.put(node, new StoredResult(context, result));
+		}
+	}
+
+	public synchronized int size() {
+		return results.size();
+	}
+
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	// deep enough for any sensible parameterization, recursive bounds like <T extends Comparable<T>> simply don't match
+	private static final int MAX_GENERICS_DEPTH = 8;
+
+	private static boolean sameType(ClassNode left, ClassNode right, int depth) {
+		if (left == right) {
+			return true;
+		}
+		if (left == null || right == null || depth > MAX_GENERICS_DEPTH) {
+			return false;
+		}
+		return left.getName().equals(right.getName()) && left.isGenericsPlaceHolder() == right.isGenericsPlaceHolder()
+				&& sameGenerics(left.getGenericsTypes(), right.getGenericsTypes(), depth + 1);
+	}
+
+	private static boolean sameTypes(ClassNode[] left, ClassNode[] right, int depth) {
+		int length = left == null ? 0 : left.length;
+		if (length != (right == null ? 0 : right.length)) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (!sameType(left[i], right[i], depth)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean sameTypes(Set<ClassNode> left, Set<ClassNode> right) {
+		if (left.size() != right.size()) {
+			return false;
+		}
+		for (Iterator<ClassNode> leftIter = left.iterator(), rightIter = right.iterator(); leftIter.hasNext();) {
+			if (!sameType(leftIter.next(), rightIter.next(), 0)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean sameGenerics(GenericsType[] left, GenericsType[] right, int depth) {
+		int length = left == null ? 0 : left.length;
+		if (length != (right == null ? 0 : right.length)) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			GenericsType l = left[i], r = right[i];
+			if (l.isWildcard() != r.isWildcard() || l.isPlaceholder() != r.isPlaceholder() || !l.getName().equals(r.getName())
+					|| !sameType(l.getType(), r.getType(), depth) || !sameType(l.getLowerBound(), r.getLowerBound(), depth)
+					|| !sameTypes(l.getUpperBounds(), r.getUpperBounds(), depth)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
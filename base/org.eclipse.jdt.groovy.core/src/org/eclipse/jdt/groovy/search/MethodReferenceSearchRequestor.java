@@ -348,7 +348,7 @@ public class MethodReferenceSearchRequestor implements ITypeRequestor {
 	 * @return
 	 */
 	private boolean shouldAlwaysBeAccurate() {
-		return requestor.getClass().getPackage().getName().indexOf("refactoring") != -1;
+		return BufferingSearchRequestor.unwrap(requestor).getClass().getPackage().getName().indexOf("refactoring") != -1;
 	}
 
 	/**
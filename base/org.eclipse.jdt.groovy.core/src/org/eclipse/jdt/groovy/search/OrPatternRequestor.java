@@ -17,8 +17,15 @@
 package org.eclipse.jdt.groovy.search;
 
 import java.util.List;
+import java.util.Set;
 
 import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.FieldExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
 import org.eclipse.jdt.core.IJavaElement;
 
 /**
@@ -29,11 +36,32 @@ import org.eclipse.jdt.core.IJavaElement;
 public class OrPatternRequestor implements ITypeRequestor {
 	private final ITypeRequestor[] requestors;
 
+	/**
+	 * the names matched by the requestors, or null if they do not only match by name
+	 */
+	private final Set<String> names;
+
 	public OrPatternRequestor(List<ITypeRequestor> requestors) {
+		this(requestors, null);
+	}
+
+	/**
+	 * @param names if not null, the requestors are {@link MethodReferenceSearchRequestor}s and
+	 *        {@link FieldReferenceSearchRequestor}s matching these names. Nodes with other names are checked once for all the
+	 *        requestors, eg- all the synthetic accessors of a property, rather than once per requestor.
+	 */
+	public OrPatternRequestor(List<ITypeRequestor> requestors, Set<String> names) {
 		this.requestors = requestors.toArray(new ITypeRequestor[requestors.size()]);
+		this.names = names;
 	}
 
 	public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+		if (names != null) {
+			String name = getName(node);
+			if (name == null || !names.contains(name)) {
+				return VisitStatus.CONTINUE;
+			}
+		}
 		VisitStatus status = VisitStatus.CONTINUE;
 		for (ITypeRequestor requestor : requestors) {
 			status = VisitStatus.merge(status, requestor.acceptASTNode(node, result, enclosingElement));
@@ -41,4 +69,23 @@ public class OrPatternRequestor implements ITypeRequestor {
 		return status;
 	}
 
+	/**
+	 * @return the name that method and field reference requestors compare against, or null if they ignore this kind of node
+	 */
+	private static String getName(ASTNode node) {
+		if (node instanceof ConstantExpression) {
+			return ((ConstantExpression) node).getText();
+		} else if (node instanceof FieldExpression) {
+			return ((FieldExpression) node).getFieldName();
+		} else if (node instanceof FieldNode) {
+			return ((FieldNode) node).getName();
+		} else if (node instanceof MethodNode) {
+			return ((MethodNode) node).getName();
+		} else if (node instanceof VariableExpression) {
+			return ((VariableExpression) node).getName();
+		} else if (node instanceof StaticMethodCallExpression) {
+			return ((StaticMethodCallExpression) node).getMethod();
+		}
+		return null;
+	}
 }
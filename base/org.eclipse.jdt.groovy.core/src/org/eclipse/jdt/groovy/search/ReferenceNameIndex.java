@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.groovy.search;
+
+import java.io.CharArrayReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.greclipse.GroovyTokenTypeBridge;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.core.util.GroovyScanner;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.core.search.matching.FieldPattern;
+import org.eclipse.jdt.internal.core.search.matching.MethodPattern;
+import org.eclipse.jdt.internal.core.search.matching.OrPattern;
+import org.eclipse.jdt.internal.core.search.matching.PossibleMatch;
+import org.eclipse.jdt.internal.core.search.matching.VariablePattern;
+
+import antlr.Token;
+import antlr.TokenStreamException;
+
+/**
+ * Remembers, per Groovy file, the names that appear in it, so that method and field reference searches only run type inference on
+ * the files that can possibly contain a match. The JDT index cannot tell, since dynamic dispatch means a Groovy file may call a
+ * method without the index recording a reference to it.
+ *
+ * The names of a file are the identifiers, keywords and string literals its tokens spell, which covers every name that
+ * {@link MethodReferenceSearchRequestor} and {@link FieldReferenceSearchRequestor} can match (property access, method calls,
+ * map keys, quoted names and declarations). Call arity is not recorded: with default arguments, varargs, named arguments and
+ * spread lists a call with any number of arguments may be reported as a match. Names are recomputed when the contents of a file
+ * change, and only the most recently searched files are kept.
+ *
+ * Set the system property <code>greclipse.search.prefilter.disabled</code> to search every file.
+ */
+public class ReferenceNameIndex {
+
+	private static final boolean DISABLED = System.getProperty("greclipse.search.prefilter.disabled") != null; //$NON-NLS-1$
+
+	/**
+	 * Maximum number of files whose names are kept at once, can be changed with the system property
+	 * <code>greclipse.search.prefilter.maxsize</code>
+	 */
+	static final int MAX_ENTRIES = Integer.getInteger("greclipse.search.prefilter.maxsize", 5000).intValue(); //$NON-NLS-1$
+
+	private static class Entry {
+		final int length;
+		final int hash;
+		// null if the file could not be tokenized
+		final Set<String> names;
+
+		Entry(int length, int hash, Set<String> names) {
+			this.length = length;
+			this.hash = hash;
+			this.names = names;
+		}
+	}
+
+	private static final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private ReferenceNameIndex() {
+		// static helpers only
+	}
+
+	/**
+	 * @return false if the possible match certainly contains nothing the pattern matches, true if it may
+	 */
+	public static boolean mayMatch(PossibleMatch possibleMatch, SearchPattern pattern) {
+		if (DISABLED || !isFilterable(pattern)) {
+			return true;
+		}
+		char[] contents = possibleMatch.getContents();
+		return contents == null || mayMatch(pattern, possibleMatch.document.getPath(), contents);
+	}
+
+	/**
+	 * @return false if the file with the given path and contents certainly contains nothing the pattern matches, true if it may
+	 */
+	public static boolean mayMatch(SearchPattern pattern, String path, char[] contents) {
+		if (!isFilterable(pattern)) {
+			return true;
+		}
+		Set<String> names = getNames(path, contents);
+		return names == null || mayMatch(pattern, names);
+	}
+
+	/**
+	 * Forgets the names of all files
+	 */
+	public static void flushAll() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	private static boolean isFilterable(SearchPattern pattern) {
+		if (pattern instanceof OrPattern) {
+			for (SearchPattern orPattern : getPatterns((OrPattern) pattern)) {
+				if (orPattern != null && !isFilterable(orPattern)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		char[] name = getName(pattern);
+		// wildcards are left to the requestors
+		return name != null && name.length > 0 && !containsWildcard(name);
+	}
+
+	private static boolean mayMatch(SearchPattern pattern, Set<String> names) {
+		if (pattern instanceof OrPattern) {
+			for (SearchPattern orPattern : getPatterns((OrPattern) pattern)) {
+				if (orPattern != null && mayMatch(orPattern, names)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return names.contains(String.valueOf(getName(pattern)));
+	}
+
+	/**
+	 * @return the name matched by the requestors of the pattern, or null if the pattern is not a method or field pattern
+	 */
+	@SuppressWarnings("nls")
+	static char[] getName(SearchPattern pattern) {
+		if (pattern instanceof MethodPattern) {
+			return (char[]) ReflectionUtils.getPrivateField(MethodPattern.class, "selector", pattern);
+		} else if (pattern instanceof FieldPattern) {
+			return (char[]) ReflectionUtils.getPrivateField(VariablePattern.class, "name", pattern);
+		}
+		return null;
+	}
+
+	private static SearchPattern[] getPatterns(OrPattern pattern) {
+		return (SearchPattern[]) ReflectionUtils.getPrivateField(OrPattern.class, "patterns", pattern); //$NON-NLS-1$
+	}
+
+	private static boolean containsWildcard(char[] name) {
+		for (char c : name) {
+			if (c == '*' || c == '?') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Set<String> getNames(String path, char[] contents) {
+		int hash = Arrays.hashCode(contents);
+		synchronized (entries) {
+			Entry entry = entries.get(path);
+			if (entry != null && entry.length == contents.length && entry.hash == hash) {
+				return entry.names;
+			}
+		}
+		Set<String> names = tokenize(contents);
+		synchronized (entries) {
+			entries.put(path, new Entry(contents.length, hash, names));
+		}
+		return names;
+	}
+
+	/**
+	 * @return the names in the contents, or null if they cannot be tokenized
+	 */
+	private static Set<String> tokenize(char[] contents) {
+		Set<String> names = new HashSet<String>();
+		GroovyScanner scanner = new GroovyScanner(new CharArrayReader(contents));
+		try {
+			while (true) {
+				Token token = scanner.nextToken();
+				int type = token.getType();
+				if (type == GroovyTokenTypeBridge.EOF) {
+					return names;
+				}
+				String text = token.getText();
+				if (text != null && text.length() > 0
+						&& (type == GroovyTokenTypeBridge.STRING_LITERAL || Character.isJavaIdentifierStart(text.charAt(0)))) {
+					names.add(text);
+				}
+			}
+		} catch (TokenStreamException e) {
+			return null;
+		}
+	}
+}
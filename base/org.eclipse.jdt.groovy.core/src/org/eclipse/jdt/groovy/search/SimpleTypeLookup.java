@@ -16,8 +16,11 @@ import static org.eclipse.jdt.groovy.search.TypeLookupResult.TypeConfidence.UNKN
 import static org.eclipse.jdt.groovy.search.VariableScope.NO_GENERICS;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.ASTNode;
@@ -46,6 +49,7 @@ import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
 import org.codehaus.groovy.ast.expr.TupleExpression;
 import org.codehaus.groovy.ast.expr.VariableExpression;
 import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.groovy.search.TypeLookupResult.TypeConfidence;
@@ -60,10 +64,31 @@ import org.objectweb.asm.Opcodes;
  */
 public class SimpleTypeLookup implements ITypeLookupExtension {
 
+	/**
+	 * Set this system property to keep the declarations found in binary types only for one inferencing session
+	 */
+	private static final boolean SHARING_DISABLED = System.getProperty("greclipse.declarationcache.shared.disabled") != null; //$NON-NLS-1$
+
+	// stands for a lookup that did not find a declaration
+	private static final Object NO_DECLARATION = new Object();
+
 	private GroovyCompilationUnit unit;
 
+	/**
+	 * Declarations found by {@link #findDeclaration(String, ClassNode, int)} during this inferencing session, keyed by the redirect
+	 * of the declaring type and then by member name and number of arguments
+	 */
+	private Map<ClassNode, Map<String, Object>> declarationCache;
+
+	/**
+	 * Generics mappers gathered during this inferencing session
+	 */
+	private GenericsMapper.Cache genericsMappers;
+
 	public void initialize(GroovyCompilationUnit unit, VariableScope topLevelScope) {
 		this.unit = unit;
+		this.declarationCache = new IdentityHashMap<ClassNode, Map<String, Object>>();
+		this.genericsMappers = new GenericsMapper.Cache();
 	}
 
 	public TypeLookupResult lookupType(Expression node, VariableScope scope, ClassNode objectExpressionType) {
@@ -233,7 +258,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 			} else if (ClassHelper.isNumberType(nodeType) || nodeType == ClassHelper.BigDecimal_TYPE
 					|| nodeType == ClassHelper.BigInteger_TYPE) {
 				return new TypeLookupResult(nodeType, null, null, confidence, scope);
-			} else if (nodeType.equals(VariableScope.STRING_CLASS_NODE)) {
+			} else if (CanonicalTypes.isString(nodeType)) {
 				// likely a proper quoted string constant
 				return new TypeLookupResult(nodeType, null, node, confidence, scope);
 			} else {
@@ -249,7 +274,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 
 		} else if (node instanceof BitwiseNegationExpression) {
 			ClassNode type = ((BitwiseNegationExpression) node).getExpression().getType();
-			if (type.getName().equals(VariableScope.STRING_CLASS_NODE.getName())) {
+			if (CanonicalTypes.isString(type)) {
 				return new TypeLookupResult(VariableScope.PATTERN_CLASS_NODE, null, null, confidence, scope);
 			} else {
 				return new TypeLookupResult(type, null, null, confidence, scope);
@@ -273,7 +298,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 
 		// if we get here, then we can't infer the type. Set to unknown if required.
 		if (!(node instanceof ConstructorCallExpression) && !(node instanceof TupleExpression)
-				&& nodeType.equals(VariableScope.OBJECT_CLASS_NODE)) {
+				&& CanonicalTypes.isObject(nodeType)) {
 			confidence = UNKNOWN;
 		}
 
@@ -425,7 +450,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 
 	private ClassNode getMorePreciseType(ClassNode declaringType, VariableInfo info) {
 		ClassNode maybeDeclaringType = info != null ? info.declaringType : VariableScope.OBJECT_CLASS_NODE;
-		if (maybeDeclaringType.equals(VariableScope.OBJECT_CLASS_NODE) && !VariableScope.OBJECT_CLASS_NODE.equals(declaringType)) {
+		if (CanonicalTypes.isObject(maybeDeclaringType) && !CanonicalTypes.isObject(declaringType)) {
 			return declaringType;
 		} else {
 			return maybeDeclaringType;
@@ -445,7 +470,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 		}
 		// don't necessarily use the typeOfDeclaration. the resolvedTypeOfDeclaration includes the types of generics
 		// so if the names are the same, then used the resolved version
-		if (typeOfDeclaration.getName().equals(resolvedTypeOfDeclaration.getName())) {
+		if (CanonicalTypes.isSameType(typeOfDeclaration, resolvedTypeOfDeclaration)) {
 			return resolvedTypeOfDeclaration;
 		} else {
 			return typeOfDeclaration;
@@ -468,7 +493,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 		if (declaration instanceof FieldNode) {
 			FieldNode fieldNode = (FieldNode) declaration;
 			typeOfDeclaration = fieldNode.getType();
-			if (VariableScope.OBJECT_CLASS_NODE.equals(typeOfDeclaration)) {
+			if (CanonicalTypes.isObject(typeOfDeclaration)) {
 				// check to see if we can do better by looking at the initializer of the field
 				if (fieldNode.hasInitialExpression()) {
 					typeOfDeclaration = fieldNode.getInitialExpression().getType();
@@ -485,7 +510,10 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 		// now try to resolve generics
 		// travel up the hierarchy and look for more generics
 		// also look for generics on methods...(not doing this yet...)
-		GenericsMapper mapper = GenericsMapper.gatherGenerics(resolvedType, declaringType.redirect());
+		if (genericsMappers == null) {
+			genericsMappers = new GenericsMapper.Cache();
+		}
+		GenericsMapper mapper = genericsMappers.gatherGenerics(resolvedType, declaringType.redirect());
 		ClassNode resolvedTypeOfDeclaration = VariableScope.resolveTypeParameterization(mapper,
 				VariableScope.clone(typeOfDeclaration));
 		return resolvedTypeOfDeclaration;
@@ -518,6 +546,42 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 	 * @return
 	 */
 	private ASTNode findDeclaration(String name, ClassNode declaringType, int numOfArgs) {
+		if (declaringType.isArray()) {
+			return findDeclarationInHierarchy(name, declaringType, numOfArgs);
+		}
+		Map<String, Object> declarations = getDeclarationCache(declaringType.redirect());
+		String key = name + ':' + numOfArgs;
+		Object declaration = declarations.get(key);
+		if (declaration == null) {
+			declaration = findDeclarationInHierarchy(name, declaringType, numOfArgs);
+			declarations.put(key, declaration != null ? declaration : NO_DECLARATION);
+		}
+		return declaration != NO_DECLARATION ? (ASTNode) declaration : null;
+	}
+
+	/**
+	 * Members of binary types are remembered on the type itself so that later inferencing sessions can use them too, members of
+	 * other types are remembered until the end of this session.
+	 */
+	private Map<String, Object> getDeclarationCache(ClassNode type) {
+		if (!SHARING_DISABLED && type instanceof JDTClassNode) {
+			Map<String, Object> shared = ((JDTClassNode) type).getLookupCache();
+			if (shared != null) {
+				return shared;
+			}
+		}
+		if (declarationCache == null) {
+			declarationCache = new IdentityHashMap<ClassNode, Map<String, Object>>();
+		}
+		Map<String, Object> declarations = declarationCache.get(type);
+		if (declarations == null) {
+			declarations = new HashMap<String, Object>();
+			declarationCache.put(type, declarations);
+		}
+		return declarations;
+	}
+
+	private ASTNode findDeclarationInHierarchy(String name, ClassNode declaringType, int numOfArgs) {
 		if (declaringType.isArray()) {
 			// only length exists on array type
 			if (name.equals("length")) {
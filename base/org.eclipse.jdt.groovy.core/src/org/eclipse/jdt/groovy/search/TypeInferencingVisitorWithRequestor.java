@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.groovy.search;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -84,9 +85,12 @@ import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.ISourceReference;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.Signature;
@@ -241,6 +245,11 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 	// Later on, should do some ordering of results
 	private final ITypeLookup[] lookups;
 
+	/**
+	 * Where to record the calls of the lookups, in the same order as the lookups, or null if no statistics are collected
+	 */
+	private final TypeLookupStatistics[] statistics;
+
 	private ITypeRequestor requestor;
 	private IJavaElement enclosingElement;
 	private ASTNode enclosingDeclarationNode;
@@ -274,6 +283,38 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
 	private final AssignmentStorer assignmentStorer = new AssignmentStorer();
 
+	/**
+	 * Results of expression lookups shared with other visits of the same module node, may be null
+	 */
+	private final InferenceResultStore resultStore;
+
+	/**
+	 * The kinds of lookups this visitor asks, part of the context that stored results are reused in
+	 */
+	private final List<Class<?>> lookupKinds;
+
+	/**
+	 * Only true during a sequential visit of the whole module, as long as the requestor has not skipped any part of it
+	 */
+	private boolean storeResults;
+
+	/**
+	 * The source range of the node a targeted visit is for, or -1 if the whole module is visited
+	 */
+	private int targetStart = -1, targetEnd = -1;
+
+	/**
+	 * The {@link System#nanoTime()} at which the budget of a targeted visit is spent
+	 */
+	private long deadline = Long.MAX_VALUE;
+
+	private boolean budgetExceeded;
+
+	/**
+	 * Only set during a targeted visit, may be null
+	 */
+	private IProgressMonitor monitor;
+
 	/**
 	 * Use factory to instantiate
 	 */
@@ -283,7 +324,13 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		ModuleNodeInfo info = createModuleNode(unit);
 		this.enclosingDeclarationNode = info != null ? info.module : null;
 		this.resolver = info != null ? info.resolver : null;
+		this.resultStore = InferenceResultStore.forModule(info);
 		this.lookups = lookups;
+		this.lookupKinds = new ArrayList<Class<?>>(lookups.length);
+		for (ITypeLookup lookup : lookups) {
+			lookupKinds.add(lookup.getClass());
+		}
+		this.statistics = TypeLookupStatistics.forLookups(lookups);
 		scopes = new Stack<VariableScope>();
 		completeExpressionStack = new Stack<ASTNode>();
 		primaryTypeStack = new Stack<ClassNode>();
@@ -299,15 +346,11 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
 		this.requestor = requestor;
 		enclosingElement = unit;
+		storeResults = resultStore != null;
 		VariableScope topLevelScope = new VariableScope(null, enclosingDeclarationNode, false);
 		scopes.push(topLevelScope);
 
-		for (ITypeLookup lookup : lookups) {
-			if (lookup instanceof ITypeResolver) {
-				((ITypeResolver) lookup).setResolverInformation((ModuleNode) enclosingDeclarationNode, resolver);
-			}
-			lookup.initialize(unit, topLevelScope);
-		}
+		initializeLookups(topLevelScope);
 
 		try {
 			visitPackage(((ModuleNode) enclosingDeclarationNode).getPackage());
@@ -315,7 +358,11 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 			try {
 				IType[] types = unit.getTypes();
 				for (IType type : types) {
-					visitJDT(type, requestor);
+					if (overlapsTarget(type)) {
+						visitJDT(type, requestor);
+					} else {
+						storeResults = false;
+					}
 				}
 			} catch (JavaModelException e) {
 				Util.log(e, "Error getting types for " + unit.getElementName());
@@ -337,6 +384,89 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		}
 	}
 
+	private void initializeLookups(VariableScope topLevelScope) {
+		for (ITypeLookup lookup : lookups) {
+			if (lookup instanceof ITypeResolver) {
+				((ITypeResolver) lookup).setResolverInformation((ModuleNode) enclosingDeclarationNode, resolver);
+			}
+			lookup.initialize(unit, topLevelScope);
+		}
+	}
+
+	/**
+	 * Visits only what the node at the given source range depends on, for content assist and other features that only care about
+	 * one node: the imports, the types that enclose the node (including their static initializers) and the member that encloses
+	 * the node. All other members are skipped.
+	 * <p>
+	 * Once <code>budget</code> milliseconds are spent, the rest of the visit skips the statements that do not lead to the node and
+	 * asks no more lookups about the nodes that do not overlap it. The budget is checked before every lookup, but a lookup that
+	 * has started is not interrupted. Nodes that no lookup answered for are reported as <code>Object</code> with
+	 * {@link TypeConfidence#UNKNOWN} confidence, everything else with at most {@link TypeConfidence#INFERRED} confidence, since
+	 * the types of variables that were assigned in skipped statements are not known. Use {@link #isBudgetExceeded()} to find out
+	 * if this happened. A budget of 0 or less means no limit. The visit stops when the monitor is canceled.
+	 */
+	public void visitTargeted(ITypeRequestor requestor, int start, int end, long budget, IProgressMonitor monitor) {
+		visitTargetedUntil(requestor, start, end, budget > 0 ? System.nanoTime() + budget * 1000000 : Long.MAX_VALUE, monitor);
+	}
+
+	/**
+	 * Like {@link #visitTargeted(ITypeRequestor, int, int, long, IProgressMonitor)}, but with a budget that ends at the given
+	 * {@link System#nanoTime()}, so that callers can share one budget between the visit and the work around it. A deadline that
+	 * has already passed makes the visit imprecise from the start, {@link Long#MAX_VALUE} means no limit.
+	 */
+	public void visitTargetedUntil(ITypeRequestor requestor, int start, int end, long deadline, IProgressMonitor monitor) {
+		targetStart = start;
+		targetEnd = end;
+		this.deadline = deadline;
+		budgetExceeded = false;
+		this.monitor = monitor;
+		try {
+			visitCompilationUnit(requestor);
+		} finally {
+			targetStart = targetEnd = -1;
+			deadline = Long.MAX_VALUE;
+			this.monitor = null;
+		}
+	}
+
+	/**
+	 * @return true if the last targeted visit ran out of time and so its results are less precise than they could have been
+	 */
+	public boolean isBudgetExceeded() {
+		return budgetExceeded;
+	}
+
+	private void checkBudget() {
+		if (monitor != null && monitor.isCanceled()) {
+			throw new VisitCompleted(VisitStatus.STOP_VISIT);
+		}
+		if (!budgetExceeded && deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+			budgetExceeded = true;
+			storeResults = false;
+		}
+	}
+
+	/**
+	 * @return true if this is not a targeted visit, or if the node overlaps the target or has no source location
+	 */
+	private boolean overlapsTarget(ASTNode node) {
+		return targetStart < 0 || node.getEnd() <= 0 || (node.getStart() <= targetEnd && node.getEnd() >= targetStart);
+	}
+
+	private boolean overlapsTarget(IJavaElement element) {
+		if (targetStart >= 0 && element instanceof ISourceReference) {
+			try {
+				ISourceRange range = ((ISourceReference) element).getSourceRange();
+				if (range != null && range.getOffset() >= 0) {
+					return range.getOffset() <= targetEnd && range.getOffset() + range.getLength() >= targetStart;
+				}
+			} catch (JavaModelException e) {
+				// can't tell, so visit it
+			}
+		}
+		return true;
+	}
+
 	// @Override
 	public void visitPackage(PackageNode p) {
 		// do nothing for now
@@ -365,6 +495,11 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 					if (isEnum && shouldFilterEnumMember(child)) {
 						continue;
 					}
+					if (!overlapsTarget(child)) {
+						storeResults = false;
+						continue;
+					}
+					checkBudget();
 					switch (child.getElementType()) {
 						case IJavaElement.METHOD:
 							visitJDT((IMethod) child, requestor);
@@ -634,20 +769,9 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
 	@Override
 	public void visitField(FieldNode node) {
-		TypeLookupResult result = null;
 		VariableScope scope = scopes.peek();
 		assignmentStorer.storeField(node, scope);
-		for (ITypeLookup lookup : lookups) {
-			TypeLookupResult candidate = lookup.lookupType(node, scope);
-			if (candidate != null) {
-				if (result == null || result.confidence.isLessPreciseThan(candidate.confidence)) {
-					result = candidate;
-				}
-				if (TypeConfidence.LOOSELY_INFERRED.isLessPreciseThan(result.confidence)) {
-					break;
-				}
-			}
-		}
+		TypeLookupResult result = lookupType(node, scope, null, false);
 		scope.setPrimaryNode(false);
 
 		VisitStatus status = notifyRequestor(node, requestor, result);
@@ -683,19 +807,8 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 			return;
 		}
 
-		TypeLookupResult result = null;
 		VariableScope scope = scopes.peek();
-		for (ITypeLookup lookup : lookups) {
-			TypeLookupResult candidate = lookup.lookupType(node, scope);
-			if (candidate != null) {
-				if (result == null || result.confidence.isLessPreciseThan(candidate.confidence)) {
-					result = candidate;
-				}
-				if (TypeConfidence.LOOSELY_INFERRED.isLessPreciseThan(result.confidence)) {
-					break;
-				}
-			}
-		}
+		TypeLookupResult result = lookupType(node, scope, null, false);
 		scope.setPrimaryNode(false);
 
 		VisitStatus status = notifyRequestor(node, requestor, result);
@@ -739,19 +852,8 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
 	@Override
 	public void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
-		TypeLookupResult result = null;
 		VariableScope scope = scopes.peek();
-		for (ITypeLookup lookup : lookups) {
-			TypeLookupResult candidate = lookup.lookupType(node, scope);
-			if (candidate != null) {
-				if (result == null || result.confidence.isLessPreciseThan(candidate.confidence)) {
-					result = candidate;
-				}
-				if (TypeConfidence.LOOSELY_INFERRED.isLessPreciseThan(result.confidence)) {
-					break;
-				}
-			}
-		}
+		TypeLookupResult result = lookupType(node, scope, null, false);
 		scope.setPrimaryNode(false);
 		VisitStatus status = notifyRequestor(node, requestor, result);
 
@@ -827,17 +929,7 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 				VariableScope scope = scopes.peek();
 				scope.setPrimaryNode(false);
 				assignmentStorer.storeImport(imp, scope);
-				for (ITypeLookup lookup : lookups) {
-					TypeLookupResult candidate = lookup.lookupType(imp, scope);
-					if (candidate != null) {
-						if (result == null || result.confidence.isLessPreciseThan(candidate.confidence)) {
-							result = candidate;
-						}
-						if (TypeConfidence.LOOSELY_INFERRED.isLessPreciseThan(result.confidence)) {
-							break;
-						}
-					}
-				}
+				result = lookupType(imp, scope, null, false);
 				VisitStatus status = notifyRequestor(imp, requestor, result);
 
 				switch (status) {
@@ -968,8 +1060,14 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 				// another special case.
 				// In 1.8 and later, Groovy will not go through the
 				// MOP for standard arithmetic operations on numbers
-				completeExprType = dependentExprType.equals(VariableScope.STRING_CLASS_NODE) ? VariableScope.STRING_CLASS_NODE
-						: primaryExprType;
+				ClassNode promoted = CanonicalTypes.promote(node.getOperation().getText().charAt(0), primaryExprType,
+						dependentExprType);
+				if (promoted != null) {
+					completeExprType = promoted;
+				} else {
+					completeExprType = CanonicalTypes.isString(dependentExprType) ? VariableScope.STRING_CLASS_NODE
+							: primaryExprType;
+				}
 			} else if (associatedMethod != null) {
 				// there is an overloadable method associated with this operation
 				// convert to a constant expression and infer type
@@ -1030,15 +1128,15 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 			case '+':
 			case '-':
 				// lists, numbers or string
-				return VariableScope.STRING_CLASS_NODE.equals(lhs) || lhs.isDerivedFrom(VariableScope.NUMBER_CLASS_NODE)
-						|| VariableScope.NUMBER_CLASS_NODE.equals(lhs) || VariableScope.LIST_CLASS_NODE.equals(lhs)
+				return CanonicalTypes.isString(lhs) || CanonicalTypes.isNumber(lhs)
+						|| lhs.isDerivedFrom(VariableScope.NUMBER_CLASS_NODE) || VariableScope.LIST_CLASS_NODE.equals(lhs)
 						|| lhs.implementsInterface(VariableScope.LIST_CLASS_NODE);
 			case '*':
 			case '/':
 			case '%':
 				// numbers or string
-				return VariableScope.STRING_CLASS_NODE.equals(lhs) || lhs.isDerivedFrom(VariableScope.NUMBER_CLASS_NODE)
-						|| VariableScope.NUMBER_CLASS_NODE.equals(lhs);
+				return CanonicalTypes.isString(lhs) || CanonicalTypes.isNumber(lhs)
+						|| lhs.isDerivedFrom(VariableScope.NUMBER_CLASS_NODE);
 			default:
 				return false;
 		}
@@ -1174,7 +1272,7 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 				for (int i = 0; i < node.getParameters().length; i++) {
 					Parameter parameter = node.getParameters()[i];
 					if (implicitParamType[i] != VariableScope.OBJECT_CLASS_NODE
-							&& parameter.getType().equals(VariableScope.OBJECT_CLASS_NODE)) {
+							&& CanonicalTypes.isObject(parameter.getType())) {
 						parameter.setType(implicitParamType[i]);
 						scope.addVariable(parameter);
 					}
@@ -1278,12 +1376,23 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		return allInferred;
 	}
 
+	@SuppressWarnings("cast")
 	@Override
 	public void visitBlockStatement(BlockStatement block) {
 		scopes.push(new VariableScope(scopes.peek(), block, false));
 		boolean shouldContinue = handleStatement(block);
 		if (shouldContinue) {
-			super.visitBlockStatement(block);
+			if (targetStart < 0) {
+				super.visitBlockStatement(block);
+			} else {
+				for (Statement statement : (Iterable<Statement>) block.getStatements()) {
+					checkBudget();
+					// out of time, so only visit the statements on the way to the target
+					if (!budgetExceeded || overlapsTarget(statement)) {
+						statement.visit(this);
+					}
+				}
+			}
 		}
 		scopes.pop();
 	}
@@ -1319,7 +1428,7 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 			handleParameterList(new Parameter[] { param });
 
 			// now update the type of the parameter with the collection type
-			if (param.getType().equals(VariableScope.OBJECT_CLASS_NODE)) {
+			if (CanonicalTypes.isObject(param.getType())) {
 				ClassNode extractedElementType = VariableScope.extractElementType(collectionType);
 				scopes.peek().addVariable(param.getName(), extractedElementType, null);
 			}
@@ -1585,9 +1694,8 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		// now infer the type of the operator. It could have been overloaded
 		String associatedMethod = findUnaryOperatorName(operation);
 		ClassNode completeExprType;
-		if (associatedMethod == null && primaryType.equals(VariableScope.NUMBER_CLASS_NODE)
-				|| primaryType.isDerivedFrom(VariableScope.NUMBER_CLASS_NODE)) {
-			completeExprType = primaryType;
+		if (CanonicalTypes.isNumber(primaryType) || primaryType.isDerivedFrom(VariableScope.NUMBER_CLASS_NODE)) {
+			completeExprType = CanonicalTypes.box(primaryType);
 		} else {
 			// there is an overloadable method associated with this operation
 			// convert to a constant expression and infer type
@@ -1743,19 +1851,8 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 	}
 
 	private void visitAnnotation(AnnotationNode node) {
-		TypeLookupResult result = null;
 		VariableScope scope = scopes.peek();
-		for (ITypeLookup lookup : lookups) {
-			TypeLookupResult candidate = lookup.lookupType(node, scope);
-			if (candidate != null) {
-				if (result == null || result.confidence.isLessPreciseThan(candidate.confidence)) {
-					result = candidate;
-				}
-				if (TypeConfidence.LOOSELY_INFERRED.isLessPreciseThan(result.confidence)) {
-					break;
-				}
-			}
-		}
+		TypeLookupResult result = lookupType(node, scope, null, false);
 		VisitStatus status = notifyRequestor(node, requestor, result);
 
 		switch (status) {
@@ -1788,10 +1885,14 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		scope.setPrimaryNode(false);
 
 		if (node instanceof BlockStatement) {
-			for (ITypeLookup lookup : lookups) {
-				if (lookup instanceof ITypeLookupExtension) {
+			for (int i = 0; i < lookups.length; i++) {
+				if (lookups[i] instanceof ITypeLookupExtension) {
 					// must ensure that declaring type information at the start of the block is invoked
-					((ITypeLookupExtension) lookup).lookupInBlock((BlockStatement) node, scope);
+					long start = statistics != null ? System.nanoTime() : 0;
+					((ITypeLookupExtension) lookups[i]).lookupInBlock((BlockStatement) node, scope);
+					if (statistics != null) {
+						statistics[i].recordCall(System.nanoTime() - start);
+					}
 				}
 			}
 		}
@@ -1856,26 +1957,98 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 	}
 
 	private TypeLookupResult lookupExpressionType(Expression node, ClassNode objectExprType, boolean isStatic, VariableScope scope) {
+		InferenceResultStore.LookupContext context = null;
+		if (resultStore != null) {
+			context = new InferenceResultStore.LookupContext(objectExprType, isStatic, enclosingDeclarationNode, scope,
+					lookupKinds);
+			TypeLookupResult result = resultStore.get(node, context, scope);
+			if (result != null) {
+				return result;
+			}
+		}
+		TypeLookupResult result = lookupType(node, scope, objectExprType, isStatic);
+		if (storeResults) {
+			resultStore.put(node, context, result);
+		} else if (budgetExceeded && result != null && TypeConfidence.INFERRED.isLessPreciseThan(result.confidence)) {
+			result = new TypeLookupResult(result.type, result.declaringType, result.declaration, TypeConfidence.INFERRED, scope,
+					result.extraDoc);
+		}
+		return result;
+	}
+
+	/**
+	 * Asks the lookups in order for the type of the node until one of them is more than loosely confident, and answers the most
+	 * precise result
+	 * 
+	 * @param objectExprType only used for expressions
+	 * @param isStatic only used for expressions
+	 */
+	private TypeLookupResult lookupType(ASTNode node, VariableScope scope, ClassNode objectExprType, boolean isStatic) {
 		TypeLookupResult result = null;
-		for (ITypeLookup lookup : lookups) {
-			TypeLookupResult candidate;
-			if (lookup instanceof ITypeLookupExtension) {
-				candidate = ((ITypeLookupExtension) lookup).lookupType(node, scope, objectExprType, isStatic);
-			} else {
-				candidate = lookup.lookupType(node, scope, objectExprType);
+		int used = -1;
+		for (int i = 0; i < lookups.length; i++) {
+			checkBudget();
+			if (budgetExceeded && !overlapsTarget(node)) {
+				// out of time, so settle for what the lookups asked so far have answered
+				if (result == null) {
+					result = new TypeLookupResult(VariableScope.OBJECT_CLASS_NODE, VariableScope.OBJECT_CLASS_NODE, null,
+							TypeConfidence.UNKNOWN, scope);
+				}
+				break;
 			}
+			TypeLookupResult candidate = callLookup(i, node, scope, objectExprType, isStatic);
 			if (candidate != null) {
 				if (result == null || result.confidence.isLessPreciseThan(candidate.confidence)) {
 					result = candidate;
+					used = i;
 				}
 				if (TypeConfidence.LOOSELY_INFERRED.isLessPreciseThan(result.confidence)) {
 					break;
 				}
 			}
 		}
+		if (statistics != null && used >= 0) {
+			statistics[used].recordUsed(result.confidence);
+		}
 		return result;
 	}
 
+	private TypeLookupResult callLookup(int index, ASTNode node, VariableScope scope, ClassNode objectExprType,
+			boolean isStatic) {
+		if (statistics == null) {
+			return callLookup(lookups[index], node, scope, objectExprType, isStatic);
+		}
+		long start = System.nanoTime();
+		try {
+			return callLookup(lookups[index], node, scope, objectExprType, isStatic);
+		} finally {
+			statistics[index].recordCall(System.nanoTime() - start);
+		}
+	}
+
+	private static TypeLookupResult callLookup(ITypeLookup lookup, ASTNode node, VariableScope scope, ClassNode objectExprType,
+			boolean isStatic) {
+		if (node instanceof Expression) {
+			if (lookup instanceof ITypeLookupExtension) {
+				return ((ITypeLookupExtension) lookup).lookupType((Expression) node, scope, objectExprType, isStatic);
+			}
+			return lookup.lookupType((Expression) node, scope, objectExprType);
+		} else if (node instanceof ClassNode) {
+			return lookup.lookupType((ClassNode) node, scope);
+		} else if (node instanceof FieldNode) {
+			return lookup.lookupType((FieldNode) node, scope);
+		} else if (node instanceof MethodNode) {
+			return lookup.lookupType((MethodNode) node, scope);
+		} else if (node instanceof Parameter) {
+			return lookup.lookupType((Parameter) node, scope);
+		} else if (node instanceof AnnotationNode) {
+			return lookup.lookupType((AnnotationNode) node, scope);
+		} else if (node instanceof ImportNode) {
+			return lookup.lookupType((ImportNode) node, scope);
+		}
+		throw new IllegalArgumentException("No type lookup for " + node.getClass().getName()); //$NON-NLS-1$
+	}
+
 	/**
 	 * Finds the number of arguments of the current method call. Returns -1 if not a method call. Returns 0 if no arguments else
 	 * returns the number of arguments.
@@ -1904,21 +2077,25 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 			for (Parameter node : params) {
 				assignmentStorer.storeParameterType(node, scope);
 				TypeLookupResult result = null;
-				for (ITypeLookup lookup : lookups) {
+				int used = -1;
+				for (int i = 0; i < lookups.length; i++) {
 					// the first lookup is used to store the type of the
 					// parameter in the sope
-					lookup.lookupType(node, scope);
-					result = lookup.lookupType(node.getType(), scope);
-					TypeLookupResult candidate = lookup.lookupType(node.getType(), scope);
+					callLookup(i, node, scope, null, false);
+					TypeLookupResult candidate = callLookup(i, node.getType(), scope, null, false);
 					if (candidate != null) {
 						if (result == null || result.confidence.isLessPreciseThan(candidate.confidence)) {
 							result = candidate;
+							used = i;
 						}
 						if (TypeConfidence.LOOSELY_INFERRED.isLessPreciseThan(result.confidence)) {
 							break;
 						}
 					}
 				}
+				if (statistics != null && used >= 0) {
+					statistics[used].recordUsed(result.confidence);
+				}
 				// visit the parameter itself
 				TypeLookupResult parameterResult = new TypeLookupResult(result.type, result.declaringType, node,
 						TypeConfidence.EXACT, scope);
@@ -1950,6 +2127,9 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 	private boolean handleRequestor(Expression node, ClassNode primaryType, TypeLookupResult result) {
 		result.enclosingAssignment = enclosingAssignment;
 		VisitStatus status = requestor.acceptASTNode(node, result, enclosingElement);
+		if (status != VisitStatus.CONTINUE) {
+			storeResults = false;
+		}
 		VariableScope scope = scopes.peek();
 		// forget the number of arguments
 		scope.setMethodCallNumberOfArguments(-1);
@@ -1981,7 +2161,11 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
 	private VisitStatus notifyRequestor(ASTNode node, ITypeRequestor requestor, TypeLookupResult result) {
 		// result is never null because SimpleTypeLookup always returns non-null
-		return requestor.acceptASTNode(node, result, enclosingElement);
+		VisitStatus status = requestor.acceptASTNode(node, result, enclosingElement);
+		if (status != VisitStatus.CONTINUE) {
+			storeResults = false;
+		}
+		return status;
 	}
 
 	private MethodNode findMethodNode(IMethod method) {
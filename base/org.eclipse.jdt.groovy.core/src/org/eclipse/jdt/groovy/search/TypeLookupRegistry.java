@@ -17,20 +17,34 @@
 package org.eclipse.jdt.groovy.search;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExecutableExtension;
 import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IRegistryChangeEvent;
+import org.eclipse.core.runtime.IRegistryChangeListener;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jdt.internal.core.util.Util;
 
 /**
  * Manages type lookups
+ * <p>
+ * The chain of lookups that applies to a project (which depends on the natures of the project) is worked out once and cached
+ * until the natures of the project or the contributions to the type lookup extension point change. Lookups keep state for the
+ * visit they are part of (see {@link ITypeLookup#initialize}), so every call still answers new lookup instances, but they are
+ * created from the cached lookup classes rather than by going through the extension registry again.
  * 
  * @author Andrew Eisenberg
  * @created Nov 17, 2009
@@ -53,29 +67,116 @@ public class TypeLookupRegistry {
 	// maps from project nature to lists of type lookup classes
 	private Map<String, List<IConfigurationElement>> natureLookupMap = new HashMap<String, List<IConfigurationElement>>();
 
+	// maps from project name to the lookup chain of the project
+	private final Map<String, List<LookupFactory>> projectLookups = new HashMap<String, List<LookupFactory>>();
+
+	/**
+	 * Creates the lookups of one contribution to the extension point
+	 */
+	private static class LookupFactory {
+		private final IConfigurationElement config;
+
+		// only known once the first lookup has been created, and only used if the lookup needs no initialization data
+		private Class<?> lookupClass;
+
+		LookupFactory(IConfigurationElement config) {
+			this.config = config;
+		}
+
+		synchronized ITypeLookup create() throws CoreException {
+			if (lookupClass != null) {
+				try {
+					return (ITypeLookup) lookupClass.newInstance();
+				} catch (Exception e) {
+					// fall back to the extension registry
+					lookupClass = null;
+				}
+			}
+			ITypeLookup lookup = (ITypeLookup) config.createExecutableExtension(LOOKUP);
+			if (!(lookup instanceof IExecutableExtension)) {
+				lookupClass = lookup.getClass();
+			}
+			return lookup;
+		}
+	}
+
 	List<ITypeLookup> getLookupsFor(IProject project) throws CoreException {
 		if (!project.exists()) {
 			return new ArrayList<ITypeLookup>(3);
 		}
-		String[] natures = project.getDescription().getNatureIds();
-		List<ITypeLookup> lookups = new ArrayList<ITypeLookup>();
-		for (String nature : natures) {
-			List<IConfigurationElement> configs = natureLookupMap.get(nature);
-			if (configs != null) {
-				for (IConfigurationElement config : configs) {
-					try {
-						lookups.add((ITypeLookup) config.createExecutableExtension(LOOKUP));
-					} catch (CoreException e) {
-						Util.log(e, "Problem creating lookup for type " + config.getAttribute(LOOKUP)); //$NON-NLS-1$
+		List<LookupFactory> factories = getLookupFactories(project);
+		List<ITypeLookup> lookups = new ArrayList<ITypeLookup>(factories.size() + 2);
+		for (LookupFactory factory : factories) {
+			try {
+				lookups.add(factory.create());
+			} catch (CoreException e) {
+				Util.log(e, "Problem creating lookup for type " + factory.config.getAttribute(LOOKUP)); //$NON-NLS-1$
+			}
+		}
+		return lookups;
+	}
+
+	private synchronized List<LookupFactory> getLookupFactories(IProject project) throws CoreException {
+		List<LookupFactory> factories = projectLookups.get(project.getName());
+		if (factories == null) {
+			factories = new ArrayList<LookupFactory>();
+			String[] natures = project.getDescription().getNatureIds();
+			for (String nature : natures) {
+				List<IConfigurationElement> configs = natureLookupMap.get(nature);
+				if (configs != null) {
+					for (IConfigurationElement config : configs) {
+						factories.add(new LookupFactory(config));
 					}
 				}
 			}
+			factories = Collections.unmodifiableList(factories);
+			projectLookups.put(project.getName(), factories);
 		}
-		return lookups;
+		return factories;
+	}
+
+	/**
+	 * Forgets the lookup chain of the project, eg- when its natures have changed
+	 */
+	synchronized void flushProject(String projectName) {
+		projectLookups.remove(projectName);
+		InferenceResultStore.flushAll();
 	}
 
 	private TypeLookupRegistry() {
 		initialize();
+		Platform.getExtensionRegistry().addRegistryChangeListener(new IRegistryChangeListener() {
+			public void registryChanged(IRegistryChangeEvent event) {
+				if (event.getExtensionDeltas("org.eclipse.jdt.groovy.core", "typeLookup").length > 0) { //$NON-NLS-1$ //$NON-NLS-2$
+					reinitialize();
+				}
+			}
+		});
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(new IResourceChangeListener() {
+			public void resourceChanged(IResourceChangeEvent event) {
+				if (event.getType() == IResourceChangeEvent.PRE_CLOSE || event.getType() == IResourceChangeEvent.PRE_DELETE) {
+					if (event.getResource() != null) {
+						flushProject(event.getResource().getName());
+					}
+				} else if (event.getDelta() != null) {
+					for (IResourceDelta delta : event.getDelta().getAffectedChildren()) {
+						if ((delta.getFlags() & (IResourceDelta.DESCRIPTION | IResourceDelta.OPEN)) != 0
+								|| delta.getKind() != IResourceDelta.CHANGED) {
+							IResource resource = delta.getResource();
+							flushProject(resource.getName());
+						}
+					}
+				}
+			}
+		}, IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+	}
+
+	private synchronized void reinitialize() {
+		natureLookupMap = new HashMap<String, List<IConfigurationElement>>();
+		projectLookups.clear();
+		initialize();
+		// stored results may have come from lookups that are gone now
+		InferenceResultStore.flushAll();
 	}
 
 	private void initialize() {
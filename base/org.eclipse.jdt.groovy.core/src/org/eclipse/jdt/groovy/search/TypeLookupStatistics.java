@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.groovy.search.TypeLookupResult.TypeConfidence;
+
+/**
+ * Collects, per {@link ITypeLookup} implementation, how often the inferencing engine calls it, how long those calls take and how
+ * often its result is the one that is used, by the {@link TypeConfidence} of the result. This tells which of the contributed lookups
+ * inferencing spends its time in and which of them earn their keep.
+ *
+ * Collecting is off by default and only costs a field read per lookup call when off. Switch it on with
+ * {@link #setEnabled(boolean)} or by setting the system property <code>greclipse.lookupstats</code>. Visitors created while it is
+ * off are not measured.
+ */
+public class TypeLookupStatistics {
+
+	private static volatile boolean enabled = System.getProperty("greclipse.lookupstats") != null; //$NON-NLS-1$
+
+	// lookup class name -> statistics, sorted for the dump
+	private static final Map<String, TypeLookupStatistics> statistics = new TreeMap<String, TypeLookupStatistics>();
+
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return the statistics to record the calls of the lookups in, or null if no statistics are collected
+	 */
+	static TypeLookupStatistics[] forLookups(ITypeLookup[] lookups) {
+		if (!enabled) {
+			return null;
+		}
+		TypeLookupStatistics[] result = new TypeLookupStatistics[lookups.length];
+		synchronized (statistics) {
+			for (int i = 0; i < lookups.length; i++) {
+				String name = lookups[i].getClass().getName();
+				TypeLookupStatistics stats = statistics.get(name);
+				if (stats == null) {
+					stats = new TypeLookupStatistics(name);
+					statistics.put(name, stats);
+				}
+				result[i] = stats;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the statistics of all lookups that have been measured, sorted by the class name of the lookup
+	 */
+	public static List<TypeLookupStatistics> getAll() {
+		synchronized (statistics) {
+			return new ArrayList<TypeLookupStatistics>(statistics.values());
+		}
+	}
+
+	public static void reset() {
+		synchronized (statistics) {
+			statistics.clear();
+		}
+	}
+
+	/**
+	 * @return one line per lookup with its number of calls, total time and the number of results used per confidence
+	 */
+	public static String dump() {
+		StringBuilder sb = new StringBuilder();
+		long allNanos = 0;
+		List<TypeLookupStatistics> all = getAll();
+		for (TypeLookupStatistics stats : all) {
+			allNanos += stats.getNanos();
+		}
+		for (TypeLookupStatistics stats : all) {
+			sb.append(stats.getLookupName()).append(": ").append(stats.getCalls()).append(" calls, ");
+			sb.append(String.format("%.1fms (%.0f%%)", stats.getNanos() / 1000000d, allNanos > 0 ? stats.getNanos() * 100d
+					/ allNanos : 0d));
+			sb.append(", used");
+			for (TypeConfidence confidence : TypeConfidence.values()) {
+				sb.append(' ').append(confidence).append('=').append(stats.getUsed(confidence));
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	private final String lookupName;
+
+	private final AtomicLong calls = new AtomicLong();
+
+	private final AtomicLong nanos = new AtomicLong();
+
+	private final AtomicLong[] used = new AtomicLong[TypeConfidence.values().length];
+
+	private TypeLookupStatistics(String lookupName) {
+		this.lookupName = lookupName;
+		for (int i = 0; i < used.length; i++) {
+			used[i] = new AtomicLong();
+		}
+	}
+
+	void recordCall(long callNanos) {
+		calls.incrementAndGet();
+		nanos.addAndGet(callNanos);
+	}
+
+	void recordUsed(TypeConfidence confidence) {
+		used[confidence.ordinal()].incrementAndGet();
+	}
+
+	/**
+	 * @return the fully qualified name of the class of the lookup
+	 */
+	public String getLookupName() {
+		return lookupName;
+	}
+
+	public long getCalls() {
+		return calls.get();
+	}
+
+	public long getNanos() {
+		return nanos.get();
+	}
+
+	/**
+	 * @return how often the result of the lookup was the one used by inferencing, and had the given confidence
+	 */
+	public long getUsed(TypeConfidence confidence) {
+		return used[confidence.ordinal()].get();
+	}
+}
@@ -377,7 +377,8 @@ public class TypeReferenceSearchRequestor implements ITypeRequestor {
 	 * @return
 	 */
 	private boolean shouldAlwaysBeAccurate() {
-		return requestor.getClass().getPackage().getName().indexOf("refactoring") != -1; //$NON-NLS-1$
+		return BufferingSearchRequestor.unwrap(requestor).getClass().getPackage().getName()
+				.indexOf("refactoring") != -1; //$NON-NLS-1$
 	}
 
 	private int getAccuracy(TypeConfidence confidence) {
@@ -17,7 +17,9 @@
 package org.eclipse.jdt.groovy.search;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jdt.core.ILocalVariable;
 import org.eclipse.jdt.core.JavaModelException;
@@ -72,16 +74,24 @@ public class TypeRequestorFactory {
 		} else if (pattern instanceof OrPattern) {
 			SearchPattern[] patterns = getPatterns((OrPattern) pattern);
 			List<ITypeRequestor> requestors = new ArrayList<ITypeRequestor>(patterns.length);
+			// if all patterns match by name (eg- the synthetic accessors of a property), check the name of a node only once
+			Set<String> names = new HashSet<String>();
 			for (SearchPattern orPattern : patterns) {
 				if (orPattern != null) {
 					ITypeRequestor maybeRequestor = createRequestor(possibleMatch, orPattern, requestor);
 					if (maybeRequestor != null) {
 						requestors.add(maybeRequestor);
+						char[] name = ReferenceNameIndex.getName(orPattern);
+						if (names != null && name != null) {
+							names.add(String.valueOf(name));
+						} else {
+							names = null;
+						}
 					}
 				}
 			}
 
-			return new OrPatternRequestor(requestors);
+			return new OrPatternRequestor(requestors, names);
 		}
 
 		return null;
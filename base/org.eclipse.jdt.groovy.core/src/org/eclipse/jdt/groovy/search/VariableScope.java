@@ -34,7 +34,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.Stack;
 import java.util.regex.Matcher;
 
 import org.codehaus.groovy.ast.ASTNode;
@@ -189,6 +188,28 @@ public class VariableScope {
 		}
 	}
 
+	private static class VariableEntry implements Map.Entry<String, VariableInfo> {
+		private final String name;
+		private final VariableInfo info;
+
+		VariableEntry(String name, VariableInfo info) {
+			this.name = name;
+			this.info = info;
+		}
+
+		public String getKey() {
+			return name;
+		}
+
+		public VariableInfo getValue() {
+			return info;
+		}
+
+		public VariableInfo setValue(VariableInfo value) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
 	public static class CallAndType {
 		public CallAndType(MethodCallExpression call, ClassNode declaringType) {
 			this.call = call;
@@ -208,13 +229,15 @@ public class VariableScope {
 		 */
 		final Map<String, Object> wormhole = new HashMap<String, Object>();
 		/**
-		 * the enclosing method call is the one where there are the current node is part of an argument list
+		 * the enclosing method call is the one where there are the current node is part of an argument list. The top of the stack is
+		 * the last element.
 		 */
-		final Stack<CallAndType> enclosingCallStack = new Stack<VariableScope.CallAndType>();
+		final List<CallAndType> enclosingCallStack = new ArrayList<CallAndType>();
 		/**
-		 * Node currently being evaluated, or null if none
+		 * Nodes being evaluated, the current one last. Not a {@link java.util.Stack}, whose methods are all synchronized.
 		 */
-		final Stack<ASTNode> nodeStack = new Stack<ASTNode>();
+		ASTNode[] nodeStack = new ASTNode[16];
+		int nodeStackSize;
 
 		/**
 		 * true iff current scope is implicit run method of script
@@ -239,7 +262,23 @@ public class VariableScope {
 	 */
 	private ASTNode scopeNode;
 
-	private Map<String, VariableInfo> nameVariableMap = new HashMap<String, VariableInfo>();
+	/**
+	 * The variables declared in this scope, in the order of declaration. Most scopes (blocks, closures, methods) declare only a few
+	 * variables or none at all, so instead of a hash map per scope the names and infos are kept in small arrays that are only
+	 * allocated when the first variable is added. Names are interned, so they are usually found by identity.
+	 */
+	private String[] names;
+
+	private VariableInfo[] infos;
+
+	private int numVariables;
+
+	/**
+	 * Only created for scopes with many variables (eg- large script bodies), maps names to their index in the arrays
+	 */
+	private Map<String, Integer> nameIndex;
+
+	private static final int INDEX_THRESHOLD = 16;
 
 	private boolean isStaticScope;
 
@@ -293,11 +332,8 @@ public class VariableScope {
 	}
 
 	public ASTNode getEnclosingNode() {
-		if (shared.nodeStack.size() > 1) {
-			ASTNode current = shared.nodeStack.pop();
-			ASTNode enclosing = shared.nodeStack.peek();
-			shared.nodeStack.push(current);
-			return enclosing;
+		if (shared.nodeStackSize > 1) {
+			return shared.nodeStack[shared.nodeStackSize - 2];
 		} else {
 			return null;
 		}
@@ -308,18 +344,25 @@ public class VariableScope {
 	}
 
 	public void setCurrentNode(ASTNode currentNode) {
-		shared.nodeStack.push(currentNode);
+		SharedState state = shared;
+		if (state.nodeStackSize == state.nodeStack.length) {
+			ASTNode[] grown = new ASTNode[state.nodeStackSize * 2];
+			System.arraycopy(state.nodeStack, 0, grown, 0, state.nodeStackSize);
+			state.nodeStack = grown;
+		}
+		state.nodeStack[state.nodeStackSize++] = currentNode;
 	}
 
 	public void forgetCurrentNode() {
-		if (!shared.nodeStack.isEmpty()) {
-			shared.nodeStack.pop();
+		SharedState state = shared;
+		if (state.nodeStackSize > 0) {
+			state.nodeStack[--state.nodeStackSize] = null;
 		}
 	}
 
 	public ASTNode getCurrentNode() {
-		if (!shared.nodeStack.isEmpty()) {
-			return shared.nodeStack.peek();
+		if (shared.nodeStackSize > 0) {
+			return shared.nodeStack[shared.nodeStackSize - 1];
 		} else {
 			return null;
 		}
@@ -414,7 +457,56 @@ public class VariableScope {
 	 * @return
 	 */
 	public VariableInfo lookupNameInCurrentScope(String name) {
-		return nameVariableMap.get(name);
+		int index = indexOf(name);
+		return index >= 0 ? infos[index] : null;
+	}
+
+	private int indexOf(String name) {
+		if (numVariables == 0) {
+			return -1;
+		}
+		if (nameIndex != null) {
+			Integer index = nameIndex.get(name);
+			return index != null ? index : -1;
+		}
+		// names are interned, so equals() mostly succeeds on its identity check
+		for (int i = 0; i < numVariables; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void putVariable(String name, VariableInfo info) {
+		int index = indexOf(name);
+		if (index >= 0) {
+			infos[index] = info;
+			return;
+		}
+		if (names == null) {
+			names = new String[4];
+			infos = new VariableInfo[4];
+		} else if (numVariables == names.length) {
+			String[] newNames = new String[numVariables * 2];
+			VariableInfo[] newInfos = new VariableInfo[numVariables * 2];
+			System.arraycopy(names, 0, newNames, 0, numVariables);
+			System.arraycopy(infos, 0, newInfos, 0, numVariables);
+			names = newNames;
+			infos = newInfos;
+		}
+		name = name.intern();
+		names[numVariables] = name;
+		infos[numVariables] = info;
+		if (nameIndex != null) {
+			nameIndex.put(name, numVariables);
+		} else if (numVariables == INDEX_THRESHOLD) {
+			nameIndex = new HashMap<String, Integer>(INDEX_THRESHOLD * 4);
+			for (int i = 0; i <= numVariables; i++) {
+				nameIndex.put(names[i], i);
+			}
+		}
+		numVariables++;
 	}
 
 	public boolean isThisOrSuper(Variable var) {
@@ -422,7 +514,7 @@ public class VariableScope {
 	}
 
 	public void addVariable(String name, ClassNode type, ClassNode declaringType) {
-		nameVariableMap.put(name, new VariableInfo(type, declaringType != null ? declaringType : OBJECT_CLASS_NODE));
+		putVariable(name, new VariableInfo(type, declaringType != null ? declaringType : OBJECT_CLASS_NODE));
 	}
 
 	public void addVariable(Variable var) {
@@ -470,10 +562,7 @@ public class VariableScope {
 	}
 
 	public static ClassNode maybeConvertFromPrimitive(ClassNode type) {
-		if (ClassHelper.isPrimitiveType(type)) {
-			return ClassHelper.getWrapper(type);
-		}
-		return type;
+		return CanonicalTypes.box(type);
 	}
 
 	private static PropertyNode createPropertyNodeForMethodNode(MethodNode methodNode) {
@@ -502,10 +591,7 @@ public class VariableScope {
 	}
 
 	public static boolean isVoidOrObject(ClassNode maybeVoid) {
-		return maybeVoid != null
-				&& (maybeVoid.getName().equals(VOID_CLASS_NODE.getName())
-						|| maybeVoid.getName().equals(VOID_WRAPPER_CLASS_NODE.getName()) || maybeVoid.getName().equals(
-						OBJECT_CLASS_NODE.getName()));
+		return CanonicalTypes.isVoidOrObject(maybeVoid);
 	}
 
 	/**
@@ -542,9 +628,9 @@ public class VariableScope {
 	 * @return
 	 */
 	private boolean internalUpdateVariable(String name, ClassNode type, ClassNode declaringType) {
-		VariableInfo info = lookupNameInCurrentScope(name);
-		if (info != null) {
-			nameVariableMap.put(name, new VariableInfo(type, declaringType == null ? info.declaringType : declaringType));
+		int index = indexOf(name);
+		if (index >= 0) {
+			infos[index] = new VariableInfo(type, declaringType == null ? infos[index].declaringType : declaringType);
 			return true;
 		} else if (parent != null) {
 			return parent.internalUpdateVariable(name, type, declaringType);
@@ -782,19 +868,21 @@ public class VariableScope {
 	}
 
 	public CallAndType getEnclosingMethodCallExpression() {
-		if (shared.enclosingCallStack.isEmpty()) {
+		List<CallAndType> calls = shared.enclosingCallStack;
+		if (calls.isEmpty()) {
 			return null;
 		} else {
-			return shared.enclosingCallStack.peek();
+			return calls.get(calls.size() - 1);
 		}
 	}
 
 	public void addEnclosingMethodCall(CallAndType enclosingMethodCall) {
-		shared.enclosingCallStack.push(enclosingMethodCall);
+		shared.enclosingCallStack.add(enclosingMethodCall);
 	}
 
 	public void forgetEnclosingMethodCall() {
-		shared.enclosingCallStack.pop();
+		List<CallAndType> calls = shared.enclosingCallStack;
+		calls.remove(calls.size() - 1);
 	}
 
 	public boolean isTopLevel() {
@@ -805,10 +893,10 @@ public class VariableScope {
 	 * Does the following name exist in this scope (does not recur up to parent scopes).
 	 * 
 	 * @param name
-	 * @return true iff in the {@link #nameVariableMap}
+	 * @return true iff declared in this scope
 	 */
 	public boolean containsInThisScope(String name) {
-		return nameVariableMap.containsKey(name);
+		return indexOf(name) >= 0;
 	}
 
 	/**
@@ -830,24 +918,22 @@ public class VariableScope {
 	public Iterator<Map.Entry<String, VariableInfo>> variablesIterator() {
 		return new Iterator<Map.Entry<String, VariableInfo>>() {
 			VariableScope currentScope = VariableScope.this;
-			Iterator<Map.Entry<String, VariableInfo>> currentIter = currentScope.nameVariableMap.entrySet().iterator();
+			int currentIndex = 0;
 
 			public boolean hasNext() {
-				if (currentIter == null) {
-					return false;
-				}
-				if (!currentIter.hasNext()) {
+				while (currentScope != null && currentIndex >= currentScope.numVariables) {
 					currentScope = currentScope.parent;
-					currentIter = currentScope == null ? null : currentScope.nameVariableMap.entrySet().iterator();
+					currentIndex = 0;
 				}
-				return currentIter != null && currentIter.hasNext();
+				return currentScope != null;
 			}
 
 			public Entry<String, VariableInfo> next() {
-				if (!currentIter.hasNext()) {
+				if (!hasNext()) {
 					throw new NoSuchElementException();
 				}
-				return currentIter.next();
+				int index = currentIndex++;
+				return new VariableEntry(currentScope.names[index], currentScope.infos[index]);
 			}
 
 			public void remove() {
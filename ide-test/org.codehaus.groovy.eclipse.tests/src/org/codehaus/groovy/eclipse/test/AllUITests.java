@@ -26,6 +26,7 @@ import org.codehaus.groovy.eclipse.test.actions.SaveParticipantRegistryTest;
 import org.codehaus.groovy.eclipse.test.adapters.GroovyFileAdapterFactoryTestCase;
 import org.codehaus.groovy.eclipse.test.adapters.GroovyIFileEditorInputAdapterFactoryTestCase;
 import org.codehaus.groovy.eclipse.test.adapters.IsMainTesterTests;
+import org.codehaus.groovy.eclipse.test.core.TypeLookupRegistryTests;
 import org.codehaus.groovy.eclipse.test.core.util.ExpressionFinderTestCase;
 import org.codehaus.groovy.eclipse.test.debug.BreakpointLocationTests;
 import org.codehaus.groovy.eclipse.test.debug.ConsoleLineTrackerTests;
@@ -56,6 +57,7 @@ public class AllUITests {
 		suite.addTestSuite(GroovyIFileEditorInputAdapterFactoryTestCase.class);
 		suite.addTestSuite(IsMainTesterTests.class);
 		suite.addTestSuite(ExpressionFinderTestCase.class);
+		suite.addTestSuite(TypeLookupRegistryTests.class);
 		suite.addTestSuite(GroovyTagScannerTests.class);
 		suite.addTestSuite(DebugBreakpointsTests.class);
 		suite.addTestSuite(BreakpointLocationTests.class);
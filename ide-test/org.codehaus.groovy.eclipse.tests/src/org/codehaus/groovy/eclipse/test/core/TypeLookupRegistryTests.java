@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.test.core;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.eclipse.test.Activator;
+import org.codehaus.groovy.eclipse.test.EclipseTestCase;
+import org.codehaus.groovy.eclipse.test.TestProject;
+import org.codehaus.groovy.eclipse.test.ui.Extender1;
+import org.codehaus.groovy.eclipse.test.ui.Extender2;
+import org.codehaus.groovy.eclipse.tests.TestExecutableTypeLookup;
+import org.codehaus.groovy.eclipse.tests.TestTypeLookup;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.ContributorFactoryOSGi;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.ITypeLookup;
+import org.eclipse.jdt.groovy.search.TypeLookupRegistry;
+
+/**
+ * Tests that the {@link TypeLookupRegistry} answers new lookups from the lookup chain it caches per project, and that the chain
+ * is worked out again when the natures of the project, the project itself or the type lookup contributions change.
+ *
+ * The lookups contributed by this plugin apply to {@link Extender1#NATURE1} and {@link Extender2#NATURE2}.
+ */
+public class TypeLookupRegistryTests extends EclipseTestCase {
+
+    private static final String TYPE_LOOKUP_POINT = "org.eclipse.jdt.groovy.core.typeLookup";
+
+    public TypeLookupRegistryTests(String name) {
+        super(name);
+    }
+
+    public void testFreshLookupsFromCachedChain() throws Exception {
+        testProject.addNature(Extender1.NATURE1);
+        IProject project = testProject.getProject();
+
+        List<ITypeLookup> lookups1 = getLookupsFor(project);
+        Object chain = getCachedChain(project.getName());
+        assertNotNull("Lookup chain should be cached", chain);
+        List<ITypeLookup> lookups2 = getLookupsFor(project);
+        assertSame("Lookup chain should be reused", chain, getCachedChain(project.getName()));
+
+        List<ITypeLookup> found1 = find(lookups1, TestTypeLookup.class);
+        List<ITypeLookup> found2 = find(lookups2, TestTypeLookup.class);
+        assertEquals(1, found1.size());
+        assertEquals(1, found2.size());
+        assertNotSame("Each call should create new lookups", found1.get(0), found2.get(0));
+    }
+
+    public void testNatureChangeFlushesChain() throws Exception {
+        testProject.addNature(Extender1.NATURE1);
+        IProject project = testProject.getProject();
+        assertEquals(1, find(getLookupsFor(project), TestTypeLookup.class).size());
+        assertNotNull(getCachedChain(project.getName()));
+
+        testProject.addNature(Extender2.NATURE2);
+        assertNull("Changing the natures should flush the lookup chain", getCachedChain(project.getName()));
+        // the test lookup applies to both natures
+        assertEquals(2, find(getLookupsFor(project), TestTypeLookup.class).size());
+    }
+
+    public void testCloseFlushesChain() throws Exception {
+        testProject.addNature(Extender1.NATURE1);
+        IProject project = testProject.getProject();
+        getLookupsFor(project);
+        assertNotNull(getCachedChain(project.getName()));
+
+        project.close(null);
+        try {
+            assertNull("Closing the project should flush the lookup chain", getCachedChain(project.getName()));
+        } finally {
+            project.open(null);
+        }
+        assertEquals(1, find(getLookupsFor(project), TestTypeLookup.class).size());
+    }
+
+    public void testDeleteFlushesChain() throws Exception {
+        TestProject other = new TestProject("TypeLookupRegistryOther");
+        try {
+            other.addNature(Extender1.NATURE1);
+            getLookupsFor(other.getProject());
+            assertNotNull(getCachedChain("TypeLookupRegistryOther"));
+        } finally {
+            other.dispose();
+        }
+        assertNull("Deleting the project should flush the lookup chain", getCachedChain("TypeLookupRegistryOther"));
+    }
+
+    public void testRegistryChangeFlushesChain() throws Exception {
+        testProject.addNature(Extender1.NATURE1);
+        IProject project = testProject.getProject();
+        assertEquals(1, find(getLookupsFor(project), TestTypeLookup.class).size());
+
+        IExtension extension = contribute("dynamicTypeLookup", TestTypeLookup.class.getName());
+        try {
+            // registry change events are delivered asynchronously
+            waitForLookups(project, TestTypeLookup.class, 2);
+        } finally {
+            remove(extension);
+        }
+        waitForLookups(project, TestTypeLookup.class, 1);
+    }
+
+    public void testExecutableExtensionsCreatedByRegistry() throws Exception {
+        testProject.addNature(Extender1.NATURE1);
+        IProject project = testProject.getProject();
+        getLookupsFor(project);
+
+        IExtension extension = contribute("executableTypeLookup", TestExecutableTypeLookup.class.getName() + ":data");
+        try {
+            waitForLookups(project, TestExecutableTypeLookup.class, 1);
+            TestExecutableTypeLookup lookup1 = (TestExecutableTypeLookup) find(getLookupsFor(project),
+                    TestExecutableTypeLookup.class).get(0);
+            TestExecutableTypeLookup lookup2 = (TestExecutableTypeLookup) find(getLookupsFor(project),
+                    TestExecutableTypeLookup.class).get(0);
+            assertNotSame(lookup1, lookup2);
+            assertEquals("Lookup should have been initialized by the extension registry", "data", lookup1.initializationData);
+            assertEquals("Lookup should have been initialized by the extension registry", "data", lookup2.initializationData);
+        } finally {
+            remove(extension);
+        }
+    }
+
+    private static Object getRegistry() throws Exception {
+        return ReflectionUtils.throwableExecutePrivateMethod(TypeLookupRegistry.class, "getRegistry", new Class<?>[0], null,
+                new Object[0]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ITypeLookup> getLookupsFor(IProject project) throws Exception {
+        return (List<ITypeLookup>) ReflectionUtils.throwableExecutePrivateMethod(TypeLookupRegistry.class, "getLookupsFor",
+                new Class<?>[] { IProject.class }, getRegistry(), new Object[] { project });
+    }
+
+    private static Object getCachedChain(String projectName) throws Exception {
+        Object registry = getRegistry();
+        Map<?, ?> projectLookups = (Map<?, ?>) ReflectionUtils.getPrivateField(TypeLookupRegistry.class, "projectLookups",
+                registry);
+        synchronized (registry) {
+            return projectLookups.get(projectName);
+        }
+    }
+
+    private static List<ITypeLookup> find(List<ITypeLookup> lookups, Class<?> lookupClass) {
+        List<ITypeLookup> found = new ArrayList<ITypeLookup>();
+        for (ITypeLookup lookup : lookups) {
+            if (lookup.getClass() == lookupClass) {
+                found.add(lookup);
+            }
+        }
+        return found;
+    }
+
+    private static void waitForLookups(IProject project, Class<?> lookupClass, int expected) throws Exception {
+        int found = -1;
+        for (int i = 0; i < 100; i++) {
+            found = find(getLookupsFor(project), lookupClass).size();
+            if (found == expected) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("Expected " + expected + " lookups of " + lookupClass.getSimpleName() + ", but found " + found);
+    }
+
+    /**
+     * Contributes a type lookup for {@link Extender1#NATURE1} from this plugin
+     */
+    private static IExtension contribute(String id, String lookup) throws Exception {
+        IExtensionRegistry registry = Platform.getExtensionRegistry();
+        String contents = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<?eclipse version=\"3.4\"?>\n<plugin>\n"
+                + "<extension id=\"" + id + "\" point=\"" + TYPE_LOOKUP_POINT + "\">\n"
+                + "<lookup lookup=\"" + lookup + "\">\n"
+                + "<appliesTo projectNature=\"" + Extender1.NATURE1 + "\"/>\n"
+                + "</lookup>\n</extension>\n</plugin>\n";
+        assertTrue("Could not contribute " + lookup, registry.addContribution(new ByteArrayInputStream(contents.getBytes("UTF-8")),
+                ContributorFactoryOSGi.createContributor(Activator.bundle()), false, id, null, getUserToken(registry)));
+        IExtension extension = registry.getExtension(TYPE_LOOKUP_POINT, Activator.bundle().getSymbolicName() + "." + id);
+        assertNotNull("Contributed extension not found", extension);
+        return extension;
+    }
+
+    private static void remove(IExtension extension) throws Exception {
+        IExtensionRegistry registry = Platform.getExtensionRegistry();
+        assertTrue("Could not remove contributed extension", registry.removeExtension(extension, getUserToken(registry)));
+    }
+
+    /**
+     * The token that allows contributions to the platform's extension registry at runtime
+     */
+    private static Object getUserToken(IExtensionRegistry registry) throws Exception {
+        return registry.getClass().getMethod("getTemporaryUserToken").invoke(registry);
+    }
+}
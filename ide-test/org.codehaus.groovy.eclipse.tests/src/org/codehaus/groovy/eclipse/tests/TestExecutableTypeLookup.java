@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.tests;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExecutableExtension;
+
+/**
+ * A {@link TestTypeLookup} that remembers the initialization data it was created with, which it only gets when it is created
+ * through the extension registry
+ */
+public class TestExecutableTypeLookup extends TestTypeLookup implements IExecutableExtension {
+
+    public Object initializationData;
+
+    public void setInitializationData(IConfigurationElement config, String propertyName, Object data) {
+        this.initializationData = data;
+    }
+}
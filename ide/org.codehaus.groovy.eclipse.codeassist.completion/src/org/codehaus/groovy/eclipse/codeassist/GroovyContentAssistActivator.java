@@ -33,6 +33,14 @@ public class GroovyContentAssistActivator extends AbstractUIPlugin {
 
     public static final String FILTERED_DGMS = PLUGIN_ID + ".filtereddgms";
 
+    /**
+     * The time in milliseconds that content assist may take, including waiting for the module node and inferring types,
+     * before it settles for less precise proposals
+     */
+    public static final String INFERENCING_BUDGET = PLUGIN_ID + ".inferencingbudget";
+
+    public static final int DEFAULT_INFERENCING_BUDGET = 1000;
+
     private static GroovyContentAssistActivator plugin;
 
     public GroovyContentAssistActivator() {
@@ -46,6 +54,7 @@ public class GroovyContentAssistActivator extends AbstractUIPlugin {
 	@Override
     public void start(BundleContext context) throws Exception {
 		super.start(context);
+		getPreferenceStore().setDefault(INFERENCING_BUDGET, DEFAULT_INFERENCING_BUDGET);
 	}
 
 	/*
@@ -83,6 +92,10 @@ public class GroovyContentAssistActivator extends AbstractUIPlugin {
 	    return filteredSet;
 	}
 
+	public int getInferencingBudget() {
+	    return getPreferenceStore().getInt(INFERENCING_BUDGET);
+	}
+
 	public void setFilteredDGMs(Set<String> filteredSet) {
 	    StringBuilder sb = new StringBuilder();
 	    for (String s : filteredSet) {
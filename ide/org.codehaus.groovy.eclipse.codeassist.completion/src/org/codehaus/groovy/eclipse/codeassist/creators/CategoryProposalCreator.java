@@ -32,6 +32,7 @@ import org.codehaus.groovy.eclipse.codeassist.preferences.DGMProposalFilter;
 import org.codehaus.groovy.eclipse.codeassist.proposals.GroovyCategoryMethodProposal;
 import org.codehaus.groovy.eclipse.codeassist.proposals.GroovyFieldProposal;
 import org.codehaus.groovy.eclipse.codeassist.proposals.IGroovyProposal;
+import org.eclipse.jdt.groovy.search.CategoryMethodIndex;
 import org.eclipse.jdt.groovy.search.VariableScope;
 
 /**
@@ -58,9 +59,10 @@ public class CategoryProposalCreator extends AbstractProposalCreator {
         Set<String> existingFieldProposals = new HashSet<String>();
         Map<String, List<MethodNode>> existingMethodProposals = new HashMap<String, List<MethodNode>>();
         for (ClassNode category : categories) {
-            List<MethodNode> allMethods = category.getAllDeclaredMethods();
-            boolean isDGMCategory = isDGMCategory(category);
-            for (MethodNode method : allMethods) {
+            // the default categories are indexed once and shared with type inferencing
+            CategoryMethodIndex index = CategoryMethodIndex.forCategory(category);
+            boolean isDGMCategory = index.isDefaultCategory() || isDGMCategory(category);
+            for (MethodNode method : index.getPublicStaticMethods()) {
                 // Check for DGMs filtered from preferences
                 if (isDGMCategory && filter.isFiltered(method)) {
                     continue;
@@ -68,31 +70,28 @@ public class CategoryProposalCreator extends AbstractProposalCreator {
                 // need to check if the method is being accessed directly
                 // or as a property (eg- getText() --> text)
                 String methodName = method.getName();
-                if (method.isStatic() && method.isPublic()) {
-                    Parameter[] params = method.getParameters();
-                    if (ProposalUtils.looselyMatches(prefix, methodName)) {
-                        if (params != null && params.length > 0 && set.contains(params[0].getType().getName())
-                                && !dupMethod(method, existingMethodProposals)) {
-                            GroovyCategoryMethodProposal methodProposal = new GroovyCategoryMethodProposal(method);
-                            methodProposal.setRelevanceMultiplier(isInterestingType(method.getReturnType()) ? 101 : 1);
-                            groovyProposals.add(methodProposal);
-                            List<MethodNode> methodList = existingMethodProposals.get(methodName);
-                            if (methodList == null) {
-                                methodList = new ArrayList<MethodNode>(2);
-                                existingMethodProposals.put(methodName, methodList);
-                            }
-                            methodList.add(method);
+                Parameter[] params = method.getParameters();
+                if (ProposalUtils.looselyMatches(prefix, methodName)) {
+                    if (params != null && params.length > 0 && set.contains(params[0].getType().getName())
+                            && !dupMethod(method, existingMethodProposals)) {
+                        GroovyCategoryMethodProposal methodProposal = new GroovyCategoryMethodProposal(method);
+                        methodProposal.setRelevanceMultiplier(isInterestingType(method.getReturnType()) ? 101 : 1);
+                        groovyProposals.add(methodProposal);
+                        List<MethodNode> methodList = existingMethodProposals.get(methodName);
+                        if (methodList == null) {
+                            methodList = new ArrayList<MethodNode>(2);
+                            existingMethodProposals.put(methodName, methodList);
                         }
-                    } else if (params.length == 1
-                            && findLooselyMatchedAccessorKind(prefix, methodName, true).isAccessorKind(method, true)
-                            && !existingFieldProposals.contains(methodName) && hasNoField(declaringClass, methodName)) {
-                        // add property variant of accessor name
-                        GroovyFieldProposal fieldProposal = new GroovyFieldProposal(createMockField(method));
-                        fieldProposal.setRelevanceMultiplier(1);
-                        groovyProposals.add(fieldProposal);
-                        existingFieldProposals.add(methodName);
+                        methodList.add(method);
                     }
-
+                } else if (params.length == 1
+                        && findLooselyMatchedAccessorKind(prefix, methodName, true).isAccessorKind(method, true)
+                        && !existingFieldProposals.contains(methodName) && hasNoField(declaringClass, methodName)) {
+                    // add property variant of accessor name
+                    GroovyFieldProposal fieldProposal = new GroovyFieldProposal(createMockField(method));
+                    fieldProposal.setRelevanceMultiplier(1);
+                    groovyProposals.add(fieldProposal);
+                    existingFieldProposals.add(methodName);
                 }
             }
         }
@@ -10,6 +10,7 @@ import org.eclipse.jdt.internal.corext.util.JavaConventionsUtil;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.IInputValidator;
 import org.eclipse.jface.dialogs.InputDialog;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.ListEditor;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
@@ -175,6 +176,11 @@ public class ContentAssistPreferencesPage extends FieldEditorOverlayPage impleme
     protected void createFieldEditors() {
         addField(new CompletionFilterListEditor("Filtered DGMs",
                 "Configure which DefaultGroovyMethods will be filtered from content asist.", getFieldEditorParent()));
+        IntegerFieldEditor budget = new IntegerFieldEditor(GroovyContentAssistActivator.INFERENCING_BUDGET,
+                "Maximum time (ms) for content assist before proposals become less precise (0 for no limit):",
+                getFieldEditorParent());
+        budget.setValidRange(0, 60000);
+        addField(budget);
     }
 
     public void init(IWorkbench workbench) {}
@@ -342,7 +342,10 @@ public class StatementAndExpressionCompletionProcessor extends
 
         // if completion node is null, then it is likely because of a syntax error
         if (completionNode != null) {
-            visitor.visitCompilationUnit(requestor);
+            // only infer what the completion node depends on, and no longer than the user is willing to wait
+            int start = completionNode.getEnd() > 0 ? completionNode.getStart() : context.completionLocation;
+            int end = completionNode.getEnd() > 0 ? completionNode.getEnd() : context.completionLocation;
+            visitor.visitTargetedUntil(requestor, start, end, context.deadline, monitor);
         }
         ClassNode completionType;
         boolean isStatic;
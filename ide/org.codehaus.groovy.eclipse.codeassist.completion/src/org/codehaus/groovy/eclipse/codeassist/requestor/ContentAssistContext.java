@@ -100,6 +100,12 @@ public class ContentAssistContext {
      */
     public VariableScope currentScope;
 
+    /**
+     * The {@link System#nanoTime()} by which this assist invocation should be done computing proposals,
+     * or {@link Long#MAX_VALUE} if there is no limit
+     */
+    public long deadline = Long.MAX_VALUE;
+
     public ContentAssistContext(int completionLocation,
     		String completionExpression, String fullCompletionExpression, ASTNode completionNode,
  ASTNode containingCodeBlock,
@@ -9,6 +9,7 @@ import java.util.Map;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.codeassist.DocumentSourceBuffer;
+import org.codehaus.groovy.eclipse.codeassist.GroovyContentAssistActivator;
 import org.codehaus.groovy.eclipse.codeassist.factories.ConstructorCompletionProcessorFactory;
 import org.codehaus.groovy.eclipse.codeassist.factories.ExpressionCompletionProcessorFactory;
 import org.codehaus.groovy.eclipse.codeassist.factories.IGroovyCompletionProcessorFactory;
@@ -132,6 +133,8 @@ public class GroovyCompletionProposalComputer implements
 
         GroovyCompilationUnit gunit = (GroovyCompilationUnit) unit;
 
+        // the budget starts now, so that waiting for the module node is charged to it as well
+        long deadline = getDeadline();
         ModuleNodeInfo moduleInfo = gunit.getModuleInfo(false);
         if (moduleInfo == null) {
             if (GroovyLogManager.manager.hasLoggers()) {
@@ -145,12 +148,27 @@ public class GroovyCompletionProposalComputer implements
         ContentAssistContext assistContext = createContentAssistContext(gunit, context.getInvocationOffset(), document);
         List<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>();
         if (assistContext != null) {
+            assistContext.deadline = deadline;
             List<IGroovyCompletionProcessorFactory> factories = locationFactoryMap.get(assistContext.location);
             if (factories != null) {
                 SearchableEnvironment nameEnvironment = createSearchableEnvironment(javaContext);
 
                 try {
+                    boolean first = true;
                     for (IGroovyCompletionProcessorFactory factory : factories) {
+                        if (monitor != null && monitor.isCanceled()) {
+                            break;
+                        }
+                        // always run the first processor, which settles for less precise proposals when out of time,
+                        // but skip the rest once the budget is spent
+                        if (!first && System.nanoTime() > deadline) {
+                            if (GroovyLogManager.manager.hasLoggers()) {
+                                GroovyLogManager.manager.log(TraceCategory.CONTENT_ASSIST,
+                                        "Out of time, skipping remaining completion processors for " + gunit.getElementName());
+                            }
+                            break;
+                        }
+                        first = false;
                         IGroovyCompletionProcessor processor = factory
                                 .createProcessor(assistContext, javaContext,
                                         nameEnvironment);
@@ -195,6 +213,15 @@ public class GroovyCompletionProposalComputer implements
         return proposals;
     }
 
+    /**
+     * @return the {@link System#nanoTime()} by which content assist should be done, as configured in the preferences
+     */
+    private long getDeadline() {
+        GroovyContentAssistActivator activator = GroovyContentAssistActivator.getDefault();
+        int budget = activator != null ? activator.getInferencingBudget() : 0;
+        return budget > 0 ? System.nanoTime() + budget * 1000000L : Long.MAX_VALUE;
+    }
+
     /**
      * Make public to allow for testing
      *
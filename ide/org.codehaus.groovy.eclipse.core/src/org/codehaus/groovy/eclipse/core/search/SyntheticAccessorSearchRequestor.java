@@ -366,6 +366,10 @@ public class SyntheticAccessorSearchRequestor {
         engine.search(pattern, participants, scope, requestor, monitor);
     }
 
+    /**
+     * All the accessor variants are or'ed into a single pattern so that they are found with
+     * one search, and the Groovy files are checked for all of them in one walk of their AST.
+     */
     private SearchPattern createPattern(IJavaElement element) throws JavaModelException {
         List<IJavaElement> toSearch = new ArrayList<IJavaElement>(4);
         toSearch.add(findSyntheticMember(element, "is"));
@@ -28,6 +28,7 @@ import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IStorage;
+import org.eclipse.jdt.groovy.search.InferenceResultStore;
 import org.eclipse.jdt.internal.core.NonJavaResource;
 
 /**
@@ -60,6 +61,8 @@ public class DSLDStore {
             keyContextMap.put(identifier, pointcuts);
         }
         pointcuts.add(pointcut);
+        // inference results stored so far do not know about the new contribution
+        InferenceResultStore.flushAll();
     }
     
     
@@ -73,11 +76,13 @@ public class DSLDStore {
                 pointcutContributionMap.remove(pointcut);
             }
         }
+        InferenceResultStore.flushAll();
     }
     
     public void purgeAll() {
         keyContextMap.clear();
         pointcutContributionMap.clear();
+        InferenceResultStore.flushAll();
     }
 
     /**
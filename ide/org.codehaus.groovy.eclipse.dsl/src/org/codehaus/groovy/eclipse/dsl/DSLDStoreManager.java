@@ -17,6 +17,7 @@ import java.util.Map;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.groovy.search.InferenceResultStore;
 
 /**
  * Singleton class that holds the {@link DSLDStore}s for all Groovy projects
@@ -49,14 +50,17 @@ public class DSLDStoreManager {
     
     public void clearDSLDStore(IProject project) {
         projectDSLDMap.remove(project.getName());
+        InferenceResultStore.flushAll();
     }
     
     public void clearDSLDStore(IJavaProject project) {
         projectDSLDMap.remove(project.getElementName());
+        InferenceResultStore.flushAll();
     }
     
     public void reset() {
         projectDSLDMap.clear();
+        InferenceResultStore.flushAll();
     }
 
     public boolean hasDSLDStoreFor(IProject project) {
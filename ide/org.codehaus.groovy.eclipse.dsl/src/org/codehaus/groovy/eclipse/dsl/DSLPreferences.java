@@ -19,6 +19,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.groovy.search.InferenceResultStore;
 
 /**
  * Manipulator of all preferences for DSLD settings
@@ -68,6 +69,8 @@ public class DSLPreferences {
     public static void setDisabledScripts(String[] disabled) {
         String[] filtered = filter(disabled);
         GroovyDSLCoreActivator.getDefault().getPreferenceStore().putValue(DISABLED_SCRIPTS, join(filtered));
+        // results inferred with the previously enabled scripts must not be reused
+        InferenceResultStore.flushAll();
     }
 
     private static String join(String[] filtered) {
@@ -22,6 +22,8 @@ import java.util.GregorianCalendar;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.IGroovyLogger;
 import org.codehaus.groovy.eclipse.TraceCategory;
+import org.eclipse.jdt.groovy.search.TypeLookupStatistics;
+import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IToolBarManager;
 import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.widgets.Composite;
@@ -46,6 +48,8 @@ public class GroovyConsolePage extends TextConsolePage implements IGroovyLogger
 
     private CloseConsoleAction fCloseConsoleAction;
 
+    private Action fDumpLookupStatisticsAction;
+
     public GroovyConsolePage(TextConsole console, IConsoleView view) {
         super(console, view);
     }
@@ -115,6 +119,7 @@ public class GroovyConsolePage extends TextConsolePage implements IGroovyLogger
             fScrollLockAction = null;
         }
         fCloseConsoleAction = null;
+        fDumpLookupStatisticsAction = null;
         GroovyLogManager.manager.removeLogger(this);
     }
 
@@ -130,6 +135,12 @@ public class GroovyConsolePage extends TextConsolePage implements IGroovyLogger
         super.createActions();
         fScrollLockAction = new ScrollLockAction(getConsoleView());
         fCloseConsoleAction = new CloseConsoleAction(getConsole());
+        fDumpLookupStatisticsAction = new Action("Dump type lookup statistics") {
+            @Override
+            public void run() {
+                dumpLookupStatistics();
+            }
+        };
         setAutoScroll(!fScrollLockAction.isChecked());
     }
 
@@ -144,6 +155,22 @@ public class GroovyConsolePage extends TextConsolePage implements IGroovyLogger
     protected void configureToolBar(IToolBarManager mgr) {
         super.configureToolBar(mgr);
         mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP, fScrollLockAction);
+        mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP, fDumpLookupStatisticsAction);
         mgr.appendToGroup(IConsoleConstants.LAUNCH_GROUP, fCloseConsoleAction);
     }
+
+    /**
+     * Logs how much time inferencing has spent in each type lookup. Statistics are only collected once asked for, so the first
+     * dump switches collecting on.
+     */
+    protected void dumpLookupStatistics() {
+        if (!TypeLookupStatistics.isEnabled()) {
+            TypeLookupStatistics.setEnabled(true);
+            log(TraceCategory.DEFAULT, "Collecting type lookup statistics from now on, dump again to see them");
+            return;
+        }
+        for (String line : TypeLookupStatistics.dump().split("\n")) {
+            log(TraceCategory.DEFAULT, line);
+        }
+    }
 }
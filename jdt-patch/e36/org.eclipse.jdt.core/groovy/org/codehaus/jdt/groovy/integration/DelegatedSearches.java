@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.integration;
+
+import org.eclipse.jdt.internal.core.search.matching.PossibleMatch;
+
+/**
+ * The delegated searches of several possible matches, started at once by {@link LanguageSupport#startDelegatedSearches}.
+ * Their results are held back until they are reported, so that the match locator can report them in the order of the
+ * possible matches, interleaved with the matches it finds in Java files.
+ */
+public interface DelegatedSearches {
+
+	/**
+	 * Waits for the search of the possible match to finish and sends its results to the search requestor.
+	 * @return true iff the search of the possible match was performed; false if it was not one of the started
+	 * searches or if it failed, in which case it should be searched with
+	 * {@link LanguageSupport#maybePerformDelegatedSearch} as usual
+	 */
+	boolean report(PossibleMatch possibleMatch);
+
+	/**
+	 * Cancels the searches that have not been reported.
+	 */
+	void dispose();
+
+}
@@ -468,6 +468,8 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 //				System.out.println(sourceUnits[u].getFileName());
 //			}
 		}
+		// give the parser a chance to get ahead with the whole batch of source units
+		this.parser.prepareToParse(sourceUnits);
 		// GROOVY end
 		CompilationUnitDeclaration unit = null;
 		ProcessTaskManager processingTask = null;
@@ -915,10 +917,10 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 	}
 
 	public void reset() {
-		this.lookupEnvironment.reset();
-		// GROOVY start: give the parser a chance to reset as well
+		// GROOVY start: give the parser a chance to reset as well, while the bindings of the compilation are still intact
 		this.parser.reset();
 		// GROOVY end
+		this.lookupEnvironment.reset();
 		this.parser.scanner.source = null;
 		this.unitsToProcess = null;
 		if (DebugRequestor != null) DebugRequestor.reset();
@@ -10982,4 +10982,9 @@ public void reset() {
 	// standard Java parser, nothing to do
 }
 // GROOVY end
+// GROOVY start: new method called by the compiler with all the source units it is about to parse
+public void prepareToParse(ICompilationUnit[] sourceUnits) {
+	// standard Java parser, nothing to do
+}
+// GROOVY end
 }
@@ -12,6 +12,7 @@
 package org.codehaus.jdt.groovy.integration;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchPattern;
@@ -101,6 +102,11 @@ class DefaultLanguageSupport implements LanguageSupport {
 		return false;
 	}
 
+	public DelegatedSearches startDelegatedSearches(PossibleMatch[] possibleMatches, SearchPattern pattern,
+			SearchRequestor requestor, IProgressMonitor monitor) {
+		return null;
+	}
+
 	public EventHandler getEventHandler() {
 		return DefaultEventHandler.instance;
 	}
@@ -12,6 +12,7 @@
 package org.codehaus.jdt.groovy.integration;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchPattern;
@@ -102,6 +103,21 @@ public interface LanguageSupport {
 	 */
 	boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor);
 
+	/**
+	 * Maybe start the searches for several possible matches at once using special language support, for
+	 * example concurrently. Nothing is sent to the SearchRequestor until the results of a possible match are
+	 * reported with {@link DelegatedSearches#report(PossibleMatch)}, so they can be reported in order.
+	 * @param possibleMatches the possible matches to look for, all of them interesting source files
+	 * @param pattern
+	 * @param requestor the requestor to send any completed search results to
+	 * @param monitor the progress monitor of the search, may be null
+	 * @return the started searches, which must be disposed of; or null if no search was started
+	 * and {@link #maybePerformDelegatedSearch(PossibleMatch, SearchPattern, SearchRequestor)} should be called
+	 * for each possible match instead
+	 */
+	DelegatedSearches startDelegatedSearches(PossibleMatch[] possibleMatches, SearchPattern pattern, SearchRequestor requestor,
+			IProgressMonitor monitor);
+
 	EventHandler getEventHandler();
 
 	void filterNonSourceMembers(BinaryType binaryType);
@@ -105,6 +105,11 @@ public void addSource(IFile resource, IPath containerPath, SourceElementParser p
 	SearchParticipant participant = SearchEngine.getDefaultSearchParticipant();
 	SearchDocument document = participant.getDocument(resource.getFullPath().toString());
 	document.setParser(parser);
+	// GROOVY start
+	if (parser instanceof IndexingParser) {
+		((IndexingParser) parser).documentScheduled(document);
+	}
+	// GROOVY end
 	IPath indexLocation = computeIndexLocation(containerPath);
 	scheduleDocumentIndexing(document, containerPath, indexLocation, participant);
 }
@@ -9,8 +9,10 @@
  *     IBM Corporation - initial API and implementation
  *******************************************************************************/
 package org.eclipse.jdt.internal.core.search.indexing;
+// GROOVY PATCHED
 
 import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.search.SearchDocument;
 import org.eclipse.jdt.internal.compiler.IProblemFactory;
 import org.eclipse.jdt.internal.compiler.ISourceElementRequestor;
 import org.eclipse.jdt.internal.compiler.SourceElementParser;
@@ -62,4 +64,14 @@ public class IndexingParser extends SourceElementParser {
 		ref.sourceEnd = sourceEnd;
 		return ref;
 	}
+
+	// GROOVY start
+	/**
+	 * Called when a document has been scheduled for indexing with this parser, before the indexing thread gets to it.
+	 * Parsers may use this to start work on the document early; by default nothing happens.
+	 */
+	public void documentScheduled(SearchDocument document) {
+		// nothing to do
+	}
+	// GROOVY end
 }
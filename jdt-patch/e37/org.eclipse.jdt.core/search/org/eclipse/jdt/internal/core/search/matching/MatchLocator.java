@@ -19,6 +19,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.zip.ZipFile;
 
+import org.codehaus.jdt.groovy.integration.DelegatedSearches;
 import org.codehaus.jdt.groovy.integration.LanguageSupportFactory;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.*;
@@ -1012,6 +1013,21 @@ protected void locateMatches(JavaProject javaProject, PossibleMatch[] possibleMa
 	// GROOVY start
 	boolean isInterestingProject = LanguageSupportFactory.isInterestingProject(javaProject.getProject());
 	Set alreadyMatched = new HashSet();
+	// the delegated searches of the whole batch, started at once and reported one by one in the loop below,
+	// so that their matches come in the order of the possible matches, between those of the Java files
+	DelegatedSearches delegatedSearches = null;
+	if (isInterestingProject) {
+		ArrayList interesting = new ArrayList();
+		for (int i = start, maxUnits = start + length; i < maxUnits; i++) {
+			if (LanguageSupportFactory.isInterestingSourceFile(possibleMatches[i].document.getPath())) {
+				interesting.add(possibleMatches[i]);
+			}
+		}
+		if (interesting.size() > 1) {
+			PossibleMatch[] batch = (PossibleMatch[]) interesting.toArray(new PossibleMatch[interesting.size()]);
+			delegatedSearches = LanguageSupportFactory.startDelegatedSearches(batch, this.pattern, this.requestor, this.progressMonitor);
+		}
+	}
 	// GROOVY end
 
 	
@@ -1025,7 +1041,8 @@ protected void locateMatches(JavaProject javaProject, PossibleMatch[] possibleMa
 			PossibleMatch possibleMatch = possibleMatches[i];
 			// GROOVY start
 			if (isInterestingProject && LanguageSupportFactory.isInterestingSourceFile(possibleMatch.document.getPath())) {
-				boolean matchPerformed = LanguageSupportFactory.maybePerformDelegatedSearch(possibleMatch, this.pattern, this.requestor);
+				boolean matchPerformed = (delegatedSearches != null && delegatedSearches.report(possibleMatch))
+						|| LanguageSupportFactory.maybePerformDelegatedSearch(possibleMatch, this.pattern, this.requestor);
 				if (matchPerformed) {
 					alreadyMatched.add(possibleMatch);
 				}
@@ -1084,6 +1101,13 @@ protected void locateMatches(JavaProject javaProject, PossibleMatch[] possibleMa
 	} catch (AbortCompilation e) {
 		bindingsWereCreated = false;
 	}
+	// GROOVY start
+	finally {
+		if (delegatedSearches != null) {
+			delegatedSearches.dispose();
+		}
+	}
+	// GROOVY end
 
 	if (!mustResolve) {
 		return;
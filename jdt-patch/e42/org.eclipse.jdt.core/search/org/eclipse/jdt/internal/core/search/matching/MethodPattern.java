@@ -58,11 +58,32 @@ public final static int FINE_GRAIN_MASK =
 	IJavaSearchConstants.THIS_REFERENCE |
 	IJavaSearchConstants.IMPLICIT_THIS_REFERENCE;
 
+// GROOVY start
+/**
+ * The arity of method references whose number of arguments is not known, like the references the Groovy token indexer finds
+ * in command expressions. They are indexed as 'foo/*', which every method pattern with a matching selector matches.
+ */
+public static final int ANY_ARITY = -2;
+private static final char[] ANY_ARITY_SUFFIX = new char[] { SEPARATOR, '*' };
+/**
+ * Whether the indexes may hold references of {@link #ANY_ARITY}. Only the Groovy token indexer writes them, so searches only
+ * look for them when it is on (system property <code>greclipse.indexing.lexer</code>).
+ */
+private static volatile boolean anyArityReferences = System.getProperty("greclipse.indexing.lexer") != null; //$NON-NLS-1$
+public static void setAnyArityReferences(boolean value) {
+	anyArityReferences = value;
+}
+// GROOVY end
+
 /**
  * Method entries are encoded as selector '/' Arity:
  * e.g. 'foo/0'
  */
 public static char[] createIndexKey(char[] selector, int argCount) {
+	// GROOVY start
+	if (argCount == ANY_ARITY)
+		return CharOperation.concat(selector, ANY_ARITY_SUFFIX);
+	// GROOVY end
 	char[] countChars = argCount < 10
 		? COUNTS[argCount]
 		: ("/" + String.valueOf(argCount)).toCharArray(); //$NON-NLS-1$
@@ -258,6 +279,13 @@ public MethodPattern(
 }
 public void decodeIndexKey(char[] key) {
 	int last = key.length - 1;
+	// GROOVY start
+	if (last > 0 && key[last] == '*' && key[last - 1] == SEPARATOR) {
+		System.arraycopy(key, 0, this.selector = new char[last - 1], 0, last - 1);
+		this.parameterCount = ANY_ARITY;
+		return;
+	}
+	// GROOVY end
 	this.parameterCount = 0;
 	this.selector = null;
 	int power = 1;
@@ -296,8 +324,15 @@ public boolean isPolymorphicSearch() {
 public boolean matchesDecodedKey(SearchPattern decodedPattern) {
 	MethodPattern pattern = (MethodPattern) decodedPattern;
 
+	// GROOVY start
+	/* old {
 	return (this.parameterCount == pattern.parameterCount || this.parameterCount == -1 || this.varargs)
 		&& matchesName(this.selector, pattern.selector);
+	} new */
+	return (this.parameterCount == pattern.parameterCount || this.parameterCount == -1 || this.varargs
+			|| pattern.parameterCount == ANY_ARITY)
+		&& matchesName(this.selector, pattern.selector);
+	// GROOVY end
 }
 /**
  * Returns whether a method declaration or message send must be resolved to
@@ -324,8 +359,19 @@ public EntryResult[] queryIn(Index index) throws IOException {
 
 	switch(getMatchMode()) {
 		case R_EXACT_MATCH :
+			// GROOVY start
+			/* old {
 			if (this.selector != null && this.parameterCount >= 0 && !this.varargs)
 				key = createIndexKey(this.selector, this.parameterCount);
+			} new */
+			if (this.selector != null && this.parameterCount >= 0 && !this.varargs) {
+				key = createIndexKey(this.selector, this.parameterCount);
+				// also find the references whose arity is not known
+				if (anyArityReferences)
+					return concat(index.query(getIndexCategories(), key, matchRule),
+							index.query(getIndexCategories(), createIndexKey(this.selector, ANY_ARITY), matchRule));
+			}
+			// GROOVY end
 			else { // do a prefix query with the selector
 				matchRule &= ~R_EXACT_MATCH;
 				matchRule |= R_PREFIX_MATCH;
@@ -335,7 +381,13 @@ public EntryResult[] queryIn(Index index) throws IOException {
 			// do a prefix query with the selector
 			break;
 		case R_PATTERN_MATCH :
+			// GROOVY start
+			// with the token indexer on, a key with the arity would miss the references of ANY_ARITY, so leave it to matchesDecodedKey
+			/* old {
 			if (this.parameterCount >= 0 && !this.varargs)
+			} new */
+			if (this.parameterCount >= 0 && !this.varargs && !anyArityReferences)
+			// GROOVY end
 				key = createIndexKey(this.selector == null ? ONE_STAR : this.selector, this.parameterCount);
 			else if (this.selector != null && this.selector[this.selector.length - 1] != '*')
 				key = CharOperation.concat(this.selector, ONE_STAR, SEPARATOR);
@@ -352,6 +404,16 @@ public EntryResult[] queryIn(Index index) throws IOException {
 
 	return index.query(getIndexCategories(), key, matchRule); // match rule is irrelevant when the key is null
 }
+// GROOVY start
+private static EntryResult[] concat(EntryResult[] first, EntryResult[] second) {
+	if (first == null) return second;
+	if (second == null) return first;
+	EntryResult[] all = new EntryResult[first.length + second.length];
+	System.arraycopy(first, 0, all, 0, first.length);
+	System.arraycopy(second, 0, all, first.length, second.length);
+	return all;
+}
+// GROOVY end
 protected StringBuffer print(StringBuffer output) {
 	if (this.findDeclarations) {
 		output.append(this.findReferences